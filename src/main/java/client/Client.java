@@ -2,9 +2,9 @@ package client;
 
 import it.polimi.ingsw.cg_19.GameMap;
 
+import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
-import java.net.Socket;
 import java.rmi.NotBoundException;
 import java.rmi.RemoteException;
 import java.util.ArrayList;
@@ -15,6 +15,7 @@ import java.util.logging.Handler;
 import java.util.logging.Level;
 
 import common.Action;
+import common.CompiledMap;
 import common.AttackObjectCard;
 import common.Coordinate;
 import common.DefenseObjectCard;
@@ -23,6 +24,9 @@ import common.EndTurnAction;
 import common.GamePublicData;
 import common.GlobalNoiseSectorCard;
 import common.LightsObjectCard;
+import common.LobbyDelta;
+import common.LobbyPage;
+import common.LobbyQuery;
 import common.MoveAction;
 import common.MoveAttackAction;
 import common.ObjectCard;
@@ -76,17 +80,20 @@ public class Client extends Observable {
 	// A flag that indicates if the player has asked to attack
 	private volatile boolean askAttack;
 	private volatile boolean isDead;
-	/*
-	 * A thread that handles async server notification in the logic of the
-	 * pub/sub pattern
-	 */
-	private PubSubHandler pubSubHandler;
 	// The games the client could join
 	private ArrayList<GamePublicData> availableGames;
+	// The last page of games received
+	private volatile LobbyPage gamesPage;
+	// The observer of the lobby, null if the client is not subscribed
+	private volatile LobbyListener lobbyListener;
 	// A flag that if the player hasEscaped
 	private volatile boolean hasEscaped;
 	// File handler for the logger
 	private Handler fileHandler;
+	// The cache of the compiled game maps
+	private volatile MapCache mapCache;
+	// The last compiled map received from the server
+	private volatile CompiledMap compiledMap;
 
 	/**
 	 * Constructs a client from its connection details. The services the client
@@ -103,9 +110,11 @@ public class Client extends Observable {
 	public Client(ClientConnection connection) {
 		try {
 			this.connection = connection;
-			this.clientServices = new ClientRemoteServices(this);
+			this.clientServices = new ClientRemoteServices(this,
+					connection.getRmiSocketFactory());
 			this.comSession = new ComSession(this);
 			this.isGameStarted = false;
+			this.mapCache = new MapCache(new File(MapCache.DEFAULT_DIRECTORY));
 			this.fileHandler = new FileHandler("clientLog.log");
 			ClientLogger.getLogger().addHandler(fileHandler);
 			this.fileHandler.setLevel(Level.ALL);
@@ -308,24 +317,6 @@ public class Client extends Observable {
 		}
 	}
 
-	/**
-	 * Constructs and starts a thread that handles async notifications from the
-	 * server in the context of the pub/sub pattern
-	 *
-	 * @see PubSubHandler
-	 * @param inputStream
-	 *            the input stream from which the async notifications come
-	 * @param clientServices
-	 *            the services the client offers to the server to exchange data,
-	 *            in this case just notification related services will be used
-	 * @throws IOException
-	 */
-	public void startPubSub(Socket socket, ClientRemoteServices clientServices)
-			throws IOException {
-		this.pubSubHandler = new PubSubHandler(socket, clientServices);
-		pubSubHandler.start();
-	}
-
 	/**
 	 * Gets the notification the client has received by the server in response
 	 * to a request
@@ -356,13 +347,71 @@ public class Client extends Observable {
 	}
 
 	/**
-	 * Sets the games the client could join
+	 * Sets the games the client could join. If the client is subscribed to the
+	 * lobby, the observer of the lobby receives the games as well
 	 * 
 	 * @param avGames
 	 *            the new games the client could join
 	 */
 	public void setAvailableGames(ArrayList<GamePublicData> avGames) {
 		this.availableGames = avGames;
+		LobbyListener listener = lobbyListener;
+		if (listener != null) {
+			listener.gamesLoaded(avGames);
+		}
+	}
+
+	/**
+	 * Sets the last page of games the client could join
+	 * 
+	 * @param page
+	 *            the page of games received from the server
+	 */
+	public void setGamesPage(LobbyPage page) {
+		this.gamesPage = page;
+	}
+
+	/**
+	 * Gets the cache of the compiled game maps
+	 * 
+	 * @return the cache of the compiled game maps
+	 */
+	public MapCache getMapCache() {
+		return mapCache;
+	}
+
+	/**
+	 * Sets the cache of the compiled game maps
+	 * 
+	 * @param mapCache
+	 *            the new cache of the compiled game maps
+	 */
+	public void setMapCache(MapCache mapCache) {
+		this.mapCache = mapCache;
+	}
+
+	/**
+	 * Sets the last compiled map received from the server
+	 * 
+	 * @param compiledMap
+	 *            the compiled map, null if the server had no such map
+	 */
+	public void setCompiledMap(CompiledMap compiledMap) {
+		this.compiledMap = compiledMap;
+	}
+
+	/**
+	 * Applies a change of the games the client could join, pushed by the
+	 * server to the client subscribed to the lobby
+	 * 
+	 * @param delta
+	 *            the change of the games the client could join
+	 */
+	public void updateLobby(LobbyDelta delta) {
+		LobbyListener listener = lobbyListener;
+		if (listener != null) {
+			listener.lobbyChanged(delta);
+		}
 	}
 
 	/**
@@ -399,7 +448,7 @@ public class Client extends Observable {
 		Sector targetSector = this.getGameMap().getSectorByCoords(coordinate);
 		if (targetSector != null) {
 			ArrayList<Object> parameters = new ArrayList<Object>();
-			Action action = new MoveAction(targetSector);
+			Action action = new MoveAction(coordinate);
 			parameters.add(action);
 			parameters.add(this.getToken());
 			this.comSession.start("makeAction", parameters);
@@ -611,6 +660,126 @@ public class Client extends Observable {
 
 	}
 
+	/**
+	 * Processes the request of a page of the available games by the client.
+	 * This processing consists in a remote method call to the server, that
+	 * filters the games on its side and sends only the requested page
+	 * 
+	 * @param query
+	 *            the filters and the bounds of the page
+	 * @return the page of games
+	 * @throws IllegalAccessException
+	 *             signals a com. error
+	 * @throws InvocationTargetException
+	 *             signals a com. error
+	 * @throws NoSuchMethodException
+	 *             signals a com. error
+	 * @throws ClassNotFoundException
+	 *             signals a com. error
+	 * @throws IOException
+	 *             signals a com. error
+	 * @throws NotBoundException
+	 *             signals a com. error
+	 */
+	public LobbyPage findGames(LobbyQuery query)
+			throws IllegalAccessException, InvocationTargetException,
+			NoSuchMethodException, ClassNotFoundException, IOException,
+			NotBoundException {
+		ArrayList<Object> parameters = new ArrayList<Object>();
+		parameters.add(query);
+		this.comSession.start("findGames", parameters);
+		return this.gamesPage;
+	}
+
+	/**
+	 * Processes the request of a compiled game map by the client. This
+	 * processing consists in a remote method call to the server; the map
+	 * received is stored in the client's cache
+	 * 
+	 * @param hash
+	 *            the hash of the compiled map
+	 * @return the compiled map
+	 * @throws IllegalAccessException
+	 *             signals a com. error
+	 * @throws InvocationTargetException
+	 *             signals a com. error
+	 * @throws NoSuchMethodException
+	 *             signals a com. error
+	 * @throws ClassNotFoundException
+	 *             signals a com. error
+	 * @throws IOException
+	 *             signals a com. error, or that the server has no map with
+	 *             that hash
+	 * @throws NotBoundException
+	 *             signals a com. error
+	 */
+	public CompiledMap fetchMap(String hash) throws IllegalAccessException,
+			InvocationTargetException, NoSuchMethodException,
+			ClassNotFoundException, IOException, NotBoundException {
+		ArrayList<Object> parameters = new ArrayList<Object>();
+		parameters.add(hash);
+		this.comSession.start("getMap", parameters);
+		CompiledMap map = this.compiledMap;
+		if (map == null || !map.getHash().equals(hash)) {
+			throw new IOException("The server has no map " + hash);
+		}
+		this.mapCache.store(map);
+		return map;
+	}
+
+	/**
+	 * Processes the request of following the available games by the client.
+	 * This processing consists in a remote method call to the server, that
+	 * sends the list of all the available games to the given observer and then
+	 * only the changes of that list
+	 * 
+	 * @param listener
+	 *            the observer of the lobby
+	 * @throws IllegalAccessException
+	 *             signals a com. error
+	 * @throws InvocationTargetException
+	 *             signals a com. error
+	 * @throws NoSuchMethodException
+	 *             signals a com. error
+	 * @throws ClassNotFoundException
+	 *             signals a com. error
+	 * @throws IOException
+	 *             signals a com. error
+	 * @throws NotBoundException
+	 *             signals a com. error
+	 */
+	public void subscribeLobby(LobbyListener listener)
+			throws IllegalAccessException, InvocationTargetException,
+			NoSuchMethodException, ClassNotFoundException, IOException,
+			NotBoundException {
+		this.lobbyListener = listener;
+		this.comSession.start("subscribeLobby");
+	}
+
+	/**
+	 * Processes the request of no more following the available games by the
+	 * client. This processing consists in a remote method call to the server
+	 * 
+	 * @throws IllegalAccessException
+	 *             signals a com. error
+	 * @throws InvocationTargetException
+	 *             signals a com. error
+	 * @throws NoSuchMethodException
+	 *             signals a com. error
+	 * @throws ClassNotFoundException
+	 *             signals a com. error
+	 * @throws IOException
+	 *             signals a com. error
+	 * @throws NotBoundException
+	 *             signals a com. error
+	 */
+	public void unsubscribeLobby() throws IllegalAccessException,
+			InvocationTargetException, NoSuchMethodException,
+			ClassNotFoundException, IOException, NotBoundException {
+		this.lobbyListener = null;
+		this.comSession.start("unsubscribeLobby");
+	}
+
 	/**
 	 * Processes a global noise sector card effect resolution request by the
 	 * client. This processing consists in a remote method call to the server
@@ -648,7 +817,7 @@ public class Client extends Observable {
 		Sector targetSector = this.getGameMap().getSectorByCoords(coordinate);
 		if (targetSector != null) {
 			SectorCard globalNoiseCard = new GlobalNoiseSectorCard(hasObject,
-					targetSector);
+					coordinate);
 			ArrayList<Object> parameters = new ArrayList<Object>();
 			Action action = new UseSectorCardAction(globalNoiseCard);
 			parameters.add(action);
@@ -744,7 +913,7 @@ public class Client extends Observable {
 		Coordinate coordinate = new Coordinate(horCoord, vertCoord);
 		Sector targetSector = this.getGameMap().getSectorByCoords(coordinate);
 		if (targetSector != null) {
-			ObjectCard lightsCard = new LightsObjectCard(targetSector);
+			ObjectCard lightsCard = new LightsObjectCard(coordinate);
 			ArrayList<Object> parameters = new ArrayList<Object>();
 			Action action = new UseObjAction(lightsCard);
 			parameters.add(action);
@@ -857,13 +1026,13 @@ public class Client extends Observable {
 			ArrayList<Object> parameters = new ArrayList<Object>();
 			AttackObjectCard card = null;
 			if (humanAttack) {
-				card = new AttackObjectCard(targetSector);
+				card = new AttackObjectCard(coordinate);
 				Action action = new UseObjAction(card);
 				parameters.add(action);
 				parameters.add(this.getToken());
 				this.comSession.start("makeAction", parameters);
 			} else {
-				Action action = new MoveAttackAction(targetSector);
+				Action action = new MoveAttackAction(coordinate);
 				parameters.add(action);
 				parameters.add(this.getToken());
 				this.comSession.start("makeAction", parameters);
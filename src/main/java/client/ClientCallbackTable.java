@@ -0,0 +1,223 @@
+package client;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+
+import common.ClientNotification;
+import common.CompiledMap;
+import common.GamePublicData;
+import common.LobbyDelta;
+import common.LobbyPage;
+import common.PlayerToken;
+import common.RemoteMethodCall;
+import common.RemoteMethods;
+import common.RequestRejectedException;
+
+/**
+ * Represents the table of the methods the client offers to the server, indexed
+ * by their id. The table is used to invoke a remote method call on the
+ * client's services both when the call is received on a socket and when the
+ * server performs it on the client's rmi stub, with no reflection involved.
+ *
+ * @see ClientRemoteServicesInterface
+ * @see RemoteMethods
+ * @author Andrea Sessa
+ * @author Giorgio Pea
+ */
+public final class ClientCallbackTable {
+	// The methods offered by the client, indexed by their id
+	private static final Callback[] CALLBACKS = new Callback[RemoteMethods.COUNT];
+
+	static {
+		CALLBACKS[RemoteMethods.SEND_TOKEN] = new Callback(1) {
+			@Override
+			public void invoke(ClientRemoteServicesInterface target,
+					List<Object> parameters) throws IOException {
+				target.sendToken((PlayerToken) parameters.get(0));
+			}
+		};
+		CALLBACKS[RemoteMethods.SEND_AVAILABLE_GAMES] = new Callback(1) {
+			@SuppressWarnings("unchecked")
+			@Override
+			public void invoke(ClientRemoteServicesInterface target,
+					List<Object> parameters) throws IOException {
+				target.sendAvailableGames((ArrayList<GamePublicData>) parameters
+						.get(0));
+			}
+		};
+		CALLBACKS[RemoteMethods.SEND_GAMES_PAGE] = new Callback(1) {
+			@Override
+			public void invoke(ClientRemoteServicesInterface target,
+					List<Object> parameters) throws IOException {
+				target.sendGamesPage((LobbyPage) parameters.get(0));
+			}
+		};
+		CALLBACKS[RemoteMethods.UPDATE_LOBBY] = new Callback(1) {
+			@Override
+			public void invoke(ClientRemoteServicesInterface target,
+					List<Object> parameters) throws IOException {
+				target.updateLobby((LobbyDelta) parameters.get(0));
+			}
+		};
+		CALLBACKS[RemoteMethods.PUBLISH_CHAT_MSG] = new Callback(1) {
+			@Override
+			public void invoke(ClientRemoteServicesInterface target,
+					List<Object> parameters) throws IOException {
+				target.publishChatMsg((String) parameters.get(0));
+			}
+		};
+		CALLBACKS[RemoteMethods.SEND_NOTIFICATION] = new Callback(1) {
+			@Override
+			public void invoke(ClientRemoteServicesInterface target,
+					List<Object> parameters) throws IOException {
+				target.sendNotification((ClientNotification) parameters.get(0));
+			}
+		};
+		CALLBACKS[RemoteMethods.SEND_PUB_NOTIFICATION] = new Callback(1) {
+			@Override
+			public void invoke(ClientRemoteServicesInterface target,
+					List<Object> parameters) throws IOException {
+				target.sendPubNotification((ClientNotification) parameters
+						.get(0));
+			}
+		};
+		CALLBACKS[RemoteMethods.SEND_MAP] = new Callback(3) {
+			@Override
+			public void invoke(ClientRemoteServicesInterface target,
+					List<Object> parameters) throws IOException {
+				target.sendMap((String) parameters.get(0),
+						(PlayerToken) parameters.get(1),
+						(String) parameters.get(2));
+			}
+		};
+		CALLBACKS[RemoteMethods.SEND_COMPILED_MAP] = new Callback(1) {
+			@Override
+			public void invoke(ClientRemoteServicesInterface target,
+					List<Object> parameters) throws IOException {
+				target.sendCompiledMap((CompiledMap) parameters.get(0));
+			}
+		};
+		CALLBACKS[RemoteMethods.KICK] = new Callback(1) {
+			@Override
+			public void invoke(ClientRemoteServicesInterface target,
+					List<Object> parameters) throws IOException {
+				target.kick((PlayerToken) parameters.get(0));
+			}
+		};
+		CALLBACKS[RemoteMethods.ALLOW_TURN] = new Callback(1) {
+			@Override
+			public void invoke(ClientRemoteServicesInterface target,
+					List<Object> parameters) throws IOException {
+				target.allowTurn((PlayerToken) parameters.get(0));
+			}
+		};
+		CALLBACKS[RemoteMethods.END_GAME] = new Callback(0) {
+			@Override
+			public void invoke(ClientRemoteServicesInterface target,
+					List<Object> parameters) throws IOException {
+				target.endGame();
+			}
+		};
+		CALLBACKS[RemoteMethods.ACK_MESSAGE] = new Callback(0) {
+			@Override
+			public void invoke(ClientRemoteServicesInterface target,
+					List<Object> parameters) throws IOException {
+				target.ackMessage();
+			}
+		};
+		CALLBACKS[RemoteMethods.DELIVER_BATCH] = new Callback(1) {
+			@SuppressWarnings("unchecked")
+			@Override
+			public void invoke(ClientRemoteServicesInterface target,
+					List<Object> parameters) throws IOException {
+				target.deliverBatch((ArrayList<RemoteMethodCall>) parameters
+						.get(0));
+			}
+		};
+		CALLBACKS[RemoteMethods.REJECT_CALL] = new Callback(1) {
+			@Override
+			public void invoke(ClientRemoteServicesInterface target,
+					List<Object> parameters) throws IOException {
+				// The request this call answers fails with the rejection
+				throw new RequestRejectedException((String) parameters.get(0));
+			}
+		};
+		CALLBACKS[RemoteMethods.FAIL_CALL] = new Callback(1) {
+			@Override
+			public void invoke(ClientRemoteServicesInterface target,
+					List<Object> parameters) throws IOException {
+				// The request this call answers fails with the server's error
+				throw new IOException((String) parameters.get(0));
+			}
+		};
+	}
+
+	private ClientCallbackTable() {
+		/*
+		 * This class only groups static procedures
+		 */
+	}
+
+	/**
+	 * Invokes a remote method call on the client's services
+	 *
+	 * @param target
+	 *            the client's services, or their rmi stub
+	 * @param remoteMethodCall
+	 *            the remote method call to be invoked
+	 * @throws IllegalArgumentException
+	 *             if the parameters of the call don't match the method
+	 * @throws InvocationTargetException
+	 *             if the invoked method throws an exception
+	 * @throws NoSuchMethodException
+	 *             if the method is not offered by the client
+	 */
+	public static void invoke(ClientRemoteServicesInterface target,
+			RemoteMethodCall remoteMethodCall) throws IllegalArgumentException,
+			InvocationTargetException, NoSuchMethodException {
+		int methodId = remoteMethodCall.getMethodId();
+		Callback callback = null;
+		if (methodId >= 0 && methodId < CALLBACKS.length) {
+			callback = CALLBACKS[methodId];
+		}
+		if (callback == null) {
+			throw new NoSuchMethodException(remoteMethodCall.getMethodName());
+		}
+		ArrayList<Object> parameters = remoteMethodCall.getMethodParameters();
+		if (parameters.size() != callback.getParametersCount()) {
+			throw new IllegalArgumentException("Wrong number of parameters for "
+					+ remoteMethodCall.getMethodName());
+		}
+		try {
+			callback.invoke(target, parameters);
+		} catch (ClassCastException e) {
+			throw new IllegalArgumentException("Wrong parameters for "
+					+ remoteMethodCall.getMethodName(), e);
+		} catch (IOException | RuntimeException e) {
+			// As for a reflective invocation
+			throw new InvocationTargetException(e);
+		}
+	}
+
+	/**
+	 * Represents the handler of a method offered by the client, that casts the
+	 * parameters of the call to their types and invokes the method
+	 */
+	private abstract static class Callback {
+		// The number of parameters of the method
+		private final int parametersCount;
+
+		public Callback(int parametersCount) {
+			this.parametersCount = parametersCount;
+		}
+
+		public int getParametersCount() {
+			return parametersCount;
+		}
+
+		public abstract void invoke(ClientRemoteServicesInterface target,
+				List<Object> parameters) throws IOException;
+	}
+}
@@ -1,5 +1,8 @@
 package client;
 
+import common.Heartbeat;
+import common.RmiSocketFactory;
+
 /**
  * Represents a container of the client's connection details
  * 
@@ -13,6 +16,10 @@ public class ClientConnection {
 	private final String HOST;
 	// The name of the gropu of services exposed via rmi by the server
 	private final String RMISERVICENAME;
+	// The heartbeat settings of the socket based communication
+	private final Heartbeat HEARTBEAT;
+	// The factory of the sockets the rmi callbacks are exported on
+	private final RmiSocketFactory RMISOCKETFACTORY;
 
 	/**
 	 * Constructs a connection details container from the port used to
@@ -27,9 +34,30 @@ public class ClientConnection {
 	 *            the name of the server's set of services exposed via rmi
 	 */
 	public ClientConnection(int port, String host, String rmiServiceName) {
+		this(port, host, rmiServiceName, RmiSocketFactory.fromProperty());
+	}
+
+	/**
+	 * Constructs a connection details container for a rmi based
+	 * communication, whose callbacks are exported on the sockets of a factory
+	 * 
+	 * @param port
+	 *            the port used by the client to communicate with the server
+	 * @param host
+	 *            the server's ip address
+	 * @param rmiServiceName
+	 *            the name of the server's set of services exposed via rmi
+	 * @param rmiSocketFactory
+	 *            the factory of the sockets the callbacks are exported on, or
+	 *            null for the default rmi sockets
+	 */
+	public ClientConnection(int port, String host, String rmiServiceName,
+			RmiSocketFactory rmiSocketFactory) {
 		PORT = port;
 		HOST = host;
 		RMISERVICENAME = rmiServiceName;
+		HEARTBEAT = Heartbeat.DEFAULT;
+		RMISOCKETFACTORY = rmiSocketFactory;
 	}
 
 	/**
@@ -44,9 +72,26 @@ public class ClientConnection {
 	 *            the server's ip address
 	 */
 	public ClientConnection(int port, String host) {
+		this(port, host, Heartbeat.DEFAULT);
+	}
+
+	/**
+	 * Constructs a connection details container for a socket based
+	 * communication, with its own heartbeat settings
+	 * 
+	 * @param port
+	 *            the port used by a client to communicate with a server
+	 * @param host
+	 *            the server's ip address
+	 * @param heartbeat
+	 *            the heartbeat settings of the communication
+	 */
+	public ClientConnection(int port, String host, Heartbeat heartbeat) {
 		PORT = port;
 		HOST = host;
 		RMISERVICENAME = null;
+		HEARTBEAT = heartbeat;
+		RMISOCKETFACTORY = null;
 	}
 
 	/**
@@ -67,6 +112,25 @@ public class ClientConnection {
 		return PORT;
 	}
 
+	/**
+	 * Gets the factory of the sockets the rmi callbacks are exported on
+	 * 
+	 * @return the factory of the rmi sockets, or null if the default rmi
+	 *         sockets are used
+	 */
+	public RmiSocketFactory getRmiSocketFactory() {
+		return RMISOCKETFACTORY;
+	}
+
+	/**
+	 * Gets the heartbeat settings of the socket based communication
+	 * 
+	 * @return the heartbeat settings
+	 */
+	public Heartbeat getHeartbeat() {
+		return HEARTBEAT;
+	}
+
 	/**
 	 * Gets the server's ip address
 	 * 
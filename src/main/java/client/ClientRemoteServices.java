@@ -6,24 +6,31 @@ import it.polimi.ingsw.cg_19.PlayerType;
 import java.io.IOException;
 import java.io.Serializable;
 import java.lang.reflect.InvocationTargetException;
+import java.rmi.NotBoundException;
 import java.rmi.RemoteException;
 import java.rmi.server.UnicastRemoteObject;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
 
 import common.ClientNotification;
+import common.CompiledMap;
 import common.GamePublicData;
+import common.LobbyDelta;
+import common.LobbyPage;
 import common.PSClientNotification;
 import common.PlayerToken;
 import common.PrivateDeck;
 import common.RRClientNotification;
 import common.RemoteMethodCall;
-import factories.FermiGameMapFactory;
-import factories.GalileiGameMapFactory;
-import factories.GalvaniGameMapFactory;
+import common.RemoteMethods;
+import common.RmiSocketFactory;
 
 /**
  * Represents an implementation of the {@link ClientRemoteServicesInterface}
- * interface
+ * interface. While the map of a starting game is fetched from the server, the
+ * async calls received are held, and performed in order once the game has
+ * started, so that no call finds the game without its map
  * 
  * @see ClientRemoteServicesInterface
  * @author Andrea Sessa
@@ -36,6 +43,11 @@ public class ClientRemoteServices extends UnicastRemoteObject implements
 	private static final long serialVersionUID = 1L;
 	// The client that offers these services
 	private transient Client client;
+	// The async calls received while the map of the game is fetched
+	private final transient ArrayList<RemoteMethodCall> heldCalls;
+	// A flag that indicates that the async calls are held, guarded by the
+	// list of the held calls
+	private transient boolean holding;
 
 	/**
 	 * Constructs a group of services from the client that offers these
@@ -48,7 +60,26 @@ public class ClientRemoteServices extends UnicastRemoteObject implements
 	 *             signals a com. error
 	 */
 	public ClientRemoteServices(Client client) throws RemoteException {
+		this(client, null);
+	}
+
+	/**
+	 * Constructs a group of services from the client that offers these
+	 * services, exported on the sockets of a factory
+	 * 
+	 * @param client
+	 *            the client this group of services refers to
+	 * @param socketFactory
+	 *            the factory of the sockets the services are exported on, or
+	 *            null for the default rmi sockets
+	 * @throws RemoteException
+	 *             signals a com. error
+	 */
+	public ClientRemoteServices(Client client, RmiSocketFactory socketFactory)
+			throws RemoteException {
+		super(0, socketFactory, socketFactory);
 		this.client = client;
+		this.heldCalls = new ArrayList<RemoteMethodCall>();
 	}
 
 	/**
@@ -75,6 +106,22 @@ public class ClientRemoteServices extends UnicastRemoteObject implements
 		client.setAvailableGames(availableGames);
 	}
 
+	/**
+	 * @see ClientRemoteServicesInterface#sendGamesPage
+	 */
+	@Override
+	public void sendGamesPage(LobbyPage page) {
+		client.setGamesPage(page);
+	}
+
+	/**
+	 * @see ClientRemoteServicesInterface#updateLobby
+	 */
+	@Override
+	public void updateLobby(LobbyDelta delta) {
+		client.updateLobby(delta);
+	}
+
 	/**
 	 * @see ClientRemoteServicesInterface#publishChatMsg
 	 * @throws IOException
@@ -118,6 +165,7 @@ public class ClientRemoteServices extends UnicastRemoteObject implements
 	 * the right method with the specified parameters is invoked on the client
 	 * 
 	 * @see RemoteMethodCall
+	 * @see ClientCallbackTable
 	 * @param remoteClientInvocation
 	 *            an object that represents a remote method call. This object
 	 *            specifies the name and the parameters of the method to be
@@ -125,72 +173,159 @@ public class ClientRemoteServices extends UnicastRemoteObject implements
 	 * @throws IllegalAccessException
 	 *             signals a reflection error
 	 * @throws InvocationTargetException
-	 *             signals a reflection error
+	 *             if the invoked method throws an exception
 	 * @throws NoSuchMethodException
-	 *             signals a reflection error
+	 *             if the method is not offered by the client
 	 * @throws SecurityException
 	 *             signals a reflection error
 	 */
 	public void processRemoteInvocation(RemoteMethodCall remoteClientInvocation)
 			throws IllegalAccessException, IllegalArgumentException,
 			InvocationTargetException, NoSuchMethodException, SecurityException {
-		String methodName = remoteClientInvocation.getMethodName();
-		ArrayList<Object> parameters = remoteClientInvocation
-				.getMethodParameters();
-		Class<?>[] parametersClasses = new Class[parameters.size()];
-		for (int i = 0; i < parameters.size(); i++) {
-			if (parameters.get(i).getClass().getName().contains("action")
-					|| parameters.get(i).getClass().getName()
-							.contains("ClientNotification")) {
-				parametersClasses[i] = parameters.get(i).getClass()
-						.getSuperclass();
-			} else {
-				parametersClasses[i] = parameters.get(i).getClass();
+		if (!hold(remoteClientInvocation)) {
+			ClientCallbackTable.invoke(this, remoteClientInvocation);
+		}
+	}
+
+	/**
+	 * @see ClientRemoteServicesInterface#deliverBatch
+	 */
+	@Override
+	public void deliverBatch(ArrayList<RemoteMethodCall> remoteMethodCalls) {
+		for (RemoteMethodCall remoteMethodCall : remoteMethodCalls) {
+			if (!hold(remoteMethodCall)) {
+				perform(remoteMethodCall);
 			}
+		}
+	}
 
+	/**
+	 * Performs an async call, logging its failure
+	 * 
+	 * @param remoteMethodCall
+	 *            the call to be performed
+	 */
+	private void perform(RemoteMethodCall remoteMethodCall) {
+		try {
+			ClientCallbackTable.invoke(this, remoteMethodCall);
+		} catch (IllegalArgumentException | InvocationTargetException
+				| NoSuchMethodException e) {
+			ClientLogger.getLogger().log(Level.SEVERE,
+					"Could not perform action | ClientRemoteServices", e);
 		}
-		this.getClass().getDeclaredMethod(methodName, parametersClasses)
-				.invoke(this, parameters.toArray());
 	}
 
 	/**
-	 * @see ClientRemoteServicesInterface#sendMap
+	 * Holds an async call, if the map of the game is being fetched. The calls
+	 * of a held batch are held one by one. The responses to the client's
+	 * requests are never held, since a request may be waiting for them
+	 * 
+	 * @param remoteMethodCall
+	 *            the call received
+	 * @return true if the call has been held
 	 */
-	@Override
-	public void sendMap(String mapName, PlayerToken playerToken) {
-		if (mapName.equals("GALILEI")) {
-			GalileiGameMapFactory factory = new GalileiGameMapFactory();
-			GameMap map = factory.makeMap();
-			client.setGameMap(map);
-			client.setPrivateDeck(new PrivateDeck());
-			if (client.getToken().getPlayerType().equals(PlayerType.ALIEN)) {
-				client.setCurrentSector(map.getAlienSector());
+	@SuppressWarnings("unchecked")
+	private boolean hold(RemoteMethodCall remoteMethodCall) {
+		if (remoteMethodCall.getCallId() != RemoteMethodCall.ASYNC_CALL_ID) {
+			return false;
+		}
+		synchronized (heldCalls) {
+			if (!holding) {
+				return false;
+			}
+			if (remoteMethodCall.getMethodId() == RemoteMethods.DELIVER_BATCH) {
+				heldCalls.addAll((List<RemoteMethodCall>) remoteMethodCall
+						.getMethodParameters().get(0));
 			} else {
-				client.setCurrentSector(map.getHumanSector());
+				heldCalls.add(remoteMethodCall);
 			}
+			return true;
+		}
+	}
 
-		} else if (mapName.equals("FERMI")) {
-			FermiGameMapFactory factory = new FermiGameMapFactory();
-			GameMap map = factory.makeMap();
-			client.setGameMap(map);
-			client.setPrivateDeck(new PrivateDeck());
-			if (client.getToken().getPlayerType().equals(PlayerType.ALIEN)) {
-				client.setCurrentSector(map.getAlienSector());
-			} else {
-				client.setCurrentSector(map.getHumanSector());
+	/**
+	 * Performs the calls held while the map of the game was fetched, in the
+	 * order they have been received, and the calls received in the meantime,
+	 * then stops holding the calls
+	 */
+	private void releaseHeldCalls() {
+		while (true) {
+			ArrayList<RemoteMethodCall> calls;
+			synchronized (heldCalls) {
+				if (heldCalls.isEmpty()) {
+					holding = false;
+					return;
+				}
+				calls = new ArrayList<RemoteMethodCall>(heldCalls);
+				heldCalls.clear();
 			}
-		} else if (mapName.equals("GALVANI")) {
-			GalvaniGameMapFactory factory = new GalvaniGameMapFactory();
-			GameMap map = factory.makeMap();
-			client.setGameMap(map);
-			client.setPrivateDeck(new PrivateDeck());
-			if (client.getToken().getPlayerType().equals(PlayerType.ALIEN)) {
-				client.setCurrentSector(map.getAlienSector());
-			} else {
-				client.setCurrentSector(map.getHumanSector());
+			for (RemoteMethodCall remoteMethodCall : calls) {
+				perform(remoteMethodCall);
+			}
+		}
+	}
+
+	/**
+	 * @see ClientRemoteServicesInterface#sendMap
+	 */
+	@Override
+	public void sendMap(String mapName, final PlayerToken playerToken,
+			final String mapHash) {
+		CompiledMap map = client.getMapCache().load(mapHash);
+		if (map != null) {
+			startGame(map.toGameMap(), playerToken);
+			return;
+		}
+		/*
+		 * The map is fetched by another thread, since the response is received
+		 * by the thread that is delivering this call. The calls that follow
+		 * are held until the game has started
+		 */
+		synchronized (heldCalls) {
+			holding = true;
+		}
+		Thread fetcher = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					startGame(client.fetchMap(mapHash).toGameMap(), playerToken);
+				} catch (IllegalAccessException | InvocationTargetException
+						| NoSuchMethodException | ClassNotFoundException
+						| IOException | NotBoundException e) {
+					ClientLogger.getLogger().log(Level.SEVERE,
+							"Could not fetch the map | ClientRemoteServices", e);
+				} finally {
+					releaseHeldCalls();
+				}
 			}
+		}, "map-fetch");
+		fetcher.setDaemon(true);
+		fetcher.start();
+	}
+
+	/**
+	 * @see ClientRemoteServicesInterface#sendCompiledMap
+	 */
+	@Override
+	public void sendCompiledMap(CompiledMap map) {
+		client.setCompiledMap(map);
+	}
+
+	/**
+	 * Loads the game map on the client and starts the game
+	 * 
+	 * @param map
+	 *            the game map
+	 * @param playerToken
+	 *            the token of the player that plays the first turn
+	 */
+	private void startGame(GameMap map, PlayerToken playerToken) {
+		client.setGameMap(map);
+		client.setPrivateDeck(new PrivateDeck());
+		if (client.getToken().getPlayerType().equals(PlayerType.ALIEN)) {
+			client.setCurrentSector(map.getAlienSector());
 		} else {
-			throw new IllegalArgumentException("The type of map is undefined");
+			client.setCurrentSector(map.getHumanSector());
 		}
 		if (playerToken.equals(client.getToken())) {
 			client.setIsMyTurn(true);
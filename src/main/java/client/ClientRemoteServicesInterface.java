@@ -6,8 +6,12 @@ import java.rmi.RemoteException;
 import java.util.ArrayList;
 
 import common.ClientNotification;
+import common.CompiledMap;
 import common.GamePublicData;
+import common.LobbyDelta;
+import common.LobbyPage;
 import common.PlayerToken;
+import common.RemoteMethodCall;
 
 /**
  * Represents a container that groups methods offered by the client to the
@@ -44,6 +48,28 @@ public interface ClientRemoteServicesInterface extends Remote {
 	public void sendAvailableGames(ArrayList<GamePublicData> availableGames)
 			throws RemoteException, IOException;
 
+	/**
+	 * A service that shows to the client a page of the available games, sent
+	 * in answer to a query
+	 * 
+	 * @param page
+	 *            the page of available games
+	 * @throws RemoteException
+	 *             signals a rmi com. error
+	 */
+	public void sendGamesPage(LobbyPage page) throws RemoteException;
+
+	/**
+	 * A service that applies a change of the list of available games, pushed
+	 * to the client after it has subscribed to the lobby
+	 * 
+	 * @param delta
+	 *            the change of the list of available games
+	 * @throws RemoteException
+	 *             signals a rmi com. error
+	 */
+	public void updateLobby(LobbyDelta delta) throws RemoteException;
+
 	/**
 	 * A service that notifies the client with a message
 	 * 
@@ -81,17 +107,35 @@ public interface ClientRemoteServicesInterface extends Remote {
 	public void publishChatMsg(String message) throws RemoteException;
 
 	/**
-	 * A service that loads the game map on the client
+	 * A service that loads the game map on the client and starts the game. The
+	 * map is identified by the hash of its compiled form: the client loads it
+	 * from its cache, or fetches it from the server if it hasn't got it yet
 	 * 
 	 * @param MapName
 	 *            The name of the game map to load
+	 * @param playerToken
+	 *            the token of the player that plays the first turn
+	 * @param mapHash
+	 *            the hash of the compiled game map
 	 * @throws IOException
 	 *             signals a rmi com. error
 	 * @throws RemoteException
 	 *             signals a rmi com. error
 	 */
-	public void sendMap(String MapName, PlayerToken playerToken)
-			throws RemoteException;
+	public void sendMap(String MapName, PlayerToken playerToken,
+			String mapHash) throws RemoteException;
+
+	/**
+	 * A service that gives the client a compiled game map, sent in answer to
+	 * its request
+	 * 
+	 * @param map
+	 *            the compiled game map, or null if the server has no map with
+	 *            the requested hash
+	 * @throws RemoteException
+	 *             signals a rmi com. error
+	 */
+	public void sendCompiledMap(CompiledMap map) throws RemoteException;
 
 	/**
 	 * Allows the server to inform the player of the next current player
@@ -126,4 +170,18 @@ public interface ClientRemoteServicesInterface extends Remote {
 	 *             signals a rmi com. error
 	 */
 	public void ackMessage() throws RemoteException;
+
+	/**
+	 * Allows the server to perform a batch of remote method calls on the client
+	 * with a single rmi call, or a single socket frame. The calls are processed
+	 * in order, an error in one of them doesn't prevent the following ones from
+	 * being processed
+	 * 
+	 * @param remoteMethodCalls
+	 *            the remote method calls to be performed on the client
+	 * @throws RemoteException
+	 *             signals a rmi com. error
+	 */
+	public void deliverBatch(ArrayList<RemoteMethodCall> remoteMethodCalls)
+			throws RemoteException;
 }
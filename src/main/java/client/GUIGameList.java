@@ -11,7 +11,6 @@ import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.rmi.NotBoundException;
 import java.rmi.RemoteException;
-import java.util.Timer;
 import java.util.logging.Level;
 
 import javax.swing.Box;
@@ -70,12 +69,10 @@ public class GUIGameList extends JPanel {
 
 		JTable gameTables = new JTable();
 
-		GamePollingThread pollingThread = new GamePollingThread(gui, gameTables);
-		final Timer timerTask = new Timer();
-
-		pollingThread.updateGames();
-
-		timerTask.scheduleAtFixedRate(pollingThread, 0, 10000);
+		// The table is filled by the server and then updated in place
+		LobbyTableModel tableModel = new LobbyTableModel();
+		gameTables.setModel(tableModel);
+		gui.getClient().subscribeLobby(tableModel);
 
 		JScrollPane scroll = new JScrollPane(gameTables);
 		gameTables.setFillsViewportHeight(true);
@@ -219,8 +216,14 @@ public class GUIGameList extends JPanel {
 
 		addComponentListener(new ComponentAdapter() {
 			public void componentHidden(ComponentEvent e) {
-				timerTask.cancel();
-				timerTask.purge();
+				try {
+					gui.getClient().unsubscribeLobby();
+				} catch (IllegalAccessException | InvocationTargetException
+						| NoSuchMethodException | ClassNotFoundException
+						| IOException | NotBoundException e1) {
+					ClientLogger.getLogger().log(Level.SEVERE,
+							e1.getMessage(), e1);
+				}
 			}
 		});
 
@@ -1,5 +1,7 @@
 package client;
 
+import it.polimi.ingsw.cg_19.GameMap;
+
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.FlowLayout;
@@ -181,11 +183,11 @@ public class GUIGamePane extends JPanel {
 	}
 
 	/**
-	 * Inits the gui for the user displaying the mapName game map
+	 * Inits the gui for the user displaying the game map
 	 */
-	public void load(String mapName) {
+	public void load(GameMap map) {
 
-		mapPanel.displayGameMap(mapName);
+		mapPanel.displayGameMap(map);
 
 		GridBagConstraints c = new GridBagConstraints();
 
@@ -23,10 +23,6 @@ import javax.swing.JPopupMenu;
 import common.Coordinate;
 import common.Sector;
 import common.SectorType;
-import factories.FermiGameMapFactory;
-import factories.GalileiGameMapFactory;
-import factories.GalvaniGameMapFactory;
-import factories.GameMapFactory;
 
 /**
  * Represents the panel in which is displayed the game map
@@ -174,35 +170,15 @@ public class GUIMap extends JLayeredPane {
 	}
 
 	/**
-	 * This method inits the map panel loading the map from the correct file,
-	 * then adds the proper SectorLabel to the panel in order to display it on
-	 * the GUI
+	 * This method inits the map panel from the game map received from the
+	 * server, adding the proper SectorLabel to the panel in order to display
+	 * it on the GUI
 	 */
-	public void displayGameMap(String mapName) {
+	public void displayGameMap(GameMap map) {
 		JLabel backgroundLabel = new JLabel(new ImageIcon("back.png"));
 		backgroundLabel.setBounds(0, 0, 800, 600);
 		add(backgroundLabel);
 		this.setLayer(backgroundLabel, LAYER_BACKGROUND);
-		GameMapFactory factory = null;
-
-		// Choose the correct factory according to the chosen map
-		switch (mapName.toUpperCase()) {
-		case "GALILEI":
-			factory = new GalileiGameMapFactory();
-			break;
-		case "FERMI":
-			factory = new FermiGameMapFactory();
-			break;
-		case "GALVANI":
-			factory = new GalvaniGameMapFactory();
-			break;
-		default:
-			break;
-		}
-
-		// Load the map from the correspondent file
-		GameMap map = factory.makeMap();
-
 		// Some offset to optimize the appearance of the sectors on the map
 		// panel
 		int factorX = 34;
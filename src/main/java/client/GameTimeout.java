@@ -7,14 +7,16 @@ import server.GameManager;
 import it.polimi.ingsw.cg_19.Game;
 
 /**
- * Represents the timeout for a generic game It is a one time execution timer
+ * Represents the timeout for a generic game It is a one time execution task,
+ * scheduled on the timer shared by all the games. The update of the game is
+ * submitted to the game's mailbox
  * 
  * @author Andrea Sessa
  * @author Giorgio Pea
  */
 public class GameTimeout extends TimerTask {
-	private Game game;
-	private GameManager gameManager;
+	private final Game game;
+	private final GameManager gameManager;
 	private Timer timer;
 
 	public GameTimeout(GameManager gameManager, Game game, Timer timer) {
@@ -25,9 +27,19 @@ public class GameTimeout extends TimerTask {
 
 	@Override
 	public void run() {
-		gameManager.update(game);
+		game.getMailbox().execute(new Runnable() {
+			@Override
+			public void run() {
+				game.openBatch();
+				try {
+					gameManager.update(game);
+				} finally {
+					game.flushBatch();
+				}
+			}
+		});
 		this.cancel();
-		timer.cancel();
+		// The timer is shared, only the cancelled timeouts are removed
 		timer.purge();
 	}
 }
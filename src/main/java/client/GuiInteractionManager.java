@@ -158,7 +158,7 @@ public class GuiInteractionManager implements Observer {
 			 */
 			this.gameListWindow.setVisible(false);
 			this.GUIGamePane.setVisible(true);
-			this.GUIGamePane.load(client.getGameMap().getName());
+			this.GUIGamePane.load(client.getGameMap());
 			String welcomeMsg = "Welcome, " + playerName + " you're "
 					+ client.getToken().getPlayerType().toString();
 			if (client.getIsMyTurn())
@@ -214,7 +214,7 @@ public class GuiInteractionManager implements Observer {
 			 */
 			this.gameListWindow.setVisible(false);
 			this.GUIGamePane.setVisible(true);
-			this.GUIGamePane.load(mapName);
+			this.GUIGamePane.load(client.getGameMap());
 			String welcomeMsg = "Welcome, " + playerName + " you're "
 					+ client.getToken().getPlayerType().toString();
 			if (client.getIsMyTurn())
@@ -428,9 +428,8 @@ public class GuiInteractionManager implements Observer {
 			} catch (InterruptedException e) {
 				ClientLogger.getLogger().log(Level.SEVERE, e.getMessage(), e);
 			}
-			String[] toDisplay = ((PSClientNotification) arg).getMessage()
-					.split("\n");
-			for (String m : toDisplay)
+			// Every event is rendered on its own line
+			for (String m : ((PSClientNotification) arg).getLines())
 				this.GUIGamePane.appendMsg(m);
 		} else {
 			GUIGamePane.appendMsg((String) arg);
@@ -0,0 +1,35 @@
+package client;
+
+import java.util.List;
+
+import common.GamePublicData;
+import common.LobbyDelta;
+
+/**
+ * Represents an observer of the lobby of the server, registered by the client
+ * when it subscribes to the lobby. The observer receives the list of the
+ * available games once, then every change of that list in the order they
+ * have been made. Both methods are called by the thread that receives the
+ * data from the server.
+ *
+ * @see Client#subscribeLobby
+ * @author Andrea Sessa
+ * @author Giorgio Pea
+ */
+public interface LobbyListener {
+	/**
+	 * Receives the list of the available games
+	 *
+	 * @param games
+	 *            the public data of the available games
+	 */
+	public void gamesLoaded(List<GamePublicData> games);
+
+	/**
+	 * Receives a change of the list of the available games
+	 *
+	 * @param delta
+	 *            the change of the list of the available games
+	 */
+	public void lobbyChanged(LobbyDelta delta);
+}
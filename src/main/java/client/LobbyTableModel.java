@@ -0,0 +1,125 @@
+package client;
+
+import java.util.List;
+
+import javax.swing.SwingUtilities;
+import javax.swing.table.DefaultTableModel;
+
+import common.GamePublicData;
+import common.LobbyDelta;
+
+/**
+ * Represents the model of the table that shows the list of available games.
+ * The model observes the lobby of the server: it is filled once with the list
+ * of games and then updated in place, row by row, with the changes pushed by
+ * the server, so the rows that haven't changed keep their position and their
+ * selection. The changes are applied on the event dispatch thread. Col 0 ->
+ * GAME ID Col 1 -> GAME STATUS Col 2 -> PLAYERS NUMBER
+ *
+ * @see LobbyListener
+ * @author Andrea Sessa
+ * @author Giorgio Pea
+ */
+public class LobbyTableModel extends DefaultTableModel implements
+		LobbyListener {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Constructs an empty model of the table that shows the list of available
+	 * games
+	 */
+	public LobbyTableModel() {
+		addColumn("Game ID");
+		addColumn("Game Status");
+		addColumn("#Players");
+	}
+
+	/**
+	 * All cells are not editable
+	 *
+	 * @see javax.swing.table.DefaultTableModel#isCellEditable
+	 */
+	@Override
+	public boolean isCellEditable(int row, int column) {
+		return false;
+	}
+
+	/**
+	 * @see LobbyListener#gamesLoaded
+	 */
+	@Override
+	public void gamesLoaded(final List<GamePublicData> games) {
+		SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				setRowCount(0);
+				for (GamePublicData game : games) {
+					addRow(toRow(game));
+				}
+			}
+		});
+	}
+
+	/**
+	 * @see LobbyListener#lobbyChanged
+	 */
+	@Override
+	public void lobbyChanged(final LobbyDelta delta) {
+		SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				apply(delta);
+			}
+		});
+	}
+
+	/**
+	 * Applies a change of the list of games to the rows of the table. This
+	 * method must be called on the event dispatch thread
+	 *
+	 * @param delta
+	 *            the change of the list of games
+	 */
+	private void apply(LobbyDelta delta) {
+		GamePublicData game = delta.getGame();
+		int row = findRow(game.getId());
+		if (delta.getKind() == LobbyDelta.Kind.REMOVED) {
+			if (row >= 0) {
+				removeRow(row);
+			}
+		} else if (row < 0) {
+			addRow(toRow(game));
+		} else {
+			setValueAt(game.getStatus(), row, 1);
+			setValueAt(game.getPlayersCount(), row, 2);
+		}
+	}
+
+	/**
+	 * Finds the row that shows a game
+	 *
+	 * @param gameId
+	 *            the id of the game
+	 * @return the index of the row, or -1 if the game is not shown
+	 */
+	private int findRow(int gameId) {
+		for (int row = 0; row < getRowCount(); row++) {
+			if (((Integer) getValueAt(row, 0)) == gameId) {
+				return row;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Creates the row that shows a game
+	 *
+	 * @param game
+	 *            the public data of the game
+	 * @return the cells of the row
+	 */
+	private Object[] toRow(GamePublicData game) {
+		return new Object[] { game.getId(), game.getStatus(),
+				game.getPlayersCount() };
+	}
+}
@@ -0,0 +1,115 @@
+package client;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.logging.Level;
+
+import common.CompiledMap;
+
+/**
+ * Represents the cache of the compiled game maps on the client's disk. Every
+ * map is kept in a file named after its hash, so the map of a game is read
+ * from the cache when the client has already played on it, and fetched from
+ * the server only the first time. A file whose content doesn't match its
+ * hash is ignored and replaced by the next fetch.
+ *
+ * @see CompiledMap
+ * @author Andrea Sessa
+ * @author Giorgio Pea
+ */
+public class MapCache {
+	/** The default directory of the cache, in the working directory */
+	public static final String DEFAULT_DIRECTORY = "mapCache";
+	// The extension of the files of the cache
+	private static final String EXTENSION = ".map";
+
+	// The directory the maps are kept in
+	private final File directory;
+
+	/**
+	 * Constructs the cache of the compiled maps kept in a directory. The
+	 * directory is created when the first map is stored
+	 *
+	 * @param directory
+	 *            the directory the maps are kept in
+	 */
+	public MapCache(File directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Loads a compiled map from the cache
+	 *
+	 * @param hash
+	 *            the hash of the compiled map
+	 * @return the compiled map, or null if the cache hasn't got a valid map
+	 *         with that hash
+	 */
+	public CompiledMap load(String hash) {
+		File file = fileOf(hash);
+		if (file == null || !file.isFile()) {
+			return null;
+		}
+		try {
+			CompiledMap map = CompiledMap.fromBytes(Files.readAllBytes(file
+					.toPath()));
+			if (map.getHash().equals(hash)) {
+				return map;
+			}
+		} catch (IOException e) {
+			ClientLogger.getLogger().log(Level.WARNING,
+					"Could not read a cached map | MapCache", e);
+		}
+		return null;
+	}
+
+	/**
+	 * Stores a compiled map in the cache. The map is written to a temporary
+	 * file that is then renamed, so a map is never read half written
+	 *
+	 * @param map
+	 *            the compiled map to be stored
+	 */
+	public void store(CompiledMap map) {
+		try {
+			if (!directory.isDirectory() && !directory.mkdirs()) {
+				throw new IOException("Could not create " + directory);
+			}
+			File temporary = File.createTempFile("map", ".tmp", directory);
+			try {
+				try (FileOutputStream output = new FileOutputStream(temporary)) {
+					output.write(map.getBytes());
+				}
+				Files.move(temporary.toPath(), fileOf(map.getHash()).toPath(),
+						StandardCopyOption.REPLACE_EXISTING);
+			} finally {
+				// Left only if the map has not been moved
+				if (temporary.exists() && !temporary.delete()) {
+					temporary.deleteOnExit();
+				}
+			}
+		} catch (IOException e) {
+			// The map is fetched again the next time
+			ClientLogger.getLogger().log(Level.WARNING,
+					"Could not cache a map | MapCache", e);
+		}
+	}
+
+	/**
+	 * Gets the file that keeps a compiled map
+	 *
+	 * @param hash
+	 *            the hash of the compiled map
+	 * @return the file of the map, or null if the hash is not well formed
+	 */
+	private File fileOf(String hash) {
+		// The hash comes from the server, it must not name another file
+		if (hash == null || !hash.matches("[0-9a-f]{1,128}")) {
+			return null;
+		}
+		return new File(directory, hash + EXTENSION);
+	}
+}
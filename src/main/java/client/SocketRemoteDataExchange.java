@@ -1,63 +1,42 @@
 package client;
 
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.lang.reflect.InvocationTargetException;
-import java.net.Socket;
 import java.rmi.NotBoundException;
 
 import common.RemoteMethodCall;
 
 /**
  * Represents a data exchange between the client and the server using socket
- * based communication
- * 
+ * based communication. The data exchange uses the client's long-lived
+ * {@link SocketSession}, so no connection is opened or closed for a single
+ * exchange
+ *
  * @see RemoteDataExchange
+ * @see SocketSession
  * @author Andrea Sessa
  * @author Giorgio Pea
  */
 public class SocketRemoteDataExchange extends RemoteDataExchange {
-	/*
-	 * The object output stream associated with the socket used by the remote
-	 * data exchange
-	 */
-	private ObjectOutputStream outputStream;
-	/*
-	 * The object input stream associated with the socket used by the remote
-	 * data exchange
-	 */
-	private ObjectInputStream inputStream;
-	// The socket with the remote data exchange
-	private Socket socket;
-	// The client connection details
-	private ClientConnection connection;
+	// The session the data exchange uses
+	private SocketSession session;
+	// The request sent to the server, waiting for its response
+	private SocketSession.PendingCall pendingCall;
 
 	/**
 	 * Constructs a data exchange between the client and the server using socket
-	 * based communication, creating a socket with its associated object
-	 * streams. This data exchange is constructed from a client.
-	 * 
+	 * based communication. This data exchange is constructed from a client and
+	 * the session it uses to communicate with the server
+	 *
 	 * @param client
 	 *            the client this data exchange refers to
-	 * @throws IOException
-	 *             signals an error in the opening of the socket's streams
-	 *             associated with the remote data exchange
+	 * @param session
+	 *            the session used to communicate with the server
 	 */
-	public SocketRemoteDataExchange(Client client) throws IOException {
+	public SocketRemoteDataExchange(Client client, SocketSession session) {
 		super(client);
-		connection = client.getConnection();
+		this.session = session;
 		clientServices = client.getClientServices();
-		try {
-			socket = new Socket(connection.getHost(), connection.getPort());
-			outputStream = new ObjectOutputStream(socket.getOutputStream());
-			outputStream.flush();
-			inputStream = new ObjectInputStream(socket.getInputStream());
-		} catch (IOException e) {
-			socket.close();
-			throw new IOException(e);
-		}
-
 	}
 
 	/**
@@ -68,37 +47,28 @@ public class SocketRemoteDataExchange extends RemoteDataExchange {
 			IllegalAccessException, IllegalArgumentException,
 			InvocationTargetException, NoSuchMethodException,
 			SecurityException, ClassNotFoundException, NotBoundException {
-		try {
-			outputStream.writeObject(remoteCall);
-			outputStream.flush();
-		} catch (IOException e) {
-			socket.close();
-			throw new IOException(e);
-		}
-
+		pendingCall = session.send(remoteCall);
 	}
 
 	/**
-	 * Closes the data flow relative to the data exchange
-	 * 
-	 * @throws IOException
-	 *             signals an error in closing the remote data exchange's
-	 *             associated socket
+	 * Closes the data flow relative to the data exchange. The session is shared
+	 * by all the data exchanges of the client so it's kept open
 	 */
-	public void closeDataFlow() throws IOException {
-		socket.close();
+	public void closeDataFlow() {
+		/*
+		 * The session outlives the single data exchange
+		 */
 	}
 
 	/**
 	 * @see RemoteDataExchange#keepAlive
-	 * @throws IOException
-	 *             signals an error in the creation of the thread used by the
-	 *             client to receive async notifications from the server in the
-	 *             logic of the pub/sub pattern
 	 */
 	@Override
-	public void keepAlive() throws IOException {
-		client.startPubSub(socket, clientServices);
+	public void keepAlive() {
+		/*
+		 * The async notifications from the server are received on the session
+		 * and processed by its reading thread
+		 */
 	}
 
 	/**
@@ -108,11 +78,22 @@ public class SocketRemoteDataExchange extends RemoteDataExchange {
 	public void receiveData() throws ClassNotFoundException, IOException,
 			IllegalAccessException, IllegalArgumentException,
 			InvocationTargetException, NoSuchMethodException, SecurityException {
-		RemoteMethodCall remoteCall = (RemoteMethodCall) inputStream
-				.readObject();
-		// Data processing: from the remote method call object to the actual
-		// method invocation
-		clientServices.processRemoteInvocation(remoteCall);
-
+		// The response is processed by the session's reading thread
+		Exception failure = pendingCall.await();
+		if (failure instanceof InvocationTargetException
+				&& failure.getCause() instanceof IOException) {
+			// A rejection or an error sent by the server, as via rmi
+			throw (IOException) failure.getCause();
+		} else if (failure instanceof IOException) {
+			throw (IOException) failure;
+		} else if (failure instanceof IllegalAccessException) {
+			throw (IllegalAccessException) failure;
+		} else if (failure instanceof InvocationTargetException) {
+			throw (InvocationTargetException) failure;
+		} else if (failure instanceof NoSuchMethodException) {
+			throw (NoSuchMethodException) failure;
+		} else if (failure instanceof RuntimeException) {
+			throw (RuntimeException) failure;
+		}
 	}
 }
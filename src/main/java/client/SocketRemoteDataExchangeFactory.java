@@ -2,15 +2,22 @@ package client;
 
 import java.io.IOException;
 
+import common.Handshake;
+
 /**
  * Represents a factory of remote data exchanges between the client and the
- * server. These data exchanges use a socket based communication
+ * server. These data exchanges use a socket based communication, all of them
+ * share the same {@link SocketSession}, that is opened by the first exchange
+ * and reopened if the connection with the server has been lost. The sessions
+ * offer the compressed codec, that is used only if the server supports it
  * 
  * @see RemoteDataExchangeFactory
  * @author Andrea Sessa
  * @author Giorgio Pea
  */
 public class SocketRemoteDataExchangeFactory extends RemoteDataExchangeFactory {
+	// The session shared by the data exchanges
+	private SocketSession session;
 
 	/**
 	 * Constructs a factory of remote data exchanges between the client and the
@@ -28,8 +35,12 @@ public class SocketRemoteDataExchangeFactory extends RemoteDataExchangeFactory {
 	 * @see RemoteDataExchangeFactory#make
 	 */
 	@Override
-	public RemoteDataExchange make() throws IOException {
-		return new SocketRemoteDataExchange(client);
+	public synchronized RemoteDataExchange make() throws IOException {
+		if (session == null || session.isClosed()) {
+			session = new SocketSession(client.getConnection(),
+					client.getClientServices(), Handshake.supportedCodecs(true));
+		}
+		return new SocketRemoteDataExchange(client, session);
 	}
 
 }
@@ -0,0 +1,388 @@
+package client;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+import common.FrameDecoder;
+import common.FrameEncoder;
+import common.Frames;
+import common.Handshake;
+import common.Heartbeat;
+import common.RemoteMethodCall;
+import common.WireCodec;
+
+/**
+ * Represents the long-lived socket connection between the client and the
+ * server. All the requests of the client are sent on this connection, each one
+ * with its own id, and a single thread reads from it both the responses, that
+ * are matched with the pending requests through their ids, and the async
+ * notifications sent by the server in the logic of the pub/sub pattern. All
+ * the received calls are processed by the reading thread, in the same order
+ * they have been sent by the server. The codec of the session is agreed with
+ * the server through a {@link Handshake} when the session is opened. A
+ * {@link Heartbeat} is sent when the client has sent nothing for an interval,
+ * by a timer shared by all the sessions, and the session is closed when
+ * nothing, not even a heartbeat, has been received for the idle timeout.
+ *
+ * @see SocketRemoteDataExchange
+ * @see SocketRemoteDataExchangeFactory
+ * @author Andrea Sessa
+ * @author Giorgio Pea
+ */
+public class SocketSession implements Runnable {
+	/** The time a request waits for its response, in ms */
+	public static final long RESPONSE_TIMEOUT = 30000;
+	// The timer that sends the heartbeats of all the sessions
+	private static final ScheduledExecutorService HEARTBEATS = Executors
+			.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "socket-heartbeat");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+	// The socket associated with the session
+	private final Socket socket;
+	// The stream the frames are written on
+	private final DataOutputStream outputStream;
+	// The stream the frames are read from
+	private final DataInputStream inputStream;
+	// The encoder of the remote method calls sent to the server
+	private final FrameEncoder encoder;
+	// The decoder of the remote method calls received from the server
+	private final FrameDecoder decoder;
+	// The services the client offers to the server to exchange data
+	private final ClientRemoteServices clientServices;
+	// The requests that are waiting for their response, by id
+	private final Map<Integer, PendingCall> pendingCalls;
+	// The id of the last request sent
+	private final AtomicInteger lastCallId;
+	// A flag that indicates that the session is closed
+	private volatile boolean closed;
+	// The time of the last frame written, in ns
+	private volatile long lastWrite;
+	// The task that sends the heartbeats of the session
+	private final ScheduledFuture<?> heartbeatTask;
+
+	/**
+	 * Constructs the long-lived socket connection between the client and the
+	 * server, performs the handshake and starts the thread that reads from the
+	 * connection. The heartbeat settings are taken from the connection details
+	 *
+	 * @param connection
+	 *            the client's connection details
+	 * @param clientServices
+	 *            the services the client offers to the server to exchange
+	 *            data
+	 * @param codecs
+	 *            the codecs the client supports, in order of preference
+	 * @throws IOException
+	 *             signals an error in the opening of the socket or in the
+	 *             handshake
+	 */
+	public SocketSession(ClientConnection connection,
+			ClientRemoteServices clientServices, WireCodec[] codecs)
+			throws IOException {
+		this.clientServices = clientServices;
+		this.pendingCalls = new ConcurrentHashMap<Integer, PendingCall>();
+		this.lastCallId = new AtomicInteger(RemoteMethodCall.ASYNC_CALL_ID);
+		this.socket = new Socket(connection.getHost(), connection.getPort());
+		final Heartbeat heartbeat = connection.getHeartbeat();
+		try {
+			socket.setTcpNoDelay(true);
+			// The reading thread gives up if the server stays silent
+			socket.setSoTimeout((int) heartbeat.getIdleTimeout());
+			outputStream = new DataOutputStream(new BufferedOutputStream(
+					socket.getOutputStream()));
+			inputStream = new DataInputStream(new BufferedInputStream(
+					socket.getInputStream()));
+			Frames.write(outputStream, Handshake.hello(codecs));
+			WireCodec codec = Handshake.chosen(Frames.read(inputStream),
+					codecs);
+			encoder = codec.newEncoder();
+			decoder = codec.newDecoder();
+		} catch (IOException e) {
+			socket.close();
+			throw e;
+		}
+		this.lastWrite = System.nanoTime();
+		this.heartbeatTask = HEARTBEATS.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				beat(heartbeat);
+			}
+		}, heartbeat.getInterval(), heartbeat.getInterval(),
+				TimeUnit.MILLISECONDS);
+		Thread reader = new Thread(this, "socket-session");
+		reader.setDaemon(true);
+		reader.start();
+	}
+
+	/**
+	 * Sends a heartbeat to the server, if the client has sent nothing for an
+	 * interval
+	 *
+	 * @param heartbeat
+	 *            the heartbeat settings of the session
+	 */
+	private void beat(Heartbeat heartbeat) {
+		if (System.nanoTime() - lastWrite < TimeUnit.MILLISECONDS
+				.toNanos(heartbeat.getInterval())) {
+			return;
+		}
+		try {
+			synchronized (outputStream) {
+				if (closed) {
+					return;
+				}
+				Heartbeat.write(outputStream);
+				lastWrite = System.nanoTime();
+			}
+		} catch (IOException e) {
+			ClientLogger.getLogger().log(Level.WARNING,
+					"com error on client | SocketSession", e);
+			close();
+		}
+	}
+
+	/**
+	 * Sends a request to the server
+	 *
+	 * @param remoteMethodCall
+	 *            the remote method the client wants to call on the server
+	 * @return the request, that can be used to wait for its response
+	 * @throws IOException
+	 *             signals a com. error
+	 */
+	public PendingCall send(RemoteMethodCall remoteMethodCall)
+			throws IOException {
+		int callId = nextCallId();
+		remoteMethodCall.setCallId(callId);
+		PendingCall pendingCall = new PendingCall(pendingCalls, callId);
+		pendingCalls.put(callId, pendingCall);
+		try {
+			synchronized (outputStream) {
+				if (closed) {
+					throw new IOException("The session is closed");
+				}
+				Frames.write(outputStream, encoder.encode(remoteMethodCall));
+				lastWrite = System.nanoTime();
+			}
+		} catch (IOException e) {
+			pendingCalls.remove(callId);
+			close();
+			throw e;
+		}
+		return pendingCall;
+	}
+
+	/**
+	 * Checks if the session is closed
+	 *
+	 * @return true if the session is closed
+	 */
+	public boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * Closes the session. All the requests still waiting for their response
+	 * fail
+	 */
+	public void close() {
+		closed = true;
+		heartbeatTask.cancel(false);
+		try {
+			socket.close();
+		} catch (IOException e) {
+			ClientLogger.getLogger().log(Level.WARNING,
+					"com error on client | SocketSession", e);
+		}
+		release(encoder);
+		release(decoder);
+		for (Integer callId : pendingCalls.keySet()) {
+			PendingCall pendingCall = pendingCalls.remove(callId);
+			if (pendingCall != null) {
+				pendingCall.complete(new IOException(
+						"The connection with the server has been lost"));
+			}
+		}
+	}
+
+	/**
+	 * Releases the resources held by an encoder or a decoder, if any
+	 *
+	 * @param codecPart
+	 *            the encoder or the decoder to be released
+	 */
+	private static void release(Object codecPart) {
+		if (codecPart instanceof Closeable) {
+			try {
+				((Closeable) codecPart).close();
+			} catch (IOException e) {
+				ClientLogger.getLogger().log(Level.WARNING,
+						"com error on client | SocketSession", e);
+			}
+		}
+	}
+
+	/**
+	 * Runs the thread that reads from the session. The thread processes every
+	 * call received from the server and, if the call is the response to a
+	 * request, wakes up the thread waiting for it
+	 */
+	@Override
+	public void run() {
+		while (!closed) {
+			RemoteMethodCall remoteMethodCall;
+			try {
+				byte[] payload = Frames.read(inputStream);
+				if (Heartbeat.isHeartbeat(payload)) {
+					continue;
+				}
+				remoteMethodCall = decoder.decode(payload);
+			} catch (SocketTimeoutException e) {
+				ClientLogger.getLogger().log(Level.WARNING,
+						"server silent, connection closed | SocketSession", e);
+				close();
+				return;
+			} catch (IOException | ClassNotFoundException e) {
+				if (!closed) {
+					ClientLogger.getLogger().log(Level.SEVERE,
+							"com error on client | SocketSession", e);
+				}
+				close();
+				return;
+			}
+			Exception failure = null;
+			try {
+				clientServices.processRemoteInvocation(remoteMethodCall);
+			} catch (InvocationTargetException e) {
+				// The failure of a response is reported to the request
+				if (remoteMethodCall.getCallId() == RemoteMethodCall.ASYNC_CALL_ID) {
+					ClientLogger.getLogger().log(Level.SEVERE,
+							"Could not perform action | SocketSession", e);
+				}
+				failure = e;
+			} catch (IllegalAccessException | IllegalArgumentException
+					| NoSuchMethodException | SecurityException e) {
+				ClientLogger.getLogger().log(Level.SEVERE,
+						"reflection error on client | SocketSession", e);
+				failure = e;
+			}
+			if (remoteMethodCall.getCallId() != RemoteMethodCall.ASYNC_CALL_ID) {
+				PendingCall pendingCall = pendingCalls.remove(remoteMethodCall
+						.getCallId());
+				if (pendingCall != null) {
+					pendingCall.complete(failure);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the id of the next request, skipping the id reserved to async calls
+	 *
+	 * @return the id of the next request
+	 */
+	private int nextCallId() {
+		int callId = lastCallId.incrementAndGet();
+		while (callId == RemoteMethodCall.ASYNC_CALL_ID) {
+			callId = lastCallId.incrementAndGet();
+		}
+		return callId;
+	}
+
+	/**
+	 * Represents a request sent to the server that may be still waiting for
+	 * its response
+	 */
+	public static class PendingCall {
+		// Signals that the response has been processed
+		private final CountDownLatch done = new CountDownLatch(1);
+		// The requests of the session that are waiting for their response
+		private final Map<Integer, PendingCall> pendingCalls;
+		// The id of the request
+		private final int callId;
+		// The error occurred while waiting or processing the response
+		private volatile Exception failure;
+
+		PendingCall(Map<Integer, PendingCall> pendingCalls, int callId) {
+			this.pendingCalls = pendingCalls;
+			this.callId = callId;
+		}
+
+		/**
+		 * Marks the request as completed
+		 *
+		 * @param failure
+		 *            the error occurred, or null if the response has been
+		 *            correctly processed
+		 */
+		void complete(Exception failure) {
+			this.failure = failure;
+			done.countDown();
+		}
+
+		/**
+		 * Waits for the response to the request to be processed, at most for
+		 * the {@link SocketSession#RESPONSE_TIMEOUT}. A request whose response
+		 * doesn't arrive in time fails
+		 *
+		 * @return the error occurred, or null if the response has been
+		 *         correctly processed
+		 * @throws InterruptedIOException
+		 *             if the waiting thread is interrupted
+		 */
+		public Exception await() throws InterruptedIOException {
+			return await(RESPONSE_TIMEOUT);
+		}
+
+		/**
+		 * Waits for the response to the request to be processed, at most for
+		 * the given time. A request whose response doesn't arrive in time
+		 * fails
+		 *
+		 * @param timeout
+		 *            the time to wait for the response, in ms
+		 * @return the error occurred, or null if the response has been
+		 *         correctly processed
+		 * @throws InterruptedIOException
+		 *             if the waiting thread is interrupted
+		 */
+		public Exception await(long timeout) throws InterruptedIOException {
+			try {
+				if (!done.await(timeout, TimeUnit.MILLISECONDS)) {
+					// A late response is ignored
+					pendingCalls.remove(callId);
+					return new SocketTimeoutException(
+							"The server has not answered in time");
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException(
+						"Interrupted while waiting for the server");
+			}
+			return failure;
+		}
+	}
+}
@@ -12,25 +12,26 @@ public class AttackObjectCard extends ObjectCard {
 	// A field automatically created for serialization purposes
 	private static final long serialVersionUID = 1L;
 
-	private final Sector attackTarget;
+	private final Coordinate attackTarget;
 
 	/**
-	 * Constructs an attack object card from the sector to be attacked using the
-	 * object card itself
+	 * Constructs an attack object card from the coordinate of the sector to be
+	 * attacked using the object card itself
 	 * 
 	 * @param attackTarget
-	 *            the sector to be attacked using the object card
+	 *            the coordinate of the sector to be attacked using the object
+	 *            card
 	 */
-	public AttackObjectCard(Sector attackTarget) {
+	public AttackObjectCard(Coordinate attackTarget) {
 		this.attackTarget = attackTarget;
 	}
 
 	/**
-	 * the sector to be attacked using this object card
+	 * the coordinate of the sector to be attacked using this object card
 	 * 
-	 * @return The target sector of this card
+	 * @return The coordinate of the target sector of this card
 	 */
-	public Sector getAttackTarget() {
+	public Coordinate getAttackTarget() {
 		return this.attackTarget;
 	}
 
@@ -0,0 +1,598 @@
+package common;
+
+import it.polimi.ingsw.cg_19.Player;
+import it.polimi.ingsw.cg_19.PlayerType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import server.GameStatus;
+
+/**
+ * Represents a compact binary codec. Every remote method call is encoded on its
+ * own, without any reference to previous calls, and the values most often
+ * exchanged by the client and the server (moves and attacks, notifications,
+ * tokens, games' public data, their changes and their pages, sectors, game
+ * events, the calls carried by a batch) are written field by field, each one
+ * preceded by a one-byte tag. The values of any other type fall back to the
+ * java serialization.
+ *
+ * @see WireCodec
+ * @author Andrea Sessa
+ * @author Giorgio Pea
+ */
+public class BinaryCodec implements WireCodec {
+	/** The id of the codec */
+	public static final byte ID = 2;
+
+	// The tags that precede the values
+	private static final byte NULL = 0;
+	private static final byte STRING = 1;
+	private static final byte INTEGER = 2;
+	private static final byte BOOLEAN = 3;
+	private static final byte LIST = 4;
+	private static final byte PLAYER_TOKEN = 5;
+	private static final byte GAME_PUBLIC_DATA = 6;
+	private static final byte SECTOR = 7;
+	private static final byte MOVE_ACTION = 8;
+	private static final byte CLIENT_NOTIFICATION = 9;
+	private static final byte RR_CLIENT_NOTIFICATION = 10;
+	private static final byte PS_CLIENT_NOTIFICATION = 11;
+	private static final byte REMOTE_METHOD_CALL = 12;
+	private static final byte GAME_EVENT = 13;
+	private static final byte LOBBY_DELTA = 14;
+	private static final byte LOBBY_QUERY = 15;
+	private static final byte LOBBY_PAGE = 16;
+	private static final byte COMPILED_MAP = 17;
+	private static final byte MOVE_ATTACK_ACTION = 18;
+	private static final byte SERIALIZED = 127;
+
+	/** The maximum depth at which lists and calls can be nested in a frame */
+	public static final int MAX_DEPTH = 32;
+
+	// The charset of the strings
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	/**
+	 * @see WireCodec#getId
+	 */
+	@Override
+	public byte getId() {
+		return ID;
+	}
+
+	/**
+	 * @see WireCodec#newEncoder
+	 */
+	@Override
+	public FrameEncoder newEncoder() {
+		return new BinaryEncoder();
+	}
+
+	/**
+	 * @see WireCodec#newDecoder
+	 */
+	@Override
+	public FrameDecoder newDecoder() {
+		return new BinaryDecoder();
+	}
+
+	/**
+	 * @see WireCodec#isStateless
+	 */
+	@Override
+	public boolean isStateless() {
+		return true;
+	}
+
+	/**
+	 * Represents the encoder of the binary codec, it has no state so it can be
+	 * shared by many threads
+	 */
+	private static class BinaryEncoder implements FrameEncoder {
+
+		@Override
+		public byte[] encode(RemoteMethodCall remoteMethodCall)
+				throws IOException {
+			ByteArrayOutputStream buffer = new ByteArrayOutputStream(64);
+			DataOutputStream output = new DataOutputStream(buffer);
+			writeRemoteMethodCall(output, remoteMethodCall);
+			output.flush();
+			return buffer.toByteArray();
+		}
+
+		private void writeRemoteMethodCall(DataOutputStream output,
+				RemoteMethodCall remoteMethodCall) throws IOException {
+			// The name is sent only for the methods that have no id
+			output.writeShort(remoteMethodCall.getMethodId());
+			if (remoteMethodCall.getMethodId() == RemoteMethods.UNKNOWN) {
+				writeString(output, remoteMethodCall.getMethodName());
+			}
+			output.writeInt(remoteMethodCall.getCallId());
+			writeList(output, remoteMethodCall.getMethodParameters());
+		}
+
+		private void writeValue(DataOutputStream output, Object value)
+				throws IOException {
+			if (value == null) {
+				output.writeByte(NULL);
+			} else if (value instanceof String) {
+				output.writeByte(STRING);
+				writeString(output, (String) value);
+			} else if (value instanceof Integer) {
+				output.writeByte(INTEGER);
+				output.writeInt((Integer) value);
+			} else if (value instanceof Boolean) {
+				output.writeByte(BOOLEAN);
+				output.writeBoolean((Boolean) value);
+			} else if (value.getClass() == ArrayList.class) {
+				output.writeByte(LIST);
+				writeList(output, (List<?>) value);
+			} else if (value.getClass() == PlayerToken.class) {
+				output.writeByte(PLAYER_TOKEN);
+				writePlayerToken(output, (PlayerToken) value);
+			} else if (value.getClass() == GamePublicData.class) {
+				output.writeByte(GAME_PUBLIC_DATA);
+				writeGamePublicData(output, (GamePublicData) value);
+			} else if (value.getClass() == LobbyDelta.class) {
+				output.writeByte(LOBBY_DELTA);
+				output.writeByte(((LobbyDelta) value).getKind().ordinal());
+				writeGamePublicData(output, ((LobbyDelta) value).getGame());
+			} else if (value.getClass() == LobbyQuery.class) {
+				output.writeByte(LOBBY_QUERY);
+				writeLobbyQuery(output, (LobbyQuery) value);
+			} else if (value.getClass() == LobbyPage.class) {
+				output.writeByte(LOBBY_PAGE);
+				writeLobbyPage(output, (LobbyPage) value);
+			} else if (value.getClass() == CompiledMap.class) {
+				output.writeByte(COMPILED_MAP);
+				byte[] bytes = ((CompiledMap) value).getBytes();
+				output.writeInt(bytes.length);
+				output.write(bytes);
+			} else if (value.getClass() == Sector.class) {
+				output.writeByte(SECTOR);
+				writeSector(output, (Sector) value);
+			} else if (value.getClass() == MoveAction.class) {
+				output.writeByte(MOVE_ACTION);
+				writeCoordinate(output, ((MoveAction) value).getTarget());
+			} else if (value.getClass() == MoveAttackAction.class) {
+				output.writeByte(MOVE_ATTACK_ACTION);
+				writeCoordinate(output, ((MoveAttackAction) value).getTarget());
+			} else if (value.getClass() == ClientNotification.class) {
+				output.writeByte(CLIENT_NOTIFICATION);
+				writeString(output, ((ClientNotification) value).getMessage());
+			} else if (value.getClass() == RRClientNotification.class) {
+				output.writeByte(RR_CLIENT_NOTIFICATION);
+				writeRRClientNotification(output, (RRClientNotification) value);
+			} else if (value.getClass() == PSClientNotification.class) {
+				output.writeByte(PS_CLIENT_NOTIFICATION);
+				writePSClientNotification(output, (PSClientNotification) value);
+			} else if (value.getClass() == GameEvent.class) {
+				output.writeByte(GAME_EVENT);
+				writeGameEvent(output, (GameEvent) value);
+			} else if (value.getClass() == RemoteMethodCall.class) {
+				output.writeByte(REMOTE_METHOD_CALL);
+				writeRemoteMethodCall(output, (RemoteMethodCall) value);
+			} else {
+				output.writeByte(SERIALIZED);
+				writeSerialized(output, value);
+			}
+		}
+
+		private void writeString(DataOutputStream output, String value)
+				throws IOException {
+			if (value == null) {
+				output.writeInt(-1);
+				return;
+			}
+			byte[] bytes = value.getBytes(UTF_8);
+			output.writeInt(bytes.length);
+			output.write(bytes);
+		}
+
+		private void writeList(DataOutputStream output, List<?> values)
+				throws IOException {
+			output.writeInt(values.size());
+			for (Object value : values) {
+				writeValue(output, value);
+			}
+		}
+
+		private void writePlayerToken(DataOutputStream output,
+				PlayerToken token) throws IOException {
+			output.writeLong(token.getUUID().getMostSignificantBits());
+			output.writeLong(token.getUUID().getLeastSignificantBits());
+			output.writeByte(token.getPlayerType().ordinal());
+		}
+
+		private void writeGamePublicData(DataOutputStream output,
+				GamePublicData data) throws IOException {
+			output.writeInt(data.getId());
+			writeString(output, data.getName());
+			writeString(output, data.getMapName());
+			output.writeInt(data.getPlayersCount());
+			output.writeByte(data.getStatus().ordinal());
+		}
+
+		private void writeLobbyQuery(DataOutputStream output, LobbyQuery query)
+				throws IOException {
+			writeString(output, query.getMapName());
+			output.writeBoolean(query.isOnlyOpen());
+			output.writeInt(query.getMinFreeSeats());
+			output.writeInt(query.getOffset());
+			output.writeInt(query.getLimit());
+		}
+
+		private void writeLobbyPage(DataOutputStream output, LobbyPage page)
+				throws IOException {
+			output.writeLong(page.getVersion());
+			output.writeInt(page.getTotal());
+			output.writeInt(page.getOffset());
+			output.writeInt(page.getGames().size());
+			for (GamePublicData game : page.getGames()) {
+				writeGamePublicData(output, game);
+			}
+		}
+
+		private void writeSector(DataOutputStream output, Sector sector)
+				throws IOException {
+			output.writeChar(sector.getCoordinate().getX());
+			output.writeInt(sector.getCoordinate().getY());
+			output.writeByte(sector.getSectorType().ordinal());
+			// Only the type and the name of the players are exchanged
+			List<Player> players = sector.getPlayers();
+			output.writeInt(players.size());
+			for (Player player : players) {
+				output.writeByte(player.getPlayerType().ordinal());
+				writeString(output, player.getName());
+			}
+		}
+
+		private void writeGameEvent(DataOutputStream output, GameEvent event)
+				throws IOException {
+			output.writeByte(event.getType().ordinal());
+			writeString(output, event.getActor());
+			writeString(output, event.getSubject());
+			writeCoordinate(output, event.getSector());
+		}
+
+		private void writeCoordinate(DataOutputStream output,
+				Coordinate coordinate) throws IOException {
+			output.writeBoolean(coordinate != null);
+			if (coordinate != null) {
+				output.writeChar(coordinate.getX());
+				output.writeInt(coordinate.getY());
+			}
+		}
+
+		private void writeRRClientNotification(DataOutputStream output,
+				RRClientNotification notification) throws IOException {
+			// The events are sent instead of their text
+			writeString(output, notification.getText());
+			writeList(output, notification.getEvents());
+			output.writeBoolean(notification.getActionResult());
+			output.writeInt(notification.getPerformedActions());
+			writeList(output, notification.getDrawnCards());
+			writeList(output, notification.getLightedSectors());
+		}
+
+		private void writePSClientNotification(DataOutputStream output,
+				PSClientNotification notification) throws IOException {
+			writeString(output, notification.getText());
+			writeList(output, notification.getEvents());
+			output.writeBoolean(notification.getHumanWins());
+			output.writeBoolean(notification.getAlienWins());
+			writeValue(output, notification.getEscapedPlayer());
+			writeList(output, notification.getDeadPlayers());
+			writeList(output, notification.getAttackedPlayers());
+		}
+
+		private void writeSerialized(DataOutputStream output, Object value)
+				throws IOException {
+			ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+			ObjectOutputStream stream = new ObjectOutputStream(buffer);
+			stream.writeObject(value);
+			stream.close();
+			output.writeInt(buffer.size());
+			buffer.writeTo(output);
+		}
+	}
+
+	/**
+	 * Represents the decoder of the binary codec, it has no state so it can be
+	 * shared by many threads
+	 */
+	private static class BinaryDecoder implements FrameDecoder {
+
+		@Override
+		public RemoteMethodCall decode(byte[] payload) throws IOException,
+				ClassNotFoundException {
+			return readRemoteMethodCall(new DataInputStream(
+					new ByteArrayInputStream(payload)), 0);
+		}
+
+		/*
+		 * The method id and the call id lead the payload
+		 */
+		@Override
+		public RemoteMethodCall peek(byte[] payload) {
+			if (payload.length < 6) {
+				return null;
+			}
+			int methodId = (short) ((payload[0] << 8) | (payload[1] & 0xFF));
+			if (methodId < 0 || methodId >= RemoteMethods.COUNT) {
+				return null;
+			}
+			int callId = ((payload[2] & 0xFF) << 24)
+					| ((payload[3] & 0xFF) << 16) | ((payload[4] & 0xFF) << 8)
+					| (payload[5] & 0xFF);
+			RemoteMethodCall remoteMethodCall = new RemoteMethodCall(methodId,
+					new ArrayList<Object>());
+			remoteMethodCall.setCallId(callId);
+			return remoteMethodCall;
+		}
+
+		/*
+		 * The depth is the number of lists and calls the value is nested in,
+		 * it is bounded so that a malicious frame can't exhaust the stack
+		 */
+		private RemoteMethodCall readRemoteMethodCall(DataInputStream input,
+				int depth) throws IOException, ClassNotFoundException {
+			checkDepth(depth);
+			int methodId = input.readShort();
+			String methodName = null;
+			if (methodId == RemoteMethods.UNKNOWN) {
+				methodName = readString(input);
+			} else if (methodId < 0 || methodId >= RemoteMethods.COUNT) {
+				throw new IOException("Unknown method id: " + methodId);
+			}
+			int callId = input.readInt();
+			ArrayList<Object> parameters = readList(input, depth + 1);
+			RemoteMethodCall remoteMethodCall;
+			if (methodName == null) {
+				remoteMethodCall = new RemoteMethodCall(methodId, parameters);
+			} else {
+				remoteMethodCall = new RemoteMethodCall(methodName, parameters);
+			}
+			remoteMethodCall.setCallId(callId);
+			return remoteMethodCall;
+		}
+
+		private Object readValue(DataInputStream input, int depth)
+				throws IOException, ClassNotFoundException {
+			byte tag = input.readByte();
+			switch (tag) {
+			case NULL:
+				return null;
+			case STRING:
+				return readString(input);
+			case INTEGER:
+				return input.readInt();
+			case BOOLEAN:
+				return input.readBoolean();
+			case LIST:
+				return readList(input, depth + 1);
+			case PLAYER_TOKEN:
+				return readPlayerToken(input);
+			case GAME_PUBLIC_DATA:
+				return readGamePublicData(input);
+			case SECTOR:
+				return readSector(input);
+			case MOVE_ACTION:
+				return new MoveAction(readCoordinate(input));
+			case MOVE_ATTACK_ACTION:
+				return new MoveAttackAction(readCoordinate(input));
+			case CLIENT_NOTIFICATION:
+				return new ClientNotification(readString(input));
+			case RR_CLIENT_NOTIFICATION:
+				return readRRClientNotification(input, depth);
+			case PS_CLIENT_NOTIFICATION:
+				return readPSClientNotification(input, depth);
+			case REMOTE_METHOD_CALL:
+				return readRemoteMethodCall(input, depth + 1);
+			case GAME_EVENT:
+				return readGameEvent(input);
+			case LOBBY_QUERY:
+				return readLobbyQuery(input);
+			case LOBBY_PAGE:
+				return readLobbyPage(input);
+			case COMPILED_MAP:
+				return readCompiledMap(input);
+			case LOBBY_DELTA:
+				return new LobbyDelta(
+						LobbyDelta.Kind.values()[input.readUnsignedByte()],
+						readGamePublicData(input));
+			case SERIALIZED:
+				return readSerialized(input);
+			default:
+				throw new IOException("Unknown tag: " + tag);
+			}
+		}
+
+		private String readString(DataInputStream input) throws IOException {
+			int length = input.readInt();
+			if (length < 0) {
+				return null;
+			}
+			Frames.checkLength(length);
+			byte[] bytes = new byte[length];
+			input.readFully(bytes);
+			return new String(bytes, UTF_8);
+		}
+
+		private ArrayList<Object> readList(DataInputStream input, int depth)
+				throws IOException, ClassNotFoundException {
+			checkDepth(depth);
+			int size = input.readInt();
+			Frames.checkLength(size);
+			ArrayList<Object> values = new ArrayList<Object>(Math.min(size,
+					1024));
+			for (int i = 0; i < size; i++) {
+				values.add(readValue(input, depth));
+			}
+			return values;
+		}
+
+		private void checkDepth(int depth) throws IOException {
+			if (depth > MAX_DEPTH) {
+				throw new IOException("Values nested too deeply");
+			}
+		}
+
+		private PlayerToken readPlayerToken(DataInputStream input)
+				throws IOException {
+			UUID uuid = new UUID(input.readLong(), input.readLong());
+			return new PlayerToken(uuid,
+					PlayerType.values()[input.readUnsignedByte()]);
+		}
+
+		private GamePublicData readGamePublicData(DataInputStream input)
+				throws IOException {
+			int id = input.readInt();
+			String name = readString(input);
+			String mapName = readString(input);
+			int numberOfPlayers = input.readInt();
+			GameStatus status = GameStatus.values()[input.readUnsignedByte()];
+			return new GamePublicData(id, name, mapName, numberOfPlayers,
+					status);
+		}
+
+		private LobbyQuery readLobbyQuery(DataInputStream input)
+				throws IOException {
+			String mapName = readString(input);
+			boolean onlyOpen = input.readBoolean();
+			int minFreeSeats = input.readInt();
+			int offset = input.readInt();
+			int limit = input.readInt();
+			try {
+				return new LobbyQuery(mapName, onlyOpen, minFreeSeats, offset,
+						limit);
+			} catch (IllegalArgumentException e) {
+				throw new IOException("Malformed lobby query", e);
+			}
+		}
+
+		private LobbyPage readLobbyPage(DataInputStream input)
+				throws IOException {
+			long version = input.readLong();
+			int total = input.readInt();
+			int offset = input.readInt();
+			int size = input.readInt();
+			Frames.checkLength(size);
+			ArrayList<GamePublicData> games = new ArrayList<GamePublicData>(
+					Math.min(size, LobbyQuery.MAX_LIMIT));
+			for (int i = 0; i < size; i++) {
+				games.add(readGamePublicData(input));
+			}
+			return new LobbyPage(version, total, offset, games);
+		}
+
+		private CompiledMap readCompiledMap(DataInputStream input)
+				throws IOException {
+			int length = input.readInt();
+			Frames.checkLength(length);
+			byte[] bytes = new byte[length];
+			input.readFully(bytes);
+			return CompiledMap.fromBytes(bytes);
+		}
+
+		private Sector readSector(DataInputStream input) throws IOException {
+			Coordinate coordinate = new Coordinate(input.readChar(),
+					input.readInt());
+			Sector sector = new Sector(coordinate,
+					SectorType.values()[input.readUnsignedByte()]);
+			int players = input.readInt();
+			Frames.checkLength(players);
+			for (int i = 0; i < players; i++) {
+				PlayerType type = PlayerType.values()[input.readUnsignedByte()];
+				sector.addPlayer(new Player(type, readString(input)));
+			}
+			return sector;
+		}
+
+		@SuppressWarnings("unchecked")
+		private RRClientNotification readRRClientNotification(
+				DataInputStream input, int depth) throws IOException,
+				ClassNotFoundException {
+			String message = readString(input);
+			ArrayList<?> events = readList(input, depth + 1);
+			boolean actionResult = input.readBoolean();
+			int performedActions = input.readInt();
+			ArrayList<?> cards = readList(input, depth + 1);
+			ArrayList<?> sectors = readList(input, depth + 1);
+			RRClientNotification notification = new RRClientNotification(
+					actionResult, (ArrayList<Card>) cards,
+					(ArrayList<Sector>) sectors);
+			notification.setPerformedActions(performedActions);
+			notification.setMessage(message);
+			readEvents(notification, events);
+			return notification;
+		}
+
+		private GameEvent readGameEvent(DataInputStream input)
+				throws IOException {
+			GameEvent.Type type = GameEvent.Type.values()[input
+					.readUnsignedByte()];
+			String actor = readString(input);
+			String subject = readString(input);
+			return new GameEvent(type, actor, subject, readCoordinate(input));
+		}
+
+		private Coordinate readCoordinate(DataInputStream input)
+				throws IOException {
+			if (!input.readBoolean()) {
+				return null;
+			}
+			return new Coordinate(input.readChar(), input.readInt());
+		}
+
+		private void readEvents(ClientNotification notification,
+				List<?> events) {
+			for (Object event : events) {
+				notification.addEvent((GameEvent) event);
+			}
+		}
+
+		private PSClientNotification readPSClientNotification(
+				DataInputStream input, int depth) throws IOException,
+				ClassNotFoundException {
+			PSClientNotification notification = new PSClientNotification();
+			notification.setMessage(readString(input));
+			readEvents(notification, readList(input, depth + 1));
+			notification.setHumanWins(input.readBoolean());
+			notification.setAlienWins(input.readBoolean());
+			notification.setEscapedPlayer((PlayerToken) readValue(input, depth));
+			for (Object deadPlayer : readList(input, depth + 1)) {
+				notification.addDeadPlayers((PlayerToken) deadPlayer);
+			}
+			for (Object attackedPlayer : readList(input, depth + 1)) {
+				notification.addAttackedPlayers((PlayerToken) attackedPlayer);
+			}
+			return notification;
+		}
+
+		private Object readSerialized(DataInputStream input)
+				throws IOException, ClassNotFoundException {
+			int length = input.readInt();
+			Frames.checkLength(length);
+			byte[] bytes = new byte[length];
+			input.readFully(bytes);
+			ObjectInputStream stream = new ObjectInputStream(
+					new ByteArrayInputStream(bytes));
+			try {
+				return stream.readObject();
+			} finally {
+				stream.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,73 @@
+package common;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Represents a remote method call published to all the subscribers of a topic
+ * in the logic of the pub/sub pattern. The call is encoded at most once for
+ * each stateless codec: the frame is cached and the same bytes are written to
+ * every connection that uses the codec. The connections whose codec keeps a
+ * state have to encode the call on their own.
+ *
+ * @see WireCodec#isStateless
+ * @author Andrea Sessa
+ * @author Giorgio Pea
+ */
+public final class Broadcast {
+	// The remote method call published to the subscribers
+	private final RemoteMethodCall remoteMethodCall;
+	// The frames that carry the call, by id of the codec that encoded them
+	private final Map<Byte, ByteBuffer> frames;
+
+	/**
+	 * Constructs a broadcast from the remote method call published to the
+	 * subscribers. The call must not be modified afterwards
+	 *
+	 * @param remoteMethodCall
+	 *            the remote method call published to the subscribers
+	 */
+	public Broadcast(RemoteMethodCall remoteMethodCall) {
+		this.remoteMethodCall = remoteMethodCall;
+		this.frames = new HashMap<Byte, ByteBuffer>(2);
+	}
+
+	/**
+	 * Gets the remote method call published to the subscribers
+	 *
+	 * @return the remote method call published to the subscribers
+	 */
+	public RemoteMethodCall getRemoteMethodCall() {
+		return remoteMethodCall;
+	}
+
+	/**
+	 * Gets the frame that carries the call encoded with a stateless codec. The
+	 * call is encoded the first time the frame is requested for the codec
+	 *
+	 * @param codec
+	 *            a stateless codec
+	 * @return a read-only view of the frame, positioned at its beginning
+	 * @throws IOException
+	 *             signals an error in the encoding of the call
+	 */
+	public ByteBuffer frameFor(WireCodec codec) throws IOException {
+		if (!codec.isStateless()) {
+			throw new IllegalArgumentException(
+					"The frames of a stateful codec can't be shared");
+		}
+		ByteBuffer frame;
+		synchronized (frames) {
+			frame = frames.get(codec.getId());
+			if (frame == null) {
+				frame = Frames.wrap(codec.newEncoder().encode(remoteMethodCall))
+						.asReadOnlyBuffer();
+				frames.put(codec.getId(), frame);
+			}
+		}
+		// Every connection writes the frame through its own position
+		return frame.duplicate();
+	}
+}
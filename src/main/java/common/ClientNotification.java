@@ -1,10 +1,14 @@
 package common;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Represents a generic notification the server sends to the client in response
  * to one of its requests. A base, generic notification contains a text message
+ * and the events of the game it reports, that are rendered as text by the
+ * client
  * 
  * @author Andrea Sessa
  * @author Giorgio Pea
@@ -15,6 +19,8 @@ public class ClientNotification implements Serializable {
 	private static final long serialVersionUID = 1L;
 	// The text message of the notification
 	private String message;
+	// The events of the game reported by the notification
+	private final ArrayList<GameEvent> events;
 
 	/**
 	 * Constructs a generic notification the server sends to the client in
@@ -26,6 +32,7 @@ public class ClientNotification implements Serializable {
 	 */
 	public ClientNotification(String message) {
 		this.message = message;
+		this.events = new ArrayList<GameEvent>();
 	}
 
 	/**
@@ -38,11 +45,94 @@ public class ClientNotification implements Serializable {
 	}
 
 	/**
-	 * Gets the text message contained in the notification
+	 * Gets the text message contained in the notification, followed by the
+	 * text of its events, one per line
 	 * 
 	 * @return the text message contained in the notification
 	 */
 	public String getMessage() {
+		if (events.isEmpty()) {
+			return message;
+		}
+		StringBuilder builder = new StringBuilder();
+		for (String line : getLines()) {
+			if (builder.length() > 0) {
+				builder.append('\n');
+			}
+			builder.append(line);
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Appends the text message and the events of another notification to this
+	 * one, as when the notifications of many actions are sent together
+	 * 
+	 * @param other
+	 *            the notification to be appended
+	 */
+	protected void append(ClientNotification other) {
+		if (other.message != null && !other.message.isEmpty()) {
+			message = message == null || message.isEmpty() ? other.message
+					: message + "\n" + other.message;
+		}
+		events.addAll(other.events);
+	}
+
+	/**
+	 * Gets the lines of text of the notification: the text message, if not
+	 * empty, and the text of every event
+	 * 
+	 * @return the lines of text of the notification
+	 */
+	public List<String> getLines() {
+		List<String> lines = new ArrayList<String>(events.size() + 1);
+		if (message != null && !message.isEmpty()) {
+			lines.add(message);
+		}
+		for (GameEvent event : events) {
+			lines.add(event.render(isToAll()));
+		}
+		return lines;
+	}
+
+	/**
+	 * Adds an event of the game to the notification
+	 * 
+	 * @param event
+	 *            the event to be reported by the notification
+	 */
+	public void addEvent(GameEvent event) {
+		if (event == null)
+			throw new IllegalArgumentException("event must not be null");
+		this.events.add(event);
+	}
+
+	/**
+	 * Gets the events of the game reported by the notification
+	 * 
+	 * @return the events of the game reported by the notification
+	 */
+	public List<GameEvent> getEvents() {
+		return events;
+	}
+
+	/**
+	 * Checks if the notification is addressed to all the players, rather than
+	 * to the player that caused its events
+	 * 
+	 * @return true if the notification is addressed to all the players
+	 */
+	protected boolean isToAll() {
+		return false;
+	}
+
+	/**
+	 * Gets the text message as it has been set, without the events
+	 * 
+	 * @return the text message as it has been set
+	 */
+	String getText() {
 		return message;
 	}
 
@@ -0,0 +1,293 @@
+package common;
+
+import it.polimi.ingsw.cg_19.GameMap;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jgrapht.UndirectedGraph;
+import org.jgrapht.graph.DefaultEdge;
+import org.jgrapht.graph.SimpleGraph;
+
+/**
+ * Represents a game map compiled into a compact binary form: the sizes of its
+ * table like representation, its sectors with their types and the adjacency
+ * between them. A compiled map is identified by the hash of its bytes, so the
+ * server sends a client only the hash of the map of a game, and the client
+ * asks for the bytes only if it hasn't got a map with that hash yet. A map is
+ * built from its compiled form without reading any map file.
+ *
+ * @see GameMap
+ * @author Andrea Sessa
+ * @author Giorgio Pea
+ */
+public final class CompiledMap implements Serializable {
+	// A field automatically created for serialization purposes
+	private static final long serialVersionUID = 1L;
+	// The first bytes of a compiled map, with the version of the format
+	private static final int MAGIC = 0x4D415031;
+	// The digest that computes the hash of the compiled maps
+	private static final String DIGEST = "SHA-256";
+	// The order of the sectors in a compiled map, by coordinate
+	private static final Comparator<Sector> BY_COORDINATE = new Comparator<Sector>() {
+		@Override
+		public int compare(Sector first, Sector second) {
+			Coordinate a = first.getCoordinate();
+			Coordinate b = second.getCoordinate();
+			if (a.getX() != b.getX()) {
+				return a.getX() < b.getX() ? -1 : 1;
+			}
+			return a.getY() < b.getY() ? -1 : a.getY() == b.getY() ? 0 : 1;
+		}
+	};
+
+	// The name of the map
+	private final String name;
+	// The hash of the bytes, in hex
+	private final String hash;
+	// The compiled map
+	private final byte[] bytes;
+
+	/**
+	 * Constructs a compiled map from its bytes, that are checked
+	 *
+	 * @param bytes
+	 *            the compiled map
+	 * @throws IOException
+	 *             if the bytes are not a compiled map
+	 */
+	private CompiledMap(byte[] bytes) throws IOException {
+		this.bytes = bytes;
+		this.hash = hashOf(bytes);
+		this.name = decode(bytes).getName();
+	}
+
+	/**
+	 * Compiles a game map
+	 *
+	 * @param map
+	 *            the map to be compiled
+	 * @return the compiled map
+	 */
+	public static CompiledMap compile(GameMap map) {
+		List<Sector> sectors = new ArrayList<Sector>(map.getGraph()
+				.vertexSet());
+		Collections.sort(sectors, BY_COORDINATE);
+		Map<Sector, Integer> indexes = new HashMap<Sector, Integer>();
+		for (int i = 0; i < sectors.size(); i++) {
+			indexes.put(sectors.get(i), i);
+		}
+		// The edges are sorted too, so the same map always has the same hash
+		List<int[]> edges = new ArrayList<int[]>();
+		for (DefaultEdge edge : map.getGraph().edgeSet()) {
+			int source = indexes.get(map.getGraph().getEdgeSource(edge));
+			int target = indexes.get(map.getGraph().getEdgeTarget(edge));
+			edges.add(new int[] { Math.min(source, target),
+					Math.max(source, target) });
+		}
+		Collections.sort(edges, new Comparator<int[]>() {
+			@Override
+			public int compare(int[] first, int[] second) {
+				if (first[0] != second[0]) {
+					return first[0] - second[0];
+				}
+				return first[1] - second[1];
+			}
+		});
+		try {
+			ByteArrayOutputStream buffer = new ByteArrayOutputStream(
+					16 + sectors.size() * 4 + edges.size() * 4);
+			DataOutputStream output = new DataOutputStream(buffer);
+			output.writeInt(MAGIC);
+			output.writeUTF(map.getName());
+			output.writeInt(map.getStartingHorizontalCoord());
+			output.writeInt(map.getStartingVerticalCoord());
+			output.writeInt(map.getHorizontalLength());
+			output.writeInt(map.getVerticalLength());
+			output.writeShort(sectors.size());
+			for (Sector sector : sectors) {
+				output.writeChar(sector.getCoordinate().getX());
+				output.writeByte(sector.getCoordinate().getY());
+				output.writeByte(sector.getSectorType().ordinal());
+			}
+			output.writeShort(edges.size());
+			for (int[] edge : edges) {
+				output.writeShort(edge[0]);
+				output.writeShort(edge[1]);
+			}
+			output.flush();
+			return new CompiledMap(buffer.toByteArray());
+		} catch (IOException e) {
+			// Writing in memory, and reading what has just been written
+			throw new IllegalStateException("Could not compile the map", e);
+		}
+	}
+
+	/**
+	 * Constructs a compiled map from bytes received or read from a file
+	 *
+	 * @param bytes
+	 *            the compiled map
+	 * @return the compiled map
+	 * @throws IOException
+	 *             if the bytes are not a compiled map
+	 */
+	public static CompiledMap fromBytes(byte[] bytes) throws IOException {
+		return new CompiledMap(bytes.clone());
+	}
+
+	/**
+	 * Gets the name of the map
+	 *
+	 * @return the name of the map
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Gets the hash that identifies the compiled map
+	 *
+	 * @return the hash of the compiled map, in hex
+	 */
+	public String getHash() {
+		return hash;
+	}
+
+	/**
+	 * Gets the bytes of the compiled map
+	 *
+	 * @return a copy of the compiled map
+	 */
+	public byte[] getBytes() {
+		return bytes.clone();
+	}
+
+	/**
+	 * Builds a new game map from the compiled map. Every call builds a new map
+	 * with new sectors, so a map built for a game is not shared
+	 *
+	 * @return the game map
+	 */
+	public GameMap toGameMap() {
+		try {
+			return decode(bytes);
+		} catch (IOException e) {
+			// The bytes have been checked by the constructor
+			throw new IllegalStateException("Could not decode the map", e);
+		}
+	}
+
+	/**
+	 * Builds a game map from the bytes of a compiled map
+	 *
+	 * @param bytes
+	 *            the compiled map
+	 * @return the game map
+	 * @throws IOException
+	 *             if the bytes are not a compiled map
+	 */
+	private static GameMap decode(byte[] bytes) throws IOException {
+		DataInputStream input = new DataInputStream(new ByteArrayInputStream(
+				bytes));
+		if (input.readInt() != MAGIC) {
+			throw new IOException("Not a compiled map");
+		}
+		String name = input.readUTF();
+		int startingHorizontalCoord = input.readInt();
+		int startingVerticalCoord = input.readInt();
+		int horizontalLength = input.readInt();
+		int verticalLength = input.readInt();
+		UndirectedGraph<Sector, DefaultEdge> graph = new SimpleGraph<Sector, DefaultEdge>(
+				DefaultEdge.class);
+		SectorType[] types = SectorType.values();
+		int sectorsCount = input.readUnsignedShort();
+		Sector[] sectors = new Sector[sectorsCount];
+		for (int i = 0; i < sectorsCount; i++) {
+			Coordinate coordinate = new Coordinate(input.readChar(),
+					input.readUnsignedByte());
+			int type = input.readUnsignedByte();
+			if (type >= types.length) {
+				throw new IOException("Unknown sector type: " + type);
+			}
+			sectors[i] = new Sector(coordinate, types[type]);
+			if (!graph.addVertex(sectors[i])) {
+				throw new IOException("Duplicated sector: " + coordinate);
+			}
+		}
+		int edgesCount = input.readUnsignedShort();
+		for (int i = 0; i < edgesCount; i++) {
+			int source = input.readUnsignedShort();
+			int target = input.readUnsignedShort();
+			if (source >= sectorsCount || target >= sectorsCount
+					|| source == target) {
+				throw new IOException("Malformed edge: " + source + "-"
+						+ target);
+			}
+			graph.addEdge(sectors[source], sectors[target]);
+		}
+		if (input.available() > 0) {
+			throw new IOException("Trailing bytes after the map");
+		}
+		return new GameMap(graph, startingHorizontalCoord,
+				startingVerticalCoord, horizontalLength, verticalLength, name);
+	}
+
+	/**
+	 * Computes the hash of some bytes
+	 *
+	 * @param bytes
+	 *            the bytes to be hashed
+	 * @return the hash of the bytes, in hex
+	 */
+	private static String hashOf(byte[] bytes) {
+		try {
+			byte[] digest = MessageDigest.getInstance(DIGEST).digest(bytes);
+			StringBuilder builder = new StringBuilder(digest.length * 2);
+			for (byte b : digest) {
+				builder.append(Character.forDigit((b >> 4) & 0xF, 16));
+				builder.append(Character.forDigit(b & 0xF, 16));
+			}
+			return builder.toString();
+		} catch (NoSuchAlgorithmException e) {
+			// Every jvm supports SHA-256
+			throw new IllegalStateException(DIGEST + " is not supported", e);
+		}
+	}
+
+	/**
+	 * Checks a deserialized compiled map, whose name and hash are computed
+	 * again from its bytes
+	 *
+	 * @return the checked compiled map
+	 * @throws ObjectStreamException
+	 *             if the bytes are not a compiled map
+	 */
+	private Object readResolve() throws ObjectStreamException {
+		try {
+			return new CompiledMap(bytes);
+		} catch (IOException e) {
+			throw new InvalidObjectException(e.getMessage());
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "CompiledMap [name=" + name + ", hash=" + hash + ", size="
+				+ bytes.length + "]";
+	}
+}
@@ -0,0 +1,354 @@
+package common;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Represents a codec that compresses the payloads of another codec. The
+ * payloads smaller than a threshold are sent as they are, the others are
+ * deflated; every payload is preceded by a byte that tells the two cases
+ * apart. The deflater of a connection is never reset, so each frame is
+ * compressed against the dictionary built by the previous frames of the same
+ * connection, and the inflater on the other side mirrors it. The compressed
+ * codec has its own id, so it is offered and chosen during the
+ * {@link Handshake} as any other codec, and a server that doesn't support it
+ * falls back to the plain codec. The {@link Counters} of the codec report the
+ * compression ratio and the time spent compressing.
+ *
+ * @see WireCodec
+ * @author Andrea Sessa
+ * @author Giorgio Pea
+ */
+public class DeflateCodec implements WireCodec {
+	/** The bit set in the id of a compressed codec */
+	public static final byte COMPRESSED = 0x40;
+	/** The default size, in bytes, from which the payloads are compressed */
+	public static final int DEFAULT_THRESHOLD = 256;
+
+	// The markers that precede the payloads
+	private static final byte PLAIN = 0;
+	private static final byte DEFLATED = 1;
+	// The size of the chunks the deflater and the inflater work on
+	private static final int CHUNK_SIZE = 4 * 1024;
+
+	// The codec whose payloads are compressed
+	private final WireCodec codec;
+	// The size from which the payloads are compressed
+	private final int threshold;
+	// The counters of the encoders of the codec
+	private final Counters counters;
+
+	/**
+	 * Constructs a codec that compresses the payloads of another codec from
+	 * the default threshold
+	 *
+	 * @param codec
+	 *            the codec whose payloads are compressed
+	 */
+	public DeflateCodec(WireCodec codec) {
+		this(codec, DEFAULT_THRESHOLD);
+	}
+
+	/**
+	 * Constructs a codec that compresses the payloads of another codec
+	 *
+	 * @param codec
+	 *            the codec whose payloads are compressed
+	 * @param threshold
+	 *            the size, in bytes, from which the payloads are compressed
+	 */
+	public DeflateCodec(WireCodec codec, int threshold) {
+		if ((codec.getId() & COMPRESSED) != 0)
+			throw new IllegalArgumentException("codec is already compressed");
+		this.codec = codec;
+		this.threshold = threshold;
+		this.counters = new Counters();
+	}
+
+	/**
+	 * Gets the counters of the encoders of the codec
+	 *
+	 * @return the counters of the encoders of the codec
+	 */
+	public Counters getCounters() {
+		return counters;
+	}
+
+	/**
+	 * @see WireCodec#getId
+	 */
+	@Override
+	public byte getId() {
+		return (byte) (codec.getId() | COMPRESSED);
+	}
+
+	/**
+	 * @see WireCodec#newEncoder
+	 */
+	@Override
+	public FrameEncoder newEncoder() throws IOException {
+		return new DeflateEncoder(codec.newEncoder(), threshold, counters);
+	}
+
+	/**
+	 * @see WireCodec#newDecoder
+	 */
+	@Override
+	public FrameDecoder newDecoder() {
+		return new InflateDecoder(codec.newDecoder());
+	}
+
+	/**
+	 * The encoders of this codec compress against the frames already sent on
+	 * their connection, so their frames can't be shared
+	 *
+	 * @see WireCodec#isStateless
+	 */
+	@Override
+	public boolean isStateless() {
+		return false;
+	}
+
+	/**
+	 * Represents the counters of the encoders of a codec, summed over all its
+	 * connections
+	 */
+	public static final class Counters {
+		// The number of payloads encoded
+		private final AtomicLong frames = new AtomicLong();
+		// The number of payloads compressed
+		private final AtomicLong compressedFrames = new AtomicLong();
+		// The bytes of the payloads before the compression
+		private final AtomicLong plainBytes = new AtomicLong();
+		// The bytes of the payloads after the compression
+		private final AtomicLong sentBytes = new AtomicLong();
+		// The time spent compressing, in nanoseconds
+		private final AtomicLong compressionNanos = new AtomicLong();
+
+		/**
+		 * Gets the number of payloads encoded
+		 *
+		 * @return the number of payloads encoded
+		 */
+		public long getFrames() {
+			return frames.get();
+		}
+
+		/**
+		 * Gets the number of payloads that have been compressed, being not
+		 * smaller than the threshold
+		 *
+		 * @return the number of payloads compressed
+		 */
+		public long getCompressedFrames() {
+			return compressedFrames.get();
+		}
+
+		/**
+		 * Gets the bytes of the payloads before the compression
+		 *
+		 * @return the bytes of the payloads before the compression
+		 */
+		public long getPlainBytes() {
+			return plainBytes.get();
+		}
+
+		/**
+		 * Gets the bytes of the payloads actually sent, markers included
+		 *
+		 * @return the bytes of the payloads actually sent
+		 */
+		public long getSentBytes() {
+			return sentBytes.get();
+		}
+
+		/**
+		 * Gets the time spent compressing, in nanoseconds
+		 *
+		 * @return the time spent compressing
+		 */
+		public long getCompressionNanos() {
+			return compressionNanos.get();
+		}
+
+		/**
+		 * Gets the ratio between the bytes before and after the compression
+		 *
+		 * @return the compression ratio, 1 if nothing has been sent
+		 */
+		public double getRatio() {
+			long sent = sentBytes.get();
+			return sent == 0 ? 1 : (double) plainBytes.get() / sent;
+		}
+
+		@Override
+		public String toString() {
+			return "Counters [frames=" + frames + ", compressedFrames="
+					+ compressedFrames + ", plainBytes=" + plainBytes
+					+ ", sentBytes=" + sentBytes + ", compressionNanos="
+					+ compressionNanos + "]";
+		}
+	}
+
+	/**
+	 * Represents an encoder that deflates the payloads of another encoder
+	 * with a deflater kept for the whole connection
+	 */
+	private static class DeflateEncoder implements FrameEncoder, Closeable {
+		// The encoder whose payloads are compressed
+		private final FrameEncoder encoder;
+		// The size from which the payloads are compressed
+		private final int threshold;
+		// The counters of the codec
+		private final Counters counters;
+		// The deflater of the connection
+		private final Deflater deflater;
+		// The chunk the deflater writes on
+		private final byte[] chunk;
+		// A flag that indicates that the deflater has been released
+		private boolean closed;
+
+		public DeflateEncoder(FrameEncoder encoder, int threshold,
+				Counters counters) {
+			this.encoder = encoder;
+			this.threshold = threshold;
+			this.counters = counters;
+			this.deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+			this.chunk = new byte[CHUNK_SIZE];
+		}
+
+		@Override
+		public synchronized byte[] encode(RemoteMethodCall remoteMethodCall)
+				throws IOException {
+			if (closed) {
+				throw new IOException("The encoder is closed");
+			}
+			byte[] payload = encoder.encode(remoteMethodCall);
+			byte[] sent;
+			if (payload.length < threshold) {
+				sent = new byte[payload.length + 1];
+				sent[0] = PLAIN;
+				System.arraycopy(payload, 0, sent, 1, payload.length);
+			} else {
+				long start = System.nanoTime();
+				ByteArrayOutputStream buffer = new ByteArrayOutputStream(
+						payload.length / 2 + 16);
+				buffer.write(DEFLATED);
+				deflater.setInput(payload);
+				// A sync flush ends the frame without resetting the dictionary
+				int length;
+				do {
+					length = deflater.deflate(chunk, 0, chunk.length,
+							Deflater.SYNC_FLUSH);
+					buffer.write(chunk, 0, length);
+				} while (length == chunk.length);
+				sent = buffer.toByteArray();
+				counters.compressedFrames.incrementAndGet();
+				counters.compressionNanos.addAndGet(System.nanoTime() - start);
+			}
+			counters.frames.incrementAndGet();
+			counters.plainBytes.addAndGet(payload.length);
+			counters.sentBytes.addAndGet(sent.length);
+			return sent;
+		}
+
+		/**
+		 * Releases the deflater of the connection
+		 */
+		@Override
+		public synchronized void close() {
+			closed = true;
+			deflater.end();
+		}
+	}
+
+	/**
+	 * Represents a decoder that inflates the payloads for another decoder with
+	 * an inflater kept for the whole connection
+	 */
+	private static class InflateDecoder implements FrameDecoder, Closeable {
+		// The decoder of the inflated payloads
+		private final FrameDecoder decoder;
+		// The inflater of the connection
+		private final Inflater inflater;
+		// The chunk the inflater writes on
+		private final byte[] chunk;
+		// A flag that indicates that the inflater has been released
+		private boolean closed;
+
+		public InflateDecoder(FrameDecoder decoder) {
+			this.decoder = decoder;
+			this.inflater = new Inflater(true);
+			this.chunk = new byte[CHUNK_SIZE];
+		}
+
+		@Override
+		public RemoteMethodCall decode(byte[] payload) throws IOException,
+				ClassNotFoundException {
+			if (payload.length == 0) {
+				throw new IOException("Empty payload");
+			}
+			byte[] plain;
+			if (payload[0] == PLAIN) {
+				plain = new byte[payload.length - 1];
+				System.arraycopy(payload, 1, plain, 0, plain.length);
+			} else if (payload[0] == DEFLATED) {
+				plain = inflate(payload);
+			} else {
+				throw new IOException("Unknown payload marker: " + payload[0]);
+			}
+			return decoder.decode(plain);
+		}
+
+		/*
+		 * Only a plain payload can be skipped, a deflated one feeds the
+		 * inflater of the connection
+		 */
+		@Override
+		public RemoteMethodCall peek(byte[] payload) {
+			if (payload.length == 0 || payload[0] != PLAIN) {
+				return null;
+			}
+			return decoder.peek(Arrays.copyOfRange(payload, 1, payload.length));
+		}
+
+		private synchronized byte[] inflate(byte[] payload)
+				throws IOException {
+			if (closed) {
+				throw new IOException("The decoder is closed");
+			}
+			ByteArrayOutputStream buffer = new ByteArrayOutputStream(
+					payload.length * 3);
+			inflater.setInput(payload, 1, payload.length - 1);
+			try {
+				int length;
+				while ((length = inflater.inflate(chunk)) > 0) {
+					buffer.write(chunk, 0, length);
+					// A payload can't inflate beyond the size of a frame
+					Frames.checkLength(buffer.size());
+				}
+			} catch (DataFormatException e) {
+				throw new IOException("Malformed compressed payload", e);
+			}
+			if (inflater.getRemaining() > 0) {
+				throw new IOException("Malformed compressed payload");
+			}
+			return buffer.toByteArray();
+		}
+
+		/**
+		 * Releases the inflater of the connection
+		 */
+		@Override
+		public synchronized void close() {
+			closed = true;
+			inflater.end();
+		}
+	}
+}
@@ -0,0 +1,45 @@
+package common;
+
+import java.io.IOException;
+
+/**
+ * Represents the decoder of the remote method calls received on a connection.
+ * Every call is decoded from the payload of a frame. A decoder is created by a
+ * {@link WireCodec} for a single connection, and mirrors the
+ * {@link FrameEncoder} on the other side of the connection.
+ *
+ * @see WireCodec
+ * @see FrameEncoder
+ * @see Frames
+ * @author Andrea Sessa
+ * @author Giorgio Pea
+ */
+public interface FrameDecoder {
+
+	/**
+	 * Decodes the remote method call carried by the payload of a frame
+	 *
+	 * @param payload
+	 *            the payload of the frame
+	 * @return the remote method call carried by the frame
+	 * @throws IOException
+	 *             signals a malformed payload
+	 * @throws ClassNotFoundException
+	 *             signals a malformed payload
+	 */
+	public RemoteMethodCall decode(byte[] payload) throws IOException,
+			ClassNotFoundException;
+
+	/**
+	 * Reads the method and the id of the remote method call carried by the
+	 * payload of a frame, without decoding its parameters, so that a call can
+	 * be rejected cheaply. The payload is to be decoded anyway if the call is
+	 * accepted
+	 *
+	 * @param payload
+	 *            the payload of the frame
+	 * @return the remote method call with no parameters, or null if the
+	 *         method can't be known without decoding the whole payload
+	 */
+	public RemoteMethodCall peek(byte[] payload);
+}
@@ -0,0 +1,29 @@
+package common;
+
+import java.io.IOException;
+
+/**
+ * Represents the encoder of the remote method calls sent on a connection. Every
+ * call is encoded into the payload of a frame. An encoder is created by a
+ * {@link WireCodec} for a single connection, so it may keep a state that
+ * depends on the calls previously sent on the connection.
+ *
+ * @see WireCodec
+ * @see FrameDecoder
+ * @see Frames
+ * @author Andrea Sessa
+ * @author Giorgio Pea
+ */
+public interface FrameEncoder {
+
+	/**
+	 * Encodes a remote method call
+	 *
+	 * @param remoteMethodCall
+	 *            the remote method call to be encoded
+	 * @return the payload of the frame that carries the remote method call
+	 * @throws IOException
+	 *             signals an error in the encoding of the call
+	 */
+	public byte[] encode(RemoteMethodCall remoteMethodCall) throws IOException;
+}
@@ -0,0 +1,95 @@
+package common;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Groups the procedures used to exchange frames on a socket. A frame is made
+ * of a four bytes header, that contains the length of the payload, followed by
+ * the payload itself. The payload of a frame is produced by a
+ * {@link FrameEncoder} and is consumed by a {@link FrameDecoder}
+ *
+ * @see FrameEncoder
+ * @see FrameDecoder
+ * @author Andrea Sessa
+ * @author Giorgio Pea
+ */
+public final class Frames {
+	// The size of the header of a frame
+	public static final int HEADER_SIZE = 4;
+	// The maximum size of the payload of a frame
+	public static final int MAX_PAYLOAD_SIZE = 16 * 1024 * 1024;
+
+	private Frames() {
+		/*
+		 * This class only groups static procedures
+		 */
+	}
+
+	/**
+	 * Writes a frame with the given payload on a stream and flushes the stream
+	 *
+	 * @param output
+	 *            the stream the frame is written on
+	 * @param payload
+	 *            the payload of the frame
+	 * @throws IOException
+	 *             signals a com. error
+	 */
+	public static void write(DataOutputStream output, byte[] payload)
+			throws IOException {
+		output.writeInt(payload.length);
+		output.write(payload);
+		output.flush();
+	}
+
+	/**
+	 * Reads a frame from a stream, blocking until the whole frame is available
+	 *
+	 * @param input
+	 *            the stream the frame is read from
+	 * @return the payload of the frame
+	 * @throws IOException
+	 *             signals a com. error or a frame whose size is not valid
+	 */
+	public static byte[] read(DataInputStream input) throws IOException {
+		int length = input.readInt();
+		checkLength(length);
+		byte[] payload = new byte[length];
+		input.readFully(payload);
+		return payload;
+	}
+
+	/**
+	 * Wraps a payload in a buffer that contains the whole frame, ready to be
+	 * written on a channel
+	 *
+	 * @param payload
+	 *            the payload of the frame
+	 * @return a buffer that contains the whole frame
+	 */
+	public static ByteBuffer wrap(byte[] payload) {
+		ByteBuffer frame = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+		frame.putInt(payload.length);
+		frame.put(payload);
+		frame.flip();
+		return frame;
+	}
+
+	/**
+	 * Checks that the length read from the header of a frame is valid
+	 *
+	 * @param length
+	 *            the length of the payload of a frame
+	 * @throws IOException
+	 *             if the length is negative or bigger than
+	 *             {@link #MAX_PAYLOAD_SIZE}
+	 */
+	public static void checkLength(int length) throws IOException {
+		if (length < 0 || length > MAX_PAYLOAD_SIZE) {
+			throw new IOException("Invalid frame length: " + length);
+		}
+	}
+}
@@ -0,0 +1,137 @@
+package common;
+
+import java.io.Serializable;
+import java.util.ResourceBundle;
+
+/**
+ * Represents something that happened in a game, carried by a notification in
+ * place of a text message. The event holds only its type, the player that
+ * caused it, a subject (another player, a card or a list of players) and a
+ * sector; the text is rendered by the client that receives it, from the texts
+ * of {@link GameEventTexts}, so it can be localized.
+ *
+ * @see ClientNotification
+ * @author Andrea Sessa
+ * @author Giorgio Pea
+ */
+public final class GameEvent implements Serializable {
+	// A field automatically created for serialization purposes
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The types of the events
+	 */
+	public enum Type {
+		MOVED, ATTACK_KILLED, ATTACK_DEFENDED, ATTACK_EMPTY, ADRENALINE,
+		DEFENDED, DISCARDED, OBJECT_CARD_DRAWN, NO_OBJECT_CARDS, ESCAPED,
+		NOT_ESCAPED, SECTOR_CARD_DRAWN, NOISE, SILENCE, SUPPRESSED, TELEPORTED,
+		OBJECT_CARD_USED, SPOTTED, TURN_ENDED, TURN_STARTED, HUMANS_WIN,
+		ALIENS_WIN, DISCONNECTED
+	}
+
+	// The type of the event
+	private final Type type;
+	// The name of the player that caused the event
+	private final String actor;
+	// The other player, the card or the players the event refers to
+	private final String subject;
+	// The sector the event refers to
+	private final Coordinate sector;
+
+	/**
+	 * Constructs an event from its type, the player that caused it, its
+	 * subject and its sector. Any of them but the type can be null
+	 *
+	 * @param type
+	 *            the type of the event
+	 * @param actor
+	 *            the name of the player that caused the event
+	 * @param subject
+	 *            the other player, the card or the players the event refers to
+	 * @param sector
+	 *            the sector the event refers to
+	 */
+	public GameEvent(Type type, String actor, String subject, Coordinate sector) {
+		if (type == null)
+			throw new IllegalArgumentException("type must not be null");
+		this.type = type;
+		this.actor = actor;
+		this.subject = subject;
+		this.sector = sector;
+	}
+
+	/**
+	 * Constructs an event that has only a type and the player that caused it
+	 *
+	 * @param type
+	 *            the type of the event
+	 * @param actor
+	 *            the name of the player that caused the event
+	 */
+	public GameEvent(Type type, String actor) {
+		this(type, actor, null, null);
+	}
+
+	/**
+	 * Gets the type of the event
+	 *
+	 * @return the type of the event
+	 */
+	public Type getType() {
+		return type;
+	}
+
+	/**
+	 * Gets the name of the player that caused the event
+	 *
+	 * @return the name of the player that caused the event
+	 */
+	public String getActor() {
+		return actor;
+	}
+
+	/**
+	 * Gets the other player, the card or the players the event refers to
+	 *
+	 * @return the subject of the event
+	 */
+	public String getSubject() {
+		return subject;
+	}
+
+	/**
+	 * Gets the sector the event refers to
+	 *
+	 * @return the sector the event refers to
+	 */
+	public Coordinate getSector() {
+		return sector;
+	}
+
+	/**
+	 * Renders the event as a line of text, in the default locale
+	 *
+	 * @param toAll
+	 *            true if the text is addressed to all the players, false if it
+	 *            is addressed to the player that caused the event
+	 * @return the text of the event
+	 */
+	public String render(boolean toAll) {
+		ResourceBundle texts = ResourceBundle.getBundle(GameEventTexts.class
+				.getName());
+		String text;
+		if (toAll) {
+			text = texts.getString(GameEventTexts.GLOBAL_PREFIX)
+					+ texts.getString(type.name() + GameEventTexts.TO_ALL);
+		} else {
+			text = texts.getString(type.name() + GameEventTexts.TO_ACTOR);
+		}
+		return String.format(text, actor, subject,
+				sector == null ? null : sector.toString());
+	}
+
+	@Override
+	public String toString() {
+		return render(true);
+	}
+}
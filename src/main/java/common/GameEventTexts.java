@@ -0,0 +1,89 @@
+package common;
+
+import java.util.ListResourceBundle;
+
+/**
+ * Represents the english texts of the game's events. Every type of event has a
+ * text addressed to the player that caused it and one addressed to all the
+ * players, that is preceded by a common prefix; in the texts the actor is
+ * {@code %1$s}, the subject {@code %2$s} and the sector {@code %3$s}. The
+ * texts of another language are given by a bundle with the same name followed
+ * by the language, as for any {@link java.util.ResourceBundle}
+ *
+ * @see GameEvent
+ * @author Andrea Sessa
+ * @author Giorgio Pea
+ */
+public class GameEventTexts extends ListResourceBundle {
+	/** The suffix of the keys of the texts addressed to the actor */
+	public static final String TO_ACTOR = ".actor";
+	/** The suffix of the keys of the texts addressed to all the players */
+	public static final String TO_ALL = ".all";
+	/** The key of the prefix of the texts addressed to all the players */
+	public static final String GLOBAL_PREFIX = "GLOBAL";
+
+	private static final Object[][] CONTENTS = {
+			{ "GLOBAL", "[GLOBAL MESSAGE]: " },
+			{ "MOVED.actor", "You have moved to sector %3$s" },
+			{ "MOVED.all", "%1$s has moved." },
+			{ "ATTACK_KILLED.actor",
+					"You have attacked sector %3$s and so %2$s is dead." },
+			{ "ATTACK_KILLED.all",
+					"%1$s has attacked sector %3$s and so %2$s is dead." },
+			{ "ATTACK_DEFENDED.actor",
+					"You have attacked sector %3$s and so %2$s has defended." },
+			{ "ATTACK_DEFENDED.all",
+					"%1$s has attacked sector %3$s and so %2$s has defended." },
+			{ "ATTACK_EMPTY.actor",
+					"You have attacked sector %3$s but it contained no players." },
+			{ "ATTACK_EMPTY.all",
+					"%1$s has attacked sector %3$s but it contained no players." },
+			{ "ADRENALINE.actor", "You will move by two sector this turn" },
+			{ "ADRENALINE.all", "%1$s has used an adrenaline object card" },
+			{ "DEFENDED.actor", "You've defended from an attack" },
+			{ "DEFENDED.all", "A player has defended from an attack" },
+			{ "DISCARDED.actor", "You have discarded a %2$s object card" },
+			{ "DISCARDED.all", "%1$s has discarded an object card" },
+			{ "OBJECT_CARD_DRAWN.actor", "You have drawn an object card" },
+			{ "OBJECT_CARD_DRAWN.all", "%1$s has drawn an object card" },
+			{ "NO_OBJECT_CARDS.actor", "No more object cards" },
+			{ "NO_OBJECT_CARDS.all", "No more object cards" },
+			{ "ESCAPED.actor", "You have escaped from aliens!" },
+			{ "ESCAPED.all", "%1$s has escaped from aliens!" },
+			{ "NOT_ESCAPED.actor", "You have not escaped from aliens" },
+			{ "NOT_ESCAPED.all", "%1$s has not escaped from aliens" },
+			{ "SECTOR_CARD_DRAWN.actor", "You have drawn a sector card" },
+			{ "SECTOR_CARD_DRAWN.all", "%1$s has drawn a sector card" },
+			{ "NOISE.actor", "You've made noise in sector %3$s" },
+			{ "NOISE.all", "%1$s has made noise in sector %3$s" },
+			{ "SILENCE.actor", "You've said SILENCE" },
+			{ "SILENCE.all", "%1$s says SILENCE!" },
+			{ "SUPPRESSED.actor", "You will not draw any sector card this turn" },
+			{ "SUPPRESSED.all",
+					"%1$s will not draw any sector card this turn" },
+			{ "TELEPORTED.actor", "You've teleported to the human sector" },
+			{ "TELEPORTED.all", "%1$s will be teleported to the human sector" },
+			{ "OBJECT_CARD_USED.actor", "You have used a %2$s" },
+			{ "OBJECT_CARD_USED.all", "%1$s has used a %2$s" },
+			{ "SPOTTED.actor", "Players spotted: %2$s" },
+			{ "SPOTTED.all", "Players spotted: %2$s" },
+			{ "TURN_ENDED.actor",
+					"You have ended your turn now wait until its your turn" },
+			{ "TURN_ENDED.all", "%1$s has ended its turn." },
+			{ "TURN_STARTED.actor", "Now is your turn" },
+			{ "TURN_STARTED.all", "%1$s now is your turn" },
+			{ "HUMANS_WIN.actor", "The game has ended, HUMANS WIN!" },
+			{ "HUMANS_WIN.all", "The game has ended, HUMANS WIN!" },
+			{ "ALIENS_WIN.actor", "The game has ended, ALIENS WIN!" },
+			{ "ALIENS_WIN.all", "The game has ended, ALIENS WIN!" },
+			{ "DISCONNECTED.actor", "You have disconnected!" },
+			{ "DISCONNECTED.all", "%1$s has disconnected!" } };
+
+	/**
+	 * @see java.util.ListResourceBundle#getContents
+	 */
+	@Override
+	protected Object[][] getContents() {
+		return CONTENTS;
+	}
+}
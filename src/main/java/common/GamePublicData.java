@@ -14,10 +14,14 @@ import server.GameStatus;
 public class GamePublicData implements Serializable {
 	// A field automatically created for serialization purposes
 	private static final long serialVersionUID = 1L;
+	/** The maximum number of players in a game */
+	public static final int MAX_PLAYERS = 8;
 	// The id of the game
 	private final int id;
 	// The name of the game
 	private final String name;
+	// The name of the game's map
+	private final String mapName;
 	// The number of players in the game
 	private int numberOfPlayers;
 	// Status of the game
@@ -34,10 +38,58 @@ public class GamePublicData implements Serializable {
 	 *            the name of the game this container refers to
 	 */
 	public GamePublicData(int id, String name) {
+		this(id, name, null);
+	}
+
+	/**
+	 * Constructs a container of public data concerning a game from: the id of
+	 * the game, the name of the game, the name of its map, a number of zero
+	 * players and a status of "OPEN"
+	 * 
+	 * @param id
+	 *            the id of the game this container refers to
+	 * @param name
+	 *            the name of the game this container refers to
+	 * @param mapName
+	 *            the name of the map of the game this container refers to
+	 */
+	public GamePublicData(int id, String name, String mapName) {
+		this(id, name, mapName, 0, GameStatus.OPEN);
+	}
+
+	/**
+	 * Constructs a container of public data concerning a game from all its
+	 * fields. This constructor is used to decode a container received from
+	 * the server
+	 * 
+	 * @param id
+	 *            the id of the game this container refers to
+	 * @param name
+	 *            the name of the game this container refers to
+	 * @param mapName
+	 *            the name of the map of the game this container refers to
+	 * @param numberOfPlayers
+	 *            the number of players in the game
+	 * @param status
+	 *            the status of the game
+	 */
+	GamePublicData(int id, String name, String mapName, int numberOfPlayers,
+			GameStatus status) {
 		this.id = id;
 		this.name = name;
-		this.numberOfPlayers = 0;
-		this.status = GameStatus.OPEN;
+		this.mapName = mapName;
+		this.numberOfPlayers = numberOfPlayers;
+		this.status = status;
+	}
+
+	/**
+	 * Creates a copy of this container, that is not affected by the following
+	 * changes of the game
+	 * 
+	 * @return a copy of this container
+	 */
+	public GamePublicData copy() {
+		return new GamePublicData(id, name, mapName, numberOfPlayers, status);
 	}
 
 	/**
@@ -56,6 +108,24 @@ public class GamePublicData implements Serializable {
 		return id;
 	}
 
+	/**
+	 * Gets the name of the game this container refers to
+	 * 
+	 * @return the name of the game this container refers to
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Gets the name of the map of the game this container refers to
+	 * 
+	 * @return the name of the game's map, null if it is not known
+	 */
+	public String getMapName() {
+		return mapName;
+	}
+
 	/**
 	 * Gets the status of the game this container refers to
 	 * 
@@ -79,6 +149,16 @@ public class GamePublicData implements Serializable {
 		return this.numberOfPlayers;
 	}
 
+	/**
+	 * Gets the number of players that can still join the game this container
+	 * refers to
+	 * 
+	 * @return the number of free seats in the game
+	 */
+	public int getFreeSeats() {
+		return Math.max(0, MAX_PLAYERS - numberOfPlayers);
+	}
+
 	@Override
 	public String toString() {
 		return "[name= " + name + ", numberOfPlayers= " + numberOfPlayers
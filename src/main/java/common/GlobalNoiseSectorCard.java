@@ -9,28 +9,28 @@ package common;
  */
 public class GlobalNoiseSectorCard extends SectorCard {
 	private static final long serialVersionUID = 1L;
-	// Represents the sector of noise
-	private Sector sector;
+	// Represents the coordinate of the sector of noise
+	private Coordinate sector;
 
 	/**
 	 * Constructs a global noise sector card from: a boolean value that
-	 * indicates if the card has or not an associated object and from a sector
-	 * that is the sector of noise
+	 * indicates if the card has or not an associated object and from the
+	 * coordinate of the sector of noise
 	 * 
 	 * @param hasObject
 	 *            true if the card has an associated object card
 	 * @param sector
-	 *            the sector of noise
+	 *            the coordinate of the sector of noise
 	 */
-	public GlobalNoiseSectorCard(boolean hasObject, Sector sector) {
+	public GlobalNoiseSectorCard(boolean hasObject, Coordinate sector) {
 		super(hasObject);
 		this.sector = sector;
 	}
 
 	/**
-	 * @return The sector of the noise
+	 * @return The coordinate of the sector of the noise
 	 */
-	public Sector getSector() {
+	public Coordinate getSector() {
 		return sector;
 	}
 
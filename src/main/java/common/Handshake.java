@@ -0,0 +1,194 @@
+package common;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Groups the procedures used to perform the handshake that opens a socket
+ * connection. The client sends a hello frame that contains the version of the
+ * protocol and the ids of the codecs it supports, in order of preference; the
+ * server answers with a frame that contains the id of the first of those
+ * codecs it supports too. All the following frames are encoded with that
+ * codec.
+ *
+ * @see WireCodec
+ * @see Frames
+ * @author Andrea Sessa
+ * @author Giorgio Pea
+ */
+public final class Handshake {
+	/** The version of the protocol */
+	public static final int PROTOCOL_VERSION = 1;
+	// The bytes that open every handshake frame
+	private static final int MAGIC = 0x41464F53;
+
+	private Handshake() {
+		/*
+		 * This class only groups static procedures
+		 */
+	}
+
+	/**
+	 * Gets the codecs supported by this version of the application, in order
+	 * of preference
+	 *
+	 * @return the codecs supported by this version of the application
+	 */
+	public static WireCodec[] supportedCodecs() {
+		return supportedCodecs(false);
+	}
+
+	/**
+	 * Gets the codecs supported by this version of the application, in order
+	 * of preference, optionally preceded by the compressed binary codec. A
+	 * client that offers compression still connects to a server that doesn't
+	 * support it, agreeing on the plain binary codec
+	 *
+	 * @param compression
+	 *            true if the compressed binary codec is supported
+	 * @return the codecs supported by this version of the application
+	 * @see DeflateCodec
+	 */
+	public static WireCodec[] supportedCodecs(boolean compression) {
+		if (compression) {
+			return new WireCodec[] { new DeflateCodec(new BinaryCodec()),
+					new BinaryCodec(), new SerializationCodec() };
+		}
+		return new WireCodec[] { new BinaryCodec(), new SerializationCodec() };
+	}
+
+	/**
+	 * Creates the hello frame sent by the client
+	 *
+	 * @param codecs
+	 *            the codecs supported by the client, in order of preference
+	 * @return the payload of the hello frame
+	 * @throws IOException
+	 *             signals an error in the creation of the frame
+	 */
+	public static byte[] hello(WireCodec[] codecs) throws IOException {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		DataOutputStream output = new DataOutputStream(buffer);
+		output.writeInt(MAGIC);
+		output.writeInt(PROTOCOL_VERSION);
+		output.writeByte(codecs.length);
+		for (WireCodec codec : codecs) {
+			output.writeByte(codec.getId());
+		}
+		output.flush();
+		return buffer.toByteArray();
+	}
+
+	/**
+	 * Chooses, on the server, the codec to be used on a connection
+	 *
+	 * @param hello
+	 *            the payload of the hello frame sent by the client
+	 * @param codecs
+	 *            the codecs supported by the server
+	 * @return the first of the codecs supported by the client that is
+	 *         supported by the server too
+	 * @throws IOException
+	 *             if the frame is malformed, if the version of the protocol is
+	 *             not supported or if there isn't a codec supported by both
+	 *             the client and the server
+	 */
+	public static WireCodec accept(byte[] hello, WireCodec[] codecs)
+			throws IOException {
+		DataInputStream input = open(hello);
+		int count = input.readUnsignedByte();
+		for (int i = 0; i < count; i++) {
+			WireCodec codec = find(input.readByte(), codecs);
+			if (codec != null) {
+				return codec;
+			}
+		}
+		throw new IOException(
+				"No codec supported by both the client and the server");
+	}
+
+	/**
+	 * Creates the frame sent by the server to answer the hello frame
+	 *
+	 * @param codec
+	 *            the codec chosen by the server
+	 * @return the payload of the frame
+	 * @throws IOException
+	 *             signals an error in the creation of the frame
+	 */
+	public static byte[] welcome(WireCodec codec) throws IOException {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		DataOutputStream output = new DataOutputStream(buffer);
+		output.writeInt(MAGIC);
+		output.writeInt(PROTOCOL_VERSION);
+		output.writeByte(codec.getId());
+		output.flush();
+		return buffer.toByteArray();
+	}
+
+	/**
+	 * Gets, on the client, the codec chosen by the server
+	 *
+	 * @param welcome
+	 *            the payload of the frame sent by the server to answer the
+	 *            hello frame
+	 * @param codecs
+	 *            the codecs offered by the client
+	 * @return the codec chosen by the server
+	 * @throws IOException
+	 *             if the frame is malformed or if the server has chosen a
+	 *             codec not offered by the client
+	 */
+	public static WireCodec chosen(byte[] welcome, WireCodec[] codecs)
+			throws IOException {
+		WireCodec codec = find(open(welcome).readByte(), codecs);
+		if (codec == null) {
+			throw new IOException("The server has chosen an unknown codec");
+		}
+		return codec;
+	}
+
+	/**
+	 * Opens a handshake frame, checking its magic bytes and its version
+	 *
+	 * @param payload
+	 *            the payload of the handshake frame
+	 * @return a stream positioned after the version
+	 * @throws IOException
+	 *             if the frame is not a handshake frame or if the version of
+	 *             the protocol is not supported
+	 */
+	private static DataInputStream open(byte[] payload) throws IOException {
+		DataInputStream input = new DataInputStream(new ByteArrayInputStream(
+				payload));
+		if (input.readInt() != MAGIC) {
+			throw new IOException("Not a handshake frame");
+		}
+		int version = input.readInt();
+		if (version != PROTOCOL_VERSION) {
+			throw new IOException("Unsupported protocol version: " + version);
+		}
+		return input;
+	}
+
+	/**
+	 * Finds a codec by its id
+	 *
+	 * @param id
+	 *            the id of the codec
+	 * @param codecs
+	 *            the codecs to search in
+	 * @return the codec with the given id, or null if there isn't one
+	 */
+	private static WireCodec find(byte id, WireCodec[] codecs) {
+		for (WireCodec codec : codecs) {
+			if (codec.getId() == id) {
+				return codec;
+			}
+		}
+		return null;
+	}
+}
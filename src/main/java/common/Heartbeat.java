@@ -0,0 +1,108 @@
+package common;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Represents the settings of the heartbeats exchanged on a connection. A peer
+ * that has sent nothing for an interval sends a heartbeat, an empty frame that
+ * is never decoded; a peer that has received nothing, not even a heartbeat,
+ * for the idle timeout considers the connection dead and closes it. A silent
+ * connection therefore costs a four bytes frame per interval.
+ *
+ * @see Frames
+ * @author Andrea Sessa
+ * @author Giorgio Pea
+ */
+public final class Heartbeat {
+	/** The default time between two heartbeats, in ms */
+	public static final long DEFAULT_INTERVAL = 5000;
+	/** The default time a connection can stay silent, in ms */
+	public static final long DEFAULT_IDLE_TIMEOUT = 15000;
+	/** The default settings, shared by the client and the server */
+	public static final Heartbeat DEFAULT = new Heartbeat(DEFAULT_INTERVAL,
+			DEFAULT_IDLE_TIMEOUT);
+	// The heartbeat frame, a header with no payload
+	private static final ByteBuffer FRAME = Frames.wrap(new byte[0])
+			.asReadOnlyBuffer();
+
+	// The time between two heartbeats, in ms
+	private final long interval;
+	// The time a connection can stay silent, in ms
+	private final long idleTimeout;
+
+	/**
+	 * Constructs the settings of the heartbeats
+	 *
+	 * @param interval
+	 *            the time a peer waits before sending a heartbeat, in ms
+	 * @param idleTimeout
+	 *            the time after which a silent connection is closed, in ms,
+	 *            longer than the interval
+	 */
+	public Heartbeat(long interval, long idleTimeout) {
+		if (interval <= 0 || idleTimeout <= interval)
+			throw new IllegalArgumentException(
+					"The idle timeout must be longer than the interval");
+		this.interval = interval;
+		this.idleTimeout = idleTimeout;
+	}
+
+	/**
+	 * Gets the time a peer waits before sending a heartbeat
+	 *
+	 * @return the interval of the heartbeats, in ms
+	 */
+	public long getInterval() {
+		return interval;
+	}
+
+	/**
+	 * Gets the time after which a silent connection is closed
+	 *
+	 * @return the idle timeout, in ms
+	 */
+	public long getIdleTimeout() {
+		return idleTimeout;
+	}
+
+	/**
+	 * Creates a heartbeat frame to be queued on a connection. The frames share
+	 * the same bytes
+	 *
+	 * @return a heartbeat frame, ready to be written
+	 */
+	public static ByteBuffer frame() {
+		return FRAME.duplicate();
+	}
+
+	/**
+	 * Writes a heartbeat frame on a stream and flushes the stream
+	 *
+	 * @param output
+	 *            the stream the frame is written on
+	 * @throws IOException
+	 *             signals a com. error
+	 */
+	public static void write(DataOutputStream output) throws IOException {
+		Frames.write(output, new byte[0]);
+	}
+
+	/**
+	 * Checks if the payload of a received frame is a heartbeat
+	 *
+	 * @param payload
+	 *            the payload of the frame
+	 * @return true if the frame is a heartbeat
+	 */
+	public static boolean isHeartbeat(byte[] payload) {
+		return payload.length == 0;
+	}
+
+	@Override
+	public String toString() {
+		return "Heartbeat [interval=" + interval + ", idleTimeout="
+				+ idleTimeout + "]";
+	}
+}
@@ -9,29 +9,29 @@ package common;
  */
 public class LightsObjectCard extends ObjectCard {
 	private static final long serialVersionUID = 1L;
-	// The target of the lights effect
-	private final Sector centralSector;
+	// The coordinate of the target of the lights effect
+	private final Coordinate centralSector;
 
 	/**
-	 * Constructs a lights object card. This card is constructed from the sector
-	 * whose neighbors must be checked in order to find out if there is any
-	 * player inside
+	 * Constructs a lights object card. This card is constructed from the
+	 * coordinate of the sector whose neighbors must be checked in order to find
+	 * out if there is any player inside
 	 * 
-	 * @param target
-	 *            the sector whose neighbors must be checked in order to find
-	 *            out if there is any player inside
+	 * @param centralSector
+	 *            the coordinate of the sector whose neighbors must be checked
+	 *            in order to find out if there is any player inside
 	 */
-	public LightsObjectCard(Sector centralSector) {
+	public LightsObjectCard(Coordinate centralSector) {
 		this.centralSector = centralSector;
 	}
 
 	/**
-	 * Gets the sector whose neighbors must be checked in order to find out if
-	 * there is any player inside
+	 * Gets the coordinate of the sector whose neighbors must be checked in
+	 * order to find out if there is any player inside
 	 * 
-	 * @return The target of the lights effect
+	 * @return The coordinate of the target of the lights effect
 	 */
-	public Sector getTarget() {
+	public Coordinate getTarget() {
 		return this.centralSector;
 	}
 
@@ -0,0 +1,71 @@
+package common;
+
+import java.io.Serializable;
+
+/**
+ * Represents a change of the list of the games available on the server, pushed
+ * to the clients that have subscribed to the lobby. A client applies the
+ * changes, in the order they are received, to the list of games it has
+ * received when it subscribed.
+ *
+ * @see GamePublicData
+ * @author Andrea Sessa
+ * @author Giorgio Pea
+ */
+public final class LobbyDelta implements Serializable {
+	// A field automatically created for serialization purposes
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The kinds of the changes of the list of games
+	 */
+	public enum Kind {
+		ADDED, UPDATED, REMOVED
+	}
+
+	// The kind of the change
+	private final Kind kind;
+	// The public data of the game that has changed
+	private final GamePublicData game;
+
+	/**
+	 * Constructs a change of the list of games from its kind and from the
+	 * public data of the game that has changed
+	 *
+	 * @param kind
+	 *            the kind of the change
+	 * @param game
+	 *            the public data of the game that has changed, as they are
+	 *            after the change
+	 */
+	public LobbyDelta(Kind kind, GamePublicData game) {
+		if (kind == null || game == null)
+			throw new IllegalArgumentException(
+					"kind and game must not be null");
+		this.kind = kind;
+		this.game = game;
+	}
+
+	/**
+	 * Gets the kind of the change
+	 *
+	 * @return the kind of the change
+	 */
+	public Kind getKind() {
+		return kind;
+	}
+
+	/**
+	 * Gets the public data of the game that has changed
+	 *
+	 * @return the public data of the game that has changed
+	 */
+	public GamePublicData getGame() {
+		return game;
+	}
+
+	@Override
+	public String toString() {
+		return "LobbyDelta [kind=" + kind + ", game=" + game + "]";
+	}
+}
@@ -0,0 +1,101 @@
+package common;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+
+/**
+ * Represents a page of the games available on the server, sent in answer to a
+ * {@link LobbyQuery}. The page carries the version of the list of games it
+ * has been taken from, so that the pages taken from different versions can be
+ * told apart, and the number of games that match the query, so that the
+ * client knows how many pages there are.
+ *
+ * @see LobbyQuery
+ * @author Andrea Sessa
+ * @author Giorgio Pea
+ */
+public final class LobbyPage implements Serializable {
+	// A field automatically created for serialization purposes
+	private static final long serialVersionUID = 1L;
+
+	// The version of the list of games the page has been taken from
+	private final long version;
+	// The number of games that match the query
+	private final int total;
+	// The index of the first game of the page among the matching games
+	private final int offset;
+	// The games of the page
+	private final ArrayList<GamePublicData> games;
+
+	/**
+	 * Constructs a page of games
+	 *
+	 * @param version
+	 *            the version of the list of games the page has been taken from
+	 * @param total
+	 *            the number of games that match the query
+	 * @param offset
+	 *            the index of the first game of the page among the matching
+	 *            games
+	 * @param games
+	 *            the games of the page
+	 */
+	public LobbyPage(long version, int total, int offset,
+			ArrayList<GamePublicData> games) {
+		this.version = version;
+		this.total = total;
+		this.offset = offset;
+		this.games = games;
+	}
+
+	/**
+	 * Gets the version of the list of games the page has been taken from
+	 *
+	 * @return the version of the list of games
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Gets the number of games that match the query
+	 *
+	 * @return the number of games that match the query
+	 */
+	public int getTotal() {
+		return total;
+	}
+
+	/**
+	 * Gets the index of the first game of the page among the matching games
+	 *
+	 * @return the offset of the page
+	 */
+	public int getOffset() {
+		return offset;
+	}
+
+	/**
+	 * Gets the games of the page
+	 *
+	 * @return the games of the page
+	 */
+	public ArrayList<GamePublicData> getGames() {
+		return games;
+	}
+
+	/**
+	 * Checks if there are matching games after this page
+	 *
+	 * @return true if there is a next page
+	 */
+	public boolean hasNext() {
+		return offset + games.size() < total;
+	}
+
+	@Override
+	public String toString() {
+		return "LobbyPage [version=" + version + ", total=" + total
+				+ ", offset=" + offset + ", games=" + games + "]";
+	}
+}
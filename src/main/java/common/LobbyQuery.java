@@ -0,0 +1,148 @@
+package common;
+
+import java.io.Serializable;
+
+import server.GameStatus;
+
+/**
+ * Represents a request of a page of the games available on the server. The
+ * games can be filtered by the name of their map, by their status and by the
+ * number of players that can still join them; the games that match the
+ * filters are returned in creation order, starting from an offset.
+ *
+ * @see LobbyPage
+ * @author Andrea Sessa
+ * @author Giorgio Pea
+ */
+public final class LobbyQuery implements Serializable {
+	// A field automatically created for serialization purposes
+	private static final long serialVersionUID = 1L;
+	/** The maximum number of games in a page */
+	public static final int MAX_LIMIT = 100;
+
+	// The name of the map of the games, null for any map
+	private final String mapName;
+	// A flag that indicates that only the open games are requested
+	private final boolean onlyOpen;
+	// The minimum number of free seats of the games
+	private final int minFreeSeats;
+	// The index of the first game of the page among the matching games
+	private final int offset;
+	// The maximum number of games of the page
+	private final int limit;
+
+	/**
+	 * Constructs a request of a page of games from its filters and its bounds
+	 *
+	 * @param mapName
+	 *            the name of the map of the games, null for any map
+	 * @param onlyOpen
+	 *            true if only the open games are requested
+	 * @param minFreeSeats
+	 *            the minimum number of free seats of the games
+	 * @param offset
+	 *            the index of the first game of the page among the games that
+	 *            match the filters
+	 * @param limit
+	 *            the maximum number of games of the page, at most
+	 *            {@link #MAX_LIMIT}
+	 */
+	public LobbyQuery(String mapName, boolean onlyOpen, int minFreeSeats,
+			int offset, int limit) {
+		if (minFreeSeats < 0 || offset < 0 || limit <= 0 || limit > MAX_LIMIT)
+			throw new IllegalArgumentException("Invalid bounds of the query");
+		this.mapName = mapName;
+		this.onlyOpen = onlyOpen;
+		this.minFreeSeats = minFreeSeats;
+		this.offset = offset;
+		this.limit = limit;
+	}
+
+	/**
+	 * Constructs a request of a page of the games that can be joined
+	 *
+	 * @param offset
+	 *            the index of the first game of the page among the games that
+	 *            can be joined
+	 * @param limit
+	 *            the maximum number of games of the page
+	 */
+	public LobbyQuery(int offset, int limit) {
+		this(null, true, 1, offset, limit);
+	}
+
+	/**
+	 * Gets the name of the map of the games
+	 *
+	 * @return the name of the map of the games, null for any map
+	 */
+	public String getMapName() {
+		return mapName;
+	}
+
+	/**
+	 * Checks if only the open games are requested
+	 *
+	 * @return true if only the open games are requested
+	 */
+	public boolean isOnlyOpen() {
+		return onlyOpen;
+	}
+
+	/**
+	 * Gets the minimum number of free seats of the games
+	 *
+	 * @return the minimum number of free seats of the games
+	 */
+	public int getMinFreeSeats() {
+		return minFreeSeats;
+	}
+
+	/**
+	 * Gets the index of the first game of the page among the matching games
+	 *
+	 * @return the offset of the page
+	 */
+	public int getOffset() {
+		return offset;
+	}
+
+	/**
+	 * Gets the maximum number of games of the page
+	 *
+	 * @return the limit of the page
+	 */
+	public int getLimit() {
+		return limit;
+	}
+
+	/**
+	 * Checks if a game matches the filters of the request
+	 *
+	 * @param game
+	 *            the public data of the game
+	 * @return true if the game matches the filters
+	 */
+	public boolean matches(GamePublicData game) {
+		return (mapName == null || mapName.equals(game.getMapName()))
+				&& (!onlyOpen || game.getStatus() == GameStatus.OPEN)
+				&& game.getFreeSeats() >= minFreeSeats;
+	}
+
+	/**
+	 * Gets a key that identifies the filters of the request, the same for all
+	 * the requests that select the same games whatever their bounds
+	 *
+	 * @return the key of the filters of the request
+	 */
+	public String getFilterKey() {
+		return mapName + "|" + onlyOpen + "|" + minFreeSeats;
+	}
+
+	@Override
+	public String toString() {
+		return "LobbyQuery [mapName=" + mapName + ", onlyOpen=" + onlyOpen
+				+ ", minFreeSeats=" + minFreeSeats + ", offset=" + offset
+				+ ", limit=" + limit + "]";
+	}
+}
@@ -1,7 +1,8 @@
 package common;
 
 /**
- * Represents a move action in the game
+ * Represents a move action in the game. The target sector is sent as its
+ * coordinate, the server resolves it on its own map
  * 
  * @author Andrea Sessa
  * @author Giorgio Pea
@@ -9,24 +10,25 @@ package common;
 public class MoveAction extends Action {
 	private static final long serialVersionUID = 1L;
 
-	private final Sector target;
+	private final Coordinate target;
 
 	/**
-	 * Constructs a move action from the sector that is the target of the action
+	 * Constructs a move action from the coordinate of the sector that is the
+	 * target of the action
 	 * 
 	 * @param target
-	 *            the sector that is the target of the action
+	 *            the coordinate of the sector that is the target of the action
 	 */
-	public MoveAction(Sector target) {
+	public MoveAction(Coordinate target) {
 		this.target = target;
 	}
 
 	/**
-	 * Gets the sector that is the target of the action
+	 * Gets the coordinate of the sector that is the target of the action
 	 * 
-	 * @return the sector that is the target of the action
+	 * @return the coordinate of the sector that is the target of the action
 	 */
-	public Sector getTarget() {
+	public Coordinate getTarget() {
 		return target;
 	}
 
@@ -1,7 +1,8 @@
 package common;
 
 /**
- * Represents a move action combined with an attack
+ * Represents a move action combined with an attack. The target sector is sent
+ * as its coordinate, the server resolves it on its own map
  * 
  * @author Andrea Sessa
  * @author Giorgio Pea
@@ -10,29 +11,29 @@ package common;
  */
 public class MoveAttackAction extends Action {
 	private static final long serialVersionUID = 1L;
-	private final Sector target;
+	private final Coordinate target;
 
 	/**
 	 * Constructs a move action combined with an attack. This action is
-	 * constructed from the sector that is the target of the action(both the
-	 * target of the move and of the attack)
+	 * constructed from the coordinate of the sector that is the target of the
+	 * action(both the target of the move and of the attack)
 	 * 
 	 * @param target
-	 *            the sector that is the target of the action(both the target of
-	 *            the move and of the attack)
+	 *            the coordinate of the sector that is the target of the
+	 *            action(both the target of the move and of the attack)
 	 */
-	public MoveAttackAction(Sector target) {
+	public MoveAttackAction(Coordinate target) {
 		this.target = target;
 	}
 
 	/**
-	 * Gets the sector that is the target of the action(both the target of the
-	 * move and of the attack)
+	 * Gets the coordinate of the sector that is the target of the action(both
+	 * the target of the move and of the attack)
 	 * 
-	 * @return the sector that is the target of the action(both the target of
-	 *         the move and of the attack)
+	 * @return the coordinate of the sector that is the target of the
+	 *         action(both the target of the move and of the attack)
 	 */
-	public Sector getTarget() {
+	public Coordinate getTarget() {
 		return this.target;
 	}
 
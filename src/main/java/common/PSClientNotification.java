@@ -120,6 +120,33 @@ public class PSClientNotification extends ClientNotification implements
 		this.attackedPlayers.add(attackedPlayer);
 	}
 
+	/**
+	 * Appends the notification of the next action of a batch to this one: its
+	 * text, events, dead and attacked players are added, and a win or an
+	 * escape it reports is kept
+	 * 
+	 * @param other
+	 *            the notification of the next action of the batch
+	 */
+	public void append(PSClientNotification other) {
+		super.append(other);
+		deadPlayers.addAll(other.deadPlayers);
+		attackedPlayers.addAll(other.attackedPlayers);
+		humanWins |= other.humanWins;
+		alienWins |= other.alienWins;
+		if (other.escapedPlayer != null) {
+			escapedPlayer = other.escapedPlayer;
+		}
+	}
+
+	/**
+	 * @see ClientNotification#isToAll
+	 */
+	@Override
+	protected boolean isToAll() {
+		return true;
+	}
+
 	public PlayerToken getEscapedPlayer() {
 		return escapedPlayer;
 	}
@@ -34,6 +34,21 @@ public class PlayerToken implements Serializable {
 		this.playerType = playerType;
 	}
 
+	/**
+	 * Constructs a token from the universal unique identifier and the type of
+	 * the player it refers to. This constructor is used to decode a token
+	 * received from the other side of a connection
+	 * 
+	 * @param playerId
+	 *            the universal unique identifier of the player
+	 * @param playerType
+	 *            the type of the player the token refers to
+	 */
+	PlayerToken(UUID playerId, PlayerType playerType) {
+		this.playerId = playerId;
+		this.playerType = playerType;
+	}
+
 	/**
 	 * Gets the universal unique identifier of the player the token refers to
 	 * 
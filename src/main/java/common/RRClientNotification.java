@@ -17,6 +17,8 @@ public class RRClientNotification extends ClientNotification {
 	private boolean actionResult;
 	private final ArrayList<Card> drawedCards;
 	private final ArrayList<Sector> lightedSectors;
+	// The number of actions performed, more than one for a batch of actions
+	private int performedActions;
 
 	/**
 	 * Constructs a notification to be delivered to a single client in response
@@ -40,6 +42,7 @@ public class RRClientNotification extends ClientNotification {
 		this.actionResult = actionResult;
 		this.drawedCards = drawedCards;
 		this.lightedSectors = sectors;
+		this.performedActions = actionResult ? 1 : 0;
 	}
 
 	/**
@@ -72,6 +75,45 @@ public class RRClientNotification extends ClientNotification {
 	 */
 	public void setActionResult(boolean result) {
 		this.actionResult = result;
+		this.performedActions = result ? 1 : 0;
+	}
+
+	/**
+	 * Gets the number of actions performed. For a batch of actions these are
+	 * the actions before the first rejected one, otherwise it is one if the
+	 * action has been performed and zero if not
+	 * 
+	 * @return the number of actions performed
+	 */
+	public int getPerformedActions() {
+		return performedActions;
+	}
+
+	/**
+	 * Sets the number of actions performed
+	 * 
+	 * @param performedActions
+	 *            the new number of actions performed
+	 */
+	public void setPerformedActions(int performedActions) {
+		this.performedActions = performedActions;
+	}
+
+	/**
+	 * Appends the notification of the next action of a batch to this one: its
+	 * text, events, drawn cards and lighted sectors are added, and so are its
+	 * performed actions. The result is the one of the last
+	 * action appended
+	 * 
+	 * @param other
+	 *            the notification of the next action of the batch
+	 */
+	public void append(RRClientNotification other) {
+		super.append(other);
+		drawedCards.addAll(other.drawedCards);
+		lightedSectors.addAll(other.lightedSectors);
+		actionResult = other.actionResult;
+		performedActions += other.performedActions;
 	}
 
 	/**
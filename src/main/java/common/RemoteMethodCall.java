@@ -14,13 +14,22 @@ import java.util.ArrayList;
  */
 public class RemoteMethodCall implements Serializable {
 
+	/**
+	 * The id of the calls that are not part of a request/response exchange,
+	 * like the async notifications sent in the logic of the pub/sub pattern
+	 */
+	public static final int ASYNC_CALL_ID = 0;
 	// A field automatically created for serialization purposes
 	private static final long serialVersionUID = 1L;
 	// The name of the method this class groups with its parameters
 	private String methodName;
+	// The id of the method, resolved once when the call is created
+	private final int methodId;
 	// The list of parameters this class groups with the name of the method they
 	// are referred to
 	private ArrayList<Object> methodParameters;
+	// The id that correlates a request with its response
+	private int callId;
 
 	/**
 	 * Constructs a remote method call from the name of the method to be invoked
@@ -35,6 +44,25 @@ public class RemoteMethodCall implements Serializable {
 	public RemoteMethodCall(String methodName,
 			ArrayList<Object> methodParameters) {
 		this.methodName = methodName;
+		this.methodId = RemoteMethods.idOf(methodName);
+		this.methodParameters = methodParameters;
+	}
+
+	/**
+	 * Constructs a remote method call from the id of a known method and from
+	 * this method's parameters. This constructor is used to decode a call
+	 * that carries the id of its method
+	 * 
+	 * @param methodId
+	 *            the id of the method to be invoked on the server/client
+	 * @param methodParameters
+	 *            the list of parameters of the method to be invoked remotely on
+	 *            the server/client
+	 * @see RemoteMethods
+	 */
+	RemoteMethodCall(int methodId, ArrayList<Object> methodParameters) {
+		this.methodName = RemoteMethods.nameOf(methodId);
+		this.methodId = methodId;
 		this.methodParameters = methodParameters;
 	}
 
@@ -47,8 +75,7 @@ public class RemoteMethodCall implements Serializable {
 	 *            the name of the method to be invoked on the server/client
 	 */
 	public RemoteMethodCall(String methodName) {
-		this.methodName = methodName;
-		this.methodParameters = new ArrayList<Object>();
+		this(methodName, new ArrayList<Object>());
 	}
 
 	/**
@@ -60,6 +87,16 @@ public class RemoteMethodCall implements Serializable {
 		return methodName;
 	}
 
+	/**
+	 * Gets the id of the method to be invoked on the server/client
+	 * 
+	 * @return the id of the method to be invoked on the server/client, or
+	 *         {@link RemoteMethods#UNKNOWN} if the method is not known
+	 */
+	public int getMethodId() {
+		return methodId;
+	}
+
 	/**
 	 * Gets the list of parameters of the method to be invoked on the
 	 * server/client
@@ -71,9 +108,31 @@ public class RemoteMethodCall implements Serializable {
 		return methodParameters;
 	}
 
+	/**
+	 * Gets the id that correlates a request with its response. The response
+	 * carries the same id of the request it responds to
+	 * 
+	 * @return the id that correlates a request with its response, or
+	 *         {@link #ASYNC_CALL_ID} if the call is an async one
+	 */
+	public int getCallId() {
+		return callId;
+	}
+
+	/**
+	 * Sets the id that correlates a request with its response
+	 * 
+	 * @param callId
+	 *            the id that correlates a request with its response
+	 */
+	public void setCallId(int callId) {
+		this.callId = callId;
+	}
+
 	@Override
 	public String toString() {
 		return "RemoteMethodCall [methodName=" + methodName
-				+ ", methodParameters=" + methodParameters + "]";
+				+ ", methodParameters=" + methodParameters + ", callId="
+				+ callId + "]";
 	}
 }
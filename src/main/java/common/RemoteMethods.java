@@ -0,0 +1,120 @@
+package common;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Groups the ids of the remote methods offered by the server and by the client
+ * to exchange data. Every remote method call carries the id of its method, so
+ * that the side that receives the call can dispatch it through a table
+ * indexed by id, and the binary codec can send the id instead of the name of
+ * the method.
+ *
+ * @see RemoteMethodCall
+ * @author Andrea Sessa
+ * @author Giorgio Pea
+ */
+public final class RemoteMethods {
+	/** The id of a method that is not known */
+	public static final int UNKNOWN = -1;
+
+	// The methods offered by the server
+	public static final int GET_GAMES = 0;
+	public static final int JOIN_NEW_GAME = 1;
+	public static final int JOIN_GAME = 2;
+	public static final int MAKE_ACTION = 3;
+	public static final int PUBLISH_GLOBAL_MESSAGE = 4;
+	public static final int FORCE_GAME_START = 5;
+
+	// The methods offered by the client
+	public static final int SEND_TOKEN = 6;
+	public static final int SEND_AVAILABLE_GAMES = 7;
+	public static final int PUBLISH_CHAT_MSG = 8;
+	public static final int SEND_NOTIFICATION = 9;
+	public static final int SEND_PUB_NOTIFICATION = 10;
+	public static final int SEND_MAP = 11;
+	public static final int KICK = 12;
+	public static final int ALLOW_TURN = 13;
+	public static final int END_GAME = 14;
+	public static final int ACK_MESSAGE = 15;
+	public static final int DELIVER_BATCH = 16;
+
+	// The methods of the lobby, offered by the server and by the client
+	public static final int SUBSCRIBE_LOBBY = 17;
+	public static final int UNSUBSCRIBE_LOBBY = 18;
+	public static final int UPDATE_LOBBY = 19;
+	public static final int FIND_GAMES = 20;
+	public static final int SEND_GAMES_PAGE = 21;
+
+	// The methods offered by the server, added later
+	public static final int MAKE_ACTIONS = 22;
+
+	// The methods of the compiled maps, offered by the server and by the
+	// client
+	public static final int GET_MAP = 23;
+	public static final int SEND_COMPILED_MAP = 24;
+
+	// The method that answers a request rejected by the server, offered by
+	// the client
+	public static final int REJECT_CALL = 25;
+	// The method that answers a request the server has failed to perform,
+	// offered by the client
+	public static final int FAIL_CALL = 26;
+
+	/** The number of known methods */
+	public static final int COUNT = 27;
+
+	// The names of the methods, by id
+	private static final String[] NAMES = { "getGames", "joinNewGame",
+			"joinGame", "makeAction", "publishGlobalMessage", "forceGameStart",
+			"sendToken", "sendAvailableGames", "publishChatMsg",
+			"sendNotification", "sendPubNotification", "sendMap", "kick",
+			"allowTurn", "endGame", "ackMessage", "deliverBatch",
+			"subscribeLobby", "unsubscribeLobby", "updateLobby", "findGames",
+			"sendGamesPage", "makeActions", "getMap", "sendCompiledMap",
+			"rejectCall", "failCall" };
+	// The ids of the methods, by name
+	private static final Map<String, Integer> IDS = new HashMap<String, Integer>();
+
+	static {
+		for (int i = 0; i < NAMES.length; i++) {
+			IDS.put(NAMES[i], i);
+		}
+	}
+
+	private RemoteMethods() {
+		/*
+		 * This class only groups constants and static procedures
+		 */
+	}
+
+	/**
+	 * Gets the id of a method from its name
+	 *
+	 * @param methodName
+	 *            the name of the method
+	 * @return the id of the method, or {@link #UNKNOWN} if the method is not
+	 *         known
+	 */
+	public static int idOf(String methodName) {
+		Integer id = IDS.get(methodName);
+		return id == null ? UNKNOWN : id;
+	}
+
+	/**
+	 * Gets the name of a method from its id
+	 *
+	 * @param methodId
+	 *            the id of the method
+	 * @return the name of the method
+	 * @throws IllegalArgumentException
+	 *             if the method is not known
+	 */
+	public static String nameOf(int methodId) {
+		if (methodId < 0 || methodId >= COUNT) {
+			throw new IllegalArgumentException("Unknown method id: "
+					+ methodId);
+		}
+		return NAMES[methodId];
+	}
+}
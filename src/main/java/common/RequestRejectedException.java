@@ -0,0 +1,28 @@
+package common;
+
+import java.rmi.RemoteException;
+
+/**
+ * Signals that the server has rejected a request without performing it,
+ * because the client has sent too many requests of the same kind. The client
+ * may send the request again later. Via rmi the exception is thrown by the
+ * server's method, via socket the server answers with a "rejectCall" call
+ * that throws it on the client.
+ *
+ * @author Andrea Sessa
+ * @author Giorgio Pea
+ */
+public class RequestRejectedException extends RemoteException {
+	// A field automatically created for serialization purposes
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Constructs the exception from the reason of the rejection
+	 *
+	 * @param message
+	 *            the reason of the rejection
+	 */
+	public RequestRejectedException(String message) {
+		super(message);
+	}
+}
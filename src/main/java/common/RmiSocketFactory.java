@@ -0,0 +1,522 @@
+package common;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.rmi.server.RMIClientSocketFactory;
+import java.rmi.server.RMIServerSocketFactory;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Represents the factory of the sockets the rmi calls travel on, used both to
+ * export the server's services and the client's callbacks. Its sockets have
+ * no Nagle delay, so the small calls and callbacks leave as soon as they are
+ * flushed, and keep their streams buffered. Optionally the data written
+ * between two flushes is compressed when it is not smaller than a threshold:
+ * every flush sends a frame preceded by its length, whose highest bit tells
+ * the compressed frames apart. The same factory is used for both ends of a
+ * connection, so the exporting side and the calling side always agree on the
+ * framing, and equal factories share their connections. The sockets created
+ * to call the exported objects have a read timeout, so a call whose reply
+ * doesn't arrive in time fails instead of blocking its thread: since the
+ * factory travels with the stubs, the timeout of the calls on the client's
+ * callbacks is set by the factory the client exports them with.
+ *
+ * @see DeflateCodec
+ * @author Andrea Sessa
+ * @author Giorgio Pea
+ */
+public final class RmiSocketFactory implements RMIClientSocketFactory,
+		RMIServerSocketFactory, Serializable {
+	/**
+	 * The system property that chooses the factory of the rmi sockets at
+	 * startup: "lowLatency" for sockets with no Nagle delay and buffered
+	 * streams, "compressed" for the same sockets that compress their larger
+	 * frames. When the property is not set the default rmi sockets are used
+	 */
+	public static final String PROPERTY = "rmi.socketFactory";
+	/**
+	 * The default size, in bytes, from which the frames are compressed. A
+	 * frame carries a whole rmi call, so the threshold is higher than the one
+	 * of the socket codec: the calls of a turn are sent as they are, and only
+	 * the large ones, such as the lobby pages and the maps, are compressed
+	 */
+	public static final int DEFAULT_THRESHOLD = 1024;
+	/**
+	 * The default time, in ms, a call waits for its reply. It is longer than
+	 * the time the server gives a client to receive its callbacks, so a
+	 * client that doesn't respond is evicted before its call fails
+	 */
+	public static final int DEFAULT_READ_TIMEOUT = 10000;
+
+	// A field automatically created for serialization purposes
+	private static final long serialVersionUID = 1L;
+	// The size of the buffers of the streams, and the largest frame
+	private static final int BUFFER_SIZE = 8 * 1024;
+	// The bit set in the length of a compressed frame
+	private static final int COMPRESSED = 0x80000000;
+
+	// A flag that indicates that the larger frames are compressed
+	private final boolean compression;
+	// The size from which the frames are compressed
+	private final int threshold;
+	// The time a call waits for its reply, in ms, or 0 to wait forever
+	private final int readTimeout;
+
+	/**
+	 * Constructs a factory of low latency sockets that compress their frames
+	 * from the default threshold, if the compression is enabled
+	 *
+	 * @param compression
+	 *            true if the larger frames are to be compressed
+	 */
+	public RmiSocketFactory(boolean compression) {
+		this(compression, DEFAULT_THRESHOLD);
+	}
+
+	/**
+	 * Constructs a factory of low latency sockets with the default read
+	 * timeout
+	 *
+	 * @param compression
+	 *            true if the larger frames are to be compressed
+	 * @param threshold
+	 *            the size, in bytes, from which the frames are compressed
+	 */
+	public RmiSocketFactory(boolean compression, int threshold) {
+		this(compression, threshold, DEFAULT_READ_TIMEOUT);
+	}
+
+	/**
+	 * Constructs a factory of low latency sockets
+	 *
+	 * @param compression
+	 *            true if the larger frames are to be compressed
+	 * @param threshold
+	 *            the size, in bytes, from which the frames are compressed
+	 * @param readTimeout
+	 *            the time, in ms, a call waits for its reply, or 0 to wait
+	 *            forever
+	 */
+	public RmiSocketFactory(boolean compression, int threshold, int readTimeout) {
+		if (threshold < 0 || threshold > BUFFER_SIZE)
+			throw new IllegalArgumentException("threshold out of range");
+		if (readTimeout < 0)
+			throw new IllegalArgumentException("readTimeout must not be negative");
+		this.compression = compression;
+		this.threshold = threshold;
+		this.readTimeout = readTimeout;
+	}
+
+	/**
+	 * Creates the factory chosen by the {@link #PROPERTY} system property
+	 *
+	 * @return the factory of the rmi sockets, or null if the default rmi
+	 *         sockets are to be used
+	 * @throws IllegalArgumentException
+	 *             if the property has an unknown value
+	 */
+	public static RmiSocketFactory fromProperty() {
+		String value = System.getProperty(PROPERTY);
+		if (value == null || "default".equals(value)) {
+			return null;
+		} else if ("lowLatency".equals(value)) {
+			return new RmiSocketFactory(false);
+		} else if ("compressed".equals(value)) {
+			return new RmiSocketFactory(true);
+		}
+		throw new IllegalArgumentException("Unknown " + PROPERTY + ": "
+				+ value);
+	}
+
+	/**
+	 * Checks if the larger frames are compressed
+	 *
+	 * @return true if the larger frames are compressed
+	 */
+	public boolean isCompression() {
+		return compression;
+	}
+
+	/**
+	 * Gets the time a call waits for its reply
+	 *
+	 * @return the read timeout of the calling sockets, in ms, or 0 if the
+	 *         calls wait forever
+	 */
+	public int getReadTimeout() {
+		return readTimeout;
+	}
+
+	/**
+	 * @see RMIClientSocketFactory#createSocket
+	 */
+	@Override
+	public Socket createSocket(String host, int port) throws IOException {
+		TunedSocket socket = new TunedSocket(host, port, this);
+		// Rmi keeps the timeout set by the factory after its handshake
+		socket.setSoTimeout(readTimeout);
+		return socket;
+	}
+
+	/**
+	 * @see RMIServerSocketFactory#createServerSocket
+	 */
+	@Override
+	public ServerSocket createServerSocket(int port) throws IOException {
+		final RmiSocketFactory factory = this;
+		return new ServerSocket(port) {
+			@Override
+			public Socket accept() throws IOException {
+				TunedSocket socket = new TunedSocket(factory);
+				implAccept(socket);
+				socket.tune();
+				return socket;
+			}
+		};
+	}
+
+	/*
+	 * Rmi reuses the connections of the endpoints whose factories are equal
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null || getClass() != obj.getClass())
+			return false;
+		RmiSocketFactory other = (RmiSocketFactory) obj;
+		return compression == other.compression
+				&& threshold == other.threshold
+				&& readTimeout == other.readTimeout;
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * (31 * (compression ? 1 : 0) + threshold) + readTimeout;
+	}
+
+	@Override
+	public String toString() {
+		return "RmiSocketFactory [compression=" + compression + ", threshold="
+				+ threshold + ", readTimeout=" + readTimeout + "]";
+	}
+
+	/**
+	 * Represents a socket with no Nagle delay, whose streams are buffered and,
+	 * if its factory compresses, framed
+	 */
+	private static class TunedSocket extends Socket {
+		// The factory of the socket
+		private final RmiSocketFactory factory;
+		// The streams of the socket, created once
+		private InputStream input;
+		private OutputStream output;
+
+		/**
+		 * Constructs a socket to be accepted by a server socket
+		 */
+		TunedSocket(RmiSocketFactory factory) {
+			this.factory = factory;
+		}
+
+		/**
+		 * Constructs a socket connected to a host
+		 */
+		TunedSocket(String host, int port, RmiSocketFactory factory)
+				throws IOException {
+			super(host, port);
+			this.factory = factory;
+			tune();
+		}
+
+		/**
+		 * Sets the low latency options of the socket
+		 */
+		void tune() throws IOException {
+			setTcpNoDelay(true);
+			setKeepAlive(true);
+		}
+
+		@Override
+		public synchronized InputStream getInputStream() throws IOException {
+			if (input == null) {
+				InputStream stream = super.getInputStream();
+				input = factory.compression ? new InflatingInputStream(stream)
+						: new BufferedInputStream(stream, BUFFER_SIZE);
+			}
+			return input;
+		}
+
+		@Override
+		public synchronized OutputStream getOutputStream() throws IOException {
+			if (output == null) {
+				OutputStream stream = super.getOutputStream();
+				output = factory.compression ? new DeflatingOutputStream(
+						stream, factory.threshold) : new BufferedOutputStream(
+						stream, BUFFER_SIZE);
+			}
+			return output;
+		}
+
+		@Override
+		public synchronized void close() throws IOException {
+			try {
+				super.close();
+			} finally {
+				// Frees the deflater and the inflater, if any
+				if (input instanceof InflatingInputStream) {
+					((InflatingInputStream) input).release();
+				}
+				if (output instanceof DeflatingOutputStream) {
+					((DeflatingOutputStream) output).release();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Represents a stream that sends the data written between two flushes as a
+	 * frame, compressed if it is not smaller than a threshold and if the
+	 * compression makes it smaller
+	 */
+	private static class DeflatingOutputStream extends OutputStream {
+		// The stream the frames are written to
+		private final DataOutputStream out;
+		// The size from which the frames are compressed
+		private final int threshold;
+		// The data of the next frame
+		private final byte[] buffer = new byte[BUFFER_SIZE];
+		// The compressed data of the next frame
+		private final byte[] compressed = new byte[BUFFER_SIZE];
+		private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+		// The size of the data of the next frame
+		private int count;
+		// A flag that indicates that the deflater has been freed
+		private boolean released;
+
+		DeflatingOutputStream(OutputStream out, int threshold) {
+			this.out = new DataOutputStream(new BufferedOutputStream(out,
+					BUFFER_SIZE + 8));
+			this.threshold = threshold;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			if (count == buffer.length) {
+				writeFrame();
+			}
+			buffer[count++] = (byte) b;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			while (len > 0) {
+				if (count == buffer.length) {
+					writeFrame();
+				}
+				int n = Math.min(len, buffer.length - count);
+				System.arraycopy(b, off, buffer, count, n);
+				count += n;
+				off += n;
+				len -= n;
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			if (count > 0) {
+				writeFrame();
+			}
+			out.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				flush();
+			} finally {
+				release();
+				out.close();
+			}
+		}
+
+		/**
+		 * Writes the data of the next frame
+		 */
+		private void writeFrame() throws IOException {
+			int length = count >= threshold ? deflate() : 0;
+			if (length > 0) {
+				out.writeInt(length | COMPRESSED);
+				out.writeInt(count);
+				out.write(compressed, 0, length);
+			} else {
+				out.writeInt(count);
+				out.write(buffer, 0, count);
+			}
+			count = 0;
+		}
+
+		/**
+		 * Compresses the data of the next frame
+		 *
+		 * @return the size of the compressed data, or 0 if the frame is to
+		 *         be sent as it is because it doesn't shrink
+		 */
+		private synchronized int deflate() throws IOException {
+			// The socket may have been closed by another thread
+			if (released) {
+				throw new IOException("Socket closed");
+			}
+			deflater.reset();
+			deflater.setInput(buffer, 0, count);
+			deflater.finish();
+			int length = deflater.deflate(compressed);
+			return deflater.finished() && length < count ? length : 0;
+		}
+
+		/**
+		 * Frees the deflater
+		 */
+		synchronized void release() {
+			if (!released) {
+				released = true;
+				deflater.end();
+			}
+		}
+	}
+
+	/**
+	 * Represents a stream that reads the frames written by a
+	 * {@link DeflatingOutputStream}
+	 */
+	private static class InflatingInputStream extends InputStream {
+		// The stream the frames are read from
+		private final DataInputStream in;
+		// The data of the current frame
+		private final byte[] buffer = new byte[BUFFER_SIZE];
+		// The compressed data of the current frame
+		private final byte[] compressed = new byte[BUFFER_SIZE];
+		private final Inflater inflater = new Inflater();
+		// The size of the data of the current frame
+		private int count;
+		// The position of the next byte of the current frame
+		private int position;
+		// A flag that indicates that the inflater has been freed
+		private boolean released;
+
+		InflatingInputStream(InputStream in) {
+			this.in = new DataInputStream(new BufferedInputStream(in,
+					BUFFER_SIZE + 8));
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (position == count && !readFrame()) {
+				return -1;
+			}
+			return buffer[position++] & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0) {
+				return 0;
+			}
+			if (position == count && !readFrame()) {
+				return -1;
+			}
+			int n = Math.min(len, count - position);
+			System.arraycopy(buffer, position, b, off, n);
+			position += n;
+			return n;
+		}
+
+		@Override
+		public int available() throws IOException {
+			return count - position;
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				in.close();
+			} finally {
+				release();
+			}
+		}
+
+		/**
+		 * Reads the next non empty frame
+		 *
+		 * @return false if the stream has ended
+		 */
+		private boolean readFrame() throws IOException {
+			do {
+				int header;
+				try {
+					header = in.readInt();
+				} catch (EOFException e) {
+					return false;
+				}
+				int length = header & ~COMPRESSED;
+				if (length > BUFFER_SIZE) {
+					throw new IOException("Frame too large: " + length);
+				}
+				if ((header & COMPRESSED) == 0) {
+					in.readFully(buffer, 0, length);
+					count = length;
+				} else {
+					count = in.readInt();
+					if (count < 0 || count > BUFFER_SIZE) {
+						throw new IOException("Frame too large: " + count);
+					}
+					in.readFully(compressed, 0, length);
+					inflate(length);
+				}
+				position = 0;
+			} while (count == 0);
+			return true;
+		}
+
+		/**
+		 * Inflates the compressed data of the current frame
+		 */
+		private synchronized void inflate(int length) throws IOException {
+			// The socket may have been closed by another thread
+			if (released) {
+				throw new IOException("Socket closed");
+			}
+			inflater.reset();
+			inflater.setInput(compressed, 0, length);
+			try {
+				if (inflater.inflate(buffer, 0, count) != count
+						|| !inflater.finished()) {
+					throw new IOException("Malformed compressed frame");
+				}
+			} catch (DataFormatException e) {
+				throw new IOException("Malformed compressed frame", e);
+			}
+		}
+
+		/**
+		 * Frees the inflater
+		 */
+		synchronized void release() {
+			if (!released) {
+				released = true;
+				inflater.end();
+			}
+		}
+	}
+}
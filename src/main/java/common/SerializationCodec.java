@@ -0,0 +1,374 @@
+package common;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Represents the codec based on the java serialization. All the remote method
+ * calls sent on the same connection are written on the same object stream, and
+ * the bytes produced by each call become the payload of a frame. The first
+ * payload also contains the header of the object stream. The calls that are
+ * part of a request/response exchange are written after resetting the object
+ * stream, so that they never refer to objects written by previous exchanges.
+ * The async calls are written after a reset as well when the
+ * {@link ResetPolicy} asks for it, so that the objects the stream refers to
+ * don't pile up on long-lived connections. The {@link Counters} of the codec
+ * report how often the streams are reset and how many objects they retain.
+ *
+ * @see WireCodec
+ * @author Andrea Sessa
+ * @author Giorgio Pea
+ */
+public class SerializationCodec implements WireCodec {
+	/** The id of the codec */
+	public static final byte ID = 1;
+
+	// When the streams of the codec are reset
+	private final ResetPolicy resetPolicy;
+	// The counters of the streams of the codec
+	private final Counters counters;
+
+	/**
+	 * Constructs the codec with the default reset policy
+	 */
+	public SerializationCodec() {
+		this(ResetPolicy.DEFAULT);
+	}
+
+	/**
+	 * Constructs the codec
+	 *
+	 * @param resetPolicy
+	 *            when the streams of the codec are reset
+	 */
+	public SerializationCodec(ResetPolicy resetPolicy) {
+		this.resetPolicy = resetPolicy;
+		this.counters = new Counters();
+	}
+
+	/**
+	 * Gets the counters of the streams of the codec
+	 *
+	 * @return the counters of the streams of the codec
+	 */
+	public Counters getCounters() {
+		return counters;
+	}
+
+	/**
+	 * @see WireCodec#getId
+	 */
+	@Override
+	public byte getId() {
+		return ID;
+	}
+
+	/**
+	 * @see WireCodec#newEncoder
+	 */
+	@Override
+	public FrameEncoder newEncoder() throws IOException {
+		return new StreamEncoder(resetPolicy, counters);
+	}
+
+	/**
+	 * @see WireCodec#newDecoder
+	 */
+	@Override
+	public FrameDecoder newDecoder() {
+		return new StreamDecoder();
+	}
+
+	/**
+	 * The encoders of this codec refer to the objects already written on their
+	 * connection, so their frames can't be shared
+	 *
+	 * @see WireCodec#isStateless
+	 */
+	@Override
+	public boolean isStateless() {
+		return false;
+	}
+
+	/**
+	 * Represents when the object stream of a connection is reset. Besides the
+	 * calls that are part of a request/response exchange, the stream is reset
+	 * before an async call when the bytes or the calls written since the last
+	 * reset reach their budget, and at the beginning of every turn
+	 */
+	public static final class ResetPolicy {
+		/** The default policy: 64 KB, 256 calls, and every turn */
+		public static final ResetPolicy DEFAULT = new ResetPolicy(64 * 1024,
+				256, true);
+		// The bytes that can be written between two resets
+		private final long byteBudget;
+		// The calls that can be written between two resets
+		private final int messageBudget;
+		// A flag that indicates that the stream is reset every turn
+		private final boolean resetOnTurn;
+
+		/**
+		 * Constructs a reset policy
+		 *
+		 * @param byteBudget
+		 *            the bytes that can be written between two resets
+		 * @param messageBudget
+		 *            the calls that can be written between two resets
+		 * @param resetOnTurn
+		 *            true if the stream has to be reset every turn
+		 */
+		public ResetPolicy(long byteBudget, int messageBudget,
+				boolean resetOnTurn) {
+			this.byteBudget = byteBudget;
+			this.messageBudget = messageBudget;
+			this.resetOnTurn = resetOnTurn;
+		}
+
+		/**
+		 * Checks if the stream has to be reset before writing a call
+		 *
+		 * @param remoteMethodCall
+		 *            the call to be written
+		 * @param bytes
+		 *            the bytes written since the last reset
+		 * @param messages
+		 *            the calls written since the last reset
+		 * @return true if the stream has to be reset
+		 */
+		boolean mustReset(RemoteMethodCall remoteMethodCall, long bytes,
+				int messages) {
+			return remoteMethodCall.getCallId() != RemoteMethodCall.ASYNC_CALL_ID
+					|| bytes >= byteBudget
+					|| messages >= messageBudget
+					|| (resetOnTurn && isTurn(remoteMethodCall));
+		}
+
+		/**
+		 * Checks if a call begins a turn, on its own or as part of a batch
+		 *
+		 * @param remoteMethodCall
+		 *            the call to be written
+		 * @return true if the call begins a turn
+		 */
+		private boolean isTurn(RemoteMethodCall remoteMethodCall) {
+			if (remoteMethodCall.getMethodId() == RemoteMethods.DELIVER_BATCH) {
+				for (Object call : (List<?>) remoteMethodCall
+						.getMethodParameters().get(0)) {
+					if (isTurn((RemoteMethodCall) call)) {
+						return true;
+					}
+				}
+				return false;
+			}
+			return remoteMethodCall.getMethodId() == RemoteMethods.ALLOW_TURN;
+		}
+	}
+
+	/**
+	 * Represents the counters of the object streams of a codec, summed over
+	 * all its connections
+	 */
+	public static final class Counters {
+		// The number of calls written
+		private final AtomicLong messages = new AtomicLong();
+		// The number of resets
+		private final AtomicLong resets = new AtomicLong();
+		// The maximum number of objects a stream has referred to
+		private final AtomicLong maxRetainedHandles = new AtomicLong();
+
+		/**
+		 * Gets the number of calls written
+		 *
+		 * @return the number of calls written
+		 */
+		public long getMessages() {
+			return messages.get();
+		}
+
+		/**
+		 * Gets the number of times the streams have been reset
+		 *
+		 * @return the number of resets
+		 */
+		public long getResets() {
+			return resets.get();
+		}
+
+		/**
+		 * Gets the maximum number of objects a single stream has referred to,
+		 * and kept in memory in order to write them again as back-references,
+		 * between two resets. The class descriptors are not included
+		 *
+		 * @return the maximum number of objects retained by a stream
+		 */
+		public long getMaxRetainedHandles() {
+			return maxRetainedHandles.get();
+		}
+
+		void onRetained(int handles) {
+			long max = maxRetainedHandles.get();
+			while (handles > max
+					&& !maxRetainedHandles.compareAndSet(max, handles)) {
+				max = maxRetainedHandles.get();
+			}
+		}
+
+		@Override
+		public String toString() {
+			return "Counters [messages=" + messages + ", resets=" + resets
+					+ ", maxRetainedHandles=" + maxRetainedHandles + "]";
+		}
+	}
+
+	/**
+	 * Represents an encoder that writes all the calls on the same object
+	 * stream
+	 */
+	private static class StreamEncoder implements FrameEncoder {
+		// The buffer the object stream writes on
+		private final ByteArrayOutputStream buffer;
+		// The object stream shared by all the calls sent on the connection
+		private final CountingObjectOutputStream stream;
+		// When the object stream is reset
+		private final ResetPolicy resetPolicy;
+		// The counters of the codec
+		private final Counters counters;
+		// The bytes written since the last reset
+		private long bytesSinceReset;
+		// The calls written since the last reset
+		private int messagesSinceReset;
+
+		public StreamEncoder(ResetPolicy resetPolicy, Counters counters)
+				throws IOException {
+			this.buffer = new ByteArrayOutputStream();
+			this.stream = new CountingObjectOutputStream(buffer);
+			this.resetPolicy = resetPolicy;
+			this.counters = counters;
+		}
+
+		@Override
+		public synchronized byte[] encode(RemoteMethodCall remoteMethodCall)
+				throws IOException {
+			if (resetPolicy.mustReset(remoteMethodCall, bytesSinceReset,
+					messagesSinceReset)) {
+				stream.reset();
+				counters.resets.incrementAndGet();
+				stream.handles = 0;
+				bytesSinceReset = 0;
+				messagesSinceReset = 0;
+			}
+			stream.writeObject(remoteMethodCall);
+			stream.flush();
+			byte[] payload = buffer.toByteArray();
+			buffer.reset();
+			bytesSinceReset += payload.length;
+			messagesSinceReset++;
+			counters.messages.incrementAndGet();
+			counters.onRetained(stream.handles);
+			return payload;
+		}
+	}
+
+	/**
+	 * Represents an object stream that counts the objects it refers to. The
+	 * stream is asked to replace every object that it hasn't written yet, so
+	 * every replacement is a new handle
+	 */
+	private static class CountingObjectOutputStream extends ObjectOutputStream {
+		// The number of objects written since the last reset
+		private int handles;
+
+		public CountingObjectOutputStream(OutputStream output)
+				throws IOException {
+			super(output);
+			enableReplaceObject(true);
+		}
+
+		@Override
+		protected Object replaceObject(Object object) {
+			handles++;
+			return object;
+		}
+	}
+
+	/**
+	 * Represents a decoder that feeds the payloads, in order, to a single
+	 * object stream. The object stream is created when the first payload,
+	 * which contains the stream header, is received
+	 */
+	private static class StreamDecoder implements FrameDecoder {
+		// The stream that exposes the payload of the current frame
+		private final PayloadInputStream payloadStream;
+		// The object stream shared by all the calls received on the connection
+		private ObjectInputStream stream;
+
+		public StreamDecoder() {
+			this.payloadStream = new PayloadInputStream();
+		}
+
+		@Override
+		public synchronized RemoteMethodCall decode(byte[] payload)
+				throws IOException, ClassNotFoundException {
+			payloadStream.setPayload(payload);
+			if (stream == null) {
+				stream = new ObjectInputStream(payloadStream);
+			}
+			return (RemoteMethodCall) stream.readObject();
+		}
+
+		/*
+		 * Every payload continues the object stream, so every payload must
+		 * be decoded
+		 */
+		@Override
+		public RemoteMethodCall peek(byte[] payload) {
+			return null;
+		}
+	}
+
+	/**
+	 * Represents a stream that exposes the payload of the frame being decoded
+	 */
+	private static class PayloadInputStream extends InputStream {
+		private byte[] payload = new byte[0];
+		private int position;
+
+		public void setPayload(byte[] payload) {
+			this.payload = payload;
+			this.position = 0;
+		}
+
+		@Override
+		public int read() {
+			if (position >= payload.length) {
+				return -1;
+			}
+			return payload[position++] & 0xff;
+		}
+
+		@Override
+		public int read(byte[] destination, int offset, int length) {
+			if (length == 0) {
+				return 0;
+			}
+			if (position >= payload.length) {
+				return -1;
+			}
+			int count = Math.min(length, payload.length - position);
+			System.arraycopy(payload, position, destination, offset, count);
+			position += count;
+			return count;
+		}
+
+		@Override
+		public int available() {
+			return payload.length - position;
+		}
+	}
+}
@@ -0,0 +1,50 @@
+package common;
+
+import java.io.IOException;
+
+/**
+ * Represents a way of encoding the remote method calls exchanged on a socket
+ * connection. The codec used on a connection is chosen by the client and the
+ * server through the {@link Handshake} performed when the connection is
+ * opened, each side then creates its own encoder and decoder.
+ *
+ * @see Handshake
+ * @see SerializationCodec
+ * @see BinaryCodec
+ * @author Andrea Sessa
+ * @author Giorgio Pea
+ */
+public interface WireCodec {
+
+	/**
+	 * Gets the id of the codec, that identifies the codec during the handshake
+	 *
+	 * @return the id of the codec
+	 */
+	public byte getId();
+
+	/**
+	 * Creates the encoder of the remote method calls sent on a connection
+	 *
+	 * @return the encoder of the remote method calls sent on a connection
+	 * @throws IOException
+	 *             signals an error in the creation of the encoder
+	 */
+	public FrameEncoder newEncoder() throws IOException;
+
+	/**
+	 * Creates the decoder of the remote method calls received on a connection
+	 *
+	 * @return the decoder of the remote method calls received on a connection
+	 */
+	public FrameDecoder newDecoder();
+
+	/**
+	 * Checks if the encoders of the codec keep no state, so that the frame of
+	 * a call only depends on the call and can be shared by all the
+	 * connections that use the codec
+	 *
+	 * @return true if the encoders of the codec keep no state
+	 */
+	public boolean isStateless();
+}
@@ -3,6 +3,7 @@ package effects;
 import it.polimi.ingsw.cg_19.Game;
 import it.polimi.ingsw.cg_19.Player;
 import common.AdrenalineObjectCard;
+import common.GameEvent;
 import common.PSClientNotification;
 import common.RRClientNotification;
 
@@ -47,10 +48,10 @@ public class AdrenalineObjCardEffect extends ObjectCardEffect {
 			PSClientNotification psNotification) {
 		Player currentPlayer = game.getCurrentPlayer();
 		// Notifications setting
-		rrNotification.setMessage("You will move by two sector this turn\n");
-		psNotification.setMessage("[GLOBAL MESSAGE]: "
-				+ currentPlayer.getName()
-				+ " has used an adrenaline object card\n");
+		GameEvent event = new GameEvent(GameEvent.Type.ADRENALINE,
+				currentPlayer.getName());
+		rrNotification.addEvent(event);
+		psNotification.addEvent(event);
 		currentPlayer.setAdrenaline(true);
 		return true;
 	}
@@ -4,7 +4,7 @@ import common.AttackObjectCard;
 import common.MoveAttackAction;
 import common.PSClientNotification;
 import common.RRClientNotification;
-import common.Sector;
+import common.Coordinate;
 import it.polimi.ingsw.cg_19.Game;
 
 /**
@@ -48,7 +48,7 @@ public class AttackObjCardEffect extends ObjectCardEffect {
 			PSClientNotification psNotification) {
 
 		AttackObjectCard card = (AttackObjectCard) objectCard;
-		Sector sectorToAttack = card.getAttackTarget();
+		Coordinate sectorToAttack = card.getAttackTarget();
 		// Executing an attack object card action effect is like executing a
 		// move and attack action effect
 		MoveAttackActionEffect effect = new MoveAttackActionEffect(
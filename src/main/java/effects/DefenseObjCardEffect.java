@@ -2,6 +2,7 @@ package effects;
 
 import it.polimi.ingsw.cg_19.Game;
 import common.DefenseObjectCard;
+import common.GameEvent;
 import common.PSClientNotification;
 import common.RRClientNotification;
 
@@ -48,7 +49,7 @@ public class DefenseObjCardEffect extends ObjectCardEffect {
 	public boolean executeEffect(Game game,
 			RRClientNotification rrNotification,
 			PSClientNotification psNotification) {
-		rrNotification.setMessage("You've defended from an attack");
+		rrNotification.addEvent(new GameEvent(GameEvent.Type.DEFENDED, null));
 		return true;
 	}
 }
@@ -3,6 +3,7 @@ package effects;
 import it.polimi.ingsw.cg_19.Game;
 import it.polimi.ingsw.cg_19.Player;
 import common.DiscardAction;
+import common.GameEvent;
 import common.ObjectCard;
 import common.PSClientNotification;
 import common.RRClientNotification;
@@ -54,10 +55,10 @@ public class DiscardObjCardEffect extends ActionEffect {
 		objectDeck.addToDiscard(discardedCard);
 		objectDeck.refill();
 		// Notifications setting
-		rrNotification.setMessage("You have discarded a "
-				+ discardedCard.toString() + " object card");
-		psNotification.setMessage("[GLOBAL MESSAGE]: "
-				+ currentPlayer.getName() + " has discarded an object card\n");
+		GameEvent event = new GameEvent(GameEvent.Type.DISCARDED,
+				currentPlayer.getName(), discardedCard.toString(), null);
+		rrNotification.addEvent(event);
+		psNotification.addEvent(event);
 		//
 		game.setLastAction(action);
 		return true;
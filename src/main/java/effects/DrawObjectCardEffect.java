@@ -1,6 +1,7 @@
 package effects;
 
 import common.DrawObjectCardAction;
+import common.GameEvent;
 import common.ObjectCard;
 import common.PSClientNotification;
 import common.RRClientNotification;
@@ -53,15 +54,14 @@ public class DrawObjectCardEffect extends ActionEffect {
 		ObjectCard objectCard = (ObjectCard) objectDeck.popCard();
 		// Notify the client
 		if (objectCard == null) {
-			psNotification.setMessage(psNotification.getMessage()
-					+ "\n[GLOBAL MESSAGE]: No more object cards");
+			psNotification.addEvent(new GameEvent(
+					GameEvent.Type.NO_OBJECT_CARDS, null));
 		} else {
 			rrNotification.addCard(objectCard);
 			game.getCurrentPlayer().getPrivateDeck().addCard(objectCard);
-			psNotification.setMessage(psNotification.getMessage()
-					+ "\n[GLOBAL MESSAGE]: "
-					+ game.getCurrentPlayer().getName()
-					+ " has drawn a object card");
+			psNotification.addEvent(new GameEvent(
+					GameEvent.Type.OBJECT_CARD_DRAWN, game.getCurrentPlayer()
+							.getName()));
 		}
 
 		return true;
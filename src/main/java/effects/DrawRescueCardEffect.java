@@ -5,6 +5,7 @@ import it.polimi.ingsw.cg_19.PlayerState;
 import it.polimi.ingsw.cg_19.RescueType;
 import common.DrawRescueCardAction;
 import common.EndTurnAction;
+import common.GameEvent;
 import common.PSClientNotification;
 import common.RRClientNotification;
 import common.RescueCard;
@@ -57,10 +58,8 @@ public class DrawRescueCardEffect extends ActionEffect {
 			game.getCurrentPlayer().setPlayerState(PlayerState.ESCAPED);
 			game.getCurrentPlayer().getSector()
 					.setSectorType(SectorType.CLOSED_RESCUE);
-			psNotification.setMessage(psNotification.getMessage()
-					+ "\n[GLOBAL MESSAGE]: "
-					+ game.getCurrentPlayer().getName()
-					+ " has escaped from aliens!");
+			psNotification.addEvent(new GameEvent(GameEvent.Type.ESCAPED,
+					game.getCurrentPlayer().getName()));
 			rrNotification.addCard(card);
 			psNotification.setEscapedPlayer(game.fromPlayerToToken(game.getCurrentPlayer()));
 			EndTurnAction action = new EndTurnAction();
@@ -71,10 +70,8 @@ public class DrawRescueCardEffect extends ActionEffect {
 			rrNotification.addCard(card);
 			game.getCurrentPlayer().getSector()
 					.setSectorType(SectorType.CLOSED_RESCUE);
-			psNotification.setMessage(psNotification.getMessage()
-					+ "\n[GLOBAL MESSAGE]: "
-					+ game.getCurrentPlayer().getName()
-					+ " has not escaped from aliens");
+			psNotification.addEvent(new GameEvent(GameEvent.Type.NOT_ESCAPED,
+					game.getCurrentPlayer().getName()));
 			return false;
 		}
 
@@ -2,6 +2,7 @@ package effects;
 
 import common.DrawObjectCardAction;
 import common.DrawSectorCardAction;
+import common.GameEvent;
 import common.GlobalNoiseSectorCard;
 import common.PSClientNotification;
 import common.RRClientNotification;
@@ -58,9 +59,9 @@ public class DrawSectorCardEffect extends ActionEffect {
 		// Notify the client
 		rrNotification.addCard(sectorCard);
 
-		psNotification.setMessage(psNotification.getMessage()
-				+ "\n[GLOBAL MESSAGE]: " + game.getCurrentPlayer().getName()
-				+ " has drawn a sector card");
+		psNotification.addEvent(new GameEvent(
+				GameEvent.Type.SECTOR_CARD_DRAWN, game.getCurrentPlayer()
+						.getName()));
 
 		sectorDeck.addToDiscard(sectorCard);
 		sectorDeck.refill();
@@ -9,6 +9,7 @@ import it.polimi.ingsw.cg_19.Player;
 import it.polimi.ingsw.cg_19.PlayerState;
 import it.polimi.ingsw.cg_19.PlayerType;
 import common.EndTurnAction;
+import common.GameEvent;
 import common.PSClientNotification;
 import common.RRClientNotification;
 import common.RemoteMethodCall;
@@ -65,12 +66,13 @@ public class EndTurnEffect extends ActionEffect {
 			game.setTurn(new AlienTurn(game));
 		}
 		// Notify the client
+		GameEvent event = new GameEvent(GameEvent.Type.TURN_ENDED,
+				currentPlayer.getName());
 		if(game.getCurrentPlayer().getPlayerState() != PlayerState.ESCAPED) 
-			clientNotification.setMessage("You have ended your turn now wait until its your turn");
-		psNotification.setMessage(psNotification.getMessage()+"\n[GLOBAL MESSAGE]: "
-				+ currentPlayer.getName()
-				+ " has ended its turn.\n[GLOBAL MESSAGE]: "
-				+ game.getCurrentPlayer().getName() + " now is your turn");
+			clientNotification.addEvent(event);
+		psNotification.addEvent(event);
+		psNotification.addEvent(new GameEvent(GameEvent.Type.TURN_STARTED,
+				game.getCurrentPlayer().getName()));
 		game.setLastAction(action);
 		ArrayList<Object> parameters = new ArrayList<Object>();
 		parameters.add(game.fromPlayerToToken(game.getCurrentPlayer()));
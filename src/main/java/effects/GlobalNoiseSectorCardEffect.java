@@ -1,6 +1,7 @@
 package effects;
 
 import it.polimi.ingsw.cg_19.Game;
+import common.GameEvent;
 import common.GlobalNoiseSectorCard;
 import common.PSClientNotification;
 import common.RRClientNotification;
@@ -48,13 +49,15 @@ public class GlobalNoiseSectorCardEffect extends SectorCardEffect {
 			PSClientNotification psNotification) {
 		// Notify all the player
 		String name = game.getCurrentPlayer().getName();
-		Sector target = ((GlobalNoiseSectorCard) sectorCard).getSector();
-		rrNotification.setMessage("You've indicated the sector: "
-				+ target.getCoordinate().toString());
-		psNotification.setMessage("[GLOBAL MESSAGE]: "
-				+ psNotification.getMessage() + name
-				+ " has made noise in sector "
-				+ target.getCoordinate().toString());
+		Sector target = game.getMap().getSectorByCoords(
+				((GlobalNoiseSectorCard) sectorCard).getSector());
+		if (target == null) {
+			return false;
+		}
+		GameEvent event = new GameEvent(GameEvent.Type.NOISE, name, null,
+				target.getCoordinate());
+		rrNotification.addEvent(event);
+		psNotification.addEvent(event);
 		return true;
 	}
 }
\ No newline at end of file
@@ -4,6 +4,7 @@ import java.util.List;
 
 import it.polimi.ingsw.cg_19.Game;
 import it.polimi.ingsw.cg_19.Player;
+import common.GameEvent;
 import common.LightsObjectCard;
 import common.PSClientNotification;
 import common.RRClientNotification;
@@ -50,20 +51,26 @@ public class LightObjectCardEffect extends ObjectCardEffect {
 			RRClientNotification rrNotification,
 			PSClientNotification psNotification) {
 		LightsObjectCard lightsObjectCard = (LightsObjectCard) objectCard;
+		Sector target = game.getMap().getSectorByCoords(
+				lightsObjectCard.getTarget());
+		if (target == null) {
+			return false;
+		}
 		List<Sector> neighboorSectors = game.getMap().getSearchableGraph()
-				.neighborListOf(lightsObjectCard.getTarget());
-		String playerName;
-		String globalMessage = "\n[GLOBAL MESSAGE]: Players spotted:";
+				.neighborListOf(target);
+		StringBuilder spotted = new StringBuilder();
 		for (Sector sector : neighboorSectors) {
 			for (Player player : sector.getPlayers()) {
-				playerName = player.getName();
-				globalMessage += " " + playerName;
+				if (spotted.length() > 0)
+					spotted.append(' ');
+				spotted.append(player.getName());
 			}
 			rrNotification.addSector(sector);
 		}
-		if (globalMessage.equals("\n[GLOBAL MESSAGE]: Players spotted:"))
-			globalMessage += " none";
-		psNotification.setMessage(psNotification.getMessage() + globalMessage);
+		if (spotted.length() == 0)
+			spotted.append("none");
+		psNotification.addEvent(new GameEvent(GameEvent.Type.SPOTTED, null,
+				spotted.toString(), null));
 		return true;
 	}
 }
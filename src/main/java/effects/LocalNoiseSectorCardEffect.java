@@ -1,6 +1,7 @@
 package effects;
 
 import it.polimi.ingsw.cg_19.Game;
+import common.GameEvent;
 import common.LocalNoiseSectorCard;
 import common.PSClientNotification;
 import common.RRClientNotification;
@@ -51,10 +52,8 @@ public class LocalNoiseSectorCardEffect extends SectorCardEffect {
 		// Notify all the player
 		String name = game.getCurrentPlayer().getName();
 		Sector target = game.getCurrentPlayer().getSector();
-		psNotification.setMessage(psNotification.getMessage()
-				+ "\n[GLOBAL MESSAGE]: " + name
-				+ " has made noise in sector "
-				+ target.getCoordinate().toString());
+		psNotification.addEvent(new GameEvent(GameEvent.Type.NOISE, name,
+				null, target.getCoordinate()));
 		return true;
 	}
 }
@@ -50,25 +50,28 @@ public class MoveActionEffect extends ActionEffect {
 		GameMap map = game.getMap();
 		Player currentPlayer = game.getCurrentPlayer();
 		// Checks the source != target
-		if (!currentPlayer.getSector().equals(moveAction.getTarget())) {
+		if (!currentPlayer.getSector().getCoordinate()
+				.equals(moveAction.getTarget())) {
 			// Retrieve the "true" reference of source and target
 			Sector sourceSector = map.getSectorByCoords(currentPlayer
 					.getSector().getCoordinate());
-			Sector targetSector = map.getSectorByCoords(moveAction.getTarget()
-					.getCoordinate());
-			// Checks that source and target are adjacent according to the speed
-			// of the player
-			if (map.checkSectorAdiacency(sourceSector, targetSector,
-					currentPlayer.getSpeed(), currentPlayer.getPlayerType(),
-					currentPlayer.isAdrenaline())) {
+			Sector targetSector = map.getSectorByCoords(moveAction.getTarget());
+			// Checks that the target is on the map and that source and target
+			// are adjacent according to the speed of the player
+			if (targetSector != null
+					&& map.checkSectorAdiacency(sourceSector, targetSector,
+							currentPlayer.getSpeed(),
+							currentPlayer.getPlayerType(),
+							currentPlayer.isAdrenaline())) {
 				// This two lines implements the move
 				sourceSector.removePlayer(currentPlayer);
 				currentPlayer.setSector(targetSector);
 				targetSector.addPlayer(currentPlayer);
-				rrNotification.setMessage("You have moved to sector "
-						+ targetSector.getCoordinate().toString());
-				psNotification.setMessage("[GLOBAL MESSAGE]: "
-						+ currentPlayer.getName() + " has moved.");
+				rrNotification.addEvent(new GameEvent(GameEvent.Type.MOVED,
+						currentPlayer.getName(), null, targetSector
+								.getCoordinate()));
+				psNotification.addEvent(new GameEvent(GameEvent.Type.MOVED,
+						currentPlayer.getName()));
 				// If the target sector is a dangerous sector continue the
 				// execution
 				// of the action
@@ -8,6 +8,7 @@ import it.polimi.ingsw.cg_19.Player;
 import it.polimi.ingsw.cg_19.PlayerState;
 import it.polimi.ingsw.cg_19.PlayerType;
 import common.DefenseObjectCard;
+import common.GameEvent;
 import common.MoveAttackAction;
 import common.ObjectCard;
 import common.PSClientNotification;
@@ -61,12 +62,13 @@ public class MoveAttackActionEffect extends ActionEffect {
 		MoveAttackAction moveAttackAction = (MoveAttackAction) action;
 		Sector sourceSector = game.getCurrentPlayer().getSector();
 		Sector targetSector = game.getMap().getSectorByCoords(
-				moveAttackAction.getTarget().getCoordinate());
+				moveAttackAction.getTarget());
 		Player currentPlayer = game.getCurrentPlayer();
-		String rrMessage = "";
-		String psMessage = "";
+		boolean attacked = false;
 
-		if (!sourceSector.equals(moveAttackAction.getTarget())) {
+		if (targetSector != null
+				&& !sourceSector.getCoordinate().equals(
+						moveAttackAction.getTarget())) {
 			if (game.getMap().checkSectorAdiacency(sourceSector, targetSector, currentPlayer.getSpeed(),
 					currentPlayer.getPlayerType(), currentPlayer.isAdrenaline())) {
 				
@@ -100,14 +102,9 @@ public class MoveAttackActionEffect extends ActionEffect {
 						// Notify the rest of the players
 						psNotification.addDeadPlayers(game
 								.fromPlayerToToken(player));
-						rrMessage += "You have attacked sector "
-								+ targetSector.getCoordinate().toString()
-								+ " and so " + player.getName() + " is dead.";
-						psMessage += "[GLOBAL MESSAGE]: "
-								+ currentPlayer.getName()
-								+ " has attacked sector "
-								+ targetSector.getCoordinate().toString()
-								+ " and so " + player.getName() + " is dead.";
+						addAttackEvent(GameEvent.Type.ATTACK_KILLED,
+								currentPlayer, player, targetSector,
+								rrNotification, psNotification);
 					} else {
 						if(game.getCurrentPlayer().getPlayerType() == PlayerType.ALIEN) {
 							game.getCurrentPlayer().setSpeed(3);
@@ -115,30 +112,16 @@ public class MoveAttackActionEffect extends ActionEffect {
 						// Otherwise p has been attacked
 						psNotification.addAttackedPlayers(game
 								.fromPlayerToToken(player));
-						rrMessage += "You have attacked sector "
-								+ targetSector.getCoordinate().toString()
-								+ " and so " + player.getName()
-								+ " has defended.";
-
-						psMessage += "[GLOBAL MESSAGE]: "
-								+ currentPlayer.getName()
-								+ " has attacked sector "
-								+ targetSector.getCoordinate().toString()
-								+ " and so " + player.getName()
-								+ " has defended.";
+						addAttackEvent(GameEvent.Type.ATTACK_DEFENDED,
+								currentPlayer, player, targetSector,
+								rrNotification, psNotification);
 					}
+					attacked = true;
 				}
-				if (rrMessage.equals("")) {
-					rrMessage += "You have attacked sector "
-							+ targetSector.getCoordinate().toString()
-							+ " but it contained no players.";
-					psMessage += "[GLOBAL MESSAGE]: " + currentPlayer.getName()
-							+ " has attacked sector "
-							+ targetSector.getCoordinate().toString()
-							+ " but it contained no players.";
+				if (!attacked) {
+					addAttackEvent(GameEvent.Type.ATTACK_EMPTY, currentPlayer,
+							null, targetSector, rrNotification, psNotification);
 				}
-				rrNotification.setMessage(rrMessage);
-				psNotification.setMessage(psMessage);
 				// Move the player that has attacked to the target sector
 				sourceSector.removePlayer(currentPlayer);
 				currentPlayer.setSector(targetSector);
@@ -153,4 +136,32 @@ public class MoveAttackActionEffect extends ActionEffect {
 		return false;
 	}
 
+	/**
+	 * Reports the result of an attack to the player that has attacked and to
+	 * all the players
+	 * 
+	 * @param type
+	 *            the result of the attack
+	 * @param attacker
+	 *            the player that has attacked
+	 * @param attacked
+	 *            the player that has been attacked, null if the sector
+	 *            contained no players
+	 * @param sector
+	 *            the sector that has been attacked
+	 * @param rrNotification
+	 *            the notification to the player that has attacked
+	 * @param psNotification
+	 *            the notification to all the players
+	 */
+	private void addAttackEvent(GameEvent.Type type, Player attacker,
+			Player attacked, Sector sector,
+			RRClientNotification rrNotification,
+			PSClientNotification psNotification) {
+		GameEvent event = new GameEvent(type, attacker.getName(),
+				attacked == null ? null : attacked.getName(),
+				sector.getCoordinate());
+		rrNotification.addEvent(event);
+		psNotification.addEvent(event);
+	}
 }
@@ -1,6 +1,7 @@
 package effects;
 
 import it.polimi.ingsw.cg_19.Game;
+import common.GameEvent;
 import common.PSClientNotification;
 import common.RRClientNotification;
 import common.SilenceSectorCard;
@@ -44,10 +45,10 @@ public class SilenceSectorCardEffect extends SectorCardEffect {
 	public boolean executeEffect(Game game,
 			RRClientNotification rrNotification,
 			PSClientNotification psNotification) {
-		rrNotification.setMessage("You've said SILENCE");
-		psNotification.setMessage(psNotification.getMessage()
-				+ "\n[GLOBAL MESSAGE]: " + game.getCurrentPlayer().getName()
-				+ " says SILENCE!");
+		GameEvent event = new GameEvent(GameEvent.Type.SILENCE, game
+				.getCurrentPlayer().getName());
+		rrNotification.addEvent(event);
+		psNotification.addEvent(event);
 		return true;
 	}
 
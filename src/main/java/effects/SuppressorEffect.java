@@ -2,6 +2,7 @@ package effects;
 
 import it.polimi.ingsw.cg_19.Game;
 import it.polimi.ingsw.cg_19.Player;
+import common.GameEvent;
 import common.PSClientNotification;
 import common.RRClientNotification;
 import common.SuppressorObjectCard;
@@ -46,11 +47,10 @@ public class SuppressorEffect extends ObjectCardEffect {
 			PSClientNotification psNotification) {
 		Player currentPlayer = game.getCurrentPlayer();
 		currentPlayer.setSedated(true);
-		rrNotification
-				.setMessage("You will not draw any sector card this turn");
-		psNotification
-				.setMessage(psNotification.getMessage()
-						+ "\n[GLOBAL MESSAGE]: He/she will not draw any sector card this turn");
+		GameEvent event = new GameEvent(GameEvent.Type.SUPPRESSED,
+				currentPlayer.getName());
+		rrNotification.addEvent(event);
+		psNotification.addEvent(event);
 		return true;
 	}
 }
@@ -3,6 +3,7 @@ package effects;
 import it.polimi.ingsw.cg_19.Game;
 import it.polimi.ingsw.cg_19.GameMap;
 import it.polimi.ingsw.cg_19.Player;
+import common.GameEvent;
 import common.PSClientNotification;
 import common.RRClientNotification;
 import common.Sector;
@@ -55,10 +56,10 @@ public class TeleportObjCardEffect extends ObjectCardEffect {
 		curr.getSector().removePlayer(curr);
 		curr.setSector(humanSector);
 		humanSector.addPlayer(curr);
-		rrNotification.setMessage("You've teleported to the human sector");
-		psNotification
-				.setMessage(psNotification.getMessage()
-						+ "\n[GLOBAL MESSAGE]: He/She will be teleported to the human sector");
+		GameEvent event = new GameEvent(GameEvent.Type.TELEPORTED,
+				curr.getName());
+		rrNotification.addEvent(event);
+		psNotification.addEvent(event);
 		return true;
 	}
 }
@@ -7,6 +7,7 @@ import common.AdrenalineObjectCard;
 import common.AttackObjectCard;
 import common.Card;
 import common.DefenseObjectCard;
+import common.GameEvent;
 import common.LightsObjectCard;
 import common.PSClientNotification;
 import common.RRClientNotification;
@@ -74,11 +75,11 @@ public class UseObjCardEffect extends ActionEffect {
 		}
 
 		try {
-			clientNotification.setMessage("You have used a"
-					+ useAction.getCard().toString());
-			psNotification.setMessage("[GLOBAL MESSAGE]: "
-					+ game.getCurrentPlayer().getName() + " has used a "
-					+ useAction.getCard().toString());
+			GameEvent event = new GameEvent(GameEvent.Type.OBJECT_CARD_USED,
+					game.getCurrentPlayer().getName(), useAction.getCard()
+							.toString(), null);
+			clientNotification.addEvent(event);
+			psNotification.addEvent(event);
 			/*
 			 * ObjectCard card = useAction.getCard(); if(useAction.getCard()
 			 * instanceof LightObjectCard){ card = new LightObjectCard(null); }
@@ -38,7 +38,10 @@ public class AlienTurn extends Turn {
 		// Actions to be set after a move action
 		if (actionType.equals(MoveAction.class)) {
 			MoveAction moveAction = (MoveAction) action;
-			if (moveAction.getTarget().getSectorType() == SectorType.DANGEROUS) {
+			Sector target = game.getMap().getSectorByCoords(
+					moveAction.getTarget());
+			// A target not on the map leads to the actions of a safe sector
+			if (target != null && target.getSectorType() == SectorType.DANGEROUS) {
 				nextActions.add(DrawSectorCardAction.class);
 			} else {
 				nextActions.add(EndTurnAction.class);
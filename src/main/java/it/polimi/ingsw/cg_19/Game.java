@@ -2,18 +2,27 @@ package it.polimi.ingsw.cg_19;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Observable;
+import java.util.Observer;
 import java.util.Set;
 import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import server.GameMailbox;
 import server.GameManager;
 import server.GameStatus;
+import server.MapStore;
 import server.SubscriberHandler;
 import common.Action;
+import common.Broadcast;
 import common.ClientNotification;
+import common.CompiledMap;
 import common.EndTurnAction;
+import common.GameEvent;
 import common.GamePublicData;
 import common.PSClientNotification;
 import common.PlayerToken;
@@ -25,7 +34,15 @@ import effects.ActionMapper;
 import factories.*;
 
 /**
- * Represents a generic game(non-immutable class)
+ * Represents a generic game(non-immutable class). The state of a running game
+ * is only changed by the messages submitted to its {@link GameMailbox}, that
+ * are run one at a time, so the game needs no locks. A subscriber handler
+ * that stops observing the game, because its subscriber is no more
+ * reachable, disconnects its player: the turns of a disconnected player end
+ * as soon as they start, and an open game left with no subscribers leaves the
+ * lobby. The timeouts of all the games are scheduled on a single timer, and a
+ * game that ends is closed: its timeouts are cancelled and its subscriber
+ * handlers closed, so a finished game holds no thread and no memory
  * 
  * @author Andrea Sessa
  * @author Giorgio Pea
@@ -33,63 +50,73 @@ import factories.*;
  */
 public class Game extends Observable {
 	private final static long TURN_TIMEOUT = 10 * 60 * 1000;
+	// The timer shared by the timeouts of all the games
+	private static final Timer TIMEOUTS = new Timer("game-timeouts", true);
 
-	private volatile List<Player> players;
+	private List<Player> players;
 
-	private volatile ObjectDeck objectDeck;
-	private volatile RescueDeck rescueDeck;
-	private volatile SectorDeck sectorDeck;
-	private volatile GameMap gameMap;
-	private volatile Player currentPlayer;
-	private volatile int turnNumber;
+	private ObjectDeck objectDeck;
+	private RescueDeck rescueDeck;
+	private SectorDeck sectorDeck;
+	private GameMap gameMap;
+	private Player currentPlayer;
+	private int turnNumber;
 
-	private volatile List<Class<? extends Action>> nextActions;
-	private volatile Action lastAction;
+	private List<Class<? extends Action>> nextActions;
+	private Action lastAction;
 
-	private volatile Turn turn;
+	private Turn turn;
 
 	// Communication related stuff
-	private static int counter = 0;
-	private volatile List<SubscriberHandler> subscriberList;
+	private static final AtomicInteger counter = new AtomicInteger();
+	private List<SubscriberHandler> subscriberList;
 
 	private TurnTimeout timeout;
-	private Timer timer;
+	// The timeout that starts or ends the game while it is open
+	private TimerTask startTimeout;
+	// A flag that indicates that the game has ended and has been closed
+	private boolean closed;
 
-	private volatile GameMapFactory gameMapFactory;
-	private volatile Map<PlayerToken, Player> playerTokenToPlayerMap;
-	private volatile GamePublicData gamePublicData;
+	// The name of the game's associated map, compiled when the game starts
+	private String gameMapName;
+	private Map<PlayerToken, Player> playerTokenToPlayerMap;
+	private GamePublicData gamePublicData;
 
-	private volatile ActionMapper actionMapper;
+	private ActionMapper actionMapper;
 
-	private volatile GameManager gameManager;
+	private GameManager gameManager;
+
+	// The mailbox the changes to the game are submitted to
+	private final GameMailbox mailbox = new GameMailbox();
+	// The calls published since the batch has been opened, null if no batch
+	// is open
+	private ArrayList<RemoteMethodCall> batch;
+	// The tokens of the players whose subscriber is no more reachable
+	private final Set<PlayerToken> disconnectedPlayers = new HashSet<PlayerToken>();
 
 	/**
 	 * Constructs a game from the name of its associated map. The resources of
-	 * the game are not initialized until the game is started. From the name of
-	 * the game's associated map the right map factory is automatically created
-	 * along with an empty list of players, an empty list of threads
-	 * representing the game's subscribers in the logic of the pub/sub pattern,
-	 * an empty container of the game's public data and an empty map between a
-	 * player's unique identifier and a player
+	 * the game are not initialized until the game is started, when the game's
+	 * associated map is taken from the {@link MapStore}. An empty list of
+	 * players, an empty list of threads representing the game's subscribers in
+	 * the logic of the pub/sub pattern, an empty container of the game's public
+	 * data and an empty map between a player's unique identifier and a player
+	 * are automatically created
 	 * 
 	 * @param gameMapName
 	 *            name of the game's associated map
 	 */
 	public Game(String gameMapName) {
-		if (gameMapName.equals("GALILEI")) {
-			this.gameMapFactory = new GalileiGameMapFactory();
-		} else if (gameMapName.equals("FERMI")) {
-			this.gameMapFactory = new FermiGameMapFactory();
-		} else if (gameMapName.equals("GALVANI")) {
-			this.gameMapFactory = new GalvaniGameMapFactory();
-		} else {
+		if (!MapStore.isKnown(gameMapName)) {
 			throw new IllegalArgumentException("The map's type is undefined");
 		}
+		this.gameMapName = gameMapName;
 		this.subscriberList = new ArrayList<SubscriberHandler>();
 		this.players = new ArrayList<Player>();
 		this.playerTokenToPlayerMap = new HashMap<PlayerToken, Player>();
-		counter++;
-		this.gamePublicData = new GamePublicData(counter, "Game_" + counter);
+		int id = counter.incrementAndGet();
+		this.gamePublicData = new GamePublicData(id, "Game_" + id,
+				gameMapName);
 		this.turnNumber = 0;
 		players = new ArrayList<Player>();
 	}
@@ -110,8 +137,9 @@ public class Game extends Observable {
 		this.subscriberList = new ArrayList<SubscriberHandler>();
 		this.players = new ArrayList<Player>();
 		this.playerTokenToPlayerMap = new HashMap<PlayerToken, Player>();
-		counter++;
-		this.gamePublicData = new GamePublicData(counter, "Game_" + counter);
+		int id = counter.incrementAndGet();
+		this.gamePublicData = new GamePublicData(id, "Game_" + id,
+				gameMap == null ? null : gameMap.getName());
 		this.turnNumber = 0;
 		DeckFactory deckFactory = new ObjectDeckFactory();
 		this.objectDeck = (ObjectDeck) deckFactory.makeDeck();
@@ -134,12 +162,15 @@ public class Game extends Observable {
 		this.sectorDeck = (SectorDeck) deckFactory.makeDeck();
 		deckFactory = new RescueDeckFactory();
 		this.rescueDeck = (RescueDeck) deckFactory.makeDeck();
-		this.gameMap = gameMapFactory.makeMap();
+		// The map file is parsed once, by the first game on the map
+		CompiledMap compiledMap = MapStore.getInstance().get(gameMapName);
+		this.gameMap = compiledMap.toGameMap();
 		this.turnNumber = 0;
 		this.actionMapper = new ActionMapper();
 		ArrayList<Object> parameters = new ArrayList<Object>();
 		parameters.add(gameMap.getName());
 		parameters.add(this.fromPlayerToToken(currentPlayer));
+		parameters.add(compiledMap.getHash());
 		// Setting players' starting sector
 		for (Player player : players) {
 			if (player.getPlayerType().equals(PlayerType.HUMAN)) {
@@ -158,10 +189,9 @@ public class Game extends Observable {
 		}
 		nextActions = turn.getInitialActions();
 		this.gamePublicData.setStatus(GameStatus.CLOSED);
+		publicDataChanged();
 
-		timer = new Timer();
-		timeout = new TurnTimeout(this, timer);
-		timer.schedule(timeout, TURN_TIMEOUT);
+		scheduleTurnTimeout();
 		// Notification to the subscribers
 		this.notifyListeners(new RemoteMethodCall("sendMap", parameters));
 	}
@@ -174,13 +204,14 @@ public class Game extends Observable {
 	 *            client
 	 * @return the unique identifier(token) of the player inserted
 	 */
-	public synchronized PlayerToken addPlayer(String playerName) {
+	public PlayerToken addPlayer(String playerName) {
 		PlayerType playerType = assignTypeToPlayer(players.size() + 1);
 		PlayerToken playerToken = new PlayerToken(playerType);
 		Player player = new Player(playerType, playerName);
 		playerTokenToPlayerMap.put(playerToken, player);
 		players.add(player);
 		gamePublicData.addPlayer();
+		publicDataChanged();
 		if (currentPlayer == null)
 			this.currentPlayer = player;
 		return playerToken;
@@ -224,7 +255,7 @@ public class Game extends Observable {
 	 * 
 	 * @return the public data of the game
 	 */
-	public synchronized GamePublicData getPublicData() {
+	public GamePublicData getPublicData() {
 		return gamePublicData;
 	}
 
@@ -356,7 +387,7 @@ public class Game extends Observable {
 	 *             if Action is null or not mapped to an effect
 	 */
 
-	public synchronized ClientNotification[] makeAction(Action action,
+	public ClientNotification[] makeAction(Action action,
 			PlayerToken playerToken, boolean forced)
 			throws InstantiationException, IllegalAccessException {
 		RRClientNotification clientNotification = new RRClientNotification();
@@ -388,27 +419,18 @@ public class Game extends Observable {
 						turnNumber++;
 
 						// Reset the timeout
-
-						timer.purge();
-						timer.cancel();
-						timeout.cancel();
-						timer = new Timer();
-						timeout = new TurnTimeout(this, timer);
-						timer.schedule(timeout, TURN_TIMEOUT);
+						scheduleTurnTimeout();
 					}
 					boolean winH = checkWinConditions(PlayerType.HUMAN);
 					boolean winA = checkWinConditions(PlayerType.ALIEN);
 
 					if (winH) {
-						psNotification
-								.setMessage(psNotification.getMessage()
-										+ "\n[GLOBAL MESSAGE]: The game has ended, HUMANS WIN!");
+						psNotification.addEvent(new GameEvent(
+								GameEvent.Type.HUMANS_WIN, null));
 					}
 					if (winA) {
-						psNotification
-								.setMessage(psNotification.getMessage()
-										+ "\n[GLOBAL MESSAGE]: The game has ended, ALIENS WIN!");
-
+						psNotification.addEvent(new GameEvent(
+								GameEvent.Type.ALIENS_WIN, null));
 					}
 					if (winH || winA) {
 						psNotification.setAlienWins(winA);
@@ -430,6 +452,50 @@ public class Game extends Observable {
 		return toReturn;
 	}
 
+	/**
+	 * Performs a batch of game actions of the same player, in order, as if
+	 * they were requested one by one. Every action is checked against the
+	 * actions allowed after the previous one; the batch stops at the first
+	 * action that is rejected, or as soon as the game is won. The
+	 * notifications of the performed actions are merged, so the player
+	 * receives one response and the subscribers one publication for the whole
+	 * batch
+	 * 
+	 * @see RRClientNotification#getPerformedActions
+	 * @param actions
+	 *            the actions to be performed, in order
+	 * @param playerToken
+	 *            the token of the player that wants to perform the actions
+	 * @return an array of two notifications, as the one returned by
+	 *         {@link #makeAction(Action, PlayerToken, boolean)}. The result of
+	 *         the first one is true only if all the actions have been
+	 *         performed
+	 * @throws IllegalAccessException
+	 *             if an Action is null or not mapped to an effect
+	 * @throws InstantiationException
+	 *             if an Action is null or not mapped to an effect
+	 */
+	public ClientNotification[] makeActions(List<Action> actions,
+			PlayerToken playerToken) throws InstantiationException,
+			IllegalAccessException {
+		RRClientNotification clientNotification = new RRClientNotification();
+		PSClientNotification psNotification = new PSClientNotification();
+		clientNotification.setActionResult(true);
+		clientNotification.setPerformedActions(0);
+		for (Action action : actions) {
+			ClientNotification[] step = makeAction(action, playerToken, false);
+			clientNotification.append((RRClientNotification) step[0]);
+			psNotification.append((PSClientNotification) step[1]);
+			if (!clientNotification.getActionResult()
+					|| psNotification.getHumanWins()
+					|| psNotification.getAlienWins()) {
+				break;
+			}
+		}
+		ClientNotification[] toReturn = { clientNotification, psNotification };
+		return toReturn;
+	}
+
 	/**
 	 * Performs a game action. This method is used only for test purposes
 	 * 
@@ -461,17 +527,25 @@ public class Game extends Observable {
 
 	/**
 	 * This method is called by the timeout thread when the current player has
-	 * not concluded its turn in time
+	 * not concluded its turn in time. A timeout that is no more the current
+	 * one, since the turn has ended while it was waiting in the mailbox, is
+	 * ignored
 	 * 
+	 * @param expired
+	 *            the timeout that has expired
 	 * @throws IllegalAccessException
 	 * @throws InstantiationException
 	 */
-	public void timeoutUpdate() throws InstantiationException,
-			IllegalAccessException {
-
-		this.deleteObserver(subscriberList.get(players.indexOf(this
-				.getCurrentPlayer())));
+	public void timeoutUpdate(TurnTimeout expired)
+			throws InstantiationException, IllegalAccessException {
+		if (closed || expired != timeout) {
+			return;
+		}
+		SubscriberHandler handler = subscriberList.get(players.indexOf(this
+				.getCurrentPlayer()));
+		this.deleteObserver(handler);
 		this.subscriberList.remove(players.indexOf(this.getCurrentPlayer()));
+		handler.close();
 
 		Player exPlayer = this.getCurrentPlayer();
 		EndTurnAction action = new EndTurnAction();
@@ -479,9 +553,8 @@ public class Game extends Observable {
 				fromPlayerToToken(this.getCurrentPlayer()), true);
 		ArrayList<Object> parameters = new ArrayList<Object>();
 		parameters.add(notifications[1]);
-		notifications[1].setMessage(notifications[1].getMessage()
-				+ "\n[GLOBAL MESSAGE]: " + exPlayer.getName()
-				+ " has disconnected!");
+		notifications[1].addEvent(new GameEvent(GameEvent.Type.DISCONNECTED,
+				exPlayer.getName()));
 		this.notifyListeners(new RemoteMethodCall("sendPubNotification",
 				parameters));
 
@@ -489,17 +562,219 @@ public class Game extends Observable {
 		this.players.remove(exPlayer);
 	}
 
+	/**
+	 * Schedules the timeout of the current player's turn, cancelling the
+	 * previous one. The turn of a disconnected player times out at once
+	 */
+	private void scheduleTurnTimeout() {
+		if (closed) {
+			return;
+		}
+		if (timeout != null) {
+			timeout.cancel();
+		}
+		timeout = new TurnTimeout(this, TIMEOUTS);
+		TIMEOUTS.schedule(timeout, disconnectedPlayers
+				.contains(fromPlayerToToken(currentPlayer)) ? 0 : TURN_TIMEOUT);
+	}
+
+	/**
+	 * Schedules the timeout that starts or ends the game while it is open
+	 * 
+	 * @param task
+	 *            the task run when the timeout expires
+	 * @param delay
+	 *            the time the game stays open, in ms
+	 */
+	public void scheduleStartTimeout(TimerTask task, long delay) {
+		startTimeout = task;
+		TIMEOUTS.schedule(task, delay);
+	}
+
+	/**
+	 * Gets the timer shared by the timeouts of all the games
+	 * 
+	 * @return the timer of the games' timeouts
+	 */
+	public static Timer getTimeouts() {
+		return TIMEOUTS;
+	}
+
+	/**
+	 * Closes the game, once it has ended. The game is closed by a message of
+	 * its mailbox, so the calls published by the message running now are
+	 * sent before: then the timeouts of the game are cancelled, its
+	 * subscribers stop observing it and their handlers are closed. Closing a
+	 * closed game has no effect
+	 */
+	public void close() {
+		mailbox.execute(new Runnable() {
+			@Override
+			public void run() {
+				release();
+			}
+		});
+	}
+
+	/**
+	 * Releases the resources held by the game. This method is run by the
+	 * game's mailbox
+	 */
+	private void release() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		if (timeout != null) {
+			timeout.cancel();
+		}
+		if (startTimeout != null) {
+			startTimeout.cancel();
+		}
+		// The cancelled timeouts would keep the game until their expiration
+		TIMEOUTS.purge();
+		super.deleteObservers();
+		for (SubscriberHandler handler : subscriberList) {
+			handler.close();
+		}
+		subscriberList.clear();
+	}
+
+	/**
+	 * Checks if the game has ended and has been closed
+	 * 
+	 * @return true if the game has been closed
+	 */
+	public boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * Removes a subscriber handler from the game. If the handler still
+	 * represents a player, as when its subscriber is no more reachable, the
+	 * player is disconnected by a message submitted to the game's mailbox
+	 * 
+	 * @see java.util.Observable#deleteObserver
+	 */
+	@Override
+	public synchronized void deleteObserver(final Observer observer) {
+		super.deleteObserver(observer);
+		if (observer instanceof SubscriberHandler) {
+			mailbox.execute(new Runnable() {
+				@Override
+				public void run() {
+					subscriberLost((SubscriberHandler) observer);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Disconnects the player represented by a subscriber handler that no more
+	 * observes the game. This method is run by the game's mailbox
+	 * 
+	 * @param handler
+	 *            the handler that no more observes the game
+	 */
+	private void subscriberLost(SubscriberHandler handler) {
+		int index = subscriberList.indexOf(handler);
+		if (index < 0 || index >= players.size()) {
+			// The player has already left the game
+			return;
+		}
+		Player player = players.get(index);
+		handler.close();
+		disconnectedPlayers.add(fromPlayerToToken(player));
+		if (gamePublicData.getStatus() == GameStatus.OPEN) {
+			if (countObservers() == 0 && gameManager != null) {
+				gameManager.removeGame(this);
+			}
+		} else if (player == currentPlayer) {
+			scheduleTurnTimeout();
+		}
+	}
+
+	/**
+	 * Checks if a player has been disconnected, since its subscriber is no
+	 * more reachable
+	 * 
+	 * @param playerToken
+	 *            the token of the player
+	 * @return true if the player has been disconnected
+	 */
+	public boolean isDisconnected(PlayerToken playerToken) {
+		return disconnectedPlayers.contains(playerToken);
+	}
+
 	/**
 	 * Notifies the game's subscribers with a remote method call that has to be
-	 * performed on them
+	 * performed on them. The call is published as a single {@link Broadcast},
+	 * so that it is encoded once for all the subscribers. If a batch is open
+	 * the call is held until the batch is flushed
 	 * 
 	 * @param remoteMethodCall
 	 *            the remote method call to be performed on the game's
 	 *            subscribers
 	 */
-	public synchronized void notifyListeners(RemoteMethodCall remoteMethodCall) {
+	public void notifyListeners(RemoteMethodCall remoteMethodCall) {
+		if (batch != null) {
+			batch.add(remoteMethodCall);
+			return;
+		}
+		publish(remoteMethodCall);
+	}
+
+	/**
+	 * Opens a batch: the calls published from now on are held, and sent to the
+	 * subscribers in a single frame when the batch is flushed. A batch is
+	 * opened by a message of the game's mailbox, that flushes it before
+	 * returning
+	 */
+	public void openBatch() {
+		if (batch == null) {
+			batch = new ArrayList<RemoteMethodCall>();
+		}
+	}
+
+	/**
+	 * Flushes the open batch, publishing the held calls in the order they have
+	 * been published. More than one call is sent as a single
+	 * {@code deliverBatch} call
+	 */
+	public void flushBatch() {
+		ArrayList<RemoteMethodCall> calls = batch;
+		batch = null;
+		if (calls == null || calls.isEmpty()) {
+			return;
+		}
+		if (calls.size() == 1) {
+			publish(calls.get(0));
+		} else {
+			ArrayList<Object> parameters = new ArrayList<Object>();
+			parameters.add(calls);
+			publish(new RemoteMethodCall("deliverBatch", parameters));
+		}
+	}
+
+	/**
+	 * Publishes a remote method call to the game's subscribers
+	 * 
+	 * @param remoteMethodCall
+	 *            the remote method call to be performed on the game's
+	 *            subscribers
+	 */
+	private void publish(RemoteMethodCall remoteMethodCall) {
 		this.setChanged();
-		this.notifyObservers(remoteMethodCall);
+		this.notifyObservers(new Broadcast(remoteMethodCall));
+	}
+
+	/**
+	 * Gets the mailbox the changes to the game are submitted to
+	 * 
+	 * @return the game's mailbox
+	 */
+	public GameMailbox getMailbox() {
+		return mailbox;
 	}
 
 	/**
@@ -517,7 +792,7 @@ public class Game extends Observable {
 	 * @param handler
 	 *            the thread used by the game to communicate with the subscriber
 	 */
-	public synchronized void addSubscriber(SubscriberHandler handler) {
+	public void addSubscriber(SubscriberHandler handler) {
 		this.addObserver(handler);
 		subscriberList.add(handler);
 	}
@@ -635,4 +910,14 @@ public class Game extends Observable {
 	public void setGameManager(GameManager gameManager) {
 		this.gameManager = gameManager;
 	}
+
+	/**
+	 * Publishes the game's public data to the lobby of its game manager, after
+	 * they have changed
+	 */
+	private void publicDataChanged() {
+		if (gameManager != null) {
+			gameManager.publicDataChanged(this);
+		}
+	}
 }
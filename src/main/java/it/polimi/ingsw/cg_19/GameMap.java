@@ -1,6 +1,7 @@
 package it.polimi.ingsw.cg_19;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
@@ -9,6 +10,7 @@ import org.jgrapht.GraphPath;
 import org.jgrapht.UndirectedGraph;
 import org.jgrapht.alg.NeighborIndex;
 import org.jgrapht.graph.DefaultEdge;
+import org.jgrapht.graph.UnmodifiableUndirectedGraph;
 import org.jgrapht.Graphs;
 
 import common.Coordinate;
@@ -29,6 +31,8 @@ public class GameMap {
 	private UndirectedGraph<Sector, DefaultEdge> graph;
 	// A searchable version of the map's associated graph
 	private NeighborIndex<Sector, DefaultEdge> searchableGraph;
+	// The map's sectors, by coordinate
+	private final HashMap<Coordinate, Sector> sectorsByCoords;
 	// The human starting sector
 	private final Sector humanSector;
 	// The alien starting sector
@@ -50,7 +54,8 @@ public class GameMap {
 	 * Constructs a generic map in the game from an undirected graph, from
 	 * informations about its table like representation and from its name. A
 	 * searchable version of the undirected graph given is created and
-	 * references to the map's alien sectors and human sectors are saved.
+	 * references to the map's alien sectors and human sectors are saved. The
+	 * graph must be complete, since the map's sectors are indexed once here.
 	 * 
 	 * @param graph
 	 *            the graph associated with the map
@@ -76,6 +81,7 @@ public class GameMap {
 		this.graph = graph;
 		this.searchableGraph = new NeighborIndex<Sector, DefaultEdge>(
 				this.graph);
+		this.sectorsByCoords = indexSectors();
 		this.startingHorizontalCoord = startingHorizontalCoord;
 		this.startingVerticalCoord = startingVerticalCoord;
 		this.horizontalLength = horizontalLength;
@@ -135,11 +141,11 @@ public class GameMap {
 	}
 
 	/**
-	 * @return A reference to the graph data structure, used for testing
+	 * @return A read-only view of the graph data structure, used for testing
 	 *         purposes
 	 */
 	public UndirectedGraph<Sector, DefaultEdge> getGraph() {
-		return this.graph;
+		return new UnmodifiableUndirectedGraph<Sector, DefaultEdge>(this.graph);
 	}
 
 	/**
@@ -174,20 +180,26 @@ public class GameMap {
 	 * 
 	 * @param coordinate
 	 *            the coordinate of the sector to be returned
-	 * @return the map's sector whose coordinate is the one specified
+	 * @return the map's sector whose coordinate is the one specified, or null
+	 *         if the map has no such sector
 	 */
 	public Sector getSectorByCoords(Coordinate coordinate) {
-		/*
-		 * Get list of sectors in the graph and scans this list in order to find
-		 * the correct sector if the sector doesn't exist returns null
-		 */
+		return this.sectorsByCoords.get(coordinate);
+	}
+
+	/**
+	 * Indexes the map's sectors by their coordinate
+	 * 
+	 * @return the map's sectors, by coordinate
+	 */
+	private HashMap<Coordinate, Sector> indexSectors() {
 		Set<Sector> sectors = this.graph.vertexSet();
+		HashMap<Coordinate, Sector> index = new HashMap<Coordinate, Sector>(
+				sectors.size() * 2);
 		for (Sector s : sectors) {
-			if (s.getCoordinate().equals(coordinate)) {
-				return s;
-			}
+			index.put(s.getCoordinate(), s);
 		}
-		return null;
+		return index;
 	}
 
 	/**
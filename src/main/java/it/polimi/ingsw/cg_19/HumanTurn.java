@@ -10,6 +10,7 @@ import common.DrawRescueCardAction;
 import common.EndTurnAction;
 import common.MoveAction;
 import common.MoveAttackAction;
+import common.Sector;
 import common.SectorCard;
 import common.SectorType;
 import common.UseObjAction;
@@ -46,7 +47,10 @@ public class HumanTurn extends Turn {
 		// Actions to be set after a move action
 		if (actionType.equals(MoveAction.class)) {
 			MoveAction move = (MoveAction) action;
-			SectorType sectorType = move.getTarget().getSectorType();
+			Sector target = game.getMap().getSectorByCoords(move.getTarget());
+			// A target not on the map leads to the actions of a safe sector
+			SectorType sectorType = target == null ? null : target
+					.getSectorType();
 
 			if (sectorType == SectorType.DANGEROUS) {
 				if (!game.getCurrentPlayer().isSedated()) {
@@ -7,14 +7,17 @@ import java.util.logging.Level;
 import client.ClientLogger;
 
 /**
- * Represents a thread that waits for a given time(in seconds)
+ * Represents the timeout of a turn, scheduled on the timer shared by all the
+ * games. When the time is over the timeout is submitted to the game's
+ * mailbox, so that it doesn't change the game while another message is
+ * running
  * 
  * @author Andrea Sessa
  * @author Giorgio Pea
  * @version 1.0
  */
 public class TurnTimeout extends TimerTask {
-	private Game game;
+	private final Game game;
 	private Timer timer;
 
 	public TurnTimeout(Game game, Timer timer) {
@@ -28,12 +31,21 @@ public class TurnTimeout extends TimerTask {
 
 	@Override
 	public void run() {
-		try {
-			game.timeoutUpdate();
-		} catch (InstantiationException | IllegalAccessException e) {
-			ClientLogger.getLogger().log(Level.SEVERE, e.getMessage(), e);
-		}
-		timer.cancel();
+		game.getMailbox().execute(new Runnable() {
+			@Override
+			public void run() {
+				game.openBatch();
+				try {
+					game.timeoutUpdate(TurnTimeout.this);
+				} catch (InstantiationException | IllegalAccessException e) {
+					ClientLogger.getLogger().log(Level.SEVERE, e.getMessage(),
+							e);
+				} finally {
+					game.flushBatch();
+				}
+			}
+		});
+		// The timer is shared, only the cancelled timeouts are removed
 		timer.purge();
 	}
 }
\ No newline at end of file
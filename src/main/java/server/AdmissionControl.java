@@ -0,0 +1,344 @@
+package server;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import common.PlayerToken;
+import common.RemoteMethods;
+
+/**
+ * Represents the admission control of the requests received by the server.
+ * Every client has a token bucket per class of requests: a request is
+ * admitted if its bucket has a token left, otherwise it is rejected before
+ * being handled. The buckets refill at the rate of their {@link Budget}, up to
+ * its burst. A client is identified by its player token once it has joined a
+ * game, and by its remote address before: an address may be shared by many
+ * clients, so its budgets are larger. The buckets that have refilled are
+ * forgotten from time to time, as they are equal to new ones. The requests
+ * that belong to no class are always admitted.
+ *
+ * @see MainServer
+ * @author Andrea Sessa
+ * @author Giorgio Pea
+ */
+public class AdmissionControl {
+	/**
+	 * The classes of requests that have their own budget
+	 */
+	public enum CallClass {
+		/** The requests that read the lobby or the maps */
+		LOBBY,
+		/** The requests that create, join or start a game */
+		JOIN,
+		/** The actions performed on a game */
+		ACTION,
+		/** The chat messages */
+		CHAT
+	}
+
+	// The factor applied to the budgets of an address
+	private static final int ADDRESS_FACTOR = 10;
+	// The number of requests after which the refilled buckets are forgotten
+	private static final int SWEEP_INTERVAL = 1024;
+	// The classes of the requests, by method id
+	private static final CallClass[] CLASSES = new CallClass[RemoteMethods.COUNT];
+
+	static {
+		CLASSES[RemoteMethods.GET_GAMES] = CallClass.LOBBY;
+		CLASSES[RemoteMethods.FIND_GAMES] = CallClass.LOBBY;
+		CLASSES[RemoteMethods.SUBSCRIBE_LOBBY] = CallClass.LOBBY;
+		CLASSES[RemoteMethods.UNSUBSCRIBE_LOBBY] = CallClass.LOBBY;
+		CLASSES[RemoteMethods.GET_MAP] = CallClass.LOBBY;
+		CLASSES[RemoteMethods.JOIN_NEW_GAME] = CallClass.JOIN;
+		CLASSES[RemoteMethods.JOIN_GAME] = CallClass.JOIN;
+		CLASSES[RemoteMethods.FORCE_GAME_START] = CallClass.JOIN;
+		CLASSES[RemoteMethods.MAKE_ACTION] = CallClass.ACTION;
+		CLASSES[RemoteMethods.MAKE_ACTIONS] = CallClass.ACTION;
+		CLASSES[RemoteMethods.PUBLISH_GLOBAL_MESSAGE] = CallClass.CHAT;
+	}
+
+	// The budgets of a player, by class
+	private final Budget[] budgets;
+	// The buckets of the clients, by player token or remote address
+	private final ConcurrentHashMap<Object, TokenBucket[]> buckets;
+	// The number of requests admitted, by class
+	private final AtomicLong[] admitted;
+	// The number of requests rejected, by class
+	private final AtomicLong[] throttled;
+	// The number of requests since the last sweep of the buckets
+	private final AtomicInteger sinceSweep;
+
+	/**
+	 * Constructs the admission control of the requests with the default
+	 * budgets
+	 */
+	public AdmissionControl() {
+		int classes = CallClass.values().length;
+		this.budgets = new Budget[classes];
+		this.buckets = new ConcurrentHashMap<Object, TokenBucket[]>();
+		this.admitted = new AtomicLong[classes];
+		this.throttled = new AtomicLong[classes];
+		this.sinceSweep = new AtomicInteger();
+		for (int i = 0; i < classes; i++) {
+			admitted[i] = new AtomicLong();
+			throttled[i] = new AtomicLong();
+		}
+		budgets[CallClass.LOBBY.ordinal()] = new Budget(20, 100);
+		budgets[CallClass.JOIN.ordinal()] = new Budget(5, 25);
+		budgets[CallClass.ACTION.ordinal()] = new Budget(20, 60);
+		budgets[CallClass.CHAT.ordinal()] = new Budget(5, 20);
+	}
+
+	/**
+	 * Gets the class of the requests of a method
+	 *
+	 * @param methodId
+	 *            the id of the method
+	 * @return the class of the requests, or null if they are always admitted
+	 */
+	public static CallClass classOf(int methodId) {
+		if (methodId < 0 || methodId >= CLASSES.length) {
+			return null;
+		}
+		return CLASSES[methodId];
+	}
+
+	/**
+	 * Gets the budget of a player for a class of requests
+	 *
+	 * @param callClass
+	 *            the class of requests
+	 * @return the budget of a player
+	 */
+	public Budget getBudget(CallClass callClass) {
+		return budgets[callClass.ordinal()];
+	}
+
+	/**
+	 * Changes the budget of a player for a class of requests. The budget of
+	 * an address is larger by a fixed factor. The budget applies to all the
+	 * clients from their next request
+	 *
+	 * @param callClass
+	 *            the class of requests
+	 * @param budget
+	 *            the new budget of a player
+	 */
+	public void setBudget(CallClass callClass, Budget budget) {
+		budgets[callClass.ordinal()] = budget;
+	}
+
+	/**
+	 * Admits or rejects a request
+	 *
+	 * @param key
+	 *            the player token of the client, or its remote address if it
+	 *            has not joined a game
+	 * @param methodId
+	 *            the id of the method requested
+	 * @return true if the request is admitted, false if it is to be rejected
+	 */
+	public boolean admit(Object key, int methodId) {
+		CallClass callClass = classOf(methodId);
+		if (callClass == null) {
+			return true;
+		}
+		long now = System.nanoTime();
+		TokenBucket[] clientBuckets = buckets.get(key);
+		if (clientBuckets == null) {
+			clientBuckets = newBuckets();
+			TokenBucket[] existing = buckets.putIfAbsent(key, clientBuckets);
+			if (existing != null) {
+				clientBuckets = existing;
+			}
+		}
+		int index = callClass.ordinal();
+		boolean admit = clientBuckets[index].take(budgets[index],
+				factorOf(key), now);
+		(admit ? admitted : throttled)[index].incrementAndGet();
+		if (sinceSweep.incrementAndGet() >= SWEEP_INTERVAL) {
+			sinceSweep.set(0);
+			sweep(now);
+		}
+		return admit;
+	}
+
+	/**
+	 * Gets the number of requests of a class that have been admitted
+	 *
+	 * @param callClass
+	 *            the class of requests
+	 * @return the number of requests admitted
+	 */
+	public long getAdmitted(CallClass callClass) {
+		return admitted[callClass.ordinal()].get();
+	}
+
+	/**
+	 * Gets the number of requests of a class that have been rejected
+	 *
+	 * @param callClass
+	 *            the class of requests
+	 * @return the number of requests rejected
+	 */
+	public long getThrottled(CallClass callClass) {
+		return throttled[callClass.ordinal()].get();
+	}
+
+	/**
+	 * Gets the number of clients whose buckets are kept
+	 *
+	 * @return the number of clients tracked
+	 */
+	public int countClients() {
+		return buckets.size();
+	}
+
+	/**
+	 * Forgets the buckets that have refilled, whose clients have been idle
+	 *
+	 * @param now
+	 *            the current time, in ns
+	 */
+	private void sweep(long now) {
+		Iterator<Map.Entry<Object, TokenBucket[]>> iterator = buckets
+				.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Map.Entry<Object, TokenBucket[]> entry = iterator.next();
+			int factor = factorOf(entry.getKey());
+			boolean full = true;
+			for (int i = 0; i < budgets.length && full; i++) {
+				full = entry.getValue()[i].isFull(budgets[i], factor, now);
+			}
+			if (full) {
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Creates the buckets of a new client, one per class
+	 */
+	private static TokenBucket[] newBuckets() {
+		TokenBucket[] clientBuckets = new TokenBucket[CallClass.values().length];
+		for (int i = 0; i < clientBuckets.length; i++) {
+			clientBuckets[i] = new TokenBucket();
+		}
+		return clientBuckets;
+	}
+
+	/**
+	 * Gets the factor applied to the budgets of a client
+	 */
+	private static int factorOf(Object key) {
+		return key instanceof PlayerToken ? 1 : ADDRESS_FACTOR;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder("AdmissionControl [");
+		for (CallClass callClass : CallClass.values()) {
+			builder.append(callClass).append("=")
+					.append(getAdmitted(callClass)).append("/")
+					.append(getThrottled(callClass)).append(", ");
+		}
+		return builder.append("clients=").append(countClients()).append("]")
+				.toString();
+	}
+
+	/**
+	 * Represents the budget of a class of requests: the number of requests
+	 * per second a client can send, and the number it can send at once
+	 */
+	public static final class Budget {
+		// The tokens added to a bucket every second
+		private final double rate;
+		// The tokens a bucket can hold
+		private final int burst;
+
+		/**
+		 * Constructs a budget
+		 *
+		 * @param rate
+		 *            the number of requests per second
+		 * @param burst
+		 *            the number of requests that can be sent at once
+		 */
+		public Budget(double rate, int burst) {
+			if (rate <= 0 || burst < 1)
+				throw new IllegalArgumentException("invalid budget");
+			this.rate = rate;
+			this.burst = burst;
+		}
+
+		/**
+		 * Gets the number of requests per second
+		 *
+		 * @return the number of requests per second
+		 */
+		public double getRate() {
+			return rate;
+		}
+
+		/**
+		 * Gets the number of requests that can be sent at once
+		 *
+		 * @return the number of requests that can be sent at once
+		 */
+		public int getBurst() {
+			return burst;
+		}
+	}
+
+	/**
+	 * Represents the bucket of the tokens of a client for a class of
+	 * requests, that starts full
+	 */
+	private static class TokenBucket {
+		// The tokens in the bucket
+		private double tokens;
+		// The time of the last refill, in ns
+		private long lastRefill;
+		// A flag that indicates that the bucket has been used
+		private boolean started;
+
+		/**
+		 * Takes a token from the bucket, if any
+		 *
+		 * @return true if a token has been taken
+		 */
+		synchronized boolean take(Budget budget, int factor, long now) {
+			refill(budget, factor, now);
+			if (tokens >= 1) {
+				tokens--;
+				return true;
+			}
+			return false;
+		}
+
+		/**
+		 * Checks if the bucket has refilled
+		 */
+		synchronized boolean isFull(Budget budget, int factor, long now) {
+			refill(budget, factor, now);
+			return tokens >= budget.burst * factor;
+		}
+
+		private void refill(Budget budget, int factor, long now) {
+			int burst = budget.burst * factor;
+			if (!started) {
+				started = true;
+				tokens = burst;
+				lastRefill = now;
+			} else if (now > lastRefill) {
+				// The time may come from a thread that has been overtaken
+				tokens = Math.min(burst, tokens + (now - lastRefill)
+						* budget.rate * factor / 1e9);
+				lastRefill = now;
+			}
+		}
+	}
+}
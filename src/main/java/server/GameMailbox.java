@@ -0,0 +1,169 @@
+package server;
+
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+/**
+ * Represents the mailbox of a game. Every change to the game's state, whether
+ * it comes from a client's request or from a timeout, is submitted to the
+ * mailbox as a message; the messages are run one at a time, in the order they
+ * have been submitted, by a pool of workers shared by all the games. So the
+ * state of a game is only touched by one thread at a time and needs no locks,
+ * while different games run on different workers.
+ *
+ * @see it.polimi.ingsw.cg_19.Game
+ * @author Andrea Sessa
+ * @author Giorgio Pea
+ */
+public class GameMailbox implements Executor {
+	/** The number of workers shared by all the games */
+	public static final int WORKERS = Runtime.getRuntime()
+			.availableProcessors();
+	// The number of messages run before the worker is handed to another game
+	private static final int MESSAGES_PER_RUN = 32;
+	// The workers shared by all the games
+	private static final ExecutorService WORKER_POOL = Executors
+			.newFixedThreadPool(WORKERS, new ThreadFactory() {
+				private final AtomicInteger count = new AtomicInteger();
+
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "game-worker-"
+							+ count.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+
+	// The mailbox whose messages the current thread is running, if any
+	private static final ThreadLocal<GameMailbox> RUNNING =
+			new ThreadLocal<GameMailbox>();
+
+	// The messages waiting to be run
+	private final Queue<Runnable> messages;
+	// A flag that indicates that the mailbox is scheduled on a worker
+	private final AtomicBoolean scheduled;
+	// The pool the mailbox is run by
+	private final Executor workers;
+	// Runs the waiting messages
+	private final Runnable drain;
+
+	/**
+	 * Constructs a mailbox run by the workers shared by all the games
+	 */
+	public GameMailbox() {
+		this(WORKER_POOL);
+	}
+
+	/**
+	 * Constructs a mailbox run by the given workers
+	 *
+	 * @param workers
+	 *            the pool the mailbox is run by
+	 */
+	public GameMailbox(Executor workers) {
+		this.messages = new ConcurrentLinkedQueue<Runnable>();
+		this.scheduled = new AtomicBoolean();
+		this.workers = workers;
+		this.drain = new Runnable() {
+			@Override
+			public void run() {
+				drain();
+			}
+		};
+	}
+
+	/**
+	 * Submits a message to the mailbox
+	 *
+	 * @param message
+	 *            the message to be run
+	 */
+	@Override
+	public void execute(Runnable message) {
+		messages.add(message);
+		schedule();
+	}
+
+	/**
+	 * Submits a message to the mailbox and waits for its result. This method
+	 * must not be called by a message of the same mailbox
+	 *
+	 * @param message
+	 *            the message to be run
+	 * @return the result of the message
+	 * @throws Exception
+	 *             the exception thrown by the message
+	 */
+	public <T> T call(Callable<T> message) throws Exception {
+		FutureTask<T> task = new FutureTask<T>(message);
+		execute(task);
+		try {
+			return task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw e;
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof Exception) {
+				throw (Exception) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Checks if the current thread is running a message of a mailbox. Such a
+	 * thread must not wait, since it holds back all the games waiting for a
+	 * worker
+	 *
+	 * @return true if the current thread is running a message
+	 */
+	public static boolean isRunningMessage() {
+		return RUNNING.get() != null;
+	}
+
+	/**
+	 * Schedules the mailbox on a worker, unless it is already scheduled
+	 */
+	private void schedule() {
+		if (!messages.isEmpty() && scheduled.compareAndSet(false, true)) {
+			workers.execute(drain);
+		}
+	}
+
+	/**
+	 * Runs the waiting messages. After a fixed number of messages the worker
+	 * is released, so that a busy game doesn't starve the others
+	 */
+	private void drain() {
+		RUNNING.set(this);
+		try {
+			Runnable message;
+			int count = 0;
+			while (count < MESSAGES_PER_RUN
+					&& (message = messages.poll()) != null) {
+				try {
+					message.run();
+				} catch (RuntimeException e) {
+					ServerLogger.getLogger().log(Level.SEVERE,
+							"Could not perform action | GameMailbox", e);
+				}
+				count++;
+			}
+		} finally {
+			RUNNING.remove();
+			scheduled.set(false);
+			schedule();
+		}
+	}
+}
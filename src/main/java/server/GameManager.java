@@ -3,10 +3,11 @@ package server;
 import it.polimi.ingsw.cg_19.Game;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Timer;
 
 import client.GameTimeout;
 import common.PlayerToken;
@@ -25,20 +26,27 @@ public class GameManager {
 	private static final int GAME_TIMEOUT = 90 * 1000; // 1 minute and half
 
 	// From game id to game to game
-	private volatile Map<Integer, Game> fromGameIdToGame;
+	private final Map<Integer, Game> fromGameIdToGame;
 	// From player token to game
-	private volatile Map<PlayerToken, Game> fromPlayerTokenToGame;
+	private final Map<PlayerToken, Game> fromPlayerTokenToGame;
+	// The lobby that publishes the changes of the games' public data
+	private final Lobby lobby;
 	// The only game manager instance (singleton pattern)
 	private static final GameManager instance = new GameManager();
 
 	/**
 	 * Constructs a manager of all the games running or to be run on the server,
 	 * two empty maps that associate a game id with a game and a player token
-	 * with a player are automatically created as well.
+	 * with a player are automatically created as well, along with an empty
+	 * lobby. The maps are synchronized, since the requests of different games
+	 * are handled at the same time.
 	 */
 	private GameManager() {
-		this.fromGameIdToGame = new HashMap<Integer, Game>();
-		this.fromPlayerTokenToGame = new HashMap<PlayerToken, Game>();
+		this.fromGameIdToGame = Collections
+				.synchronizedMap(new HashMap<Integer, Game>());
+		this.fromPlayerTokenToGame = Collections
+				.synchronizedMap(new HashMap<PlayerToken, Game>());
+		this.lobby = new Lobby();
 	}
 
 	/**
@@ -50,6 +58,27 @@ public class GameManager {
 		return GameManager.instance;
 	}
 
+	/**
+	 * Gets the lobby that publishes the changes of the games' public data to
+	 * the clients choosing a game
+	 * 
+	 * @return the lobby of the server
+	 */
+	public Lobby getLobby() {
+		return lobby;
+	}
+
+	/**
+	 * Publishes the public data of a game to the lobby, after they have
+	 * changed. This method is called by the game itself
+	 * 
+	 * @param game
+	 *            the game whose public data have changed
+	 */
+	public void publicDataChanged(Game game) {
+		lobby.putGame(game.getPublicData());
+	}
+
 	/**
 	 * Gets a game from its id
 	 * 
@@ -63,8 +92,8 @@ public class GameManager {
 
 	/**
 	 * Adds a game to the games managed by the game manager. The game manager's
-	 * map between a game-id and a game is updated. A timer is started to manage
-	 * the starting of the game
+	 * map between a game-id and a game is updated. A timeout is scheduled to
+	 * manage the starting of the game
 	 * 
 	 * @see Game
 	 * @param game
@@ -72,11 +101,11 @@ public class GameManager {
 	 *            manager
 	 */
 	public void addGame(Game game) {
-		Timer timer = new Timer();
-		GameTimeout time = new GameTimeout(this, game, timer);
-		timer.schedule(time, GAME_TIMEOUT);
+		game.scheduleStartTimeout(
+				new GameTimeout(this, game, Game.getTimeouts()), GAME_TIMEOUT);
 		game.setGameManager(this);
 		this.fromGameIdToGame.put(game.getPublicData().getId(), game);
+		lobby.putGame(game.getPublicData());
 	}
 
 	/**
@@ -92,6 +121,7 @@ public class GameManager {
 	public void addGameNoTimer(Game game) {
 		game.setGameManager(this);
 		this.fromGameIdToGame.put(game.getPublicData().getId(), game);
+		lobby.putGame(game.getPublicData());
 	}
 
 	/**
@@ -114,7 +144,9 @@ public class GameManager {
 	 * @return the list of all the games managed by the game manager
 	 */
 	public List<Game> getGames() {
-		return new ArrayList<Game>(this.fromGameIdToGame.values());
+		synchronized (fromGameIdToGame) {
+			return new ArrayList<Game>(this.fromGameIdToGame.values());
+		}
 	}
 
 	/**
@@ -130,29 +162,35 @@ public class GameManager {
 
 	/**
 	 * Removes a game from the list of all the games managed by the game manager
-	 * updating also the game manager's maps
+	 * updating also the game manager's maps and the lobby. The game is closed,
+	 * once the calls published by the message of its mailbox running now have
+	 * been sent
 	 * 
 	 * @param game
 	 *            the game to be removed from the list of all the games managed
 	 *            by the game manager
 	 */
 	public void removeGame(Game game) {
-		Map<PlayerToken, Game> fromPlayerTokenToGameCopy = new HashMap<PlayerToken, Game>(
-				fromPlayerTokenToGame);
-		Map<Integer, Game> fromGameIdToGameCopy = new HashMap<Integer, Game>(
-				fromGameIdToGame);
 		// Removes game from the playerTokenToGameMap
-		for (PlayerToken playerToken : fromPlayerTokenToGameCopy.keySet()) {
-			if (fromPlayerTokenToGame.get(playerToken) == game) {
-				fromPlayerTokenToGame.remove(playerToken);
+		synchronized (fromPlayerTokenToGame) {
+			Iterator<Game> games = fromPlayerTokenToGame.values().iterator();
+			while (games.hasNext()) {
+				if (games.next() == game) {
+					games.remove();
+				}
 			}
 		}
 		// Removes game from GameIdToGameMap
-		for (int i : fromGameIdToGameCopy.keySet()) {
-			if (fromGameIdToGame.get(i) == game) {
-				fromGameIdToGame.remove(i);
+		synchronized (fromGameIdToGame) {
+			Iterator<Game> games = fromGameIdToGame.values().iterator();
+			while (games.hasNext()) {
+				if (games.next() == game) {
+					games.remove();
+				}
 			}
 		}
+		lobby.removeGame(game.getPublicData().getId());
+		game.close();
 	}
 
 	/**
@@ -163,7 +201,8 @@ public class GameManager {
 	 *            players
 	 */
 	public void update(Game game) {
-		if (game.getSubscriberHandlers().size() <= 1) {
+		// The subscribers no more reachable have stopped observing the game
+		if (game.countObservers() <= 1) {
 			ArrayList<Object> parameters = new ArrayList<Object>();
 			parameters.add("The game is end!");
 			game.notifyListeners(new RemoteMethodCall("publishChatMsg",
@@ -0,0 +1,221 @@
+package server;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Observable;
+import java.util.Observer;
+import java.util.concurrent.locks.ReentrantLock;
+
+import common.Broadcast;
+import common.GamePublicData;
+import common.LobbyDelta;
+import common.RemoteMethodCall;
+
+/**
+ * Represents the lobby of the server, a topic in the logic of the pub/sub
+ * pattern whose subscribers are the clients choosing a game to join. A new
+ * subscriber receives the list of the available games once, then only the
+ * changes of that list, as {@link LobbyDelta}s. The lobby keeps a copy of the
+ * public data of every game, updated by the {@link GameManager} whenever a
+ * game is added, changes or is removed, so the subscribers never read the
+ * state of a running game. The snapshot and the changes are published under
+ * the lobby's {@link ReentrantLock}, never held while waiting on a monitor,
+ * so a subscriber receives every change made after its snapshot, in order,
+ * and none made before. Every change also replaces the {@link LobbySnapshot}
+ * of the lobby, that is read without locks by the requests of the list of
+ * games.
+ *
+ * @see GameManager
+ * @author Andrea Sessa
+ * @author Giorgio Pea
+ */
+public class Lobby extends Observable {
+	// The public data of the available games, by id, in creation order
+	private final Map<Integer, GamePublicData> games;
+	// The handlers of the subscribers, by subscriber
+	private final Map<Object, SubscriberHandler> subscribers;
+	// The current version of the list of games
+	private volatile LobbySnapshot snapshot;
+	// The lock that orders the changes and the subscriptions, reentrant since
+	// a handler may leave the lobby while a change is being published
+	private final ReentrantLock lock;
+
+	/**
+	 * Constructs an empty lobby, with no games and no subscribers
+	 */
+	public Lobby() {
+		this.games = new LinkedHashMap<Integer, GamePublicData>();
+		this.subscribers = new HashMap<Object, SubscriberHandler>();
+		this.snapshot = LobbySnapshot.EMPTY;
+		this.lock = new ReentrantLock();
+	}
+
+	/**
+	 * Gets the current version of the list of games. No lock is taken
+	 *
+	 * @return the current snapshot of the list of games
+	 */
+	public LobbySnapshot getSnapshot() {
+		return snapshot;
+	}
+
+	/**
+	 * Gets a copy of the public data of all the available games. No lock is
+	 * taken
+	 *
+	 * @return the public data of the available games, in creation order
+	 */
+	public ArrayList<GamePublicData> getGames() {
+		return new ArrayList<GamePublicData>(snapshot.getGames());
+	}
+
+	/**
+	 * Subscribes a client to the lobby. The list of the available games is
+	 * sent to the client through its handler, as a "sendAvailableGames" call,
+	 * before any following change. A client already subscribed is subscribed
+	 * again, with the new handler
+	 *
+	 * @param subscriber
+	 *            the object that identifies the client, the same one used to
+	 *            unsubscribe it
+	 * @param handler
+	 *            the handler of the client
+	 */
+	public void subscribe(Object subscriber, SubscriberHandler handler) {
+		lock.lock();
+		try {
+			unsubscribe(subscriber);
+			ArrayList<Object> parameters = new ArrayList<Object>();
+			parameters.add(getGames());
+			handler.update(this, new Broadcast(new RemoteMethodCall(
+					"sendAvailableGames", parameters)));
+			subscribers.put(subscriber, handler);
+			addObserver(handler);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Unsubscribes a client from the lobby, if it is subscribed. The handler
+	 * of the client is closed
+	 *
+	 * @param subscriber
+	 *            the object that identifies the client
+	 */
+	public void unsubscribe(Object subscriber) {
+		lock.lock();
+		try {
+			SubscriberHandler handler = subscribers.remove(subscriber);
+			if (handler != null) {
+				super.deleteObserver(handler);
+				handler.close();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Removes a handler from the lobby, as a handler does when its subscriber
+	 * is no more reachable
+	 *
+	 * @see java.util.Observable#deleteObserver
+	 */
+	@Override
+	public void deleteObserver(Observer observer) {
+		lock.lock();
+		try {
+			super.deleteObserver(observer);
+			subscribers.values().remove(observer);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the number of clients subscribed to the lobby
+	 *
+	 * @return the number of subscribers
+	 */
+	public int getSubscribersCount() {
+		lock.lock();
+		try {
+			return subscribers.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Adds a game to the lobby, or updates it if it is already there. The
+	 * subscribers are notified only if the public data of the game have
+	 * actually changed
+	 *
+	 * @param data
+	 *            the public data of the game
+	 */
+	public void putGame(GamePublicData data) {
+		lock.lock();
+		try {
+			GamePublicData previous = games.get(data.getId());
+			if (previous != null
+					&& previous.getPlayersCount() == data.getPlayersCount()
+					&& previous.getStatus() == data.getStatus()) {
+				return;
+			}
+			GamePublicData copy = data.copy();
+			games.put(copy.getId(), copy);
+			rebuild();
+			publish(new LobbyDelta(previous == null ? LobbyDelta.Kind.ADDED
+					: LobbyDelta.Kind.UPDATED, copy));
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Removes a game from the lobby
+	 *
+	 * @param gameId
+	 *            the id of the game to be removed
+	 */
+	public void removeGame(int gameId) {
+		lock.lock();
+		try {
+			GamePublicData previous = games.remove(gameId);
+			if (previous != null) {
+				rebuild();
+				publish(new LobbyDelta(LobbyDelta.Kind.REMOVED, previous));
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Replaces the snapshot of the lobby with a new version of the list of
+	 * games. This method is called holding the lock
+	 */
+	private void rebuild() {
+		snapshot = new LobbySnapshot(snapshot.getVersion() + 1,
+				games.values());
+	}
+
+	/**
+	 * Publishes a change of the list of games to all the subscribers. This
+	 * method is called holding the lock
+	 *
+	 * @param delta
+	 *            the change to be published
+	 */
+	private void publish(LobbyDelta delta) {
+		ArrayList<Object> parameters = new ArrayList<Object>();
+		parameters.add(delta);
+		setChanged();
+		notifyObservers(new Broadcast(new RemoteMethodCall("updateLobby",
+				parameters)));
+	}
+}
@@ -0,0 +1,120 @@
+package server;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import common.GamePublicData;
+import common.LobbyPage;
+import common.LobbyQuery;
+
+/**
+ * Represents an immutable version of the list of the games available on the
+ * server. The {@link Lobby} builds a new snapshot whenever a game is added,
+ * changes or is removed, and publishes it with a single write, so the
+ * requests read the games without any lock. The games that match a set of
+ * filters are selected once per snapshot and kept, so the following requests
+ * with the same filters cost only the size of their page.
+ *
+ * @see Lobby
+ * @see LobbyQuery
+ * @author Andrea Sessa
+ * @author Giorgio Pea
+ */
+public final class LobbySnapshot {
+	/** The snapshot of an empty lobby */
+	public static final LobbySnapshot EMPTY = new LobbySnapshot(0,
+			Collections.<GamePublicData> emptyList());
+	// The maximum number of selections kept, since the filters come from the
+	// clients
+	private static final int MAX_SELECTIONS = 64;
+
+	// The version of the list of games
+	private final long version;
+	// The public data of the games, in creation order
+	private final List<GamePublicData> games;
+	// The games that match a set of filters, by key of the filters
+	private final ConcurrentMap<String, List<GamePublicData>> selections;
+
+	/**
+	 * Constructs a snapshot of the list of games. The public data of the games
+	 * must not be changed afterwards
+	 *
+	 * @param version
+	 *            the version of the list of games
+	 * @param games
+	 *            the public data of the games, in creation order
+	 */
+	public LobbySnapshot(long version, Collection<GamePublicData> games) {
+		this.version = version;
+		this.games = Collections.unmodifiableList(new ArrayList<GamePublicData>(
+				games));
+		this.selections = new ConcurrentHashMap<String, List<GamePublicData>>();
+	}
+
+	/**
+	 * Gets the version of the list of games
+	 *
+	 * @return the version of the list of games
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Gets the public data of all the games
+	 *
+	 * @return the public data of the games, in creation order
+	 */
+	public List<GamePublicData> getGames() {
+		return games;
+	}
+
+	/**
+	 * Gets a page of the games that match the filters of a request. The
+	 * bounds of the request are clamped, since a deserialized request is not
+	 * validated
+	 *
+	 * @param query
+	 *            the request of the page
+	 * @return the page of games
+	 */
+	public LobbyPage query(LobbyQuery query) {
+		List<GamePublicData> selection = select(query);
+		int limit = Math.max(0, Math.min(query.getLimit(), LobbyQuery.MAX_LIMIT));
+		int from = Math.min(Math.max(0, query.getOffset()), selection.size());
+		int to = Math.min(from + limit, selection.size());
+		return new LobbyPage(version, selection.size(), from,
+				new ArrayList<GamePublicData>(selection.subList(from, to)));
+	}
+
+	/**
+	 * Gets the games that match the filters of a request, selecting them the
+	 * first time the filters are requested
+	 *
+	 * @param query
+	 *            the request whose filters are applied
+	 * @return the games that match the filters, in creation order
+	 */
+	private List<GamePublicData> select(LobbyQuery query) {
+		String key = query.getFilterKey();
+		List<GamePublicData> selection = selections.get(key);
+		if (selection == null) {
+			List<GamePublicData> matching = new ArrayList<GamePublicData>();
+			for (GamePublicData game : games) {
+				if (query.matches(game)) {
+					matching.add(game);
+				}
+			}
+			// Two requests may select the same games, the result is the same
+			selection = Collections.unmodifiableList(matching);
+			if (selections.size() < MAX_SELECTIONS) {
+				selections.putIfAbsent(key, selection);
+			}
+		}
+		return selection;
+	}
+}
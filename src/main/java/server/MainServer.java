@@ -2,24 +2,35 @@ package server;
 
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
-import java.net.ServerSocket;
-import java.net.Socket;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
 import java.rmi.AccessException;
 import java.rmi.AlreadyBoundException;
 import java.rmi.RemoteException;
 import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
 import java.rmi.server.UnicastRemoteObject;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.logging.FileHandler;
 import java.util.logging.Handler;
 import java.util.logging.Level;
 
+import common.DeflateCodec;
+import common.Handshake;
+import common.Heartbeat;
+import common.RemoteMethodCall;
+import common.RmiSocketFactory;
+import common.WireCodec;
+
 /**
  * Represents the server in the logic of the client/server pattern
  * 
  * @see SocketRemoteDataExchange
+ * @see SocketAcceptor
+ * @see SelectorLoop
  * @see ServerConnection
  * @see GameManager
  * @author Andrea Sessa
@@ -30,29 +41,63 @@ public class MainServer {
 	// The server's connection
 	private final ServerConnection connection;
 	private final Handler fileHandler;
-	// The socket the server uses to receive requests
-	private final ServerSocket serverSocket;
+	// The number of threads used to handle the requests received via socket
+	private static final int REQUEST_THREADS = 2 * Runtime.getRuntime()
+			.availableProcessors();
+	/**
+	 * The system property that, set to true at startup, handles the requests
+	 * received via socket on a virtual thread per request, when the running
+	 * jvm supports virtual threads
+	 */
+	public static final String VIRTUAL_THREADS_PROPERTY = "server.virtualThreads";
+	// The number of requests handled at the same time on virtual threads
+	private static final int VIRTUAL_REQUEST_THREADS = 256;
+	// The channel the server uses to receive requests
+	private final ServerSocketChannel serverChannel;
+	// The loops that serve the socket connections
+	private final SelectorLoop[] selectorLoops;
+	// The acceptor of the socket connections
+	private SocketAcceptor acceptor;
 	// The rmi registry the server uses to expose methods
 	private Registry registry;
 	// The server's associated game manager
 	private volatile GameManager gameManager;
-	// The server's associated pub/sub thread pool
-	private ExecutorService pubSubThreadExecutor;
+	// The executor that performs the async remote method calls on the rmi
+	// subscribers
+	private final RmiCallbackExecutor rmiCallbackExecutor;
+	// The codecs the server can support on socket connections, created once
+	// so that their counters survive the changes of the offered ones
+	private final WireCodec[] allCodecs;
+	// The codecs supported on socket connections, shared by all of them
+	private volatile WireCodec[] codecs;
+	// The metrics of the subscribers' queues
+	private final SubscriberMetrics subscriberMetrics;
+	// What happens when a subscriber's queue is full
+	private volatile OverflowPolicy overflowPolicy;
+	// The heartbeat settings of the socket connections
+	private volatile Heartbeat heartbeat;
 	// The server's associated request/response upon socket thread pool
 	private ExecutorService socketThreadExecutor;
-	// The server's current remote data exchange based on sockets
-	private SocketRemoteDataExchange socketDataExchange;
+	// A flag that indicates that the requests are handled on virtual threads
+	private final boolean virtualThreads;
+	// The scheduler of the requests received via socket, by priority lane
+	private final RequestScheduler requestScheduler;
 	// The server's services via socket
 	private ServerServicesViaSocket servicesViaSocket;
 	// The server's services via rmi
 	private ServerServicesViaRmi servicesViaRmi;
+	// The factory of the sockets the rmi services are exported on, null for
+	// the default rmi sockets
+	private volatile RmiSocketFactory rmiSocketFactory;
+	// The admission control of the requests, via socket and via rmi
+	private volatile AdmissionControl admissionControl;
 
 	/**
 	 * Constructs a server from its connection details. An rmi registry to be
 	 * used by the server to expose methods, the server's associated game
-	 * manager, the server's associated pub/sub thread pool and the services the
-	 * server offers to the client in order to exchange data via sockets or rmi
-	 * are automatically created
+	 * manager, the executor of the async calls on the rmi subscribers and the
+	 * services the server offers to the client in order to exchange data via
+	 * sockets or rmi are automatically created
 	 * 
 	 * @param connection
 	 *            the server's connection details
@@ -60,12 +105,30 @@ public class MainServer {
 	 */
 	public MainServer(ServerConnection connection) throws IOException {
 		this.connection = connection;
+		this.rmiCallbackExecutor = new RmiCallbackExecutor();
+		this.subscriberMetrics = new SubscriberMetrics();
+		this.allCodecs = Handshake.supportedCodecs(true);
+		this.codecs = offeredCodecs(false);
+		this.overflowPolicy = OverflowPolicy.DROP_CHAT;
+		this.heartbeat = Heartbeat.DEFAULT;
+		this.rmiSocketFactory = RmiSocketFactory.fromProperty();
+		this.admissionControl = new AdmissionControl();
 		this.registry = LocateRegistry.createRegistry(connection
 				.getRegistryPort());
-		this.serverSocket = new ServerSocket(connection.getSocketPort());
+		this.serverChannel = ServerSocketChannel.open();
+		this.serverChannel.bind(new InetSocketAddress(connection
+				.getSocketPort()));
+		this.selectorLoops = new SelectorLoop[Math.max(1, Runtime
+				.getRuntime().availableProcessors() / 2)];
 		this.gameManager = GameManager.getInstance();
-		this.pubSubThreadExecutor = Executors.newCachedThreadPool();
-		this.socketThreadExecutor = Executors.newCachedThreadPool();
+		this.socketThreadExecutor = newVirtualThreadExecutor();
+		this.virtualThreads = socketThreadExecutor != null;
+		if (!virtualThreads) {
+			this.socketThreadExecutor = Executors
+					.newFixedThreadPool(REQUEST_THREADS);
+		}
+		this.requestScheduler = new RequestScheduler(socketThreadExecutor,
+				virtualThreads ? VIRTUAL_REQUEST_THREADS : REQUEST_THREADS);
 		this.servicesViaRmi = new ServerServicesViaRmi(this);
 		this.servicesViaSocket = new ServerServicesViaSocket(this);
 		this.fileHandler = new FileHandler("serverLog.log");
@@ -76,7 +139,9 @@ public class MainServer {
 	}
 
 	/**
-	 * Starts a socket based communication
+	 * Starts a socket based communication. A fixed number of selector loops
+	 * serves all the socket connections, while the calling thread is used to
+	 * accept them
 	 * 
 	 * @throws IOException
 	 * @throws SecurityException
@@ -90,15 +155,101 @@ public class MainServer {
 			IllegalArgumentException, InvocationTargetException,
 			NoSuchMethodException, SecurityException, ClassNotFoundException {
 		ServerLogger.getLogger().log(Level.INFO, "Server is running");
-		Socket socket;
-		while (true) {
-			// Accepts connections
-			socket = serverSocket.accept();
-			// Handles the request using a new thread
-			socketThreadExecutor.submit(new SocketThread(this, socket));
+		for (int i = 0; i < selectorLoops.length; i++) {
+			selectorLoops[i] = new SelectorLoop(heartbeat);
+			Thread loopThread = new Thread(selectorLoops[i], "selector-loop-"
+					+ i);
+			loopThread.setDaemon(true);
+			loopThread.start();
+		}
+		acceptor = new SocketAcceptor(this, serverChannel, selectorLoops);
+		// Accepts connections until the socket server is stopped
+		acceptor.run();
+	}
+
+	/**
+	 * Stops the socket based communication, closing all the socket
+	 * connections
+	 * 
+	 * @throws IOException
+	 *             signals an error in the closing of the server's channel
+	 */
+	public void stopSocketServer() throws IOException {
+		if (acceptor != null) {
+			acceptor.shutdown();
+		}
+		for (SelectorLoop loop : selectorLoops) {
+			if (loop != null) {
+				loop.shutdown();
+			}
+		}
+		serverChannel.close();
+		socketThreadExecutor.shutdown();
+	}
+
+	/**
+	 * Handles a request received on a socket connection, using the server's
+	 * pool of request threads so that the loop the connection is served by
+	 * is never blocked by the game logic. The request waits in the lane of
+	 * its method, so that the actions on the games are handled before the
+	 * lobby traffic
+	 * 
+	 * @param socketConnection
+	 *            the connection the request has been received on
+	 * @param remoteMethodCall
+	 *            the remote method call requested by the client
+	 */
+	public void handleRequest(SocketConnection socketConnection,
+			RemoteMethodCall remoteMethodCall) {
+		requestScheduler.submit(
+				RequestScheduler.laneOf(remoteMethodCall.getMethodId()),
+				new SocketRequestTask(this, socketConnection, remoteMethodCall));
+	}
+
+	/**
+	 * Checks if the requests received via socket are handled on virtual
+	 * threads, rather than on the fixed pool of request threads
+	 * 
+	 * @return true if the requests are handled on virtual threads
+	 */
+	public boolean isVirtualThreads() {
+		return virtualThreads;
+	}
+
+	/**
+	 * Creates an executor that starts a virtual thread per request, if the
+	 * virtual threads are enabled by the {@link #VIRTUAL_THREADS_PROPERTY}.
+	 * The executor is looked up reflectively, since the server is built for
+	 * jvms that have no virtual threads
+	 * 
+	 * @return the executor, or null if the virtual threads are disabled or
+	 *         not supported by the running jvm
+	 */
+	private static ExecutorService newVirtualThreadExecutor() {
+		if (!Boolean.getBoolean(VIRTUAL_THREADS_PROPERTY)) {
+			return null;
+		}
+		try {
+			return (ExecutorService) Executors.class.getMethod(
+					"newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (NoSuchMethodException | IllegalAccessException
+				| InvocationTargetException e) {
+			ServerLogger.getLogger().log(Level.WARNING,
+					"Could not use virtual threads, using a fixed pool | MainServer",
+					e);
+			return null;
 		}
 	}
 
+	/**
+	 * Gets the port the server receives socket requests on
+	 * 
+	 * @return the port the server receives socket requests on
+	 */
+	public int getSocketPort() {
+		return serverChannel.socket().getLocalPort();
+	}
+
 	/**
 	 * Starts a rmi based communication
 	 * 
@@ -111,50 +262,187 @@ public class MainServer {
 		ServerLogger.getLogger().log(Level.INFO, "Server is running");
 		// ServerRemoteServicesInterface serverStub = new ServerServicesViaRmi(
 		// gameManager, this);
+		// Null factories stand for the default rmi sockets
 		ServerServicesViaRmiInt remote = (ServerServicesViaRmiInt) UnicastRemoteObject
-				.exportObject(this.getServicesViaRmi(), 0);
+				.exportObject(this.getServicesViaRmi(), 0, rmiSocketFactory,
+						rmiSocketFactory);
 		registry.bind(connection.getServiceName(), remote);
 	}
 
 	/**
-	 * Adds to the server's pub/sub thread pool a thread used to perform async
-	 * remote method calls on the subscribers.
+	 * Gets the executor shared by the rmi subscriber handlers to perform async
+	 * remote method calls on the subscribers
 	 * 
-	 * @param handler
-	 *            the thread used to send async messages to the subscribers
+	 * @return the executor shared by the rmi subscriber handlers
 	 */
-	public void addPubSubThread(SubscriberHandler handler) {
-		this.pubSubThreadExecutor.submit(handler);
+	public RmiCallbackExecutor getRmiCallbackExecutor() {
+		return rmiCallbackExecutor;
 	}
 
 	/**
-	 * Gets the server's game manager
+	 * Creates the bound on the queue of a new subscriber, according to the
+	 * server's overflow policy
 	 * 
-	 * @return the server's game manager
+	 * @return the bound on the queue of a new subscriber
 	 */
-	public GameManager getGameManager() {
-		return gameManager;
+	public SubscriberQueueLimit newSubscriberQueueLimit() {
+		return new SubscriberQueueLimit(SubscriberQueueLimit.DEFAULT_CAPACITY,
+				overflowPolicy, SubscriberQueueLimit.DEFAULT_BLOCK_TIMEOUT,
+				subscriberMetrics);
 	}
 
 	/**
-	 * Gets the server's current remote data exchange based on sockets
+	 * Gets the codecs supported on socket connections. The codecs are shared by
+	 * all the connections, so they expose the counters of all of them
 	 * 
-	 * @return the server's current remote data exchange based on sockets
+	 * @return the codecs supported on socket connections
 	 */
-	public SocketRemoteDataExchange getSocketDataExchange() {
-		return socketDataExchange;
+	public WireCodec[] getCodecs() {
+		return codecs;
 	}
 
 	/**
-	 * Sets the server's current remote data exchange based on sockets
+	 * Enables or disables the compressed codec on socket connections. The
+	 * compression is disabled by default; when enabled, the clients that
+	 * offer it agree on the compressed codec, whose counters report the
+	 * compression ratio and the time spent compressing. The setting applies
+	 * to the connections opened afterwards, the codecs and their counters are
+	 * the same
 	 * 
-	 * @param socketDataExchange
-	 *            the new remote data exchange based on sockets associated with
-	 *            the server
+	 * @param compression
+	 *            true if the compressed codec is to be supported
+	 * @see common.DeflateCodec
 	 */
-	public void setSocketDataExchange(
-			SocketRemoteDataExchange socketDataExchange) {
-		this.socketDataExchange = socketDataExchange;
+	public void setCompression(boolean compression) {
+		this.codecs = offeredCodecs(compression);
+	}
+
+	/**
+	 * Gets the codecs to be offered on socket connections, in order of
+	 * preference, among the ones the server can support
+	 * 
+	 * @param compression
+	 *            true if the compressed codec is to be offered
+	 * @return the codecs to be offered on socket connections
+	 */
+	private WireCodec[] offeredCodecs(boolean compression) {
+		List<WireCodec> offered = new ArrayList<WireCodec>();
+		for (WireCodec codec : allCodecs) {
+			if (compression || !(codec instanceof DeflateCodec)) {
+				offered.add(codec);
+			}
+		}
+		return offered.toArray(new WireCodec[offered.size()]);
+	}
+
+	/**
+	 * Gets the heartbeat settings of the socket connections
+	 * 
+	 * @return the heartbeat settings of the socket connections
+	 */
+	public Heartbeat getHeartbeat() {
+		return heartbeat;
+	}
+
+	/**
+	 * Changes the heartbeat settings of the socket connections. The settings
+	 * apply to all the connections, the ones already open included, from the
+	 * next check of their loop. The clients must send their heartbeats more
+	 * often than the idle timeout of the server
+	 * 
+	 * @param heartbeat
+	 *            the new heartbeat settings
+	 */
+	public void setHeartbeat(Heartbeat heartbeat) {
+		this.heartbeat = heartbeat;
+		for (SelectorLoop loop : selectorLoops) {
+			if (loop != null) {
+				loop.setHeartbeat(heartbeat);
+			}
+		}
+	}
+
+	/**
+	 * Gets the factory of the sockets the rmi services are exported on
+	 * 
+	 * @return the factory of the rmi sockets, or null if the default rmi
+	 *         sockets are used
+	 */
+	public RmiSocketFactory getRmiSocketFactory() {
+		return rmiSocketFactory;
+	}
+
+	/**
+	 * Sets the factory of the sockets the rmi services are exported on. The
+	 * factory is chosen by the {@link RmiSocketFactory#PROPERTY} system
+	 * property by default, and applies when the rmi server is started
+	 * 
+	 * @param rmiSocketFactory
+	 *            the factory of the rmi sockets, or null for the default rmi
+	 *            sockets
+	 */
+	public void setRmiSocketFactory(RmiSocketFactory rmiSocketFactory) {
+		this.rmiSocketFactory = rmiSocketFactory;
+	}
+
+	/**
+	 * Gets the admission control of the requests, that exposes the number of
+	 * requests admitted and rejected
+	 * 
+	 * @return the admission control of the requests
+	 */
+	public AdmissionControl getAdmissionControl() {
+		return admissionControl;
+	}
+
+	/**
+	 * Replaces the admission control of the requests. The new one applies
+	 * from the next request, with all the buckets full
+	 * 
+	 * @param admissionControl
+	 *            the new admission control
+	 */
+	public void setAdmissionControl(AdmissionControl admissionControl) {
+		this.admissionControl = admissionControl;
+	}
+
+	/**
+	 * Gets the scheduler of the requests received via socket, that exposes
+	 * the time the requests wait in each lane
+	 * 
+	 * @return the scheduler of the requests
+	 */
+	public RequestScheduler getRequestScheduler() {
+		return requestScheduler;
+	}
+
+	/**
+	 * Gets the metrics of the subscribers' queues
+	 * 
+	 * @return the metrics of the subscribers' queues
+	 */
+	public SubscriberMetrics getSubscriberMetrics() {
+		return subscriberMetrics;
+	}
+
+	/**
+	 * Sets what happens when a subscriber's queue is full. The policy applies
+	 * to the subscribers that connect afterwards
+	 * 
+	 * @param overflowPolicy
+	 *            the new overflow policy
+	 */
+	public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+		this.overflowPolicy = overflowPolicy;
+	}
+
+	/**
+	 * Gets the server's game manager
+	 * 
+	 * @return the server's game manager
+	 */
+	public GameManager getGameManager() {
+		return gameManager;
 	}
 
 	/**
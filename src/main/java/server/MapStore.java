@@ -0,0 +1,126 @@
+package server;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import common.CompiledMap;
+import factories.FermiGameMapFactory;
+import factories.GalileiGameMapFactory;
+import factories.GalvaniGameMapFactory;
+import factories.GameMapFactory;
+
+/**
+ * Represents the store of the maps the games of the server are played on. The
+ * map files are parsed once per map, the first time a game on that map
+ * starts, and kept as {@link CompiledMap}s: every game builds its own map
+ * from the compiled one, and the clients receive only the hash of the map,
+ * fetching the compiled map by hash when they haven't got it yet.
+ *
+ * @see CompiledMap
+ * @author Andrea Sessa
+ * @author Giorgio Pea
+ */
+public class MapStore {
+	private static final MapStore instance = new MapStore();
+
+	// The compiled maps, by name
+	private final Map<String, CompiledMap> byName;
+	// The compiled maps, by hash
+	private final Map<String, CompiledMap> byHash;
+
+	/**
+	 * Constructs an empty store of maps
+	 */
+	private MapStore() {
+		this.byName = new ConcurrentHashMap<String, CompiledMap>();
+		this.byHash = new ConcurrentHashMap<String, CompiledMap>();
+	}
+
+	/**
+	 * Gets the store of maps
+	 *
+	 * @return the store of maps
+	 */
+	public static MapStore getInstance() {
+		return MapStore.instance;
+	}
+
+	/**
+	 * Checks if a map is known by the server
+	 *
+	 * @param mapName
+	 *            the name of the map
+	 * @return true if games can be played on the map
+	 */
+	public static boolean isKnown(String mapName) {
+		return factoryOf(mapName) != null;
+	}
+
+	/**
+	 * Gets a map by name, compiling it from its file if it hasn't been
+	 * compiled yet
+	 *
+	 * @param mapName
+	 *            the name of the map
+	 * @return the compiled map
+	 * @throws IllegalArgumentException
+	 *             if the map is not known
+	 */
+	public CompiledMap get(String mapName) {
+		CompiledMap map = byName.get(mapName);
+		if (map == null) {
+			map = compile(mapName);
+		}
+		return map;
+	}
+
+	/**
+	 * Gets a map already compiled by its hash
+	 *
+	 * @param hash
+	 *            the hash of the compiled map
+	 * @return the compiled map, or null if no map has that hash
+	 */
+	public CompiledMap getByHash(String hash) {
+		return hash == null ? null : byHash.get(hash);
+	}
+
+	/**
+	 * Compiles a map from its file, once
+	 *
+	 * @param mapName
+	 *            the name of the map
+	 * @return the compiled map
+	 */
+	private synchronized CompiledMap compile(String mapName) {
+		CompiledMap map = byName.get(mapName);
+		if (map == null) {
+			GameMapFactory factory = factoryOf(mapName);
+			if (factory == null) {
+				throw new IllegalArgumentException("The map's type is undefined");
+			}
+			map = CompiledMap.compile(factory.makeMap());
+			byHash.put(map.getHash(), map);
+			byName.put(mapName, map);
+		}
+		return map;
+	}
+
+	/**
+	 * Gets the factory that parses the file of a map
+	 *
+	 * @param mapName
+	 *            the name of the map
+	 * @return the factory of the map, or null if the map is not known
+	 */
+	private static GameMapFactory factoryOf(String mapName) {
+		if ("GALILEI".equals(mapName)) {
+			return new GalileiGameMapFactory();
+		} else if ("FERMI".equals(mapName)) {
+			return new FermiGameMapFactory();
+		} else if ("GALVANI".equals(mapName)) {
+			return new GalvaniGameMapFactory();
+		}
+		return null;
+	}
+}
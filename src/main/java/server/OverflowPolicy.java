@@ -0,0 +1,28 @@
+package server;
+
+/**
+ * Represents what happens when a remote method call is published to a
+ * subscriber whose queue of calls waiting to be delivered is full
+ *
+ * @see SubscriberQueueLimit
+ * @author Andrea Sessa
+ * @author Giorgio Pea
+ */
+public enum OverflowPolicy {
+	/**
+	 * Chat messages, and batches made only of chat messages, are dropped, any
+	 * other call disconnects the subscriber
+	 */
+	DROP_CHAT,
+	/**
+	 * The subscriber is disconnected
+	 */
+	DISCONNECT,
+	/**
+	 * The publisher waits for the queue to have room, and disconnects the
+	 * subscriber if it doesn't happen in time. A publisher running a message
+	 * of a game's mailbox doesn't wait, and the calls are handled as with
+	 * {@link #DROP_CHAT}
+	 */
+	BLOCK
+}
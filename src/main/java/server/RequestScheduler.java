@@ -0,0 +1,360 @@
+package server;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+
+import common.RemoteMethods;
+
+/**
+ * Represents the scheduler of the requests received via socket. Every request
+ * is queued in the lane of its method, and the lanes are served by a bounded
+ * number of workers run by the server's executor. When there are more
+ * requests than workers, the next request is taken from the lanes by a smooth
+ * weighted round robin: each lane gets a share of the workers proportional to
+ * its weight, so the actions on the games overtake the lobby traffic, while
+ * the lower lanes are slowed down but never starved. The time every request
+ * waits in its lane is measured, per lane.
+ *
+ * @see MainServer
+ * @see SocketRequestTask
+ * @author Andrea Sessa
+ * @author Giorgio Pea
+ */
+public class RequestScheduler {
+	/**
+	 * The lanes of the requests, from the most to the least urgent
+	 */
+	public enum Lane {
+		/** The actions performed on a game */
+		ACTION(8),
+		/** The requests that join or start a game */
+		CONTROL(4),
+		/** The chat messages */
+		CHAT(2),
+		/** The requests that read the lobby or the maps */
+		LOBBY(1);
+
+		// The share of the workers the lane gets
+		private final int weight;
+
+		private Lane(int weight) {
+			this.weight = weight;
+		}
+
+		/**
+		 * Gets the share of the workers the lane gets when all the lanes
+		 * have requests waiting
+		 *
+		 * @return the weight of the lane
+		 */
+		public int getWeight() {
+			return weight;
+		}
+	}
+
+	// The lanes of the requests, by method id
+	private static final Lane[] LANES = new Lane[RemoteMethods.COUNT];
+
+	static {
+		LANES[RemoteMethods.MAKE_ACTION] = Lane.ACTION;
+		LANES[RemoteMethods.MAKE_ACTIONS] = Lane.ACTION;
+		LANES[RemoteMethods.JOIN_NEW_GAME] = Lane.CONTROL;
+		LANES[RemoteMethods.JOIN_GAME] = Lane.CONTROL;
+		LANES[RemoteMethods.FORCE_GAME_START] = Lane.CONTROL;
+		LANES[RemoteMethods.PUBLISH_GLOBAL_MESSAGE] = Lane.CHAT;
+	}
+
+	// The executor that runs the workers
+	private final Executor executor;
+	// The maximum number of workers
+	private final int workers;
+	// The lock that guards the lanes and the workers count
+	private final ReentrantLock lock;
+	// The requests waiting, by lane
+	private final List<ArrayDeque<QueuedRequest>> queues;
+	// The current weights of the round robin, by lane
+	private final int[] currentWeights;
+	// The time spent in the queues, by lane
+	private final QueueLatency[] latencies;
+	// The number of workers running
+	private int running;
+	// The worker, that serves the lanes until they are empty
+	private final Runnable worker = new Runnable() {
+		@Override
+		public void run() {
+			QueuedRequest request;
+			while ((request = next()) != null) {
+				try {
+					request.task.run();
+				} catch (RuntimeException e) {
+					ServerLogger.getLogger().log(Level.SEVERE,
+							"Could not perform request | RequestScheduler", e);
+				}
+			}
+		}
+	};
+
+	/**
+	 * Constructs the scheduler of the requests
+	 *
+	 * @param executor
+	 *            the executor that runs the workers
+	 * @param workers
+	 *            the maximum number of requests handled at the same time
+	 */
+	public RequestScheduler(Executor executor, int workers) {
+		if (workers < 1)
+			throw new IllegalArgumentException("workers must be positive");
+		this.executor = executor;
+		this.workers = workers;
+		this.lock = new ReentrantLock();
+		int lanes = Lane.values().length;
+		this.queues = new ArrayList<ArrayDeque<QueuedRequest>>(lanes);
+		this.currentWeights = new int[lanes];
+		this.latencies = new QueueLatency[lanes];
+		for (int i = 0; i < lanes; i++) {
+			queues.add(new ArrayDeque<QueuedRequest>());
+			latencies[i] = new QueueLatency();
+		}
+	}
+
+	/**
+	 * Gets the lane of the requests of a method. The methods not bound to a
+	 * game, and the unknown ones, are in the lobby lane
+	 *
+	 * @param methodId
+	 *            the id of the method
+	 * @return the lane of the requests
+	 */
+	public static Lane laneOf(int methodId) {
+		if (methodId < 0 || methodId >= LANES.length || LANES[methodId] == null) {
+			return Lane.LOBBY;
+		}
+		return LANES[methodId];
+	}
+
+	/**
+	 * Queues a request in a lane, starting a worker if there are less than
+	 * the maximum
+	 *
+	 * @param lane
+	 *            the lane of the request
+	 * @param task
+	 *            the task that handles the request
+	 * @throws RejectedExecutionException
+	 *             if the executor has been shut down
+	 */
+	public void submit(Lane lane, Runnable task) {
+		boolean startWorker;
+		lock.lock();
+		try {
+			queues.get(lane.ordinal()).add(
+					new QueuedRequest(task, System.nanoTime()));
+			startWorker = running < workers;
+			if (startWorker) {
+				running++;
+			}
+		} finally {
+			lock.unlock();
+		}
+		if (startWorker) {
+			try {
+				executor.execute(worker);
+			} catch (RejectedExecutionException e) {
+				lock.lock();
+				try {
+					running--;
+				} finally {
+					lock.unlock();
+				}
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * Gets the number of requests waiting in a lane
+	 *
+	 * @param lane
+	 *            the lane
+	 * @return the number of requests waiting
+	 */
+	public int getQueued(Lane lane) {
+		lock.lock();
+		try {
+			return queues.get(lane.ordinal()).size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the time the requests of a lane have waited to be handled
+	 *
+	 * @param lane
+	 *            the lane
+	 * @return the time spent in the queue of the lane
+	 */
+	public QueueLatency getLatency(Lane lane) {
+		return latencies[lane.ordinal()];
+	}
+
+	/**
+	 * Takes the next request to be handled, or stops the calling worker if
+	 * there are none
+	 *
+	 * @return the next request, or null if the lanes are empty
+	 */
+	private QueuedRequest next() {
+		QueuedRequest request;
+		int lane;
+		lock.lock();
+		try {
+			lane = pick();
+			if (lane < 0) {
+				running--;
+				return null;
+			}
+			request = queues.get(lane).poll();
+		} finally {
+			lock.unlock();
+		}
+		latencies[lane].record(System.nanoTime() - request.queuedAt);
+		return request;
+	}
+
+	/**
+	 * Picks the lane of the next request by a smooth weighted round robin
+	 * among the lanes that have requests waiting
+	 *
+	 * @return the index of the lane, or -1 if the lanes are empty
+	 */
+	private int pick() {
+		int best = -1;
+		int totalWeight = 0;
+		Lane[] lanes = Lane.values();
+		for (int i = 0; i < lanes.length; i++) {
+			if (queues.get(i).isEmpty()) {
+				continue;
+			}
+			currentWeights[i] += lanes[i].weight;
+			totalWeight += lanes[i].weight;
+			if (best < 0 || currentWeights[i] > currentWeights[best]) {
+				best = i;
+			}
+		}
+		if (best >= 0) {
+			currentWeights[best] -= totalWeight;
+		}
+		return best;
+	}
+
+	/**
+	 * Represents a request waiting in a lane
+	 */
+	private static class QueuedRequest {
+		private final Runnable task;
+		private final long queuedAt;
+
+		QueuedRequest(Runnable task, long queuedAt) {
+			this.task = task;
+			this.queuedAt = queuedAt;
+		}
+	}
+
+	/**
+	 * Represents the time the requests of a lane have waited to be handled.
+	 * The times are kept in a histogram whose buckets double in width, so a
+	 * percentile is known within a factor of two
+	 */
+	public static final class QueueLatency {
+		// The number of buckets of the histogram, the last one is unbounded
+		private static final int BUCKETS = 48;
+
+		// The number of requests
+		private final AtomicLong count = new AtomicLong();
+		// The total time waited, in ns
+		private final AtomicLong total = new AtomicLong();
+		// The longest time waited, in ns
+		private final AtomicLong max = new AtomicLong();
+		// The number of requests that waited less than 2^i ns, by i
+		private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+		void record(long nanos) {
+			count.incrementAndGet();
+			total.addAndGet(nanos);
+			long current = max.get();
+			while (nanos > current && !max.compareAndSet(current, nanos)) {
+				current = max.get();
+			}
+			int bucket = 64 - Long.numberOfLeadingZeros(Math.max(nanos, 0));
+			histogram.incrementAndGet(Math.min(bucket, BUCKETS - 1));
+		}
+
+		/**
+		 * Gets the number of requests handled
+		 *
+		 * @return the number of requests
+		 */
+		public long getCount() {
+			return count.get();
+		}
+
+		/**
+		 * Gets the mean time a request has waited
+		 *
+		 * @return the mean time waited, in ns
+		 */
+		public long getMean() {
+			long requests = count.get();
+			return requests == 0 ? 0 : total.get() / requests;
+		}
+
+		/**
+		 * Gets the longest time a request has waited
+		 *
+		 * @return the longest time waited, in ns
+		 */
+		public long getMax() {
+			return max.get();
+		}
+
+		/**
+		 * Gets a percentile of the time the requests have waited
+		 *
+		 * @param percentile
+		 *            the percentile, between 0 and 100
+		 * @return the upper bound of the percentile, in ns
+		 */
+		public long getPercentile(double percentile) {
+			long requests = 0;
+			long[] counts = new long[BUCKETS];
+			for (int i = 0; i < BUCKETS; i++) {
+				counts[i] = histogram.get(i);
+				requests += counts[i];
+			}
+			long rank = (long) Math.ceil(requests * percentile / 100);
+			long seen = 0;
+			for (int i = 0; i < BUCKETS; i++) {
+				seen += counts[i];
+				if (seen >= rank && counts[i] > 0) {
+					return Math.min(1L << i, max.get());
+				}
+			}
+			return 0;
+		}
+
+		@Override
+		public String toString() {
+			return "QueueLatency [count=" + count + ", mean=" + getMean()
+					+ ", p99=" + getPercentile(99) + ", max=" + max + "]";
+		}
+	}
+}
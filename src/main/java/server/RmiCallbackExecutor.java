@@ -0,0 +1,275 @@
+package server;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import common.Heartbeat;
+
+/**
+ * Represents the executor shared by all the rmi subscriber handlers to perform
+ * the async remote method calls on their subscribers. A fixed number of
+ * threads delivers the calls, so that the number of threads doesn't grow with
+ * the number of subscribers, and every delivery has a deadline checked by a
+ * separate scheduler, once per deadline while the delivery is in flight: a
+ * subscriber that misses too many deadlines in a row is evicted by its
+ * handler. A thread still blocked on an evicted subscriber is replaced by a
+ * new one until its call returns, so a few stalled subscribers don't hold
+ * back the deliveries to the others; the call itself fails when the read
+ * timeout of the subscriber's {@link common.RmiSocketFactory} expires. The
+ * same scheduler pings, with an empty batch, the subscribers that have
+ * received nothing for a heartbeat interval, so a subscriber that has gone
+ * away is evicted in a few intervals even if its topic is silent.
+ *
+ * @see RmiSubscriberHandler
+ * @author Andrea Sessa
+ * @author Giorgio Pea
+ */
+public class RmiCallbackExecutor {
+	/** The default time a subscriber has to receive a batch of calls, in ms */
+	public static final long DEFAULT_DEADLINE = 2000;
+	/** The default number of deadlines a subscriber can miss in a row */
+	public static final int DEFAULT_MAX_MISSES = 3;
+	/** The default number of threads that deliver the calls */
+	public static final int DEFAULT_THREADS = Math.max(2, Runtime
+			.getRuntime().availableProcessors());
+	// The threads that deliver the calls to the subscribers
+	private final ThreadPoolExecutor deliveryExecutor;
+	// The thread that checks the deadlines of the deliveries
+	private final ScheduledExecutorService deadlineChecker;
+	// The time a subscriber has to receive a batch of calls, in ms
+	private final long deadline;
+	// The number of deadlines a subscriber can miss in a row before being
+	// evicted
+	private final int maxMisses;
+	// The time after which an idle subscriber is pinged, in ms
+	private final long heartbeatInterval;
+	// The handlers whose subscribers are pinged, forgotten once unreachable
+	private final Set<RmiSubscriberHandler> handlers;
+	// The number of threads blocked on evicted subscribers
+	private int stalled;
+
+	/**
+	 * Constructs the executor with the default number of threads, deadline,
+	 * number of allowed misses and heartbeat interval
+	 */
+	public RmiCallbackExecutor() {
+		this(DEFAULT_THREADS, DEFAULT_DEADLINE, DEFAULT_MAX_MISSES);
+	}
+
+	/**
+	 * Constructs the executor with the default heartbeat interval
+	 *
+	 * @param threads
+	 *            the number of threads that deliver the calls
+	 * @param deadline
+	 *            the time a subscriber has to receive a batch of calls, in ms
+	 * @param maxMisses
+	 *            the number of deadlines a subscriber can miss in a row
+	 *            before being evicted
+	 */
+	public RmiCallbackExecutor(int threads, long deadline, int maxMisses) {
+		this(threads, deadline, maxMisses, Heartbeat.DEFAULT_INTERVAL);
+	}
+
+	/**
+	 * Constructs the executor
+	 *
+	 * @param threads
+	 *            the number of threads that deliver the calls
+	 * @param deadline
+	 *            the time a subscriber has to receive a batch of calls, in ms
+	 * @param maxMisses
+	 *            the number of deadlines a subscriber can miss in a row
+	 *            before being evicted
+	 * @param heartbeatInterval
+	 *            the time after which an idle subscriber is pinged, in ms
+	 */
+	public RmiCallbackExecutor(int threads, long deadline, int maxMisses,
+			long heartbeatInterval) {
+		this.deadline = deadline;
+		this.maxMisses = maxMisses;
+		this.heartbeatInterval = heartbeatInterval;
+		this.handlers = Collections.synchronizedSet(Collections
+				.newSetFromMap(new WeakHashMap<RmiSubscriberHandler, Boolean>()));
+		this.deliveryExecutor = new ThreadPoolExecutor(threads, threads, 0L,
+				TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
+				new DaemonThreadFactory("rmi-callback"));
+		this.deadlineChecker = Executors.newSingleThreadScheduledExecutor(
+				new DaemonThreadFactory("rmi-deadline"));
+		this.deadlineChecker.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				pingIdle();
+			}
+		}, heartbeatInterval, heartbeatInterval, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Starts pinging the subscriber of a handler when it is idle. The handler
+	 * is forgotten when it is evicted or no more referenced by any topic
+	 *
+	 * @param handler
+	 *            the handler whose subscriber is to be pinged
+	 */
+	public void track(RmiSubscriberHandler handler) {
+		handlers.add(handler);
+	}
+
+	/**
+	 * Stops pinging the subscriber of a handler
+	 *
+	 * @param handler
+	 *            the handler whose subscriber is no more to be pinged
+	 */
+	public void untrack(RmiSubscriberHandler handler) {
+		handlers.remove(handler);
+	}
+
+	/**
+	 * Gets the number of handlers whose subscribers are pinged
+	 *
+	 * @return the number of tracked handlers
+	 */
+	public int getTrackedCount() {
+		return handlers.size();
+	}
+
+	/**
+	 * Gets the time after which an idle subscriber is pinged
+	 *
+	 * @return the heartbeat interval, in ms
+	 */
+	public long getHeartbeatInterval() {
+		return heartbeatInterval;
+	}
+
+	/**
+	 * Pings the subscribers that have received nothing for a heartbeat
+	 * interval
+	 */
+	private void pingIdle() {
+		long now = System.nanoTime();
+		ArrayList<RmiSubscriberHandler> tracked;
+		synchronized (handlers) {
+			tracked = new ArrayList<RmiSubscriberHandler>(handlers);
+		}
+		for (RmiSubscriberHandler handler : tracked) {
+			handler.pingIfIdle(now);
+		}
+	}
+
+	/**
+	 * Schedules the delivery of the calls queued by a subscriber handler
+	 *
+	 * @param delivery
+	 *            the delivery to be executed
+	 */
+	public void execute(Runnable delivery) {
+		deliveryExecutor.execute(delivery);
+	}
+
+	/**
+	 * Starts checking the deadline of a delivery. The check is repeated every
+	 * deadline until it is cancelled
+	 *
+	 * @param onMiss
+	 *            the action to be performed every time a deadline expires
+	 *            while the delivery is in flight
+	 * @return the check, to be cancelled when the delivery is completed
+	 */
+	public ScheduledFuture<?> watch(Runnable onMiss) {
+		return deadlineChecker.scheduleAtFixedRate(onMiss, deadline, deadline,
+				TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Adds a thread to the delivery threads in place of one blocked on an
+	 * evicted subscriber
+	 */
+	void stall() {
+		synchronized (deliveryExecutor) {
+			stalled++;
+			// The maximum size is never below the core size
+			deliveryExecutor.setMaximumPoolSize(deliveryExecutor
+					.getMaximumPoolSize() + 1);
+			deliveryExecutor.setCorePoolSize(deliveryExecutor
+					.getCorePoolSize() + 1);
+		}
+	}
+
+	/**
+	 * Removes the thread added in place of one blocked on an evicted
+	 * subscriber, once the blocked call has returned
+	 */
+	void resume() {
+		synchronized (deliveryExecutor) {
+			stalled--;
+			deliveryExecutor.setCorePoolSize(deliveryExecutor
+					.getCorePoolSize() - 1);
+			deliveryExecutor.setMaximumPoolSize(deliveryExecutor
+					.getMaximumPoolSize() - 1);
+		}
+	}
+
+	/**
+	 * Gets the number of delivery threads blocked on evicted subscribers
+	 *
+	 * @return the number of stalled threads
+	 */
+	public int getStalledCount() {
+		synchronized (deliveryExecutor) {
+			return stalled;
+		}
+	}
+
+	/**
+	 * Gets the number of deadlines a subscriber can miss in a row before being
+	 * evicted
+	 *
+	 * @return the number of deadlines a subscriber can miss in a row
+	 */
+	public int getMaxMisses() {
+		return maxMisses;
+	}
+
+	/**
+	 * Stops the executor. The deliveries in progress are not interrupted
+	 */
+	public void shutdown() {
+		deliveryExecutor.shutdown();
+		deadlineChecker.shutdown();
+	}
+
+	/**
+	 * Creates named daemon threads, so that the executor doesn't keep the
+	 * server alive
+	 */
+	private static class DaemonThreadFactory implements ThreadFactory {
+		// The prefix of the threads' names
+		private final String prefix;
+		// The number of threads created
+		private final AtomicInteger count = new AtomicInteger();
+
+		public DaemonThreadFactory(String prefix) {
+			this.prefix = prefix;
+		}
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, prefix + "-"
+					+ count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
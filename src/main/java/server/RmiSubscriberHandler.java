@@ -1,128 +1,310 @@
 package server;
 
-import java.io.IOException;
-import java.lang.reflect.InvocationTargetException;
+import java.rmi.RemoteException;
 import java.util.ArrayList;
 import java.util.Observable;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 
+import common.Broadcast;
 import common.RemoteMethodCall;
 import client.ClientRemoteServicesInterface;
 
 /**
  * Represents a subscriber handler based on rmi in the logic of the pub/sub
  * pattern. It observes a topic for changes and notifies its associated
- * subscriber through a remote method call.
- * 
+ * subscriber through a remote method call. The calls are delivered by the
+ * shared {@link RmiCallbackExecutor}, at most one batch at a time for each
+ * subscriber, so that the order of the calls is preserved: all the calls
+ * queued while a batch is in flight are delivered together with the next
+ * remote method call. The queue is bounded by a {@link SubscriberQueueLimit}.
+ * A subscriber that misses too many deadlines in a row, or whose queue
+ * overflows, is evicted and receives no more calls: a batch still in flight
+ * misses a deadline every time one expires, so a subscriber that doesn't
+ * respond is evicted within a bounded time, and the delivery thread blocked
+ * on it is replaced by the executor. A subscriber that has received nothing
+ * for a heartbeat interval is pinged with an empty batch, so that a
+ * subscriber that has gone away is evicted even if its topic is silent.
+ *
  * @see SubscriberHandler
  * @author Andrea Sessa
  * @author Giorgio Pea
  */
-public class RmiSubscriberHandler implements SubscriberHandler {
+public class RmiSubscriberHandler implements SubscriberHandler, Runnable {
+	/** The maximum number of calls delivered in a single batch */
+	public static final int MAX_BATCH_SIZE = 64;
+	// The states of a delivery, as seen by its deadline check
+	private static final int IN_FLIGHT = 0;
+	private static final int COMPLETED = 1;
+	private static final int STALLED = 2;
 	// The services offered by the client to the server using rmi
-	private ClientRemoteServicesInterface clientServices;
+	private final ClientRemoteServicesInterface clientServices;
+	// The executor that delivers the calls to the subscriber
+	private final RmiCallbackExecutor executor;
 	// A queue of messages to send to the subscriber
-	private ConcurrentLinkedQueue<RemoteMethodCall> buffer;
+	private final ConcurrentLinkedQueue<RemoteMethodCall> buffer;
+	// The bound on the number of messages in the queue
+	private final SubscriberQueueLimit queueLimit;
+	// A flag that indicates that a delivery is scheduled or in flight
+	private final AtomicBoolean scheduled;
+	// The number of deadlines missed in a row by the subscriber
+	private final AtomicInteger misses;
+	// A flag that indicates that the subscriber has been evicted
+	private volatile boolean evicted;
+	// A flag that indicates that the handler has been closed
+	private volatile boolean closed;
+	// A flag that indicates that the deliveries are held
+	private volatile boolean held;
+	// The topic observed by the handler
+	private volatile Observable topic;
+	// The time of the last delivery to the subscriber, in ns
+	private volatile long lastDelivery;
+	// A flag that indicates that the subscriber is to be pinged
+	private final AtomicBoolean ping;
 
 	/**
 	 * Constructs a subscriber handler based on rmi from the services offered by
 	 * the subscriber(the client's stub). These services are used to send
 	 * messages to the subscriber. An empty queue of messages for the handler is
 	 * automatically created as well.
-	 * 
+	 *
 	 * @param clientServices
 	 *            the services the subscriber offers via rmi to communicate
+	 * @param executor
+	 *            the executor that delivers the calls to the subscriber
+	 * @param queueLimit
+	 *            the bound on the number of calls waiting to be delivered
 	 */
-	public RmiSubscriberHandler(ClientRemoteServicesInterface clientServices) {
+	public RmiSubscriberHandler(ClientRemoteServicesInterface clientServices,
+			RmiCallbackExecutor executor, SubscriberQueueLimit queueLimit) {
 		this.clientServices = clientServices;
+		this.executor = executor;
 		this.buffer = new ConcurrentLinkedQueue<RemoteMethodCall>();
+		this.queueLimit = queueLimit;
+		this.scheduled = new AtomicBoolean();
+		this.misses = new AtomicInteger();
+		this.ping = new AtomicBoolean();
+		this.lastDelivery = System.nanoTime();
+		executor.track(this);
 	}
 
 	/**
-	 * Performs a remote method call on the subscriber
-	 * 
-	 * @param remoteMethodCall
-	 *            the remote method call to be performed on the subscriber
-	 * @throws IOException
-	 * @throws SecurityException
-	 * @throws NoSuchMethodException
-	 * @throws InvocationTargetException
-	 * @throws IllegalArgumentException
-	 * @throws IllegalAccessException
+	 * Updates the subscriber handler with a remote method call. The remote
+	 * method call is admitted in the handler's queue of remote method calls and
+	 * a delivery is scheduled, unless one is already in flight
+	 *
+	 * @see java.util.Observable#update
 	 */
-	private void perform(RemoteMethodCall remoteMethodCall) throws IOException,
-			IllegalAccessException, IllegalArgumentException,
-			InvocationTargetException, NoSuchMethodException, SecurityException {
-		// Getting the name of the method
-		String methodName = remoteMethodCall.getMethodName();
-		// Getting the params the method should be called with
-		ArrayList<Object> parameters = remoteMethodCall.getMethodParameters();
-		// Getting the types of the params the method should be called with
-		Class<?>[] parametersClasses = new Class[parameters.size()];
-		for (int i = 0; i < parameters.size(); i++) {
-			if (parameters.get(i).getClass().getName().contains("action")
-					|| parameters.get(i).getClass().getName()
-							.contains("ClientNotification")) {
-				parametersClasses[i] = parameters.get(i).getClass()
-						.getSuperclass();
-			} else {
-				parametersClasses[i] = parameters.get(i).getClass();
-			}
+	@Override
+	public void update(Observable o, Object arg) {
+		if (evicted || closed) {
+			return;
+		}
+		this.topic = o;
+		RemoteMethodCall remoteMethodCall = ((Broadcast) arg)
+				.getRemoteMethodCall();
+		switch (queueLimit.admit(remoteMethodCall)) {
+		case DROPPED:
+			return;
+		case DISCONNECT:
+			evict("queue full");
+			return;
+		default:
+			break;
+		}
+		this.buffer.add(remoteMethodCall);
+		schedule();
+	}
 
+	/**
+	 * Holds the deliveries to the subscriber: the calls are still queued, but
+	 * none is delivered until the handler is released. A handler is held while
+	 * its subscriber is sent the answer to the request that subscribed it, so
+	 * that the answer arrives before any published call
+	 */
+	public void hold() {
+		held = true;
+	}
+
+	/**
+	 * Releases the deliveries held by {@link #hold}, scheduling the delivery
+	 * of the calls queued in the meantime
+	 */
+	public void release() {
+		held = false;
+		if (!buffer.isEmpty()) {
+			schedule();
 		}
-		// Invoking the method on the subscriber
-		clientServices.getClass()
-				.getDeclaredMethod(methodName, parametersClasses)
-				.invoke(clientServices, parameters.toArray());
 	}
 
 	/**
-	 * Updates the subscriber handler with a remote method call. The remote
-	 * method call is appended to the handler's queue of remote method calls and
-	 * is performed on the subscriber
-	 * 
-	 * @see java.util.Observable#update
+	 * Gets the bound on the number of calls waiting to be delivered, that
+	 * exposes the depth of the handler's queue
+	 *
+	 * @return the bound on the handler's queue
+	 */
+	public SubscriberQueueLimit getQueueLimit() {
+		return queueLimit;
+	}
+
+	/**
+	 * Delivers in a single remote method call the calls queued by the handler,
+	 * checking the deadline of the delivery. If new calls have been queued in
+	 * the meantime, another delivery is scheduled.
 	 */
 	@Override
-	public void update(Observable o, Object arg) {
-		this.buffer.add((RemoteMethodCall) arg);
-		synchronized (buffer) {
-			buffer.notify();
+	public void run() {
+		ArrayList<RemoteMethodCall> batch = new ArrayList<RemoteMethodCall>();
+		RemoteMethodCall remoteMethodCall;
+		while (batch.size() < MAX_BATCH_SIZE
+				&& (remoteMethodCall = buffer.poll()) != null) {
+			batch.add(remoteMethodCall);
 		}
+		queueLimit.release(batch.size());
+		// A ping is an empty batch
+		if ((ping.getAndSet(false) || !batch.isEmpty()) && !evicted) {
+			deliver(batch);
+		}
+		scheduled.set(false);
+		if (!buffer.isEmpty()) {
+			schedule();
+		}
+	}
 
+	/**
+	 * Pings the subscriber if it has received nothing for a heartbeat
+	 * interval and no delivery is in flight. This method is called by the
+	 * executor
+	 *
+	 * @param now
+	 *            the current time, in ns
+	 */
+	void pingIfIdle(long now) {
+		if (!evicted
+				&& !closed
+				&& !scheduled.get()
+				&& now - lastDelivery >= TimeUnit.MILLISECONDS
+						.toNanos(executor.getHeartbeatInterval())) {
+			ping.set(true);
+			schedule();
+		}
 	}
 
 	/**
-	 * Runs the thread defined in this class. The thread waits until the
-	 * handler's associated queue of remote method calls has a remote method
-	 * call, then wakes up and performs the remote method call.
+	 * Closes the handler. The calls already queued are still delivered, but
+	 * the subscriber is no more pinged and no more calls are accepted
+	 *
+	 * @see SubscriberHandler#close
 	 */
-	public void run() {
-		while (true) {
-			RemoteMethodCall remoteMethodCall = buffer.poll();
-			if (remoteMethodCall != null)
-				try {
-					this.perform(remoteMethodCall);
-				} catch (IOException | IllegalAccessException
-						| IllegalArgumentException | InvocationTargetException
-						| NoSuchMethodException | SecurityException e1) {
-					ServerLogger.getLogger().log(Level.SEVERE,
-							"Could not perform action | RmiSubscriberHandler",
-							e1);
+	@Override
+	public void close() {
+		closed = true;
+		topic = null;
+		executor.untrack(this);
+	}
+
+	/**
+	 * Checks if the subscriber has been evicted
+	 *
+	 * @return true if the subscriber has been evicted
+	 */
+	public boolean isEvicted() {
+		return evicted;
+	}
+
+	/**
+	 * Performs a batch of remote method calls on the subscriber, counting a
+	 * miss for every deadline expired while the batch is in flight, or one if
+	 * the delivery fails. If the subscriber is evicted before the call
+	 * returns, the executor replaces the calling thread until it does
+	 *
+	 * @param batch
+	 *            the remote method calls to be performed on the subscriber
+	 */
+	private void deliver(ArrayList<RemoteMethodCall> batch) {
+		final AtomicInteger state = new AtomicInteger(IN_FLIGHT);
+		final AtomicBoolean late = new AtomicBoolean();
+		ScheduledFuture<?> check = executor.watch(new Runnable() {
+			@Override
+			public void run() {
+				if (state.get() != IN_FLIGHT) {
+					return;
 				}
-			else {
-				try {
-					// Waiting until a remote method call arrives
-					synchronized (buffer) {
-						buffer.wait();
-					}
-				} catch (InterruptedException e) {
-					ServerLogger.getLogger().log(Level.SEVERE,
-							"Thread interrupted | RmiSubscriberHandler", e);
+				late.set(true);
+				missed("deadline expired");
+				if (evicted && state.compareAndSet(IN_FLIGHT, STALLED)) {
+					executor.stall();
 				}
 			}
+		});
+		lastDelivery = System.nanoTime();
+		try {
+			clientServices.deliverBatch(batch);
+			if (!late.get()) {
+				misses.set(0);
+			}
+		} catch (RemoteException e) {
+			ServerLogger.getLogger().log(Level.WARNING,
+					"Could not perform action | RmiSubscriberHandler", e);
+			if (!late.get()) {
+				missed("delivery failed");
+			}
+		} finally {
+			check.cancel(false);
+			if (!state.compareAndSet(IN_FLIGHT, COMPLETED)) {
+				executor.resume();
+			}
+		}
+	}
+
+	/**
+	 * Schedules a delivery, unless one is already scheduled or in flight or
+	 * the deliveries are held
+	 */
+	private void schedule() {
+		if (!evicted && !held && scheduled.compareAndSet(false, true)) {
+			executor.execute(this);
+		}
+	}
+
+	/**
+	 * Counts a deadline missed by the subscriber, evicting it if it has missed
+	 * too many deadlines in a row
+	 *
+	 * @param reason
+	 *            the reason of the miss
+	 */
+	private void missed(String reason) {
+		if (misses.incrementAndGet() >= executor.getMaxMisses()) {
+			evict(reason);
+		}
+	}
+
+	/**
+	 * Evicts the subscriber: the handler stops observing its topic and the
+	 * calls still waiting to be delivered are dropped
+	 *
+	 * @param reason
+	 *            the reason of the eviction
+	 */
+	private void evict(String reason) {
+		if (evicted) {
+			return;
+		}
+		evicted = true;
+		executor.untrack(this);
+		queueLimit.cancel();
+		Observable observed = topic;
+		if (observed != null) {
+			observed.deleteObserver(this);
 		}
+		buffer.clear();
+		ServerLogger.getLogger().log(Level.WARNING,
+				"Subscriber evicted, " + reason + " | RmiSubscriberHandler");
 	}
 
 }
@@ -0,0 +1,230 @@
+package server;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import common.Heartbeat;
+
+/**
+ * Represents a loop that serves many socket connections using a single
+ * thread. The loop waits on a selector for the connections to be readable or
+ * writable and lets each connection read its incoming frames and write its
+ * outgoing ones, without ever blocking on a single connection. Twice per
+ * heartbeat interval the loop checks the {@link Heartbeat} of all its
+ * connections, reaping the silent ones, so a silent connection costs a time
+ * comparison per check and no thread.
+ *
+ * @see SocketConnection
+ * @see SocketAcceptor
+ * @author Andrea Sessa
+ * @author Giorgio Pea
+ */
+public class SelectorLoop implements Runnable {
+	// The selector the loop waits on
+	private final Selector selector;
+	// The connections waiting to be registered with the selector
+	private final Queue<SocketConnection> registrations;
+	// The connections that have frames to be written
+	private final Queue<SocketConnection> writeRequests;
+	// A flag that indicates if the loop has to keep running
+	private volatile boolean running;
+	// The heartbeat settings of the connections served by the loop
+	private volatile Heartbeat heartbeat;
+	// The time of the last check of the heartbeats, in ns
+	private long lastCheck;
+
+	/**
+	 * Constructs a loop that serves many socket connections using a single
+	 * thread, with the default heartbeat settings. The selector used by the
+	 * loop is automatically opened
+	 *
+	 * @throws IOException
+	 *             signals an error in the opening of the selector
+	 */
+	public SelectorLoop() throws IOException {
+		this(Heartbeat.DEFAULT);
+	}
+
+	/**
+	 * Constructs a loop that serves many socket connections using a single
+	 * thread. The selector used by the loop is automatically opened
+	 *
+	 * @param heartbeat
+	 *            the heartbeat settings of the connections served by the loop
+	 * @throws IOException
+	 *             signals an error in the opening of the selector
+	 */
+	public SelectorLoop(Heartbeat heartbeat) throws IOException {
+		this.selector = Selector.open();
+		this.registrations = new ConcurrentLinkedQueue<SocketConnection>();
+		this.writeRequests = new ConcurrentLinkedQueue<SocketConnection>();
+		this.heartbeat = heartbeat;
+		this.lastCheck = System.nanoTime();
+		this.running = true;
+	}
+
+	/**
+	 * Changes the heartbeat settings of the connections served by the loop.
+	 * The new settings apply from the next check
+	 *
+	 * @param heartbeat
+	 *            the new heartbeat settings
+	 */
+	public void setHeartbeat(Heartbeat heartbeat) {
+		this.heartbeat = heartbeat;
+		selector.wakeup();
+	}
+
+	/**
+	 * Assigns a connection to the loop. The actual registration is performed
+	 * by the loop's thread
+	 *
+	 * @param connection
+	 *            the connection to be served by the loop
+	 */
+	public void register(SocketConnection connection) {
+		registrations.add(connection);
+		selector.wakeup();
+	}
+
+	/**
+	 * Signals the loop that a connection has frames to be written
+	 *
+	 * @param connection
+	 *            the connection that has frames to be written
+	 */
+	public void requestWrite(SocketConnection connection) {
+		writeRequests.add(connection);
+		selector.wakeup();
+	}
+
+	/**
+	 * Stops the loop and closes all the connections it serves
+	 */
+	public void shutdown() {
+		running = false;
+		selector.wakeup();
+	}
+
+	/**
+	 * Runs the loop. The loop waits for the connections it serves to be ready
+	 * and then lets them perform their I/O
+	 */
+	@Override
+	public void run() {
+		while (running) {
+			try {
+				Heartbeat settings = heartbeat;
+				selector.select(Math.max(1, settings.getInterval() / 2));
+				processRegistrations();
+				processWriteRequests();
+				Iterator<SelectionKey> keys = selector.selectedKeys()
+						.iterator();
+				while (keys.hasNext()) {
+					SelectionKey key = keys.next();
+					keys.remove();
+					process(key);
+				}
+				checkHeartbeats(settings);
+			} catch (IOException e) {
+				ServerLogger.getLogger().log(Level.SEVERE,
+						"Selector failure | SelectorLoop", e);
+			}
+		}
+		for (SelectionKey key : selector.keys()) {
+			((SocketConnection) key.attachment()).close();
+		}
+		try {
+			selector.close();
+		} catch (IOException e) {
+			ServerLogger.getLogger().log(Level.WARNING,
+					"Could not close the selector | SelectorLoop", e);
+		}
+	}
+
+	/**
+	 * Lets the connection associated with a ready key perform its I/O
+	 *
+	 * @param key
+	 *            the ready key
+	 */
+	private void process(SelectionKey key) {
+		SocketConnection connection = (SocketConnection) key.attachment();
+		try {
+			if (key.isValid() && key.isReadable()) {
+				connection.onReadable();
+			}
+			if (key.isValid() && key.isWritable()) {
+				connection.onWritable();
+			}
+		} catch (IOException | ClassNotFoundException e) {
+			ServerLogger.getLogger().log(Level.WARNING,
+					"Could not communicate with the client | SelectorLoop", e);
+			connection.close();
+		} catch (RuntimeException e) {
+			// A malformed frame must not stop the loop
+			ServerLogger.getLogger().log(Level.WARNING,
+					"Malformed frame from the client | SelectorLoop", e);
+			connection.close();
+		} catch (Error e) {
+			// Nor must an error, such as a stack overflow, caused by a client
+			ServerLogger.getLogger().log(Level.SEVERE,
+					"Could not serve the client | SelectorLoop", e);
+			connection.close();
+		}
+	}
+
+	/**
+	 * Checks the heartbeats of all the connections served by the loop, if an
+	 * half interval has passed since the last check
+	 *
+	 * @param settings
+	 *            the heartbeat settings of the loop
+	 */
+	private void checkHeartbeats(Heartbeat settings) {
+		long now = System.nanoTime();
+		if (now - lastCheck < TimeUnit.MILLISECONDS.toNanos(settings
+				.getInterval() / 2)) {
+			return;
+		}
+		lastCheck = now;
+		for (SelectionKey key : selector.keys()) {
+			if (key.isValid()) {
+				((SocketConnection) key.attachment()).checkHeartbeat(now,
+						settings);
+			}
+		}
+	}
+
+	/**
+	 * Registers with the selector the connections assigned to the loop
+	 */
+	private void processRegistrations() {
+		SocketConnection connection;
+		while ((connection = registrations.poll()) != null) {
+			try {
+				connection.register(selector);
+			} catch (ClosedChannelException e) {
+				connection.close();
+			}
+		}
+	}
+
+	/**
+	 * Enables the write readiness of the connections that have frames to be
+	 * written
+	 */
+	private void processWriteRequests() {
+		SocketConnection connection;
+		while ((connection = writeRequests.poll()) != null) {
+			connection.enableWrite();
+		}
+	}
+}
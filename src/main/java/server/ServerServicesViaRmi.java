@@ -5,19 +5,28 @@ import it.polimi.ingsw.cg_19.Player;
 
 import java.io.IOException;
 import java.rmi.RemoteException;
+import java.rmi.server.RemoteServer;
+import java.rmi.server.ServerNotActiveException;
 import java.util.ArrayList;
+import java.util.concurrent.Callable;
 
 import client.ClientRemoteServicesInterface;
 import common.Action;
 import common.ClientNotification;
 import common.GamePublicData;
+import common.LobbyQuery;
 import common.PlayerToken;
 import common.RemoteMethodCall;
+import common.RemoteMethods;
+import common.RequestRejectedException;
 
 /**
  * Represents a container that groups methods offered by the server to the
  * client in order to exchange data. These methods are offered by the server to
- * the client using a rmi based communication
+ * the client using a rmi based communication. The requests are handled
+ * concurrently: the changes of a game are submitted to the game's mailbox,
+ * that runs them one at a time, while the client is called back by the thread
+ * of its request, never by the mailbox
  * 
  * @see ServerServicesViaRmiInt
  * @see MainServer
@@ -48,92 +57,268 @@ public class ServerServicesViaRmi implements ServerServicesViaRmiInt {
 	 * @see ServerServicesViaRmiInt#getGames
 	 */
 	@Override
-	public synchronized void getGames(ClientRemoteServicesInterface clientServices)
+	public void getGames(ClientRemoteServicesInterface clientServices)
 			throws IOException {
-		ArrayList<GamePublicData> gamesList = new ArrayList<GamePublicData>();
-		for (Game game : this.gameManager.getGames()) {
-			gamesList.add(game.getPublicData());
-		}
-		clientServices.sendAvailableGames(gamesList);
+		admit(null, RemoteMethods.GET_GAMES);
+		clientServices.sendAvailableGames(gameManager.getLobby().getGames());
+	}
+
+	/**
+	 * @see ServerServicesViaRmiInt#findGames
+	 */
+	@Override
+	public void findGames(ClientRemoteServicesInterface clientServices,
+			LobbyQuery query) throws RemoteException {
+		admit(null, RemoteMethods.FIND_GAMES);
+		clientServices.sendGamesPage(gameManager.getLobby().getSnapshot()
+				.query(query));
+	}
 
+	/**
+	 * @see ServerServicesViaRmiInt#getMap
+	 */
+	@Override
+	public void getMap(ClientRemoteServicesInterface clientServices,
+			String hash) throws RemoteException {
+		admit(null, RemoteMethods.GET_MAP);
+		clientServices.sendCompiledMap(MapStore.getInstance().getByHash(hash));
+	}
+
+	/**
+	 * @see ServerServicesViaRmiInt#subscribeLobby
+	 */
+	@Override
+	public void subscribeLobby(ClientRemoteServicesInterface clientServices)
+			throws RemoteException {
+		admit(null, RemoteMethods.SUBSCRIBE_LOBBY);
+		gameManager.getLobby().subscribe(
+				clientServices,
+				new RmiSubscriberHandler(clientServices, server
+						.getRmiCallbackExecutor(), server
+						.newSubscriberQueueLimit()));
+	}
+
+	/**
+	 * @see ServerServicesViaRmiInt#unsubscribeLobby
+	 */
+	@Override
+	public void unsubscribeLobby(ClientRemoteServicesInterface clientServices)
+			throws RemoteException {
+		admit(null, RemoteMethods.UNSUBSCRIBE_LOBBY);
+		gameManager.getLobby().unsubscribe(clientServices);
 	}
 
 	/**
 	 * @see ServerServicesViaRmiInt#makeAction
 	 */
 	@Override
-	public synchronized void makeAction(ClientRemoteServicesInterface clientServices,
-			Action action, PlayerToken playerToken) throws IOException,
+	public void makeAction(ClientRemoteServicesInterface clientServices,
+			final Action action, final PlayerToken playerToken) throws IOException,
 			InstantiationException, IllegalAccessException {
-		Game game = gameManager.getGame(playerToken);
-		ClientNotification[] notification = game.makeAction(action,
-				playerToken, false);
+		admit(playerToken, RemoteMethods.MAKE_ACTION);
+		final Game game = gameManager.getGame(playerToken);
+		ClientNotification[] notification;
+		try {
+			notification = game.getMailbox().call(
+					new Callable<ClientNotification[]>() {
+						@Override
+						public ClientNotification[] call()
+								throws InstantiationException,
+								IllegalAccessException {
+							// The pushes caused by the action leave together
+							game.openBatch();
+							try {
+								ClientNotification[] notification = game
+										.makeAction(action, playerToken, false);
+								ArrayList<Object> parameters = new ArrayList<Object>();
+								parameters.add(notification[1]);
+								game.notifyListeners(new RemoteMethodCall(
+										"sendPubNotification", parameters));
+								return notification;
+							} finally {
+								game.flushBatch();
+							}
+						}
+					});
+		} catch (InstantiationException | IllegalAccessException
+				| RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new IOException("Could not perform action", e);
+		}
 		clientServices.sendNotification(notification[0]);
-		ArrayList<Object> parameters = new ArrayList<Object>();
-		parameters.add(notification[1]);
-		game.notifyListeners(new RemoteMethodCall("sendPubNotification",
-				parameters));
+	}
 
+	/**
+	 * @see ServerServicesViaRmiInt#makeActions
+	 */
+	@Override
+	public void makeActions(ClientRemoteServicesInterface clientServices,
+			final ArrayList<Action> actions, final PlayerToken playerToken)
+			throws IOException, InstantiationException, IllegalAccessException {
+		admit(playerToken, RemoteMethods.MAKE_ACTIONS);
+		final Game game = gameManager.getGame(playerToken);
+		ClientNotification[] notification;
+		try {
+			notification = game.getMailbox().call(
+					new Callable<ClientNotification[]>() {
+						@Override
+						public ClientNotification[] call()
+								throws InstantiationException,
+								IllegalAccessException {
+							// The pushes caused by the whole batch leave
+							// together
+							game.openBatch();
+							try {
+								ClientNotification[] notification = game
+										.makeActions(actions, playerToken);
+								ArrayList<Object> parameters = new ArrayList<Object>();
+								parameters.add(notification[1]);
+								game.notifyListeners(new RemoteMethodCall(
+										"sendPubNotification", parameters));
+								return notification;
+							} finally {
+								game.flushBatch();
+							}
+						}
+					});
+		} catch (InstantiationException | IllegalAccessException
+				| RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new IOException("Could not perform actions", e);
+		}
+		clientServices.sendNotification(notification[0]);
 	}
 
 	/**
 	 * @see ServerServicesViaRmiInt#joinNewGame
 	 */
 	@Override
-	public synchronized void joinNewGame(ClientRemoteServicesInterface clientServices,
-			String gameMapName, String playerName) throws IOException {
-		Game game = new Game(gameMapName);
+	public void joinNewGame(ClientRemoteServicesInterface clientServices,
+			String gameMapName, final String playerName) throws IOException {
+		admit(null, RemoteMethods.JOIN_NEW_GAME);
+		final Game game = new Game(gameMapName);
+		// A player in a game doesn't follow the lobby anymore
+		gameManager.getLobby().unsubscribe(clientServices);
 		this.gameManager.addGame(game);
 
-		RmiSubscriberHandler handler = new RmiSubscriberHandler(clientServices);
-		server.addPubSubThread(handler);
-		PlayerToken playerToken = game.addPlayer(playerName);
-		this.gameManager.addPlayerToGame(playerToken, game.getId());
-		clientServices.sendToken(playerToken);
-		game.addSubscriber(handler);
-
-		ArrayList<Object> parameters = new ArrayList<Object>();
-		parameters.add("You've joined a new game");
-
-		game.notifyListeners(new RemoteMethodCall("publishChatMsg", parameters));
-
+		final RmiSubscriberHandler handler = newJoinHandler(clientServices);
+		// The player and its subscriber are added by the same message
+		PlayerToken playerToken = call(game, new Callable<PlayerToken>() {
+			@Override
+			public PlayerToken call() {
+				PlayerToken playerToken = game.addPlayer(playerName);
+				gameManager.addPlayerToGame(playerToken, game.getId());
+				game.addSubscriber(handler);
+				ArrayList<Object> parameters = new ArrayList<Object>();
+				parameters.add("You've joined a new game");
+				game.notifyListeners(new RemoteMethodCall("publishChatMsg",
+						parameters));
+				return playerToken;
+			}
+		});
+		sendToken(clientServices, handler, playerToken);
 	}
 
 	/**
 	 * @see ServerServicesViaRmiInt#joinGame
 	 */
 	@Override
-	public synchronized void joinGame(ClientRemoteServicesInterface clientServices,
-			Integer gameId, String playerName) throws IOException {
-		Game game = this.gameManager.getGame(gameId);
-		RmiSubscriberHandler handler = new RmiSubscriberHandler(clientServices);
-		server.addPubSubThread(handler);
-		PlayerToken playerToken = game.addPlayer(playerName);
-		this.gameManager.addPlayerToGame(playerToken, gameId);
-		clientServices.sendToken(playerToken);
-		game.addSubscriber(handler);
-		ArrayList<Object> parameters = new ArrayList<Object>();
-		parameters.add("A new player has joined the game");
-		game.notifyListeners(new RemoteMethodCall("publishChatMsg", parameters));
-		if (this.gameManager.getGame(gameId).getPublicData().getPlayersCount() == 8)
-			game.startGame();
+	public void joinGame(ClientRemoteServicesInterface clientServices,
+			final Integer gameId, final String playerName) throws IOException {
+		admit(null, RemoteMethods.JOIN_GAME);
+		final Game game = this.gameManager.getGame(gameId);
+		gameManager.getLobby().unsubscribe(clientServices);
+		final RmiSubscriberHandler handler = newJoinHandler(clientServices);
+		// The player and its subscriber are added by the same message, so
+		// the game can't start in between
+		PlayerToken playerToken = call(game, new Callable<PlayerToken>() {
+			@Override
+			public PlayerToken call() {
+				PlayerToken playerToken = game.addPlayer(playerName);
+				gameManager.addPlayerToGame(playerToken, gameId);
+				game.addSubscriber(handler);
+				game.openBatch();
+				try {
+					ArrayList<Object> parameters = new ArrayList<Object>();
+					parameters.add("A new player has joined the game");
+					game.notifyListeners(new RemoteMethodCall(
+							"publishChatMsg", parameters));
+					if (game.getPublicData().getPlayersCount()
+							== GamePublicData.MAX_PLAYERS)
+						game.startGame();
+				} finally {
+					game.flushBatch();
+				}
+				return playerToken;
+			}
+		});
+		sendToken(clientServices, handler, playerToken);
 		// game.startGame();
 
 	}
 
+	/**
+	 * Creates the handler of a client that is joining a game. The handler is
+	 * held until the client has received its token
+	 *
+	 * @param clientServices
+	 *            the services the client offers via rmi
+	 * @return the held handler of the client
+	 */
+	private RmiSubscriberHandler newJoinHandler(
+			ClientRemoteServicesInterface clientServices) {
+		RmiSubscriberHandler handler = new RmiSubscriberHandler(
+				clientServices, server.getRmiCallbackExecutor(),
+				server.newSubscriberQueueLimit());
+		handler.hold();
+		return handler;
+	}
+
+	/**
+	 * Sends a client that has joined a game its token, then releases the
+	 * calls published to the client in the meantime
+	 *
+	 * @param clientServices
+	 *            the services the client offers via rmi
+	 * @param handler
+	 *            the held handler of the client
+	 * @param playerToken
+	 *            the token of the client
+	 * @throws IOException
+	 *             if the token can't be sent
+	 */
+	private void sendToken(ClientRemoteServicesInterface clientServices,
+			RmiSubscriberHandler handler, PlayerToken playerToken)
+			throws IOException {
+		try {
+			clientServices.sendToken(playerToken);
+		} finally {
+			handler.release();
+		}
+	}
+
 	/**
 	 * @see ServerServicesViaRmiInt#publishGlobalMessage
 	 */
 	@Override
-	public synchronized void publishGlobalMessage(
-			ClientRemoteServicesInterface clientServices, String message,
-			PlayerToken token) throws RemoteException {
-		Game game = this.gameManager.getGame(token);
-		Player player = game.fromTokenToPlayer(token);
+	public void publishGlobalMessage(
+			ClientRemoteServicesInterface clientServices, final String message,
+			final PlayerToken token) throws RemoteException {
+		admit(token, RemoteMethods.PUBLISH_GLOBAL_MESSAGE);
+		final Game game = this.gameManager.getGame(token);
 		clientServices.ackMessage();
-		ArrayList<Object> parameters = new ArrayList<Object>();
-		parameters.add("[" + player.getName() + "]: " + message);
-		game.notifyListeners(new RemoteMethodCall("publishChatMsg", parameters));
+		game.getMailbox().execute(new Runnable() {
+			@Override
+			public void run() {
+				Player player = game.fromTokenToPlayer(token);
+				ArrayList<Object> parameters = new ArrayList<Object>();
+				parameters.add("[" + player.getName() + "]: " + message);
+				game.notifyListeners(new RemoteMethodCall("publishChatMsg",
+						parameters));
+			}
+		});
 	}
 
 	/**
@@ -142,13 +327,71 @@ public class ServerServicesViaRmi implements ServerServicesViaRmiInt {
 	 * @see ServerServicesViaRmiInt#forceGameStart
 	 */
 	@Override
-	public synchronized void forceGameStart(ClientRemoteServicesInterface clientServices,
+	public void forceGameStart(ClientRemoteServicesInterface clientServices,
 			PlayerToken token) throws RemoteException {
-		Game game = this.gameManager.getGame(token);
-		if (game.getPublicData().getPlayersCount() > 1) {
-			game.startGame();
-		}
+		admit(token, RemoteMethods.FORCE_GAME_START);
+		final Game game = this.gameManager.getGame(token);
+		game.getMailbox().execute(new Runnable() {
+			@Override
+			public void run() {
+				if (game.getPublicData().getPlayersCount() > 1) {
+					game.startGame();
+				}
+			}
+		});
 		clientServices.ackMessage();
 	}
 
+	/**
+	 * Admits a request through the server's admission control, before it is
+	 * handled. The parameters of a rmi request are unmarshalled before the
+	 * request reaches the server, so only its handling is spared
+	 * 
+	 * @param playerToken
+	 *            the token of the player that made the request, or null if
+	 *            the client is identified by its address
+	 * @param methodId
+	 *            the id of the method requested
+	 * @throws RequestRejectedException
+	 *             if the client has sent too many requests of the same kind
+	 */
+	private void admit(PlayerToken playerToken, int methodId)
+			throws RequestRejectedException {
+		Object key = playerToken;
+		if (key == null) {
+			try {
+				key = RemoteServer.getClientHost();
+			} catch (ServerNotActiveException e) {
+				// Not called via rmi
+				key = "localhost";
+			}
+		}
+		if (!server.getAdmissionControl().admit(key, methodId)) {
+			throw new RequestRejectedException("Too many requests: "
+					+ RemoteMethods.nameOf(methodId));
+		}
+	}
+
+	/**
+	 * Submits a message to the mailbox of a game and waits for its result, so
+	 * that the client can be called back with it outside the mailbox
+	 * 
+	 * @param game
+	 *            the game the message refers to
+	 * @param message
+	 *            the message to be run by the game's mailbox
+	 * @return the result of the message
+	 * @throws IOException
+	 *             if the message throws a checked exception
+	 */
+	private <T> T call(Game game, Callable<T> message) throws IOException {
+		try {
+			return game.getMailbox().call(message);
+		} catch (IOException | RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new IOException("Could not perform action", e);
+		}
+	}
+
 }
@@ -3,9 +3,11 @@ package server;
 import java.io.IOException;
 import java.rmi.Remote;
 import java.rmi.RemoteException;
+import java.util.ArrayList;
 
 import client.ClientRemoteServicesInterface;
 import common.Action;
+import common.LobbyQuery;
 import common.PlayerToken;
 
 /**
@@ -32,6 +34,58 @@ public interface ServerServicesViaRmiInt extends Remote {
 	public void getGames(ClientRemoteServicesInterface clientServices)
 			throws RemoteException, IOException;
 
+	/**
+	 * A service that sends to the client/player a page of the available games
+	 * that match the filters of its request
+	 * 
+	 * @param clientServices
+	 *            the services the client offers to the server to exchange data
+	 *            via rmi (the client rmi stub)
+	 * @param query
+	 *            the filters and the bounds of the page
+	 * @throws RemoteException
+	 */
+	public void findGames(ClientRemoteServicesInterface clientServices,
+			LobbyQuery query) throws RemoteException;
+
+	/**
+	 * A service that sends to the client/player the compiled map with the
+	 * given hash, or null if the server has no map with that hash
+	 * 
+	 * @param clientServices
+	 *            the services the client offers to the server to exchange data
+	 *            via rmi (the client rmi stub)
+	 * @param hash
+	 *            the hash of the compiled map
+	 * @throws RemoteException
+	 */
+	public void getMap(ClientRemoteServicesInterface clientServices,
+			String hash) throws RemoteException;
+
+	/**
+	 * A service that subscribes the client to the lobby: the client receives
+	 * the list of all available games and then every change of that list,
+	 * until it unsubscribes or joins a game
+	 * 
+	 * @param clientServices
+	 *            the services the client offers to the server to exchange data
+	 *            via rmi (the client rmi stub)
+	 * @throws RemoteException
+	 */
+	public void subscribeLobby(ClientRemoteServicesInterface clientServices)
+			throws RemoteException;
+
+	/**
+	 * A service that unsubscribes the client from the lobby
+	 * 
+	 * @param clientServices
+	 *            the services the client offers to the server to exchange data
+	 *            via rmi (the client rmi stub)
+	 * @throws RemoteException
+	 */
+	public void unsubscribeLobby(ClientRemoteServicesInterface clientServices)
+			throws RemoteException;
+
 	/**
 	 * A service that creates a new game upon a specified map, associate the
 	 * client with the game and sends to the client a unique identifier used in
@@ -86,6 +140,29 @@ public interface ServerServicesViaRmiInt extends Remote {
 			Action action, PlayerToken playerToken) throws RemoteException,
 			IOException, InstantiationException, IllegalAccessException;
 
+	/**
+	 * A service that processes a batch of actions sent by the client/player,
+	 * in order, and notifies the client/player once for the whole batch. The
+	 * batch stops at the first action that is rejected
+	 * 
+	 * @param clientServices
+	 *            the services the client offers to the server to exchange data
+	 *            via rmi (the client rmi stub)
+	 * @param actions
+	 *            the actions sent by the client to the server to be performed
+	 *            on the game, in order
+	 * @param playerToken
+	 *            the client/player unique identifier
+	 * @throws RemoteException
+	 * @throws IOException
+	 * @throws IllegalAccessException
+	 * @throws InstantiationException
+	 */
+	public void makeActions(ClientRemoteServicesInterface clientServices,
+			ArrayList<Action> actions, PlayerToken playerToken)
+			throws RemoteException, IOException, InstantiationException,
+			IllegalAccessException;
+
 	/**
 	 * A service that delivers a text message to all the subscribers of a
 	 * specific topic in the logic of the pub/sub pattern
@@ -11,14 +11,19 @@ import java.util.logging.Level;
 
 import common.Action;
 import common.ClientNotification;
-import common.GamePublicData;
+import common.LobbyQuery;
 import common.PlayerToken;
 import common.RemoteMethodCall;
+import common.RemoteMethods;
 
 /**
  * Represents a container that groups methods offered by the server to the
  * client in order to exchange data. These methods are offered by the server to
- * the client using a socket based communication
+ * the client using a socket based communication. Every method answers the
+ * client through the exchange of data of its own request, so requests are
+ * handled concurrently; the requests that refer to a game are submitted to the
+ * game's mailbox, that runs them one at a time. The answer is sent by the
+ * mailbox as well, so it is queued before any later change of the game.
  *
  * @see ServerServicesViaRmiInt
  * @see GameManager
@@ -32,6 +37,8 @@ public class ServerServicesViaSocket {
 	private volatile GameManager gameManager;
 	// The server associated with the container
 	private MainServer server;
+	// The methods offered by the server, indexed by their id
+	private final ServiceHandler[] handlers;
 
 	/**
 	 * Constructs a container that groups methods offered by the server to the
@@ -44,75 +51,178 @@ public class ServerServicesViaSocket {
 	public ServerServicesViaSocket(MainServer server) {
 		this.gameManager = server.getGameManager();
 		this.server = server;
+		this.handlers = new ServiceHandler[RemoteMethods.COUNT];
+		registerHandlers();
 	}
 
 	/**
 	 * A service that sends to the client/player the list of all available games
 	 * 
+	 * @param dataExchange
+	 *            the exchange of data with the client that made the request
 	 * @throws IOException
 	 */
-	public synchronized void getGames() throws IOException {
-		List<GamePublicData> gamesList = new ArrayList<GamePublicData>();
-		for (Game game : this.gameManager.getGames()) {
-			gamesList.add(game.getPublicData());
-		}
+	public void getGames(SocketRemoteDataExchange dataExchange)
+			throws IOException {
 		ArrayList<Object> parameters = new ArrayList<Object>();
-		parameters.add(gamesList);
-		server.getSocketDataExchange().sendData(
+		parameters.add(gameManager.getLobby().getGames());
+		dataExchange.sendData(
 				new RemoteMethodCall("sendAvailableGames", parameters));
 	}
 
+	/**
+	 * A service that sends to the client/player a page of the available games
+	 * that match the filters of its request. The page is taken from the
+	 * current snapshot of the lobby, with no lock
+	 * 
+	 * @param dataExchange
+	 *            the exchange of data with the client that made the request
+	 * @param query
+	 *            the filters and the bounds of the page
+	 * @throws IOException
+	 */
+	public void findGames(SocketRemoteDataExchange dataExchange,
+			LobbyQuery query) throws IOException {
+		ArrayList<Object> parameters = new ArrayList<Object>();
+		parameters.add(gameManager.getLobby().getSnapshot().query(query));
+		dataExchange.sendData(new RemoteMethodCall("sendGamesPage", parameters));
+	}
+
+	/**
+	 * A service that sends to the client/player the compiled map with the
+	 * given hash, or null if the server has no map with that hash
+	 * 
+	 * @see MapStore
+	 * @param dataExchange
+	 *            the exchange of data with the client that made the request
+	 * @param hash
+	 *            the hash of the compiled map
+	 * @throws IOException
+	 */
+	public void getMap(SocketRemoteDataExchange dataExchange, String hash)
+			throws IOException {
+		ArrayList<Object> parameters = new ArrayList<Object>();
+		parameters.add(MapStore.getInstance().getByHash(hash));
+		dataExchange.sendData(new RemoteMethodCall("sendCompiledMap",
+				parameters));
+	}
+
+	/**
+	 * A service that subscribes the client to the lobby. The client receives
+	 * the list of all available games and then, on the same connection, every
+	 * change of that list; the request is answered once the list has been
+	 * queued
+	 * 
+	 * @param dataExchange
+	 *            the exchange of data with the client that made the request
+	 * @throws IOException
+	 */
+	public void subscribeLobby(SocketRemoteDataExchange dataExchange)
+			throws IOException {
+		gameManager.getLobby().subscribe(dataExchange.getConnection(),
+				dataExchange.keepAlive());
+		dataExchange.sendData(new RemoteMethodCall("ackMessage"));
+	}
+
+	/**
+	 * A service that unsubscribes the client from the lobby, so that it
+	 * receives no more changes of the list of available games
+	 * 
+	 * @param dataExchange
+	 *            the exchange of data with the client that made the request
+	 * @throws IOException
+	 */
+	public void unsubscribeLobby(SocketRemoteDataExchange dataExchange)
+			throws IOException {
+		gameManager.getLobby().unsubscribe(dataExchange.getConnection());
+		dataExchange.sendData(new RemoteMethodCall("ackMessage"));
+	}
+
 	/**
 	 * A service that creates a new game upon a map and associates that game to
 	 * the client/player. A notification is sent to the client/player as well.
 	 * 
+	 * @param dataExchange
+	 *            the exchange of data with the client that made the request
 	 * @param gameMapName
 	 *            the name of map to be associated with the new game
 	 * @param playerToken
 	 *            the client/player unique identifier
 	 * @throws IOException
 	 */
-	public synchronized void joinNewGame(String gameMapName, String playerName)
-			throws IOException {
-		Game game = new Game(gameMapName);
+	public void joinNewGame(final SocketRemoteDataExchange dataExchange,
+			String gameMapName, final String playerName) throws IOException {
+		final Game game = new Game(gameMapName);
+		// A player in a game doesn't follow the lobby anymore
+		gameManager.getLobby().unsubscribe(dataExchange.getConnection());
 		this.gameManager.addGame(game);
-		PlayerToken playerToken = game.addPlayer(playerName);
-		this.gameManager.addPlayerToGame(playerToken, game.getId());
-		ArrayList<Object> parameters = new ArrayList<Object>();
-		parameters.add(playerToken);
-		server.getSocketDataExchange().sendData(
-				new RemoteMethodCall("sendToken", parameters));
-		SubscriberHandler handler = server.getSocketDataExchange().keepAlive();
-		game.addSubscriber(handler);
-
-		parameters.clear();
-		parameters.add("You've joined a new game");
-		game.notifyListeners(new RemoteMethodCall("publishChatMsg", parameters));
+		game.getMailbox().execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					PlayerToken playerToken = game.addPlayer(playerName);
+					gameManager.addPlayerToGame(playerToken, game.getId());
+					dataExchange.getConnection().setPlayerToken(playerToken);
+					ArrayList<Object> parameters = new ArrayList<Object>();
+					parameters.add(playerToken);
+					dataExchange.sendData(new RemoteMethodCall("sendToken",
+							parameters));
+					SubscriberHandler handler = dataExchange.keepAlive();
+					game.addSubscriber(handler);
 
+					parameters.clear();
+					parameters.add("You've joined a new game");
+					game.notifyListeners(new RemoteMethodCall(
+							"publishChatMsg", parameters));
+				} catch (IOException | RuntimeException e) {
+					fail(dataExchange, e);
+				}
+			}
+		});
 	}
 
 	/**
 	 * A service that associates the client/player to the specified existing
 	 * game. A notification is sent to the client/player as well
 	 * 
+	 * @param dataExchange
+	 *            the exchange of data with the client that made the request
 	 * @param gameId
 	 *            the id of game the client wants to join
 	 * @param playerToken
 	 *            the client/player unique identifier
 	 * @throws IOException
 	 */
-	public synchronized void joinGame(Integer gameId, String playerName) throws IOException {
-		Game game = this.gameManager.getGame(gameId);
-		PlayerToken playerToken = game.addPlayer(playerName);
-		this.gameManager.addPlayerToGame(playerToken, gameId);
-		ArrayList<Object> parameters = new ArrayList<Object>();
-		parameters.add(playerToken);
-		server.getSocketDataExchange().sendData(
-				new RemoteMethodCall("sendToken", parameters));
-		game.addSubscriber(server.getSocketDataExchange().keepAlive());
-		parameters.clear();
-		parameters.add("A new player joined the game");
-		game.notifyListeners(new RemoteMethodCall("publishChatMsg", parameters));
+	public void joinGame(final SocketRemoteDataExchange dataExchange,
+			final Integer gameId, final String playerName) throws IOException {
+		final Game game = this.gameManager.getGame(gameId);
+		if (game == null) {
+			// A stale token or id, the client is told so
+			dataExchange.sendError("The game doesn't exist");
+			return;
+		}
+		gameManager.getLobby().unsubscribe(dataExchange.getConnection());
+		game.getMailbox().execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					PlayerToken playerToken = game.addPlayer(playerName);
+					gameManager.addPlayerToGame(playerToken, gameId);
+					dataExchange.getConnection().setPlayerToken(playerToken);
+					ArrayList<Object> parameters = new ArrayList<Object>();
+					parameters.add(playerToken);
+					dataExchange.sendData(new RemoteMethodCall("sendToken",
+							parameters));
+					game.addSubscriber(dataExchange.keepAlive());
+					parameters.clear();
+					parameters.add("A new player joined the game");
+					game.notifyListeners(new RemoteMethodCall(
+							"publishChatMsg", parameters));
+				} catch (IOException | RuntimeException e) {
+					fail(dataExchange, e);
+				}
+			}
+		});
 		// game.startGame();
 	}
 
@@ -120,6 +230,8 @@ public class ServerServicesViaSocket {
 	 * A service that processes the specified action sent by the client/player
 	 * and notifies the client/player
 	 * 
+	 * @param dataExchange
+	 *            the exchange of data with the client that made the request
 	 * @param action
 	 *            the action sent by the client/player to be performed on the
 	 *            game
@@ -129,25 +241,97 @@ public class ServerServicesViaSocket {
 	 * @throws IllegalAccessException
 	 * @throws InstantiationException
 	 */
-	public synchronized void makeAction(Action action, PlayerToken playerToken)
+	public void makeAction(final SocketRemoteDataExchange dataExchange,
+			final Action action, final PlayerToken playerToken)
 			throws IOException, InstantiationException, IllegalAccessException {
-		Game game = this.gameManager.getGame(playerToken);
-		ArrayList<Object> parameters = new ArrayList<Object>();
-		ClientNotification[] notification = game.makeAction(action,
-				playerToken, false);
-		parameters.add(notification[0]);
-		server.getSocketDataExchange().sendData(
-				new RemoteMethodCall("sendNotification", parameters));
-		parameters.clear();
-		parameters.add(notification[1]);
-		game.notifyListeners(new RemoteMethodCall("sendPubNotification",
-				parameters));
+		final Game game = this.gameManager.getGame(playerToken);
+		if (game == null) {
+			// A stale token or id, the client is told so
+			dataExchange.sendError("The game doesn't exist");
+			return;
+		}
+		game.getMailbox().execute(new Runnable() {
+			@Override
+			public void run() {
+				// The pushes caused by the action leave in a single frame
+				game.openBatch();
+				try {
+					ArrayList<Object> parameters = new ArrayList<Object>();
+					ClientNotification[] notification = game.makeAction(
+							action, playerToken, false);
+					parameters.add(notification[0]);
+					dataExchange.sendData(new RemoteMethodCall(
+							"sendNotification", parameters));
+					parameters.clear();
+					parameters.add(notification[1]);
+					game.notifyListeners(new RemoteMethodCall(
+							"sendPubNotification", parameters));
+				} catch (IOException | InstantiationException
+						| IllegalAccessException | RuntimeException e) {
+					fail(dataExchange, e);
+				} finally {
+					game.flushBatch();
+				}
+			}
+		});
+	}
+
+	/**
+	 * A service that processes a batch of actions sent by the client/player,
+	 * in order, and notifies the client/player once for the whole batch. The
+	 * batch stops at the first action that is rejected
+	 * 
+	 * @see Game#makeActions
+	 * @param dataExchange
+	 *            the exchange of data with the client that made the request
+	 * @param actions
+	 *            the actions sent by the client/player to be performed on the
+	 *            game, in order
+	 * @param playerToken
+	 *            the client/player unique identifier
+	 * @throws IOException
+	 */
+	public void makeActions(final SocketRemoteDataExchange dataExchange,
+			final List<Action> actions, final PlayerToken playerToken)
+			throws IOException {
+		final Game game = this.gameManager.getGame(playerToken);
+		if (game == null) {
+			// A stale token or id, the client is told so
+			dataExchange.sendError("The game doesn't exist");
+			return;
+		}
+		game.getMailbox().execute(new Runnable() {
+			@Override
+			public void run() {
+				// The pushes caused by the whole batch leave in a single frame
+				game.openBatch();
+				try {
+					ArrayList<Object> parameters = new ArrayList<Object>();
+					ClientNotification[] notification = game.makeActions(
+							actions, playerToken);
+					parameters.add(notification[0]);
+					dataExchange.sendData(new RemoteMethodCall(
+							"sendNotification", parameters));
+					parameters.clear();
+					parameters.add(notification[1]);
+					game.notifyListeners(new RemoteMethodCall(
+							"sendPubNotification", parameters));
+				} catch (IOException | InstantiationException
+						| IllegalAccessException | RuntimeException e) {
+					fail(dataExchange, e);
+				} finally {
+					game.flushBatch();
+				}
+			}
+		});
 	}
 
 	/**
 	 * A service that delivers a text message to all the subscribers of a
 	 * specific topic in the logic of the pub/sub pattern
 	 * 
+	 * @param dataExchange
+	 *            the exchange of data with the client that made the request
 	 * @param message
 	 *            the text message to be delivered to all the subscribers of a
 	 *            specific topic in the logic of the pub/sub pattern
@@ -157,72 +341,253 @@ public class ServerServicesViaSocket {
 	 *            be delivered the text message, is derived.
 	 * @throws IOException
 	 */
-	public synchronized void publishGlobalMessage(String message,
-			PlayerToken token) throws IOException {
-		Game game = this.gameManager.getGame(token);
-		Player player = game.fromTokenToPlayer(token);
-		ArrayList<Object> parameters = new ArrayList<Object>();
-		parameters.add("[" + player.getName() + "]: " + message);
-		server.getSocketDataExchange().sendData(
-				new RemoteMethodCall("ackMessage"));
-		game.notifyListeners(new RemoteMethodCall("publishChatMsg", parameters));
+	public void publishGlobalMessage(
+			final SocketRemoteDataExchange dataExchange, final String message,
+			final PlayerToken token) throws IOException {
+		final Game game = this.gameManager.getGame(token);
+		if (game == null) {
+			// A stale token or id, the client is told so
+			dataExchange.sendError("The game doesn't exist");
+			return;
+		}
+		game.getMailbox().execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					Player player = game.fromTokenToPlayer(token);
+					ArrayList<Object> parameters = new ArrayList<Object>();
+					parameters.add("[" + player.getName() + "]: " + message);
+					dataExchange.sendData(new RemoteMethodCall("ackMessage"));
+					game.notifyListeners(new RemoteMethodCall(
+							"publishChatMsg", parameters));
+				} catch (IOException | RuntimeException e) {
+					fail(dataExchange, e);
+				}
+			}
+		});
 	}
 
 	/**
 	 * A services that allows a client to force(without waiting the timeout) the
 	 * start of the game only if there are at least two player
 	 * 
+	 * @param dataExchange
+	 *            the exchange of data with the client that made the request
 	 * @param token
 	 *            The token of the player who wants to start the game
 	 * @throws IOException
 	 */
-	public synchronized void forceGameStart(PlayerToken token) {
-		Game game = this.gameManager.getGame(token);
-		if (game.getPublicData().getPlayersCount() > 1) {
-			game.startGame();
-		}
-		try {
-			server.getSocketDataExchange().sendData(
-					new RemoteMethodCall("ackMessage"));
-		} catch (IOException e) {
-			ServerLogger.getLogger().log(Level.SEVERE,
-					"Error in sending ackMessage rmethodcall", e);
+	public void forceGameStart(final SocketRemoteDataExchange dataExchange,
+			PlayerToken token) throws IOException {
+		final Game game = this.gameManager.getGame(token);
+		if (game == null) {
+			// A stale token or id, the client is told so
+			dataExchange.sendError("The game doesn't exist");
+			return;
 		}
+		game.getMailbox().execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					if (game.getPublicData().getPlayersCount() > 1) {
+						game.startGame();
+					}
+					dataExchange.sendData(new RemoteMethodCall("ackMessage"));
+				} catch (IOException | RuntimeException e) {
+					fail(dataExchange, e);
+				}
+			}
+		});
 	}
 
 	/**
 	 * Processes a remote method call and invokes to corresponding method on the
-	 * server.
+	 * server. The method is found, by the id carried by the call, in a table
+	 * filled once when the services are created; the calls to unknown methods
+	 * are rejected.
 	 * 
 	 * @see common.RemoteMethodCall
+	 * @see RemoteMethods
+	 * @param dataExchange
+	 *            the exchange of data with the client that made the call, used
+	 *            to answer it
 	 * @param remoteServerInvocation
 	 *            an object that represents a remote method call
 	 * @throws IllegalAccessException
 	 * @throws IllegalArgumentException
+	 *             if the parameters of the call don't match the method
 	 * @throws InvocationTargetException
+	 *             if the invoked method throws an exception
 	 * @throws NoSuchMethodException
+	 *             if the method is not offered by the server
 	 * @throws SecurityException
 	 */
-	public void processRemoteInvocation(RemoteMethodCall remoteServerInvocation)
-			throws IllegalAccessException, IllegalArgumentException,
+	public void processRemoteInvocation(SocketRemoteDataExchange dataExchange,
+			RemoteMethodCall remoteServerInvocation) throws IllegalAccessException, IllegalArgumentException,
 			InvocationTargetException, NoSuchMethodException, SecurityException {
-		String methodName = remoteServerInvocation.getMethodName();
+		int methodId = remoteServerInvocation.getMethodId();
+		ServiceHandler handler = null;
+		if (methodId >= 0 && methodId < handlers.length) {
+			handler = handlers[methodId];
+		}
+		if (handler == null) {
+			throw new NoSuchMethodException(
+					remoteServerInvocation.getMethodName());
+		}
 		ArrayList<Object> parameters = remoteServerInvocation
 				.getMethodParameters();
-		Class<?>[] parametersClasses = new Class[parameters.size()];
-		for (int i = 0; i < parameters.size(); i++) {
-			if (parameters.get(i).getClass().getName().contains("Action")
-					|| parameters.get(i).getClass().getName()
-							.contains("ClientNotification")) {
-				parametersClasses[i] = parameters.get(i).getClass()
-						.getSuperclass();
-			} else {
-				parametersClasses[i] = parameters.get(i).getClass();
+		if (parameters.size() != handler.getParametersCount()) {
+			throw new IllegalArgumentException("Wrong number of parameters for "
+					+ remoteServerInvocation.getMethodName());
+		}
+		try {
+			handler.handle(dataExchange, parameters);
+		} catch (ClassCastException e) {
+			throw new IllegalArgumentException("Wrong parameters for "
+					+ remoteServerInvocation.getMethodName(), e);
+		} catch (IOException | InstantiationException | IllegalAccessException
+				| RuntimeException e) {
+			// As for a reflective invocation
+			throw new InvocationTargetException(e);
+		}
+	}
+
+	/**
+	 * Handles the failure of a request run by a game's mailbox, that can't be
+	 * thrown back to the thread that submitted it: the failure is logged and
+	 * the client is answered with an error, so that it doesn't wait for the
+	 * response forever. If the error can't be sent the connection is closed
+	 * 
+	 * @param dataExchange
+	 *            the exchange of data with the client that made the request
+	 * @param e
+	 *            the exception thrown by the request
+	 */
+	private void fail(SocketRemoteDataExchange dataExchange, Exception e) {
+		ServerLogger.getLogger().log(Level.SEVERE,
+				"Could not perform action | ServerServicesViaSocket", e);
+		try {
+			dataExchange.sendError("Could not perform action: " + e);
+		} catch (IOException ioe) {
+			dataExchange.getConnection().close();
+		}
+	}
+
+	/**
+	 * Fills the table of the methods offered by the server, indexed by their
+	 * id
+	 */
+	private void registerHandlers() {
+		handlers[RemoteMethods.GET_GAMES] = new ServiceHandler(0) {
+			@Override
+			public void handle(SocketRemoteDataExchange dataExchange,
+					List<Object> parameters) throws IOException {
+				getGames(dataExchange);
+			}
+		};
+		handlers[RemoteMethods.JOIN_NEW_GAME] = new ServiceHandler(2) {
+			@Override
+			public void handle(SocketRemoteDataExchange dataExchange,
+					List<Object> parameters) throws IOException {
+				joinNewGame(dataExchange, (String) parameters.get(0),
+						(String) parameters.get(1));
+			}
+		};
+		handlers[RemoteMethods.JOIN_GAME] = new ServiceHandler(2) {
+			@Override
+			public void handle(SocketRemoteDataExchange dataExchange,
+					List<Object> parameters) throws IOException {
+				joinGame(dataExchange, (Integer) parameters.get(0),
+						(String) parameters.get(1));
+			}
+		};
+		handlers[RemoteMethods.MAKE_ACTION] = new ServiceHandler(2) {
+			@Override
+			public void handle(SocketRemoteDataExchange dataExchange,
+					List<Object> parameters) throws IOException,
+					InstantiationException, IllegalAccessException {
+				makeAction(dataExchange, (Action) parameters.get(0),
+						(PlayerToken) parameters.get(1));
+			}
+		};
+		handlers[RemoteMethods.MAKE_ACTIONS] = new ServiceHandler(2) {
+			@Override
+			public void handle(SocketRemoteDataExchange dataExchange,
+					List<Object> parameters) throws IOException {
+				// Every step is cast now, so a wrong batch is rejected whole
+				List<?> steps = (List<?>) parameters.get(0);
+				List<Action> actions = new ArrayList<Action>(steps.size());
+				for (Object step : steps) {
+					actions.add((Action) step);
+				}
+				makeActions(dataExchange, actions,
+						(PlayerToken) parameters.get(1));
+			}
+		};
+		handlers[RemoteMethods.PUBLISH_GLOBAL_MESSAGE] = new ServiceHandler(2) {
+			@Override
+			public void handle(SocketRemoteDataExchange dataExchange,
+					List<Object> parameters) throws IOException {
+				publishGlobalMessage(dataExchange, (String) parameters.get(0),
+						(PlayerToken) parameters.get(1));
+			}
+		};
+		handlers[RemoteMethods.FIND_GAMES] = new ServiceHandler(1) {
+			@Override
+			public void handle(SocketRemoteDataExchange dataExchange,
+					List<Object> parameters) throws IOException {
+				findGames(dataExchange, (LobbyQuery) parameters.get(0));
 			}
+		};
+		handlers[RemoteMethods.GET_MAP] = new ServiceHandler(1) {
+			@Override
+			public void handle(SocketRemoteDataExchange dataExchange,
+					List<Object> parameters) throws IOException {
+				getMap(dataExchange, (String) parameters.get(0));
+			}
+		};
+		handlers[RemoteMethods.SUBSCRIBE_LOBBY] = new ServiceHandler(0) {
+			@Override
+			public void handle(SocketRemoteDataExchange dataExchange,
+					List<Object> parameters) throws IOException {
+				subscribeLobby(dataExchange);
+			}
+		};
+		handlers[RemoteMethods.UNSUBSCRIBE_LOBBY] = new ServiceHandler(0) {
+			@Override
+			public void handle(SocketRemoteDataExchange dataExchange,
+					List<Object> parameters) throws IOException {
+				unsubscribeLobby(dataExchange);
+			}
+		};
+		handlers[RemoteMethods.FORCE_GAME_START] = new ServiceHandler(1) {
+			@Override
+			public void handle(SocketRemoteDataExchange dataExchange,
+					List<Object> parameters) throws IOException {
+				forceGameStart(dataExchange, (PlayerToken) parameters.get(0));
+			}
+		};
+	}
 
+	/**
+	 * Represents the handler of a method offered by the server, that casts the
+	 * parameters of the call to their types and invokes the method
+	 */
+	private abstract static class ServiceHandler {
+		// The number of parameters of the method
+		private final int parametersCount;
+
+		public ServiceHandler(int parametersCount) {
+			this.parametersCount = parametersCount;
 		}
-		this.getClass().getDeclaredMethod(methodName, parametersClasses)
-				.invoke(this, parameters.toArray());
+
+		public int getParametersCount() {
+			return parametersCount;
+		}
+
+		public abstract void handle(SocketRemoteDataExchange dataExchange,
+				List<Object> parameters) throws IOException,
+				InstantiationException, IllegalAccessException;
 	}
 
 }
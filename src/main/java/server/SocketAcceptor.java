@@ -0,0 +1,122 @@
+package server;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.logging.Level;
+
+/**
+ * Represents the non blocking acceptor of the socket connections. The
+ * acceptor waits on a selector for incoming connections and assigns each
+ * accepted connection, in a round robin fashion, to one of a fixed set of
+ * {@link SelectorLoop}, so that the number of threads used to serve the
+ * clients doesn't depend on the number of clients.
+ *
+ * @see SelectorLoop
+ * @see SocketConnection
+ * @author Andrea Sessa
+ * @author Giorgio Pea
+ */
+public class SocketAcceptor implements Runnable {
+	// The server the acceptor refers to
+	private final MainServer server;
+	// The channel the connections are accepted from
+	private final ServerSocketChannel serverChannel;
+	// The loops the accepted connections are assigned to
+	private final SelectorLoop[] loops;
+	// The selector the acceptor waits on
+	private final Selector selector;
+	// The index of the loop the next connection is assigned to
+	private int nextLoop;
+	// A flag that indicates if the acceptor has to keep running
+	private volatile boolean running;
+
+	/**
+	 * Constructs the non blocking acceptor of the socket connections from the
+	 * server, the channel the connections are accepted from and the loops the
+	 * accepted connections are assigned to
+	 *
+	 * @param server
+	 *            the server the acceptor refers to
+	 * @param serverChannel
+	 *            the channel the connections are accepted from
+	 * @param loops
+	 *            the loops the accepted connections are assigned to
+	 * @throws IOException
+	 *             signals an error in the configuration of the channel
+	 */
+	public SocketAcceptor(MainServer server, ServerSocketChannel serverChannel,
+			SelectorLoop[] loops) throws IOException {
+		this.server = server;
+		this.serverChannel = serverChannel;
+		this.loops = loops;
+		this.selector = Selector.open();
+		this.serverChannel.configureBlocking(false);
+		this.serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+		this.running = true;
+	}
+
+	/**
+	 * Stops the acceptor
+	 */
+	public void shutdown() {
+		running = false;
+		selector.wakeup();
+	}
+
+	/**
+	 * Runs the acceptor. The acceptor accepts all the pending connections
+	 * every time the selector signals that the channel is ready
+	 */
+	@Override
+	public void run() {
+		while (running) {
+			try {
+				selector.select();
+				selector.selectedKeys().clear();
+				SocketChannel channel;
+				while ((channel = serverChannel.accept()) != null) {
+					accept(channel);
+				}
+			} catch (ClosedChannelException e) {
+				// The channel has been closed, the server is shutting down
+				running = false;
+			} catch (IOException e) {
+				ServerLogger.getLogger().log(Level.SEVERE,
+						"Could not accept a connection | SocketAcceptor", e);
+			}
+		}
+		try {
+			selector.close();
+		} catch (IOException e) {
+			ServerLogger.getLogger().log(Level.WARNING,
+					"Could not close the selector | SocketAcceptor", e);
+		}
+	}
+
+	/**
+	 * Assigns an accepted connection to the next loop
+	 *
+	 * @param channel
+	 *            the accepted channel
+	 */
+	private void accept(SocketChannel channel) {
+		SelectorLoop loop = loops[nextLoop];
+		nextLoop = (nextLoop + 1) % loops.length;
+		try {
+			loop.register(new SocketConnection(server, channel, loop));
+		} catch (IOException e) {
+			ServerLogger.getLogger().log(Level.SEVERE,
+					"Could not configure a connection | SocketAcceptor", e);
+			try {
+				channel.close();
+			} catch (IOException e1) {
+				ServerLogger.getLogger().log(Level.WARNING,
+						"Could not close a connection | SocketAcceptor", e1);
+			}
+		}
+	}
+}
@@ -0,0 +1,512 @@
+package server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+
+import common.Broadcast;
+import common.FrameDecoder;
+import common.FrameEncoder;
+import common.Frames;
+import common.Handshake;
+import common.Heartbeat;
+import common.PlayerToken;
+import common.RemoteMethodCall;
+import common.WireCodec;
+
+/**
+ * Represents a non blocking socket connection between the server and a
+ * client. The connection is served by a {@link SelectorLoop}: incoming frames
+ * are decoded into remote method calls that are handed to the server, while
+ * outgoing remote method calls are encoded into frames that are queued and
+ * written when the socket is writable. The first frame received on the
+ * connection is the client's hello, that chooses the codec of all the
+ * following frames. The loop checks the connection's {@link Heartbeat}: a
+ * heartbeat is queued when nothing has been written for an interval, and the
+ * connection is reaped when nothing has been read for the idle timeout. The
+ * subscriber handlers of a closed connection stop observing their topics.
+ * Every request passes the server's {@link AdmissionControl} before being
+ * handed to the server, possibly before its parameters are decoded; a
+ * rejected request is answered with a "rejectCall" call.
+ *
+ * @see SelectorLoop
+ * @see Frames
+ * @see Handshake
+ * @author Andrea Sessa
+ * @author Giorgio Pea
+ */
+public class SocketConnection {
+	// The initial size of the buffer used to read incoming frames
+	private static final int READ_BUFFER_SIZE = 8 * 1024;
+
+	// The server the connection refers to
+	private final MainServer server;
+	// The channel associated with the connection
+	private final SocketChannel channel;
+	// The loop that serves the connection
+	private final SelectorLoop loop;
+
+	// The codec of the connection, set by the handshake
+	private volatile WireCodec codec;
+	// The encoder of the outgoing remote method calls, set by the handshake
+	private volatile FrameEncoder encoder;
+	// The decoder of the incoming remote method calls, set by the handshake
+	private FrameDecoder decoder;
+	// The frames waiting to be written
+	private final Queue<ByteBuffer> outbound;
+	// The bound on the number of frames waiting to be written
+	private final SubscriberQueueLimit queueLimit;
+	// The key that registers the channel with the loop's selector
+	private SelectionKey key;
+	// The buffer used to read incoming frames
+	private ByteBuffer readBuffer;
+	// A flag that indicates that the connection has to be closed once all
+	// the queued frames have been written
+	private volatile boolean closeAfterFlush;
+	// A flag that indicates that the connection is closed
+	private volatile boolean closed;
+	// The time of the last read from the channel, in ns
+	private long lastRead;
+	// The time of the last write on the channel, in ns
+	private long lastWrite;
+	// The subscriber handlers that send on the connection
+	private final List<SocketSubscriberHandler> handlers;
+	// The lock that makes encoding and queuing a frame atomic
+	private final ReentrantLock sendLock;
+	// The address of the client, that identifies it before it joins a game
+	private final String remoteAddress;
+	// The token of the player, once the client has joined a game
+	private volatile PlayerToken playerToken;
+
+	/**
+	 * Constructs a non blocking socket connection between the server and a
+	 * client from the server, the channel accepted from the client and the
+	 * loop that serves the connection
+	 *
+	 * @param server
+	 *            the server the connection refers to
+	 * @param channel
+	 *            the channel accepted from the client
+	 * @param loop
+	 *            the loop that serves the connection
+	 * @throws IOException
+	 *             signals an error in the configuration of the channel
+	 */
+	public SocketConnection(MainServer server, SocketChannel channel,
+			SelectorLoop loop) throws IOException {
+		this.server = server;
+		this.channel = channel;
+		this.loop = loop;
+		this.outbound = new ConcurrentLinkedQueue<ByteBuffer>();
+		this.queueLimit = server.newSubscriberQueueLimit();
+		this.readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+		this.handlers = new CopyOnWriteArrayList<SocketSubscriberHandler>();
+		this.sendLock = new ReentrantLock();
+		this.lastRead = System.nanoTime();
+		this.lastWrite = lastRead;
+		InetAddress address = channel.socket().getInetAddress();
+		this.remoteAddress = address == null ? "unknown" : address
+				.getHostAddress();
+		// The responses are small and awaited, they must not wait for an ack
+		this.channel.socket().setTcpNoDelay(true);
+		this.channel.configureBlocking(false);
+	}
+
+	/**
+	 * Sends a remote method call to the client. The call is encoded and
+	 * queued, it will be written by the loop that serves the connection
+	 *
+	 * @param remoteMethodCall
+	 *            the remote method call to be performed on the client
+	 * @throws IOException
+	 *             if the connection is closed or the call can't be encoded
+	 */
+	public void send(RemoteMethodCall remoteMethodCall) throws IOException {
+		if (closed || encoder == null) {
+			throw new IOException("The connection is closed");
+		}
+		// Encoding and queuing are atomic to keep the stream order
+		sendLock.lock();
+		try {
+			// The codecs are released by close() under the same lock
+			if (closed) {
+				throw new IOException("The connection is closed");
+			}
+			outbound.add(Frames.wrap(encoder.encode(remoteMethodCall)));
+			queueLimit.add();
+		} finally {
+			sendLock.unlock();
+		}
+		loop.requestWrite(this);
+	}
+
+	/**
+	 * Sends a remote method call published to many subscribers. If the codec
+	 * of the connection is stateless the frame shared by all the subscribers
+	 * is queued, otherwise the call is encoded as in {@link #send}. If the
+	 * queue of the connection is full, the call may be dropped or the
+	 * connection closed according to the server's {@link OverflowPolicy}
+	 *
+	 * @param broadcast
+	 *            the remote method call published to the subscribers
+	 * @throws IOException
+	 *             if the connection is closed, the call can't be encoded or
+	 *             the queue of the connection is full
+	 */
+	public void send(Broadcast broadcast) throws IOException {
+		if (closed || encoder == null) {
+			throw new IOException("The connection is closed");
+		}
+		switch (queueLimit.admit(broadcast.getRemoteMethodCall())) {
+		case DROPPED:
+			return;
+		case DISCONNECT:
+			close();
+			throw new IOException("The queue of the connection is full");
+		default:
+			break;
+		}
+		sendLock.lock();
+		try {
+			if (closed) {
+				throw new IOException("The connection is closed");
+			}
+			if (codec.isStateless()) {
+				outbound.add(broadcast.frameFor(codec));
+			} else {
+				outbound.add(Frames.wrap(encoder.encode(broadcast
+						.getRemoteMethodCall())));
+			}
+		} catch (IOException e) {
+			queueLimit.release(1);
+			throw e;
+		} finally {
+			sendLock.unlock();
+		}
+		loop.requestWrite(this);
+	}
+
+	/**
+	 * Gets the bound on the number of frames waiting to be written, that
+	 * exposes the depth of the connection's queue
+	 *
+	 * @return the bound on the connection's queue
+	 */
+	public SubscriberQueueLimit getQueueLimit() {
+		return queueLimit;
+	}
+
+	/**
+	 * Sets the token of the player the client has become by joining a game,
+	 * that identifies the client from now on
+	 *
+	 * @param playerToken
+	 *            the token of the player
+	 */
+	void setPlayerToken(PlayerToken playerToken) {
+		this.playerToken = playerToken;
+	}
+
+	/**
+	 * Gets what identifies the client to the admission control
+	 *
+	 * @return the token of the player, or the address of the client if it
+	 *         has not joined a game
+	 */
+	Object getClientKey() {
+		PlayerToken token = playerToken;
+		return token != null ? token : remoteAddress;
+	}
+
+	/**
+	 * Closes the connection once all the queued frames have been written
+	 */
+	public void closeAfterFlush() {
+		closeAfterFlush = true;
+		loop.requestWrite(this);
+	}
+
+	/**
+	 * Attaches a subscriber handler to the connection, so that it stops
+	 * observing its topic when the connection is closed
+	 *
+	 * @param handler
+	 *            the handler that sends on the connection
+	 */
+	void attach(SocketSubscriberHandler handler) {
+		handlers.add(handler);
+		if (closed) {
+			handler.connectionClosed();
+		}
+	}
+
+	/**
+	 * Detaches a closed subscriber handler from the connection
+	 *
+	 * @param handler
+	 *            the handler that no more sends on the connection
+	 */
+	void detach(SocketSubscriberHandler handler) {
+		handlers.remove(handler);
+	}
+
+	/**
+	 * Closes the connection immediately. The subscriber handlers attached to
+	 * the connection stop observing their topics
+	 */
+	public void close() {
+		sendLock.lock();
+		try {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			// No sender can be encoding once the lock is held
+			release(encoder);
+			release(decoder);
+		} finally {
+			sendLock.unlock();
+		}
+		queueLimit.cancel();
+		if (key != null) {
+			key.cancel();
+		}
+		try {
+			channel.close();
+		} catch (IOException e) {
+			ServerLogger.getLogger().log(Level.WARNING,
+					"Could not close the channel | SocketConnection", e);
+		}
+		for (SocketSubscriberHandler handler : handlers) {
+			handler.connectionClosed();
+		}
+		handlers.clear();
+	}
+
+	/**
+	 * Releases the resources held by an encoder or a decoder, if any
+	 *
+	 * @param codecPart
+	 *            the encoder or the decoder to be released
+	 */
+	private static void release(Object codecPart) {
+		if (codecPart instanceof Closeable) {
+			try {
+				((Closeable) codecPart).close();
+			} catch (IOException e) {
+				ServerLogger.getLogger().log(Level.WARNING,
+						"Could not release the codec | SocketConnection", e);
+			}
+		}
+	}
+
+	/**
+	 * Checks if the connection is closed
+	 *
+	 * @return true if the connection is closed
+	 */
+	public boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * Registers the connection's channel with a selector. This method is
+	 * called by the loop's thread
+	 *
+	 * @param selector
+	 *            the selector of the loop that serves the connection
+	 * @throws ClosedChannelException
+	 *             if the channel has been closed
+	 */
+	void register(Selector selector) throws ClosedChannelException {
+		int interestOps = SelectionKey.OP_READ;
+		if (!outbound.isEmpty() || closeAfterFlush) {
+			interestOps |= SelectionKey.OP_WRITE;
+		}
+		key = channel.register(selector, interestOps, this);
+	}
+
+	/**
+	 * Enables the write readiness of the connection's channel. This method is
+	 * called by the loop's thread
+	 */
+	void enableWrite() {
+		if (key != null && key.isValid()) {
+			key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+		}
+	}
+
+	/**
+	 * Reads the available bytes from the channel and hands every complete
+	 * frame to the server. This method is called by the loop's thread
+	 *
+	 * @throws IOException
+	 *             signals a com. error or a malformed frame
+	 * @throws ClassNotFoundException
+	 *             signals a malformed frame
+	 */
+	void onReadable() throws IOException, ClassNotFoundException {
+		if (channel.read(readBuffer) < 0) {
+			close();
+			return;
+		}
+		lastRead = System.nanoTime();
+		readBuffer.flip();
+		while (readBuffer.remaining() >= Frames.HEADER_SIZE) {
+			int length = readBuffer.getInt(readBuffer.position());
+			Frames.checkLength(length);
+			if (readBuffer.remaining() < Frames.HEADER_SIZE + length) {
+				break;
+			}
+			readBuffer.getInt();
+			byte[] payload = new byte[length];
+			readBuffer.get(payload);
+			if (decoder == null) {
+				handshake(payload);
+			} else if (!Heartbeat.isHeartbeat(payload)) {
+				// A heartbeat only proves that the client is alive
+				RemoteMethodCall header = decoder.peek(payload);
+				if (header != null && !admit(header)) {
+					continue;
+				}
+				RemoteMethodCall remoteMethodCall = decoder.decode(payload);
+				if (header == null && !admit(remoteMethodCall)) {
+					continue;
+				}
+				server.handleRequest(this, remoteMethodCall);
+			}
+		}
+		// Makes room for a partial frame bigger than the buffer
+		if (readBuffer.remaining() >= Frames.HEADER_SIZE) {
+			int frameSize = Frames.HEADER_SIZE
+					+ readBuffer.getInt(readBuffer.position());
+			if (frameSize > readBuffer.capacity()) {
+				ByteBuffer biggerBuffer = ByteBuffer.allocate(frameSize);
+				biggerBuffer.put(readBuffer);
+				readBuffer = biggerBuffer;
+				return;
+			}
+		}
+		readBuffer.compact();
+	}
+
+	/**
+	 * Admits a request, or answers it with a rejection
+	 *
+	 * @param remoteMethodCall
+	 *            the request, whose parameters may not be decoded
+	 * @return true if the request is admitted
+	 * @throws IOException
+	 *             if the rejection can't be sent
+	 */
+	private boolean admit(RemoteMethodCall remoteMethodCall)
+			throws IOException {
+		if (server.getAdmissionControl().admit(getClientKey(),
+				remoteMethodCall.getMethodId())) {
+			return true;
+		}
+		ArrayList<Object> parameters = new ArrayList<Object>();
+		parameters.add("Too many requests: "
+				+ remoteMethodCall.getMethodName());
+		RemoteMethodCall rejection = new RemoteMethodCall("rejectCall",
+				parameters);
+		rejection.setCallId(remoteMethodCall.getCallId());
+		send(rejection);
+		return false;
+	}
+
+	/**
+	 * Performs the server's side of the handshake, choosing the codec of the
+	 * connection and answering to the client
+	 *
+	 * @param hello
+	 *            the payload of the hello frame sent by the client
+	 * @throws IOException
+	 *             if the client and the server can't agree on a codec
+	 */
+	private void handshake(byte[] hello) throws IOException {
+		codec = Handshake.accept(hello, server.getCodecs());
+		encoder = codec.newEncoder();
+		decoder = codec.newDecoder();
+		outbound.add(Frames.wrap(Handshake.welcome(codec)));
+		queueLimit.add();
+		enableWrite();
+	}
+
+	/**
+	 * Writes the queued frames on the channel, as long as the channel accepts
+	 * them. This method is called by the loop's thread
+	 *
+	 * @throws IOException
+	 *             signals a com. error
+	 */
+	void onWritable() throws IOException {
+		ByteBuffer frame;
+		while ((frame = outbound.peek()) != null) {
+			if (channel.write(frame) > 0) {
+				lastWrite = System.nanoTime();
+			}
+			if (frame.hasRemaining()) {
+				// The channel is full, the loop will resume writing later
+				return;
+			}
+			outbound.poll();
+			queueLimit.release(1);
+		}
+		key.interestOps(SelectionKey.OP_READ);
+		if (closeAfterFlush) {
+			close();
+		}
+	}
+
+	/**
+	 * Checks the heartbeat of the connection: the connection is closed if
+	 * nothing has been read for the idle timeout, and a heartbeat is queued
+	 * if nothing has been written for an interval. This method is called by
+	 * the loop's thread
+	 *
+	 * @param now
+	 *            the current time, in ns
+	 * @param heartbeat
+	 *            the heartbeat settings of the loop
+	 * @return true if the connection has been reaped
+	 */
+	boolean checkHeartbeat(long now, Heartbeat heartbeat) {
+		if (now - lastRead > TimeUnit.MILLISECONDS.toNanos(heartbeat
+				.getIdleTimeout())) {
+			ServerLogger.getLogger().log(Level.INFO,
+					"Idle connection reaped | SocketConnection");
+			close();
+			return true;
+		}
+		// No heartbeat before the handshake, the client expects the welcome
+		if (encoder != null
+				&& outbound.isEmpty()
+				&& now - lastWrite >= TimeUnit.MILLISECONDS.toNanos(heartbeat
+						.getInterval())) {
+			sendLock.lock();
+			try {
+				outbound.add(Heartbeat.frame());
+				queueLimit.add();
+			} finally {
+				sendLock.unlock();
+			}
+			lastWrite = now;
+			enableWrite();
+		}
+		return false;
+	}
+}
@@ -1,10 +1,8 @@
 package server;
 
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.lang.reflect.InvocationTargetException;
-import java.net.Socket;
+import java.util.ArrayList;
 import java.util.logging.Level;
 
 import common.RemoteMethodCall;
@@ -16,6 +14,7 @@ import common.RemoteMethodCall;
  *
  * @see MainServer
  * @see ServerServicesViaSocket
+ * @see SocketConnection
  * @see RemoteMethodCall
  * @author Andrea Sessa
  * @author Giorgio Pea
@@ -26,94 +25,105 @@ public class SocketRemoteDataExchange {
 	private MainServer server;
 	// The method the server offers to the client in order to exchange data
 	private ServerServicesViaSocket serverServices;
-	// The socket used by the server to communicate with the client
-	private Socket socket;
-	// The server's output stream
-	private ObjectOutputStream outputStream;
-	// The server's input stream */
-	private ObjectInputStream inputStream;
+	// The connection used by the server to communicate with the client
+	private SocketConnection connection;
+	// The id of the request the server responds to
+	private int callId;
 
 	/**
 	 * Constructs an exchange of data between the server and the client using a
 	 * socket based communication. This remote data exchange is constructed from
-	 * a server and a socket used by the server to communicate with the client
+	 * a server, a connection used by the server to communicate with the client
+	 * and the id of the request the server responds to
 	 *
 	 * @param server
 	 *            the server this remote data exchange refers to
-	 * @param socket
-	 *            the socket used by the server to communicate with the client
-	 * @throws IOException
+	 * @param connection
+	 *            the connection used by the server to communicate with the
+	 *            client
+	 * @param callId
+	 *            the id of the request the server responds to
 	 */
-	public SocketRemoteDataExchange(MainServer server, Socket socket)
-			throws IOException {
-		this.socket = socket;
+	public SocketRemoteDataExchange(MainServer server,
+			SocketConnection connection, int callId) {
+		this.connection = connection;
+		this.callId = callId;
 		this.server = server;
 		this.serverServices = server.getServicesViaSocket();
-		outputStream = new ObjectOutputStream(this.socket.getOutputStream());
-		outputStream.flush();
-		inputStream = new ObjectInputStream(this.socket.getInputStream());
 	}
 
 	/**
-	 * Receives and processes data from the client
+	 * Processes data received from the client
 	 *
-	 * @throws ClassNotFoundException
-	 * @throws IOException
+	 * @param remoteMethodCall
+	 *            the remote method the client wants to call on the server
 	 * @throws IllegalAccessException
 	 * @throws IllegalArgumentException
 	 * @throws InvocationTargetException
 	 * @throws NoSuchMethodException
 	 * @throws SecurityException
 	 */
-	public void receiveData() throws ClassNotFoundException, IOException,
-			IllegalAccessException, IllegalArgumentException,
+	public void receiveData(RemoteMethodCall remoteMethodCall)
+			throws IllegalAccessException, IllegalArgumentException,
 			InvocationTargetException, NoSuchMethodException, SecurityException {
-		RemoteMethodCall remoteMethodCall = (RemoteMethodCall) inputStream
-				.readObject();
 		ServerLogger.getLogger().log(Level.INFO, remoteMethodCall.toString());
 		// Method invocation from the remote method call object
-		serverServices.processRemoteInvocation(remoteMethodCall);
+		serverServices.processRemoteInvocation(this, remoteMethodCall);
 	}
 
 	/**
-	 * Sends data to the client
+	 * Sends data to the client as the response to its request. The connection
+	 * is kept open, since the client uses it for all its requests
 	 *
 	 * @param remoteMethodCall
 	 *            the remote method the server wants to call on the client
 	 * @throws IOException
 	 */
 	public void sendData(RemoteMethodCall remoteMethodCall) throws IOException {
-		outputStream.writeObject(remoteMethodCall);
-		outputStream.flush();
-		// sendPubNotification and sendToken
-		if (!remoteMethodCall.getMethodName().equals("sendPubNotification")
-				&& !remoteMethodCall.getMethodName().equals("sendToken")) {
-			this.closeDataFlow();
-		}
+		remoteMethodCall.setCallId(callId);
+		connection.send(remoteMethodCall);
 	}
 
 	/**
-	 * Closes the communication between the server and the client
+	 * Answers the client's request with an error, so that the request fails on
+	 * the client
 	 *
+	 * @param message
+	 *            the description of the error
 	 * @throws IOException
+	 *             if the error can't be sent
 	 */
-	public void closeDataFlow() throws IOException {
-		outputStream.close();
-		inputStream.close();
-		socket.close();
+	public void sendError(String message) throws IOException {
+		ArrayList<Object> parameters = new ArrayList<Object>();
+		parameters.add(message);
+		sendData(new RemoteMethodCall("failCall", parameters));
+	}
+
+	/**
+	 * Gets the connection used by the server to communicate with the client,
+	 * that identifies the client as long as it is connected
+	 *
+	 * @return the connection with the client
+	 */
+	public SocketConnection getConnection() {
+		return connection;
+	}
+
+	/**
+	 * Closes the communication between the server and the client, once the
+	 * data already sent has been delivered
+	 */
+	public void closeDataFlow() {
+		connection.closeAfterFlush();
 	}
 
 	/**
 	 * Keeps alive the communication between the server and the client, by
-	 * creating an appropriate thread that handles the messages to the
+	 * creating an appropriate handler that sends the messages to the
 	 * subscribers of a topic in the logic of the pub/sub pattern
-	 * 
-	 * @throws IOException
 	 */
-	public SubscriberHandler keepAlive() throws IOException {
-		SubscriberHandler handler = new SocketSubscriberHandler(socket);
-		server.addPubSubThread(handler);
-		return handler;
+	public SubscriberHandler keepAlive() {
+		return new SocketSubscriberHandler(connection);
 	}
 
 }
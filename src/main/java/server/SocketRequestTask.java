@@ -0,0 +1,76 @@
+package server;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.util.logging.Level;
+
+import common.RemoteMethodCall;
+
+/**
+ * Represents the task that handles a request by a client in the logic of the
+ * client server pattern. The task is created by the {@link SocketConnection}
+ * the request has been received on, and is run by the server's pool of
+ * request threads
+ *
+ * @see SocketConnection
+ * @see SocketRemoteDataExchange
+ * @author Andrea Sessa
+ * @author Giorgio Pea
+ * @version 1.0
+ */
+public class SocketRequestTask implements Runnable {
+	// The server this task refers to
+	private final MainServer server;
+	// The connection the request has been received on
+	private final SocketConnection connection;
+	// The remote method call requested by the client
+	private final RemoteMethodCall remoteMethodCall;
+
+	/**
+	 * Constructs the task that handles a request by a client from the server,
+	 * the connection the request has been received on and the remote method
+	 * call requested by the client
+	 *
+	 * @param server
+	 *            the server this task refers to
+	 * @param connection
+	 *            the connection the request has been received on
+	 * @param remoteMethodCall
+	 *            the remote method call requested by the client
+	 */
+	public SocketRequestTask(MainServer server, SocketConnection connection,
+			RemoteMethodCall remoteMethodCall) {
+		this.server = server;
+		this.connection = connection;
+		this.remoteMethodCall = remoteMethodCall;
+	}
+
+	/**
+	 * Runs the task. The task processes the client's request and invokes on
+	 * the client a remote method, all is done through a
+	 * {@link SocketRemoteDataExchange} that belongs to this request only, so
+	 * many tasks can run at the same time. A request that fails is answered
+	 * with an error, the connection is closed only if the error can't be sent,
+	 * since it carries all the client's requests and subscriptions
+	 *
+	 * @see SocketRemoteDataExchange
+	 */
+	@Override
+	public void run() {
+		SocketRemoteDataExchange dataExchange = new SocketRemoteDataExchange(
+				server, connection, remoteMethodCall.getCallId());
+		try {
+			dataExchange.receiveData(remoteMethodCall);
+		} catch (IllegalAccessException | IllegalArgumentException
+				| InvocationTargetException | NoSuchMethodException
+				| SecurityException e) {
+			ServerLogger.getLogger().log(Level.SEVERE,
+					"Could not perform action | SocketRequestTask", e);
+			try {
+				dataExchange.sendError("Could not perform action: " + e);
+			} catch (IOException ioe) {
+				connection.close();
+			}
+		}
+	}
+}
@@ -1,107 +1,90 @@
 package server;
 
 import java.io.IOException;
-import java.io.ObjectOutputStream;
-import java.net.Socket;
 import java.util.Observable;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.logging.Level;
 
-import common.RemoteMethodCall;
+import common.Broadcast;
 
 /**
  * Represents a subscriber handler based on sockets in the logic of the pub/sub
  * pattern. It observes a topic for changes and notifies its associated
- * subscriber through a remote method call.
- * 
+ * subscriber through a remote method call. The call is queued on the
+ * subscriber's connection as soon as it is published, and written by the loop
+ * that serves the connection, so the handler needs no thread of its own. When
+ * the connection is closed, for instance because the subscriber has stopped
+ * sending heartbeats, the handler stops observing its topic.
+ *
  * @see SubscriberHandler
  * @author Andrea Sessa
  * @author Giorgio Pea
  * @version 1.0
  */
 public class SocketSubscriberHandler implements SubscriberHandler {
-	// The socket associated to the handler
-	private Socket socket;
-	// A queue of messages to send to the subscriber
-	private ConcurrentLinkedQueue<RemoteMethodCall> buffer;
-	// The object output stream used to perform the remote method call on the
-	// subscriber
-	private ObjectOutputStream output;
+	// The connection associated to the handler
+	private SocketConnection connection;
+	// The topic observed by the handler, known from the first update
+	private volatile Observable topic;
+	// A flag that indicates that the handler is closed
+	private volatile boolean closed;
 
 	/**
-	 * Constructs a subscriber handler from the socket used to perform remote
-	 * method calls on the subscriber. An empty queue of remote method calls for
-	 * the handler is automatically created as well.
-	 * 
-	 * @param socket
-	 *            the socket used perform remote method calls on the subscriber
-	 * @throws IOException
+	 * Constructs a subscriber handler from the connection used to perform
+	 * remote method calls on the subscriber
+	 *
+	 * @param connection
+	 *            the connection used perform remote method calls on the
+	 *            subscriber
 	 */
-	public SocketSubscriberHandler(Socket socket) throws IOException {
-		this.socket = socket;
-		this.buffer = new ConcurrentLinkedQueue<RemoteMethodCall>();
-		output = new ObjectOutputStream(this.socket.getOutputStream());
-		output.flush();
+	public SocketSubscriberHandler(SocketConnection connection) {
+		this.connection = connection;
+		connection.attach(this);
 	}
 
 	/**
-	 * Performs a remote method call on the subscriber
-	 * 
-	 * @param remoteMethodCall
-	 *            the remote method call to be performed on the subscriber
-	 * @throws IOException
+	 * Updates the subscriber handler with a published remote method call, that
+	 * is sent to the subscriber on its connection. If the connection is closed,
+	 * or has been closed because its queue is full, the handler stops
+	 * observing the topic
+	 *
+	 * @see java.util.Observable#update
 	 */
-	private void perform(RemoteMethodCall remoteMethodCall) throws IOException {
-		output.writeObject(remoteMethodCall);
-		output.flush();
+	@Override
+	public void update(Observable o, Object arg) {
+		if (closed) {
+			return;
+		}
+		this.topic = o;
+		try {
+			connection.send((Broadcast) arg);
+		} catch (IOException e) {
+			o.deleteObserver(this);
+			ServerLogger.getLogger().log(Level.WARNING,
+					"Could not perform action | SocketSubscriberHandler", e);
+		}
 	}
 
 	/**
-	 * Updates the subscriber handler with a remote method call. The remote
-	 * method call is appended to the handler's queue of remote method calls and
-	 * is performed on the subscriber
+	 * Closes the handler, detaching it from the connection. The calls already
+	 * queued on the connection are still written
 	 * 
-	 * @see java.util.Observable#update
+	 * @see SubscriberHandler#close
 	 */
 	@Override
-	public void update(Observable o, Object arg) {
-		this.buffer.add((RemoteMethodCall) arg);
-		synchronized (buffer) {
-			buffer.notify();
-		}
+	public void close() {
+		closed = true;
+		topic = null;
+		connection.detach(this);
 	}
 
 	/**
-	 * Runs the thread defined in this class. The thread waits until the
-	 * handler's associated queue of remote method calls has a remote method
-	 * call, then wakes up and performs the remote method call.
+	 * Stops observing the topic, since the connection to the subscriber has
+	 * been closed. This method is called by the connection
 	 */
-	public void run() {
-		while (true) {
-			RemoteMethodCall remotheMethodCall = buffer.poll();
-			if (remotheMethodCall != null)
-				try {
-					this.perform(remotheMethodCall);
-				} catch (IOException e1) {
-					ServerLogger
-							.getLogger()
-							.log(Level.SEVERE,
-									"Could not perform action | SocketSubscriberHandler",
-									e1);
-				}
-			else {
-				try {
-					// If there are no incoming remote method calls the thread
-					// waits
-					synchronized (buffer) {
-						buffer.wait();
-					}
-				} catch (InterruptedException e) {
-					ServerLogger.getLogger().log(Level.SEVERE,
-							"Thread interrupted | SocketSubscriberHandler", e);
-				}
-			}
+	void connectionClosed() {
+		Observable observed = topic;
+		if (observed != null) {
+			observed.deleteObserver(this);
 		}
 	}
-
 }
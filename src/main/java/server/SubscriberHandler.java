@@ -5,14 +5,23 @@ import java.util.Observer;
 /**
  * 
  * Represents a general subscriber handler in the logic of the pub/sub pattern.
- * It observes a topic for changes and notifies its associated subscriber. This
- * interface does not define any behavior because is only used for polymorphism
- * purposes.
+ * It observes a topic for changes and notifies its associated subscriber. The
+ * topic publishes every change as a {@link common.Broadcast}, and closes the
+ * handler when the subscriber stops following it, as when a game ends or a
+ * client leaves the lobby.
  * 
  * @author Andrea Sessa
  * @author Giorgio Pea
  * @version 1.0
  */
-public interface SubscriberHandler extends Observer, Runnable {
+public interface SubscriberHandler extends Observer {
 
+	/**
+	 * Closes the handler: the changes published afterwards are ignored and
+	 * the resources held by the handler are released. The changes already
+	 * accepted are still sent, and the connection with the subscriber is left
+	 * open, since the subscriber may follow other topics. Closing a closed
+	 * handler has no effect
+	 */
+	public void close();
 }
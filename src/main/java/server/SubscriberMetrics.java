@@ -0,0 +1,97 @@
+package server;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Represents the metrics of the queues of the calls waiting to be delivered to
+ * the subscribers, collected over all the subscribers of the server
+ *
+ * @see SubscriberQueueLimit
+ * @author Andrea Sessa
+ * @author Giorgio Pea
+ */
+public class SubscriberMetrics {
+	// The number of calls queued
+	private final AtomicLong queued = new AtomicLong();
+	// The number of chat messages dropped
+	private final AtomicLong dropped = new AtomicLong();
+	// The number of times the game waited for a queue to have room
+	private final AtomicLong blocked = new AtomicLong();
+	// The number of subscribers disconnected because of a full queue
+	private final AtomicLong disconnected = new AtomicLong();
+	// The maximum depth reached by a queue
+	private final AtomicInteger maxDepth = new AtomicInteger();
+
+	void onQueued(int depth) {
+		queued.incrementAndGet();
+		int max = maxDepth.get();
+		while (depth > max && !maxDepth.compareAndSet(max, depth)) {
+			max = maxDepth.get();
+		}
+	}
+
+	void onDropped() {
+		dropped.incrementAndGet();
+	}
+
+	void onBlocked() {
+		blocked.incrementAndGet();
+	}
+
+	void onDisconnected() {
+		disconnected.incrementAndGet();
+	}
+
+	/**
+	 * Gets the number of calls queued
+	 *
+	 * @return the number of calls queued
+	 */
+	public long getQueued() {
+		return queued.get();
+	}
+
+	/**
+	 * Gets the number of chat messages dropped because of a full queue
+	 *
+	 * @return the number of chat messages dropped
+	 */
+	public long getDropped() {
+		return dropped.get();
+	}
+
+	/**
+	 * Gets the number of times the game waited for a full queue to have room
+	 *
+	 * @return the number of times the game waited for a queue
+	 */
+	public long getBlocked() {
+		return blocked.get();
+	}
+
+	/**
+	 * Gets the number of subscribers disconnected because of a full queue
+	 *
+	 * @return the number of subscribers disconnected
+	 */
+	public long getDisconnected() {
+		return disconnected.get();
+	}
+
+	/**
+	 * Gets the maximum depth reached by the queue of a subscriber
+	 *
+	 * @return the maximum depth reached by a queue
+	 */
+	public int getMaxDepth() {
+		return maxDepth.get();
+	}
+
+	@Override
+	public String toString() {
+		return "SubscriberMetrics [queued=" + queued + ", dropped=" + dropped
+				+ ", blocked=" + blocked + ", disconnected=" + disconnected
+				+ ", maxDepth=" + maxDepth + "]";
+	}
+}
@@ -0,0 +1,275 @@
+package server;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import java.util.List;
+
+import common.RemoteMethodCall;
+import common.RemoteMethods;
+
+/**
+ * Represents the bound on the queue of the calls waiting to be delivered to a
+ * subscriber. Every published call has to be admitted before being queued,
+ * and released once it has been delivered: when the queue is full the
+ * {@link OverflowPolicy} decides whether the call is dropped, the subscriber
+ * disconnected or the publisher blocked. A batch of calls counts as a chat
+ * message if all its calls are. A publisher that is running a message of a
+ * {@link GameMailbox} is never blocked, since it would hold back the other
+ * games, so the chat messages it publishes are dropped instead and its other
+ * calls disconnect the subscriber. Calls that answer a request of the
+ * subscriber are always admitted, since the subscriber is waiting for them.
+ * The publishers wait on a {@link ReentrantLock}'s condition rather than on a
+ * monitor, so that a waiting virtual thread releases its carrier thread.
+ *
+ * @see OverflowPolicy
+ * @see SubscriberMetrics
+ * @author Andrea Sessa
+ * @author Giorgio Pea
+ */
+public class SubscriberQueueLimit {
+	/** The default number of calls that can wait to be delivered */
+	public static final int DEFAULT_CAPACITY = 256;
+	/** The default time the publisher waits for room in the queue, in ms */
+	public static final long DEFAULT_BLOCK_TIMEOUT = 1000;
+
+	/**
+	 * Represents the outcome of the admission of a published call
+	 */
+	public enum Admission {
+		ACCEPTED, DROPPED, DISCONNECT
+	}
+
+	// The number of calls that can wait to be delivered
+	private final int capacity;
+	// What happens when the queue is full
+	private final OverflowPolicy policy;
+	// The time the publisher waits for room in the queue, in ms
+	private final long blockTimeout;
+	// The metrics shared by all the subscribers
+	private final SubscriberMetrics metrics;
+	// The number of calls waiting to be delivered
+	private int depth;
+	// The maximum number of calls that have waited to be delivered
+	private int maxDepth;
+	// A flag that indicates that the subscriber is gone
+	private boolean cancelled;
+	// The lock that guards the queue's state
+	private final ReentrantLock lock;
+	// Signals that the queue has room or that the subscriber is gone
+	private final Condition room;
+
+	/**
+	 * Constructs the bound on the queue of a subscriber
+	 *
+	 * @param capacity
+	 *            the number of calls that can wait to be delivered
+	 * @param policy
+	 *            what happens when the queue is full
+	 * @param blockTimeout
+	 *            the time the publisher waits for room in the queue with the
+	 *            {@link OverflowPolicy#BLOCK} policy, in ms
+	 * @param metrics
+	 *            the metrics shared by all the subscribers
+	 */
+	public SubscriberQueueLimit(int capacity, OverflowPolicy policy,
+			long blockTimeout, SubscriberMetrics metrics) {
+		this.capacity = capacity;
+		this.policy = policy;
+		this.blockTimeout = blockTimeout;
+		this.metrics = metrics;
+		this.lock = new ReentrantLock();
+		this.room = lock.newCondition();
+	}
+
+	/**
+	 * Admits a published call in the queue, applying the overflow policy if
+	 * the queue is full. With the {@link OverflowPolicy#BLOCK} policy the
+	 * calling thread may wait for the queue to have room
+	 *
+	 * @param remoteMethodCall
+	 *            the published call
+	 * @return the outcome of the admission
+	 */
+	public Admission admit(RemoteMethodCall remoteMethodCall) {
+		lock.lock();
+		try {
+			if (cancelled) {
+				return Admission.DISCONNECT;
+			}
+			if (depth >= capacity) {
+				switch (policy) {
+				case DROP_CHAT:
+					return dropChat(remoteMethodCall);
+				case BLOCK:
+					if (GameMailbox.isRunningMessage()) {
+						return dropChat(remoteMethodCall);
+					}
+					if (!awaitRoom()) {
+						return disconnect();
+					}
+					break;
+				default:
+					return disconnect();
+				}
+			}
+			add();
+			return Admission.ACCEPTED;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Adds a call to the queue regardless of its capacity, as for the answers
+	 * to the subscriber's requests
+	 */
+	public void add() {
+		lock.lock();
+		try {
+			depth++;
+			if (depth > maxDepth) {
+				maxDepth = depth;
+			}
+			metrics.onQueued(depth);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Removes delivered calls from the queue, waking up the publishers waiting
+	 * for room
+	 *
+	 * @param count
+	 *            the number of calls delivered
+	 */
+	public void release(int count) {
+		lock.lock();
+		try {
+			depth -= count;
+			room.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Marks the subscriber as gone, so that no more calls are admitted and the
+	 * waiting publishers are released
+	 */
+	public void cancel() {
+		lock.lock();
+		try {
+			cancelled = true;
+			room.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the number of calls waiting to be delivered
+	 *
+	 * @return the number of calls waiting to be delivered
+	 */
+	public int getDepth() {
+		lock.lock();
+		try {
+			return depth;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the maximum number of calls that have waited to be delivered
+	 *
+	 * @return the maximum depth reached by the queue
+	 */
+	public int getMaxDepth() {
+		lock.lock();
+		try {
+			return maxDepth;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Waits for the queue to have room, at most for the block timeout. This
+	 * method is called holding the lock
+	 *
+	 * @return true if the queue has room
+	 */
+	private boolean awaitRoom() {
+		metrics.onBlocked();
+		long remaining = TimeUnit.MILLISECONDS.toNanos(blockTimeout);
+		while (depth >= capacity && !cancelled && remaining > 0) {
+			try {
+				remaining = room.awaitNanos(remaining);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}
+		return depth < capacity && !cancelled;
+	}
+
+	/**
+	 * Drops a chat message that doesn't fit in the queue, or disconnects the
+	 * subscriber if the call is not a chat message. This method is called
+	 * holding the lock
+	 *
+	 * @param remoteMethodCall
+	 *            the published call
+	 * @return the outcome of the admission
+	 */
+	private Admission dropChat(RemoteMethodCall remoteMethodCall) {
+		if (isChat(remoteMethodCall)) {
+			metrics.onDropped();
+			return Admission.DROPPED;
+		}
+		return disconnect();
+	}
+
+	/**
+	 * Checks if a call is a chat message, or a batch made only of chat
+	 * messages
+	 *
+	 * @param remoteMethodCall
+	 *            the published call
+	 * @return true if the call can be dropped as a chat message
+	 */
+	private static boolean isChat(RemoteMethodCall remoteMethodCall) {
+		switch (remoteMethodCall.getMethodId()) {
+		case RemoteMethods.PUBLISH_CHAT_MSG:
+			return true;
+		case RemoteMethods.DELIVER_BATCH:
+			List<?> calls = (List<?>) remoteMethodCall.getMethodParameters()
+					.get(0);
+			for (Object call : calls) {
+				if (!isChat((RemoteMethodCall) call)) {
+					return false;
+				}
+			}
+			return !calls.isEmpty();
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Marks the subscriber as gone because of a full queue. This method is
+	 * called holding the lock
+	 *
+	 * @return the admission that disconnects the subscriber
+	 */
+	private Admission disconnect() {
+		cancelled = true;
+		metrics.onDisconnected();
+		room.signalAll();
+		return Admission.DISCONNECT;
+	}
+}
@@ -2,10 +2,16 @@ package clientClassTests;
 
 import static org.junit.Assert.*;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Files;
+import java.rmi.NotBoundException;
 import java.rmi.RemoteException;
 import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import factories.GalileiGameMapFactory;
 import it.polimi.ingsw.cg_19.GameMap;
@@ -15,6 +21,7 @@ import org.junit.Test;
 
 import common.Card;
 import common.ClientNotification;
+import common.CompiledMap;
 import common.Coordinate;
 import common.GamePublicData;
 import common.PlayerToken;
@@ -26,6 +33,7 @@ import common.SilenceSectorCard;
 import client.Client;
 import client.ClientConnection;
 import client.ClientRemoteServices;
+import client.MapCache;
 
 public class ClientRemoteServicesTests {
 	private ClientRemoteServices clientServices;
@@ -108,6 +116,12 @@ public class ClientRemoteServicesTests {
 		assertEquals(client.getAvailableGames().size(),1);
 		assertTrue(client.getAvailableGames().containsAll(gamesList));
 	}
+	@Test(expected = NoSuchMethodException.class)
+	public void processUnknownInvocationTest() throws RemoteException, IllegalAccessException, InvocationTargetException, NoSuchMethodException, SecurityException{
+		client = new Client(new ClientConnection(21323,"sdasd","sddsad"));
+		clientServices = new ClientRemoteServices(client);
+		clientServices.processRemoteInvocation(new RemoteMethodCall("getGames"));
+	}
 	@Test
 	public void sendMapTest() throws IOException{
 		client = new Client(new ClientConnection(21323,"sdasd","sddsad"));
@@ -116,10 +130,81 @@ public class ClientRemoteServicesTests {
 		clientServices.sendToken(token);
 		GalileiGameMapFactory factory = new GalileiGameMapFactory();
 		GameMap map = factory.makeMap();
-		clientServices.sendMap("GALILEI", token);
+		// The map is already in the cache, it is not fetched from the server
+		File directory = Files.createTempDirectory("maps").toFile();
+		client.setMapCache(new MapCache(directory));
+		CompiledMap compiledMap = CompiledMap.compile(map);
+		client.getMapCache().store(compiledMap);
+		clientServices.sendMap("GALILEI", token, compiledMap.getHash());
 		assertTrue(client.getIsMyTurn());
 		assertEquals(client.getGameMap().getGraph().vertexSet(),map.getGraph().vertexSet());
 		assertEquals("GALILEI",client.getGameMap().getName());
+		assertEquals(client.getGameMap().getAlienSector(),client.getCurrentSector());
+	}
+
+	@Test
+	public void heldCallsTest() throws Exception{
+		final CountDownLatch fetching = new CountDownLatch(1);
+		final CountDownLatch fetched = new CountDownLatch(1);
+		final CountDownLatch allowed = new CountDownLatch(1);
+		final CompiledMap compiledMap = CompiledMap.compile(new GalileiGameMapFactory().makeMap());
+		// The map is fetched only when the test allows it, and the turn
+		// records if the map was there when it was given
+		final boolean[] mapLoaded = new boolean[1];
+		client = new Client(new ClientConnection(21323,"sdasd","sddsad")){
+			@Override
+			public CompiledMap fetchMap(String hash) throws IllegalAccessException, InvocationTargetException, NoSuchMethodException, ClassNotFoundException, IOException, NotBoundException{
+				fetching.countDown();
+				try {
+					fetched.await();
+				} catch (InterruptedException e) {
+					throw new InterruptedIOException();
+				}
+				return compiledMap;
+			}
+			@Override
+			public void setIsMyTurn(boolean isMyTurn){
+				super.setIsMyTurn(isMyTurn);
+				mapLoaded[0] = getGameMap() != null;
+				allowed.countDown();
+			}
+		};
+		client.setMapCache(new MapCache(Files.createTempDirectory("maps").toFile()));
+		clientServices = new ClientRemoteServices(client);
+		PlayerToken token = new PlayerToken(PlayerType.ALIEN);
+		clientServices.sendToken(token);
+		ArrayList<Object> parameters = new ArrayList<Object>();
+		parameters.add("GALILEI");
+		parameters.add(new PlayerToken(PlayerType.HUMAN));
+		parameters.add(compiledMap.getHash());
+		ArrayList<RemoteMethodCall> batch = new ArrayList<RemoteMethodCall>();
+		batch.add(new RemoteMethodCall("sendMap",parameters));
+		parameters = new ArrayList<Object>();
+		parameters.add(token);
+		batch.add(new RemoteMethodCall("allowTurn",parameters));
+		clientServices.deliverBatch(batch);
+		assertTrue(fetching.await(5,TimeUnit.SECONDS));
+		// The turn waits for the map
+		assertFalse(allowed.await(200,TimeUnit.MILLISECONDS));
+		fetched.countDown();
+		assertTrue(allowed.await(5,TimeUnit.SECONDS));
+		assertTrue(mapLoaded[0]);
+		assertTrue(client.getIsMyTurn());
+	}
+
+	@Test
+	public void mapCacheTest() throws IOException{
+		File directory = Files.createTempDirectory("maps").toFile();
+		MapCache cache = new MapCache(directory);
+		CompiledMap map = CompiledMap.compile(new GalileiGameMapFactory().makeMap());
+		assertNull(cache.load(map.getHash()));
+		cache.store(map);
+		assertEquals(map.getHash(),cache.load(map.getHash()).getHash());
+		// A file whose content doesn't match its hash is ignored
+		File file = new File(directory,map.getHash()+".map");
+		Files.write(file.toPath(),new byte[] {1,2,3});
+		assertNull(cache.load(map.getHash()));
+		assertNull(cache.load("../"+map.getHash()));
 	}
 
 }
@@ -0,0 +1,63 @@
+package clientClassTests;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.SwingUtilities;
+
+import org.junit.Test;
+
+import server.GameStatus;
+import client.LobbyTableModel;
+import common.GamePublicData;
+import common.LobbyDelta;
+
+/**
+ * Some tests for the LobbyTableModel class
+ *
+ * @author Andrea Sessa
+ * @author Giorgio Pea
+ */
+public class LobbyTableModelTest {
+
+	/**
+	 * Waits for the changes queued on the event dispatch thread
+	 */
+	private void flush() throws Exception {
+		SwingUtilities.invokeAndWait(new Runnable() {
+			@Override
+			public void run() {
+				// Nothing to do
+			}
+		});
+	}
+
+	/**
+	 * Checks that the changes are applied in place to the rows loaded first
+	 */
+	@Test
+	public void testDeltas() throws Exception {
+		LobbyTableModel model = new LobbyTableModel();
+		List<GamePublicData> games = new ArrayList<GamePublicData>();
+		games.add(new GamePublicData(1, "Game_1"));
+		games.add(new GamePublicData(2, "Game_2"));
+		model.gamesLoaded(games);
+		GamePublicData updated = new GamePublicData(1, "Game_1");
+		updated.addPlayer();
+		updated.setStatus(GameStatus.CLOSED);
+		model.lobbyChanged(new LobbyDelta(LobbyDelta.Kind.UPDATED, updated));
+		model.lobbyChanged(new LobbyDelta(LobbyDelta.Kind.ADDED,
+				new GamePublicData(3, "Game_3")));
+		model.lobbyChanged(new LobbyDelta(LobbyDelta.Kind.REMOVED,
+				new GamePublicData(2, "Game_2")));
+		flush();
+		assertEquals(2, model.getRowCount());
+		assertEquals(1, model.getValueAt(0, 0));
+		assertEquals(GameStatus.CLOSED, model.getValueAt(0, 1));
+		assertEquals(1, model.getValueAt(0, 2));
+		assertEquals(3, model.getValueAt(1, 0));
+		assertFalse(model.isCellEditable(0, 0));
+	}
+}
@@ -7,8 +7,6 @@ import org.junit.Test;
 import common.AttackObjectCard;
 import common.Card;
 import common.Coordinate;
-import common.Sector;
-import common.SectorType;
 import decks.DiscardDeck;
 
 /**
@@ -47,8 +45,7 @@ public class DiscardDeckTest {
 		 * Testing if getCards returns the correct cards
 		 */
 		discardDeck = new DiscardDeck();
-		Card card = new AttackObjectCard(new Sector(new Coordinate('A', 1),
-				SectorType.SAFE));
+		Card card = new AttackObjectCard(new Coordinate('A', 1));
 		discardDeck.addCard(card);
 		assertTrue(discardDeck.getCards().contains(card));
 		assertEquals(discardDeck.getCards().size(), 1);
@@ -66,8 +63,7 @@ public class DiscardDeckTest {
 		discardDeck = new DiscardDeck();
 		discardDeck.removeCards();
 		assertTrue(discardDeck.getCards().isEmpty());
-		Card card = new AttackObjectCard(new Sector(new Coordinate('A', 1),
-				SectorType.SAFE));
+		Card card = new AttackObjectCard(new Coordinate('A', 1));
 		discardDeck.addCard(card);
 		discardDeck.removeCards();
 		assertTrue(discardDeck.getCards().isEmpty());
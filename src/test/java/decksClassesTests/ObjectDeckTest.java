@@ -11,8 +11,6 @@ import common.AttackObjectCard;
 import common.Card;
 import common.Coordinate;
 import common.ObjectCard;
-import common.Sector;
-import common.SectorType;
 import decks.DiscardDeck;
 import decks.ObjectDeck;
 import factories.ObjectDeckFactory;
@@ -165,8 +163,7 @@ public class ObjectDeckTest {
 		 * Testing if adding a card to discard produces the right behavior
 		 */
 		deck = (ObjectDeck) new ObjectDeckFactory().makeDeck();
-		ObjectCard card = new AttackObjectCard(new Sector(
-				new Coordinate('A', 1), SectorType.SAFE));
+		ObjectCard card = new AttackObjectCard(new Coordinate('A', 1));
 		deck.addToDiscard(card);
 		assertTrue(deck.getDiscardDeck().getCards().contains(card));
 		assertEquals(deck.getDiscardDeck().getCards().size(), 1);
@@ -8,8 +8,6 @@ import common.AttackObjectCard;
 import common.Coordinate;
 import common.ObjectCard;
 import common.PrivateDeck;
-import common.Sector;
-import common.SectorType;
 
 /**
  * Tests for the privateDeckTest class
@@ -34,8 +32,7 @@ public class privateDeckTest {
 		 * Testing if getContent returns the correct cards
 		 */
 		privateDeck = new PrivateDeck();
-		ObjectCard card = new AttackObjectCard(new Sector(
-				new Coordinate('A', 1), SectorType.SAFE));
+		ObjectCard card = new AttackObjectCard(new Coordinate('A', 1));
 		privateDeck.addCard(card);
 		assertTrue(privateDeck.getContent().contains(card));
 		assertEquals(privateDeck.getContent().size(), 1);
@@ -50,8 +47,7 @@ public class privateDeckTest {
 		 * scenarios
 		 */
 		privateDeck = new PrivateDeck();
-		ObjectCard card = new AttackObjectCard(new Sector(
-				new Coordinate('A', 1), SectorType.SAFE));
+		ObjectCard card = new AttackObjectCard(new Coordinate('A', 1));
 		assertEquals(privateDeck.getCard(card), null);
 		privateDeck.addCard(card);
 		assertEquals(privateDeck.getCard(card), card);
@@ -50,6 +50,11 @@ public class AlienTurnTest {
 				DefaultEdge.class);
 		Sector s1 = new Sector(new Coordinate('A', 1), SectorType.SAFE);
 		graph_1.addVertex(s1);
+		Sector safeSector = new Sector(new Coordinate('A', 1), SectorType.SAFE);
+		Sector dangerousSector = new Sector(new Coordinate('B', 1),
+				SectorType.DANGEROUS);
+		// The type of the target is read from the game's map
+		graph_1.addVertex(dangerousSector);
 
 		// Instantiates a new Map map starting from the graph defined above
 		GameMap map = new GameMap(graph_1, 0, 0, 0, 0, "");
@@ -58,10 +63,6 @@ public class AlienTurnTest {
 
 		Turn turn = new AlienTurn(game);
 
-		Sector safeSector = new Sector(new Coordinate('A', 1), SectorType.SAFE);
-		Sector dangerousSector = new Sector(new Coordinate('B', 1),
-				SectorType.DANGEROUS);
-
 		SectorCard sectorCardNoObj = new LocalNoiseSectorCard(false);
 		SectorCard sectorCardObj = new LocalNoiseSectorCard(true);
 
@@ -78,10 +79,15 @@ public class AlienTurnTest {
 
 		game.addPlayer(playerNoFull);
 
-		assertTrue(turn.getNextActions(new MoveAction(dangerousSector))
+		assertTrue(turn.getNextActions(
+				new MoveAction(dangerousSector.getCoordinate()))
 				.contains(DrawSectorCardAction.class));
-		assertTrue(turn.getNextActions(new MoveAction(safeSector)).contains(
-				EndTurnAction.class));
+		assertTrue(turn.getNextActions(
+				new MoveAction(safeSector.getCoordinate()))
+				.contains(EndTurnAction.class));
+		// A target not on the map leads to the actions of a safe sector
+		assertTrue(turn.getNextActions(new MoveAction(new Coordinate('Z', 99)))
+				.contains(EndTurnAction.class));
 
 		assertTrue(turn.getNextActions(new DrawSectorCardAction()).contains(
 				UseSectorCardAction.class));
@@ -108,7 +114,8 @@ public class AlienTurnTest {
 		assertTrue(turn.getNextActions(new DiscardAction(null)).contains(
 				EndTurnAction.class));
 
-		assertTrue(turn.getNextActions(new MoveAttackAction(safeSector))
+		assertTrue(turn.getNextActions(
+				new MoveAttackAction(safeSector.getCoordinate()))
 				.contains(EndTurnAction.class));
 	}
 }
\ No newline at end of file
@@ -36,7 +36,7 @@ public class AttackEffectTest {
 		Sector source = new Sector(new Coordinate('A', 1), SectorType.SAFE);
 		Sector target = new Sector(new Coordinate('A', 2), SectorType.SAFE);
 
-		AttackObjectCard card = new AttackObjectCard(target);
+		AttackObjectCard card = new AttackObjectCard(target.getCoordinate());
 		AttackObjCardEffect effect = new AttackObjCardEffect(card);
 
 		Player player1 = new Player(PlayerType.HUMAN, "");
@@ -70,8 +70,7 @@ public class AttackEffectTest {
 	 */
 	@Test
 	public void testAttackEffectAttackObjectCard() {
-		AttackObjectCard card = new AttackObjectCard(new Sector(new Coordinate(
-				'A', 1), SectorType.SAFE));
+		AttackObjectCard card = new AttackObjectCard(new Coordinate('A', 1));
 		AttackObjCardEffect effect = new AttackObjCardEffect(card);
 		assertEquals(card, effect.getObjectCard());
 	}
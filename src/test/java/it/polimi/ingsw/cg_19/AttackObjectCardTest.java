@@ -6,8 +6,6 @@ import org.junit.Test;
 
 import common.AttackObjectCard;
 import common.Coordinate;
-import common.Sector;
-import common.SectorType;
 
 /**
  * Some tests for AttackObjectCard class
@@ -23,10 +21,9 @@ public class AttackObjectCardTest {
 	 */
 	@Test
 	public void testAttackObjectCard() {
-		AttackObjectCard objectCard = new AttackObjectCard(new Sector(
-				new Coordinate('A', 1), SectorType.SAFE));
-		assertEquals(new Sector(new Coordinate('A', 1), SectorType.SAFE),
-				objectCard.getAttackTarget());
+		AttackObjectCard objectCard = new AttackObjectCard(new Coordinate('A',
+				1));
+		assertEquals(new Coordinate('A', 1), objectCard.getAttackTarget());
 	}
 
 	/**
@@ -34,8 +31,8 @@ public class AttackObjectCardTest {
 	 */
 	@Test
 	public void testToString() {
-		AttackObjectCard objectCard = new AttackObjectCard(new Sector(
-				new Coordinate('A', 1), SectorType.SAFE));
+		AttackObjectCard objectCard = new AttackObjectCard(new Coordinate('A',
+				1));
 		assertEquals("AttackObjectCard", objectCard.toString());
 	}
 
@@ -0,0 +1,395 @@
+package it.polimi.ingsw.cg_19;
+
+import static org.junit.Assert.*;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import server.GameStatus;
+import common.BinaryCodec;
+import common.Broadcast;
+import common.CompiledMap;
+import common.Coordinate;
+import common.GameEvent;
+import common.GamePublicData;
+import common.Handshake;
+import common.LightsObjectCard;
+import common.LobbyDelta;
+import common.LobbyPage;
+import common.LobbyQuery;
+import common.MoveAction;
+import common.MoveAttackAction;
+import common.PSClientNotification;
+import common.PlayerToken;
+import common.RRClientNotification;
+import common.RemoteMethodCall;
+import common.RemoteMethods;
+import common.Sector;
+import common.SectorType;
+import common.SerializationCodec;
+import common.WireCodec;
+import factories.GalileiGameMapFactory;
+
+/**
+ * Some tests for the BinaryCodec class and for the handshake that chooses the
+ * codec of a connection
+ *
+ * @author Andrea Sessa
+ * @author Giorgio Pea
+ */
+public class BinaryCodecTest {
+	private WireCodec codec = new BinaryCodec();
+
+	/**
+	 * Encodes and decodes a remote method call with the binary codec
+	 */
+	private RemoteMethodCall roundTrip(RemoteMethodCall call)
+			throws IOException, ClassNotFoundException {
+		return codec.newDecoder().decode(codec.newEncoder().encode(call));
+	}
+
+	/**
+	 * Creates a remote method call with a single parameter
+	 */
+	private RemoteMethodCall call(String methodName, Object parameter) {
+		ArrayList<Object> parameters = new ArrayList<Object>();
+		parameters.add(parameter);
+		RemoteMethodCall call = new RemoteMethodCall(methodName, parameters);
+		call.setCallId(7);
+		return call;
+	}
+
+	/**
+	 * Checks that a move action and a token are correctly decoded, along with
+	 * the method name and the call id
+	 */
+	@Test
+	public void testMoveAction() throws Exception {
+		Coordinate target = new Coordinate('L', 8);
+		PlayerToken token = new PlayerToken(PlayerType.HUMAN);
+		RemoteMethodCall call = call("makeAction", new MoveAction(target));
+		call.getMethodParameters().add(token);
+		RemoteMethodCall decoded = roundTrip(call);
+		assertEquals("makeAction", decoded.getMethodName());
+		assertEquals(7, decoded.getCallId());
+		MoveAction action = (MoveAction) decoded.getMethodParameters().get(0);
+		assertEquals(target, action.getTarget());
+		assertEquals(token, decoded.getMethodParameters().get(1));
+	}
+
+	/**
+	 * Checks that a move and attack action is correctly decoded, and that an
+	 * action takes a few bytes, as only the coordinate of its target is sent
+	 */
+	@Test
+	public void testMoveAttackAction() throws Exception {
+		Coordinate target = new Coordinate('L', 8);
+		RemoteMethodCall call = call("makeAction", new MoveAttackAction(target));
+		MoveAttackAction action = (MoveAttackAction) roundTrip(call)
+				.getMethodParameters().get(0);
+		assertEquals(target, action.getTarget());
+		int actionSize = codec.newEncoder().encode(call).length
+				- codec.newEncoder().encode(call("makeAction", null)).length;
+		assertTrue(actionSize <= 8);
+		assertNull(((MoveAction) roundTrip(call("makeAction",
+				new MoveAction(null))).getMethodParameters().get(0))
+				.getTarget());
+	}
+
+	/**
+	 * Checks that the games' public data are correctly decoded
+	 */
+	@Test
+	public void testGamePublicData() throws Exception {
+		GamePublicData data = new GamePublicData(3, "GALILEI", "FERMI");
+		data.addPlayer();
+		data.setStatus(GameStatus.CLOSED);
+		ArrayList<Object> games = new ArrayList<Object>();
+		games.add(data);
+		List<?> decoded = (List<?>) roundTrip(
+				call("sendAvailableGames", games)).getMethodParameters()
+				.get(0);
+		GamePublicData decodedData = (GamePublicData) decoded.get(0);
+		assertEquals(3, decodedData.getId());
+		assertEquals("GALILEI", decodedData.getName());
+		assertEquals("FERMI", decodedData.getMapName());
+		assertEquals(1, decodedData.getPlayersCount());
+		assertEquals(GameStatus.CLOSED, decodedData.getStatus());
+	}
+
+	/**
+	 * Checks that a change of the lobby is correctly decoded
+	 */
+	@Test
+	public void testLobbyDelta() throws Exception {
+		GamePublicData data = new GamePublicData(5, "GALVANI");
+		data.addPlayer();
+		LobbyDelta decoded = (LobbyDelta) roundTrip(
+				call("updateLobby", new LobbyDelta(LobbyDelta.Kind.UPDATED,
+						data))).getMethodParameters().get(0);
+		assertEquals(LobbyDelta.Kind.UPDATED, decoded.getKind());
+		assertEquals(5, decoded.getGame().getId());
+		assertEquals(1, decoded.getGame().getPlayersCount());
+	}
+
+	/**
+	 * Checks that a request of a page of games and the page are correctly
+	 * decoded
+	 */
+	@Test
+	public void testLobbyQueryAndPage() throws Exception {
+		LobbyQuery query = (LobbyQuery) roundTrip(
+				call("findGames", new LobbyQuery("GALVANI", false, 2, 10, 20)))
+				.getMethodParameters().get(0);
+		assertEquals("GALVANI", query.getMapName());
+		assertFalse(query.isOnlyOpen());
+		assertEquals(2, query.getMinFreeSeats());
+		assertEquals(10, query.getOffset());
+		assertEquals(20, query.getLimit());
+		ArrayList<GamePublicData> games = new ArrayList<GamePublicData>();
+		games.add(new GamePublicData(4, "Game_4", null));
+		LobbyPage page = (LobbyPage) roundTrip(
+				call("sendGamesPage", new LobbyPage(7, 12, 10, games)))
+				.getMethodParameters().get(0);
+		assertEquals(7, page.getVersion());
+		assertEquals(12, page.getTotal());
+		assertEquals(10, page.getOffset());
+		assertEquals(1, page.getGames().size());
+		assertEquals(4, page.getGames().get(0).getId());
+		assertNull(page.getGames().get(0).getMapName());
+		assertTrue(page.hasNext());
+	}
+
+	/**
+	 * Checks that a request/response notification is correctly decoded, the
+	 * cards falling back to the java serialization
+	 */
+	@Test
+	public void testRRClientNotification() throws Exception {
+		RRClientNotification notification = new RRClientNotification();
+		notification.setActionResult(true);
+		notification.setPerformedActions(3);
+		notification.setMessage("You've moved");
+		notification.addCard(new LightsObjectCard(null));
+		Sector sector = new Sector(new Coordinate('B', 2), SectorType.SAFE);
+		sector.addPlayer(new Player(PlayerType.ALIEN, "alien"));
+		notification.addSector(sector);
+		RRClientNotification decoded = (RRClientNotification) roundTrip(
+				call("sendNotification", notification)).getMethodParameters()
+				.get(0);
+		assertTrue(decoded.getActionResult());
+		assertEquals(3, decoded.getPerformedActions());
+		assertEquals("You've moved", decoded.getMessage());
+		assertTrue(decoded.getDrawnCards().get(0) instanceof LightsObjectCard);
+		assertEquals(sector, decoded.getLightedSectors().get(0));
+		assertEquals("alien", decoded.getLightedSectors().get(0).getPlayers()
+				.get(0).getName());
+	}
+
+	/**
+	 * Checks that a pub/sub notification is correctly decoded
+	 */
+	@Test
+	public void testPSClientNotification() throws Exception {
+		PlayerToken dead = new PlayerToken(PlayerType.HUMAN);
+		PSClientNotification notification = new PSClientNotification();
+		notification.setMessage("[GLOBAL MESSAGE]");
+		notification.setAlienWins(true);
+		notification.addDeadPlayers(dead);
+		PSClientNotification decoded = (PSClientNotification) roundTrip(
+				call("sendPubNotification", notification))
+				.getMethodParameters().get(0);
+		assertEquals("[GLOBAL MESSAGE]", decoded.getMessage());
+		assertTrue(decoded.getAlienWins());
+		assertFalse(decoded.getHumanWins());
+		assertNull(decoded.getEscapedPlayer());
+		assertEquals(dead, decoded.getDeadPlayers().get(0));
+		assertTrue(decoded.getAttackedPlayers().isEmpty());
+	}
+
+	/**
+	 * Checks that the events of a notification are decoded, and that they take
+	 * fewer bytes than their text
+	 */
+	@Test
+	public void testEvents() throws Exception {
+		PSClientNotification notification = new PSClientNotification();
+		notification.addEvent(new GameEvent(GameEvent.Type.MOVED, "Bob"));
+		notification.addEvent(new GameEvent(GameEvent.Type.NOISE, "Bob",
+				null, new Coordinate('L', 8)));
+		notification.addEvent(new GameEvent(GameEvent.Type.TURN_ENDED, "Bob"));
+		notification.addEvent(new GameEvent(GameEvent.Type.TURN_STARTED,
+				"Ann"));
+		PSClientNotification decoded = (PSClientNotification) roundTrip(
+				call("sendPubNotification", notification))
+				.getMethodParameters().get(0);
+		assertEquals(notification.getMessage(), decoded.getMessage());
+		assertEquals(new Coordinate('L', 8), decoded.getEvents().get(1)
+				.getSector());
+		PSClientNotification text = new PSClientNotification();
+		text.setMessage(notification.getMessage());
+		assertTrue(2 * codec.newEncoder().encode(
+				call("sendPubNotification", notification)).length < codec
+				.newEncoder().encode(call("sendPubNotification", text)).length);
+	}
+
+	/**
+	 * Checks that a move is encoded in fewer bytes than with the java
+	 * serialization
+	 */
+	@Test
+	public void testPayloadSize() throws Exception {
+		RemoteMethodCall call = call("makeAction", new MoveAction(
+				new Coordinate('L', 8)));
+		call.getMethodParameters().add(new PlayerToken(PlayerType.ALIEN));
+		int binarySize = codec.newEncoder().encode(call).length;
+		int serializedSize = new SerializationCodec().newEncoder().encode(call).length;
+		assertTrue(binarySize * 4 < serializedSize);
+	}
+
+	/**
+	 * Checks that lists nested within the maximum depth are decoded, and that
+	 * a frame nesting them deeper is rejected instead of exhausting the stack
+	 */
+	@Test
+	public void testNestingDepth() throws Exception {
+		ArrayList<Object> nested = new ArrayList<Object>();
+		ArrayList<Object> inner = nested;
+		for (int i = 0; i < 10; i++) {
+			ArrayList<Object> list = new ArrayList<Object>();
+			inner.add(list);
+			inner = list;
+		}
+		assertEquals(nested, roundTrip(call("getGames", nested))
+				.getMethodParameters().get(0));
+
+		int levels = 200000;
+		ByteBuffer frame = ByteBuffer.allocate(6 + 4 + levels * 5);
+		frame.putShort((short) RemoteMethods.GET_GAMES);
+		frame.putInt(1);
+		frame.putInt(1);
+		for (int i = 0; i < levels; i++) {
+			// The tag of a list and its size
+			frame.put((byte) 4);
+			frame.putInt(1);
+		}
+		try {
+			codec.newDecoder().decode(frame.array());
+			fail();
+		} catch (IOException e) {
+			// The frame is rejected before its end is reached
+			assertFalse(e instanceof EOFException);
+		}
+	}
+
+	/**
+	 * Checks that a broadcast is encoded once for a stateless codec, every
+	 * subscriber getting its own view of the same frame
+	 */
+	@Test
+	public void testBroadcastSharedFrame() throws Exception {
+		Broadcast broadcast = new Broadcast(call("publishChatMsg", "hello"));
+		ByteBuffer first = broadcast.frameFor(codec);
+		first.position(first.limit());
+		ByteBuffer second = broadcast.frameFor(codec);
+		assertEquals(0, second.position());
+		assertTrue(first.isReadOnly());
+		second.getInt();
+		byte[] payload = new byte[second.remaining()];
+		second.get(payload);
+		assertEquals("hello", codec.newDecoder().decode(payload)
+				.getMethodParameters().get(0));
+	}
+
+	/**
+	 * Checks that the calls carried by a batch are decoded in order, along
+	 * with their parameters
+	 */
+	@Test
+	public void testBatch() throws Exception {
+		ArrayList<RemoteMethodCall> calls = new ArrayList<RemoteMethodCall>();
+		calls.add(call("publishChatMsg", "hello"));
+		calls.add(call("allowTurn", new PlayerToken(PlayerType.ALIEN)));
+		calls.add(new RemoteMethodCall("endGame"));
+		RemoteMethodCall decoded = roundTrip(call("deliverBatch", calls));
+		List<?> decodedCalls = (List<?>) decoded.getMethodParameters().get(0);
+		assertEquals(3, decodedCalls.size());
+		for (int i = 0; i < calls.size(); i++) {
+			RemoteMethodCall decodedCall = (RemoteMethodCall) decodedCalls
+					.get(i);
+			assertEquals(calls.get(i).getMethodName(),
+					decodedCall.getMethodName());
+			assertEquals(calls.get(i).getMethodParameters(),
+					decodedCall.getMethodParameters());
+		}
+	}
+
+	/**
+	 * Checks that the method and the id of a call are read without decoding
+	 * its parameters
+	 */
+	@Test
+	public void testPeek() throws Exception {
+		byte[] payload = codec.newEncoder().encode(
+				call("makeAction", new PlayerToken(PlayerType.HUMAN)));
+		RemoteMethodCall header = codec.newDecoder().peek(payload);
+		assertEquals(RemoteMethods.MAKE_ACTION, header.getMethodId());
+		assertEquals(7, header.getCallId());
+		assertTrue(header.getMethodParameters().isEmpty());
+		assertNull(codec.newDecoder().peek(new byte[] { 0, 3 }));
+		assertNull(new SerializationCodec().newDecoder().peek(payload));
+	}
+
+	/**
+	 * Checks that a compiled map is decoded with its hash
+	 */
+	@Test
+	public void testCompiledMap() throws Exception {
+		CompiledMap map = CompiledMap.compile(new GalileiGameMapFactory()
+				.makeMap());
+		CompiledMap decoded = (CompiledMap) roundTrip(
+				call("sendCompiledMap", map)).getMethodParameters().get(0);
+		assertEquals(map.getHash(), decoded.getHash());
+		assertEquals("GALILEI", decoded.getName());
+	}
+
+	/**
+	 * Checks that the frames of a stateful codec are never shared
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testBroadcastStatefulCodec() throws Exception {
+		new Broadcast(call("publishChatMsg", "hello"))
+				.frameFor(new SerializationCodec());
+	}
+
+	/**
+	 * Checks that the handshake chooses the first codec preferred by the
+	 * client that is supported by the server
+	 */
+	@Test
+	public void testHandshake() throws Exception {
+		WireCodec[] clientCodecs = new WireCodec[] { new SerializationCodec(),
+				new BinaryCodec() };
+		WireCodec accepted = Handshake.accept(Handshake.hello(clientCodecs),
+				Handshake.supportedCodecs());
+		assertEquals(SerializationCodec.ID, accepted.getId());
+		assertEquals(SerializationCodec.ID,
+				Handshake.chosen(Handshake.welcome(accepted), clientCodecs)
+						.getId());
+	}
+
+	/**
+	 * Checks that the handshake fails if there isn't a common codec
+	 */
+	@Test(expected = IOException.class)
+	public void testHandshakeNoCommonCodec() throws Exception {
+		Handshake.accept(
+				Handshake.hello(new WireCodec[] { new SerializationCodec() }),
+				new WireCodec[] { new BinaryCodec() });
+	}
+}
@@ -0,0 +1,83 @@
+package it.polimi.ingsw.cg_19;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.jgrapht.graph.DefaultEdge;
+import org.junit.Test;
+
+import server.MapStore;
+import common.CompiledMap;
+import factories.GalileiGameMapFactory;
+
+/**
+ * Some tests for the CompiledMap class and for the store of the compiled maps
+ *
+ * @author Andrea Sessa
+ * @author Giorgio Pea
+ */
+public class CompiledMapTest {
+
+	/**
+	 * Checks that the map built from a compiled map is equal to the map parsed
+	 * from the map file
+	 */
+	@Test
+	public void testToGameMap() throws IOException {
+		GameMap map = new GalileiGameMapFactory().makeMap();
+		CompiledMap compiledMap = CompiledMap.compile(map);
+		GameMap decoded = CompiledMap.fromBytes(compiledMap.getBytes())
+				.toGameMap();
+		assertEquals("GALILEI", decoded.getName());
+		assertEquals(map.getGraph().vertexSet(), decoded.getGraph()
+				.vertexSet());
+		assertEquals(map.getGraph().edgeSet().size(), decoded.getGraph()
+				.edgeSet().size());
+		assertEquals(map.getHorizontalLength(), decoded.getHorizontalLength());
+		assertEquals(map.getVerticalLength(), decoded.getVerticalLength());
+		for (DefaultEdge edge : map.getGraph().edgeSet()) {
+			assertTrue(decoded.getGraph().containsEdge(
+					map.getGraph().getEdgeSource(edge),
+					map.getGraph().getEdgeTarget(edge)));
+		}
+		// Every call builds a new map
+		assertNotSame(compiledMap.toGameMap(), compiledMap.toGameMap());
+	}
+
+	/**
+	 * Checks that the same map always has the same hash
+	 */
+	@Test
+	public void testHash() {
+		CompiledMap first = CompiledMap.compile(new GalileiGameMapFactory()
+				.makeMap());
+		CompiledMap second = CompiledMap.compile(new GalileiGameMapFactory()
+				.makeMap());
+		assertEquals(first.getHash(), second.getHash());
+		assertEquals(64, first.getHash().length());
+	}
+
+	/**
+	 * Checks that bytes that are not a compiled map are refused
+	 */
+	@Test(expected = IOException.class)
+	public void testCorruptedBytes() throws IOException {
+		byte[] bytes = CompiledMap.compile(
+				new GalileiGameMapFactory().makeMap()).getBytes();
+		CompiledMap.fromBytes(Arrays.copyOf(bytes, bytes.length - 1));
+	}
+
+	/**
+	 * Checks that a map is compiled once, and can be found by its hash
+	 */
+	@Test
+	public void testMapStore() {
+		CompiledMap map = MapStore.getInstance().get("FERMI");
+		assertSame(map, MapStore.getInstance().get("FERMI"));
+		assertSame(map, MapStore.getInstance().getByHash(map.getHash()));
+		assertNull(MapStore.getInstance().getByHash("00"));
+		assertFalse(MapStore.isKnown("NOWHERE"));
+	}
+}
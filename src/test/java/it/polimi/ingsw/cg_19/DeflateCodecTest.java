@@ -0,0 +1,119 @@
+package it.polimi.ingsw.cg_19;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import common.BinaryCodec;
+import common.DeflateCodec;
+import common.FrameDecoder;
+import common.FrameEncoder;
+import common.GamePublicData;
+import common.Handshake;
+import common.RemoteMethodCall;
+import common.WireCodec;
+
+/**
+ * Some tests for the DeflateCodec class and for the negotiation of the
+ * compression during the handshake
+ *
+ * @author Andrea Sessa
+ * @author Giorgio Pea
+ */
+public class DeflateCodecTest {
+	private DeflateCodec codec = new DeflateCodec(new BinaryCodec());
+
+	/**
+	 * Creates a call that sends the list of the available games
+	 */
+	private RemoteMethodCall availableGames(int count) {
+		ArrayList<Object> games = new ArrayList<Object>();
+		for (int i = 0; i < count; i++) {
+			games.add(new GamePublicData(i, "GALILEI"));
+		}
+		ArrayList<Object> parameters = new ArrayList<Object>();
+		parameters.add(games);
+		return new RemoteMethodCall("sendAvailableGames", parameters);
+	}
+
+	/**
+	 * Checks that a big payload is compressed and correctly decoded
+	 */
+	@Test
+	public void testRoundTrip() throws Exception {
+		byte[] plain = new BinaryCodec().newEncoder().encode(
+				availableGames(50));
+		byte[] payload = codec.newEncoder().encode(availableGames(50));
+		assertTrue(payload.length < plain.length / 2);
+		List<?> games = (List<?>) codec.newDecoder().decode(payload)
+				.getMethodParameters().get(0);
+		assertEquals(50, games.size());
+		assertEquals(49, ((GamePublicData) games.get(49)).getId());
+		assertEquals(1, codec.getCounters().getCompressedFrames());
+		assertTrue(codec.getCounters().getRatio() > 2);
+	}
+
+	/**
+	 * Checks that a payload smaller than the threshold is not compressed
+	 */
+	@Test
+	public void testBelowThreshold() throws Exception {
+		RemoteMethodCall call = availableGames(1);
+		byte[] plain = new BinaryCodec().newEncoder().encode(call);
+		byte[] payload = codec.newEncoder().encode(call);
+		assertEquals(plain.length + 1, payload.length);
+		assertEquals("sendAvailableGames", codec.newDecoder().decode(payload)
+				.getMethodName());
+		assertEquals(0, codec.getCounters().getCompressedFrames());
+	}
+
+	/**
+	 * Checks that a frame repeated on the same connection is compressed
+	 * against the previous one, and that the decoder follows the dictionary
+	 */
+	@Test
+	public void testDictionary() throws Exception {
+		FrameEncoder encoder = codec.newEncoder();
+		FrameDecoder decoder = codec.newDecoder();
+		byte[] first = encoder.encode(availableGames(20));
+		byte[] second = encoder.encode(availableGames(20));
+		assertTrue(second.length < first.length / 2);
+		decoder.decode(first);
+		assertEquals(20, ((List<?>) decoder.decode(second)
+				.getMethodParameters().get(0)).size());
+	}
+
+	/**
+	 * Checks that a client that offers the compression agrees on the plain
+	 * binary codec with a server that doesn't support it, and on the
+	 * compressed one with a server that does
+	 */
+	@Test
+	public void testNegotiation() throws Exception {
+		WireCodec[] clientCodecs = Handshake.supportedCodecs(true);
+		WireCodec accepted = Handshake.accept(Handshake.hello(clientCodecs),
+				Handshake.supportedCodecs());
+		assertEquals(BinaryCodec.ID, accepted.getId());
+		accepted = Handshake.accept(Handshake.hello(clientCodecs),
+				Handshake.supportedCodecs(true));
+		assertTrue(accepted instanceof DeflateCodec);
+		assertTrue(Handshake.chosen(Handshake.welcome(accepted),
+				clientCodecs) instanceof DeflateCodec);
+	}
+
+	/**
+	 * Checks that a corrupted compressed payload is refused
+	 */
+	@Test(expected = IOException.class)
+	public void testCorruptedPayload() throws Exception {
+		byte[] payload = codec.newEncoder().encode(availableGames(50));
+		for (int i = 1; i < payload.length; i++) {
+			payload[i] = (byte) 0xFF;
+		}
+		codec.newDecoder().decode(payload);
+	}
+}
@@ -56,6 +56,33 @@ public class GameMapTest {
 		assertNotEquals(s1, map.getSectorByCoords(new Coordinate('A', 2)));
 	}
 
+	/**
+	 * Checks that getSectorByCoords returns the map's own sector, that a
+	 * coordinate out of the map has no sector, and that the map's graph can't
+	 * be changed behind the index
+	 */
+	@Test
+	public void testSectorIndex() {
+		UndirectedGraph<Sector, DefaultEdge> graph = new SimpleGraph<Sector, DefaultEdge>(
+				DefaultEdge.class);
+		Sector s1 = new Sector(new Coordinate('A', 1), SectorType.SAFE);
+		graph.addVertex(s1);
+		GameMap map = new GameMap(graph, 0, 0, 0, 0, "");
+
+		assertSame(s1, map.getSectorByCoords(new Coordinate('A', 1)));
+		assertNull(map.getSectorByCoords(new Coordinate('Z', 99)));
+		assertNull(map.getSectorByCoords(null));
+
+		Sector s2 = new Sector(new Coordinate('B', 1), SectorType.DANGEROUS);
+		try {
+			map.getGraph().addVertex(s2);
+			fail();
+		} catch (UnsupportedOperationException e) {
+			// The graph is read-only
+		}
+		assertNull(map.getSectorByCoords(new Coordinate('B', 1)));
+	}
+
 	/**
 	 * Test if given a graph of four sectors (s1,s2,s3,s4) the checkAdiacency
 	 * function returns the correct boolean value according to the reachness
@@ -2,14 +2,26 @@ package it.polimi.ingsw.cg_19;
 
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Observable;
+import java.util.Observer;
+
 import org.jgrapht.UndirectedGraph;
 import org.jgrapht.graph.DefaultEdge;
 import org.jgrapht.graph.SimpleGraph;
 import org.junit.Test;
 
 import common.Action;
+import common.Broadcast;
 import common.Coordinate;
+import common.ClientNotification;
 import common.DrawObjectCardAction;
+import common.EndTurnAction;
+import common.MoveAction;
+import common.PlayerToken;
+import common.RRClientNotification;
+import common.RemoteMethodCall;
 import common.Sector;
 import common.SectorType;
 
@@ -36,6 +48,86 @@ public class GameTest {
 		assertEquals(0, game3.getTurnNumber());
 	}
 
+	/**
+	 * Checks that the calls published while a batch is open are sent to the
+	 * subscribers in a single call, in order, when the batch is flushed
+	 */
+	@Test
+	public void testBatch() {
+		Game game = new Game("FERMI");
+		final List<RemoteMethodCall> published = new ArrayList<RemoteMethodCall>();
+		game.addObserver(new Observer() {
+			@Override
+			public void update(Observable o, Object arg) {
+				published.add(((Broadcast) arg).getRemoteMethodCall());
+			}
+		});
+		game.openBatch();
+		game.notifyListeners(new RemoteMethodCall("publishChatMsg"));
+		game.notifyListeners(new RemoteMethodCall("endGame"));
+		assertTrue(published.isEmpty());
+		game.flushBatch();
+		assertEquals(1, published.size());
+		assertEquals("deliverBatch", published.get(0).getMethodName());
+		List<?> calls = (List<?>) published.get(0).getMethodParameters()
+				.get(0);
+		assertEquals("publishChatMsg",
+				((RemoteMethodCall) calls.get(0)).getMethodName());
+		assertEquals("endGame",
+				((RemoteMethodCall) calls.get(1)).getMethodName());
+		game.notifyListeners(new RemoteMethodCall("endGame"));
+		assertEquals(2, published.size());
+		assertEquals("endGame", published.get(1).getMethodName());
+	}
+
+	/**
+	 * Checks that a batch of actions is performed in order until the first
+	 * rejected action, and that its notifications are merged
+	 */
+	@Test
+	public void testMakeActions() throws Exception {
+		Game game = new Game("GALILEI");
+		PlayerToken alien = game.addPlayer("alien");
+		game.addPlayer("human");
+		game.startGame();
+		Player player = game.getCurrentPlayer();
+		GameMap map = game.getMap();
+		Sector target = null;
+		for (Sector sector : map.getGraph().vertexSet()) {
+			if (sector.getSectorType() == SectorType.SAFE
+					&& map.checkSectorAdiacency(player.getSector(), sector,
+							player.getSpeed(), player.getPlayerType(), false)) {
+				target = sector;
+			}
+		}
+		assertNotNull(target);
+
+		// The end of the turn is not allowed before a move
+		List<Action> actions = new ArrayList<Action>();
+		actions.add(new EndTurnAction());
+		actions.add(new MoveAction(target.getCoordinate()));
+		RRClientNotification notification = (RRClientNotification) game
+				.makeActions(actions, alien)[0];
+		assertFalse(notification.getActionResult());
+		assertEquals(0, notification.getPerformedActions());
+		assertFalse(target.equals(player.getSector()));
+
+		// After the end of the turn the alien can't move again
+		actions.clear();
+		actions.add(new MoveAction(target.getCoordinate()));
+		actions.add(new EndTurnAction());
+		actions.add(new MoveAction(target.getCoordinate()));
+		ClientNotification[] notifications = game.makeActions(actions, alien);
+		notification = (RRClientNotification) notifications[0];
+		assertFalse(notification.getActionResult());
+		assertEquals(2, notification.getPerformedActions());
+		assertFalse(notifications[1].getEvents().isEmpty());
+		assertEquals(target, player.getSector());
+		assertEquals(1, game.getTurnNumber());
+		assertFalse(player.equals(game.getCurrentPlayer()));
+		game.close();
+	}
+
 	/**
 	 * Test for the the method that assign a type(ALIEN/HUMAN) to the player
 	 */
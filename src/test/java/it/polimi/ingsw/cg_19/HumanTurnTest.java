@@ -59,6 +59,14 @@ public class HumanTurnTest {
 				DefaultEdge.class);
 		Sector s1 = new Sector(new Coordinate('A', 1), SectorType.SAFE);
 		graph_1.addVertex(s1);
+		Sector safeSector = new Sector(new Coordinate('A', 1), SectorType.SAFE);
+		Sector dangerousSector = new Sector(new Coordinate('B', 1),
+				SectorType.DANGEROUS);
+		Sector rescueSector = new Sector(new Coordinate('C', 1),
+				SectorType.OPEN_RESCUE);
+		// The type of the target is read from the game's map
+		graph_1.addVertex(dangerousSector);
+		graph_1.addVertex(rescueSector);
 
 		// Instantiates a new Map map starting from the graph defined above
 		GameMap map = new GameMap(graph_1, 0, 0, 0, 0, "");
@@ -67,12 +75,6 @@ public class HumanTurnTest {
 
 		Turn turn = new HumanTurn(game);
 
-		Sector safeSector = new Sector(new Coordinate('A', 1), SectorType.SAFE);
-		Sector dangerousSector = new Sector(new Coordinate('B', 1),
-				SectorType.DANGEROUS);
-		Sector rescueSector = new Sector(new Coordinate('C', 1),
-				SectorType.OPEN_RESCUE);
-
 		SectorCard sectorCardNoObj = new LocalNoiseSectorCard(false);
 		SectorCard sectorCardObj = new LocalNoiseSectorCard(true);
 
@@ -90,14 +92,21 @@ public class HumanTurnTest {
 		// Test for a player with less than three cards in its private deck
 		game.addPlayer(playerNoFull);
 
-		assertTrue(turn.getNextActions(new MoveAction(dangerousSector))
+		assertTrue(turn.getNextActions(
+				new MoveAction(dangerousSector.getCoordinate()))
 				.contains(DrawSectorCardAction.class));
-		assertTrue(turn.getNextActions(new MoveAction(rescueSector)).contains(
-				DrawRescueCardAction.class));
-		assertTrue(turn.getNextActions(new MoveAction(safeSector)).contains(
-				UseObjAction.class));
-		assertTrue(turn.getNextActions(new MoveAction(safeSector)).contains(
-				EndTurnAction.class));
+		assertTrue(turn.getNextActions(
+				new MoveAction(rescueSector.getCoordinate()))
+				.contains(DrawRescueCardAction.class));
+		assertTrue(turn.getNextActions(
+				new MoveAction(safeSector.getCoordinate()))
+				.contains(UseObjAction.class));
+		assertTrue(turn.getNextActions(
+				new MoveAction(safeSector.getCoordinate()))
+				.contains(EndTurnAction.class));
+		// A target not on the map leads to the actions of a safe sector
+		assertTrue(turn.getNextActions(new MoveAction(new Coordinate('Z', 99)))
+				.contains(EndTurnAction.class));
 		assertTrue(turn.getNextActions(new DrawSectorCardAction()).contains(
 				UseSectorCardAction.class));
 		assertTrue(turn
@@ -55,7 +55,7 @@ public class LightsEffectTest {
 		Game game = new Game(map);
 
 		LightObjectCardEffect effect = new LightObjectCardEffect(
-				new LightsObjectCard(source));
+				new LightsObjectCard(source.getCoordinate()));
 		assertTrue(effect.executeEffect(game, n1, n2));
 		assertTrue(n1.getLightedSectors().contains(target));
 	}
@@ -67,8 +67,7 @@ public class LightsEffectTest {
 	 */
 	@Test
 	public void testLightsEffectLight() {
-		LightsObjectCard card = new LightsObjectCard(new Sector(new Coordinate(
-				'A', 1), SectorType.SAFE));
+		LightsObjectCard card = new LightsObjectCard(new Coordinate('A', 1));
 		LightObjectCardEffect effect = new LightObjectCardEffect(card);
 		assertEquals(card, effect.getObjectCard());
 	}
@@ -13,6 +13,7 @@ import common.Sector;
 import common.SectorType;
 import effects.ActionEffect;
 import effects.ActionMapper;
+import effects.MoveActionEffect;
 
 /**
  * Some test for the MoveActionTest class
@@ -64,8 +65,10 @@ public class MoveActionEffectTest {
 		game.addPlayer(player2);
 
 		// Creates the move action
-		ActionEffect move1 = mapper.getEffect(new MoveAction(target));
-		ActionEffect move2 = mapper.getEffect(new MoveAction(target));
+		ActionEffect move1 = mapper.getEffect(
+				new MoveAction(target.getCoordinate()));
+		ActionEffect move2 = mapper.getEffect(
+				new MoveAction(target.getCoordinate()));
 
 		// Executes the two action
 		move1.executeEffect(game, stubNotification, psNotification);
@@ -118,8 +121,10 @@ public class MoveActionEffectTest {
 		game.addPlayer(player2);
 
 		// Creates the move action
-		ActionEffect move1 = mapper.getEffect(new MoveAction(target));
-		ActionEffect move2 = mapper.getEffect(new MoveAction(target));
+		ActionEffect move1 = mapper.getEffect(
+				new MoveAction(target.getCoordinate()));
+		ActionEffect move2 = mapper.getEffect(
+				new MoveAction(target.getCoordinate()));
 
 		// Executes the two action
 		move1.executeEffect(game, stubNotification, psNotification);
@@ -172,8 +177,10 @@ public class MoveActionEffectTest {
 		game.addPlayer(player2);
 
 		// Creates the move action
-		ActionEffect move1 = mapper.getEffect(new MoveAction(target));
-		ActionEffect move2 = mapper.getEffect(new MoveAction(target));
+		ActionEffect move1 = mapper.getEffect(
+				new MoveAction(target.getCoordinate()));
+		ActionEffect move2 = mapper.getEffect(
+				new MoveAction(target.getCoordinate()));
 
 		// Executes the two action
 		move1.executeEffect(game, stubNotification, psNotification);
@@ -185,4 +192,27 @@ public class MoveActionEffectTest {
 
 	}
 
+	/**
+	 * Test the executeEffect method with a target that is not on the map
+	 */
+	@Test
+	public void executeActionTest_4() {
+		Sector source = new Sector(new Coordinate('A', 1), SectorType.SAFE);
+		Player player = new Player(PlayerType.HUMAN, "");
+		player.setSector(source);
+		source.addPlayer(player);
+
+		UndirectedGraph<Sector, DefaultEdge> graph = new SimpleGraph<Sector, DefaultEdge>(
+				DefaultEdge.class);
+		graph.addVertex(source);
+		Game game = new Game(new GameMap(graph, 0, 0, 0, 0, ""));
+		game.addPlayer(player);
+
+		MoveActionEffect move = new MoveActionEffect(new MoveAction(
+				new Coordinate('Z', 99)));
+		assertFalse(move.executeEffect(game, new RRClientNotification(),
+				new PSClientNotification()));
+		assertEquals(source, player.getSector());
+	}
+
 }
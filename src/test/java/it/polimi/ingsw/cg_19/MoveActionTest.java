@@ -4,8 +4,6 @@ import static org.junit.Assert.*;
 import org.junit.Test;
 import common.Coordinate;
 import common.MoveAction;
-import common.Sector;
-import common.SectorType;
 
 /**
  * Some tests for the MoveAction class
@@ -22,7 +20,7 @@ public class MoveActionTest {
 	 */
 	@Test
 	public void testGetTarget() {
-		Sector target = new Sector(new Coordinate('A', 1), SectorType.SAFE);
+		Coordinate target = new Coordinate('A', 1);
 		MoveAction action = new MoveAction(target);
 		assertEquals(target, action.getTarget());
 	}
@@ -68,8 +68,10 @@ public class MoveAttackActionEffectTest {
 		game.addPlayer(player2);
 
 		// Creates the move action
-		ActionEffect move1 = mapper.getEffect(new MoveAttackAction(target));
-		ActionEffect move2 = mapper.getEffect(new MoveAttackAction(target));
+		ActionEffect move1 = mapper.getEffect(
+				new MoveAttackAction(target.getCoordinate()));
+		ActionEffect move2 = mapper.getEffect(
+				new MoveAttackAction(target.getCoordinate()));
 
 		// Executes the two action
 		game.shiftCurrentplayer();
@@ -125,8 +127,10 @@ public class MoveAttackActionEffectTest {
 		game.addPlayer(player2);
 
 		// Creates the move action
-		ActionEffect move1 = mapper.getEffect(new MoveAttackAction(target));
-		ActionEffect move2 = mapper.getEffect(new MoveAttackAction(target));
+		ActionEffect move1 = mapper.getEffect(
+				new MoveAttackAction(target.getCoordinate()));
+		ActionEffect move2 = mapper.getEffect(
+				new MoveAttackAction(target.getCoordinate()));
 
 		// Executes the two action
 		game.shiftCurrentplayer();
@@ -183,8 +187,10 @@ public class MoveAttackActionEffectTest {
 		game.addPlayer(player2);
 
 		// Creates the move action
-		ActionEffect move1 = mapper.getEffect(new MoveAttackAction(target));
-		ActionEffect move2 = mapper.getEffect(new MoveAttackAction(target));
+		ActionEffect move1 = mapper.getEffect(
+				new MoveAttackAction(target.getCoordinate()));
+		ActionEffect move2 = mapper.getEffect(
+				new MoveAttackAction(target.getCoordinate()));
 
 		// Executes the two action
 		game.shiftCurrentplayer();
@@ -3,9 +3,8 @@ package it.polimi.ingsw.cg_19;
 import static org.junit.Assert.*;
 
 import org.junit.Test;
+import common.Coordinate;
 import common.MoveAttackAction;
-import common.Sector;
-import common.SectorType;
 
 /**
  * Some tests for the AttackAction Test
@@ -21,7 +20,7 @@ public class MoveAttackActionTest {
 	 */
 	@Test
 	public void testGetTarget() {
-		Sector s = new Sector(null, SectorType.SAFE);
+		Coordinate s = new Coordinate('A', 1);
 		MoveAttackAction action = new MoveAttackAction(s);
 		assertEquals(s, action.getTarget());
 	}
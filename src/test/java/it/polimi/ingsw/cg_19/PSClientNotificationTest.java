@@ -4,8 +4,11 @@ import static org.junit.Assert.*;
 
 import org.junit.Test;
 
+import common.Coordinate;
+import common.GameEvent;
 import common.PSClientNotification;
 import common.PlayerToken;
+import common.RRClientNotification;
 
 /**
  * Some tests for PSClientNotification class
@@ -37,4 +40,24 @@ public class PSClientNotificationTest {
 		assertEquals(p, ps.getAttackedPlayers().get(0));
 	}
 
+	/**
+	 * Checks that the events are rendered one per line, addressed to all the
+	 * players or to the player that caused them
+	 */
+	@Test
+	public void testEvents() {
+		GameEvent event = new GameEvent(GameEvent.Type.ATTACK_KILLED, "Bob",
+				"Ann", new Coordinate('L', 8));
+		PSClientNotification ps = new PSClientNotification();
+		ps.addEvent(event);
+		ps.addEvent(new GameEvent(GameEvent.Type.HUMANS_WIN, null));
+		assertEquals("[GLOBAL MESSAGE]: Bob has attacked sector L8 and so "
+				+ "Ann is dead.\n[GLOBAL MESSAGE]: The game has ended, "
+				+ "HUMANS WIN!", ps.getMessage());
+		RRClientNotification rr = new RRClientNotification();
+		rr.addEvent(event);
+		assertEquals("You have attacked sector L8 and so Ann is dead.",
+				rr.getMessage());
+	}
+
 }
@@ -0,0 +1,147 @@
+package it.polimi.ingsw.cg_19;
+
+import static org.junit.Assert.*;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import common.RmiSocketFactory;
+
+/**
+ * Some tests for the RmiSocketFactory class
+ *
+ * @author Andrea Sessa
+ * @author Giorgio Pea
+ */
+public class RmiSocketFactoryTest {
+
+	/**
+	 * A remote object that sends back what it receives
+	 */
+	public interface Echo extends Remote {
+		String echo(String message) throws RemoteException;
+	}
+
+	/**
+	 * Checks that the data written between two flushes is read as it is, the
+	 * large compressible frames and the small ones, and that both ends have no
+	 * Nagle delay
+	 */
+	@Test
+	public void testCompressedFrames() throws IOException {
+		RmiSocketFactory factory = new RmiSocketFactory(true, 64);
+		try (ServerSocket serverSocket = factory.createServerSocket(0);
+				Socket client = factory.createSocket("localhost",
+						serverSocket.getLocalPort());
+				Socket server = serverSocket.accept()) {
+			assertTrue(client.getTcpNoDelay());
+			assertTrue(server.getTcpNoDelay());
+			byte[] large = new byte[20000];
+			for (int i = 0; i < large.length; i++) {
+				large[i] = (byte) (i % 7);
+			}
+			byte[] small = new byte[] { 1, 2, 3 };
+			OutputStream output = client.getOutputStream();
+			output.write(large);
+			output.flush();
+			output.write(small);
+			output.flush();
+			DataInputStream input = new DataInputStream(server.getInputStream());
+			byte[] read = new byte[large.length];
+			input.readFully(read);
+			assertTrue(Arrays.equals(large, read));
+			read = new byte[small.length];
+			input.readFully(read);
+			assertTrue(Arrays.equals(small, read));
+			// Closing the stream ends the data, the socket is closed by the try
+			output.close();
+			assertEquals(-1, input.read());
+		}
+	}
+
+	/**
+	 * Checks that a remote object exported on the sockets of the factory is
+	 * called as usual
+	 */
+	@Test
+	public void testRemoteCall() throws RemoteException {
+		RmiSocketFactory factory = new RmiSocketFactory(true, 64);
+		Echo echo = new Echo() {
+			@Override
+			public String echo(String message) {
+				return message;
+			}
+		};
+		Echo stub = (Echo) UnicastRemoteObject.exportObject(echo, 0, factory,
+				factory);
+		try {
+			StringBuilder builder = new StringBuilder();
+			for (int i = 0; i < 2000; i++) {
+				builder.append("sector ").append(i).append(' ');
+			}
+			assertEquals("hi", stub.echo("hi"));
+			assertEquals(builder.toString(), stub.echo(builder.toString()));
+		} finally {
+			UnicastRemoteObject.unexportObject(echo, true);
+		}
+	}
+
+	/**
+	 * Checks that a call whose reply doesn't arrive before the read timeout
+	 * fails instead of blocking, and that the following calls are served
+	 */
+	@Test
+	public void testReadTimeout() throws RemoteException {
+		RmiSocketFactory factory = new RmiSocketFactory(false, 64, 200);
+		Echo echo = new Echo() {
+			@Override
+			public String echo(String message) {
+				if ("slow".equals(message)) {
+					try {
+						Thread.sleep(1000);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				return message;
+			}
+		};
+		Echo stub = (Echo) UnicastRemoteObject.exportObject(echo, 0, factory,
+				factory);
+		try {
+			long start = System.nanoTime();
+			try {
+				stub.echo("slow");
+				fail("The call should have timed out");
+			} catch (RemoteException e) {
+				assertTrue(System.nanoTime() - start < 900000000L);
+			}
+			assertEquals("hi", stub.echo("hi"));
+		} finally {
+			UnicastRemoteObject.unexportObject(echo, true);
+		}
+	}
+
+	/**
+	 * Checks that the factories with the same settings are equal, so they
+	 * share their connections
+	 */
+	@Test
+	public void testEquals() {
+		assertEquals(new RmiSocketFactory(true), new RmiSocketFactory(true));
+		assertEquals(new RmiSocketFactory(true).hashCode(),
+				new RmiSocketFactory(true).hashCode());
+		assertNotEquals(new RmiSocketFactory(true), new RmiSocketFactory(false));
+		assertNotEquals(new RmiSocketFactory(true, 64, 100),
+				new RmiSocketFactory(true, 64, 200));
+	}
+}
@@ -0,0 +1,91 @@
+package it.polimi.ingsw.cg_19;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+import common.FrameDecoder;
+import common.FrameEncoder;
+import common.PSClientNotification;
+import common.PlayerToken;
+import common.RemoteMethodCall;
+import common.SerializationCodec;
+import common.SerializationCodec.ResetPolicy;
+
+/**
+ * Some tests for the reset policy of the SerializationCodec class
+ *
+ * @author Andrea Sessa
+ * @author Giorgio Pea
+ */
+public class SerializationCodecTest {
+
+	/**
+	 * Creates a pub/sub notification call
+	 */
+	private RemoteMethodCall notification(int index) {
+		PSClientNotification notification = new PSClientNotification();
+		notification.setMessage("message " + index);
+		ArrayList<Object> parameters = new ArrayList<Object>();
+		parameters.add(notification);
+		return new RemoteMethodCall("sendPubNotification", parameters);
+	}
+
+	/**
+	 * Checks that the stream is reset when the message budget is reached, and
+	 * that the number of retained objects stays bounded
+	 */
+	@Test
+	public void testMessageBudget() throws Exception {
+		SerializationCodec codec = new SerializationCodec(new ResetPolicy(
+				Long.MAX_VALUE, 10, false));
+		FrameEncoder encoder = codec.newEncoder();
+		FrameDecoder decoder = codec.newDecoder();
+		for (int i = 0; i < 100; i++) {
+			RemoteMethodCall decoded = decoder.decode(encoder
+					.encode(notification(i)));
+			assertEquals("message " + i,
+					((PSClientNotification) decoded.getMethodParameters()
+							.get(0)).getMessage());
+		}
+		assertEquals(100, codec.getCounters().getMessages());
+		assertEquals(9, codec.getCounters().getResets());
+		long bounded = codec.getCounters().getMaxRetainedHandles();
+		for (int i = 0; i < 100; i++) {
+			encoder.encode(notification(i));
+		}
+		assertEquals(bounded, codec.getCounters().getMaxRetainedHandles());
+	}
+
+	/**
+	 * Checks that the stream is reset at the beginning of every turn
+	 */
+	@Test
+	public void testTurnBoundary() throws Exception {
+		SerializationCodec codec = new SerializationCodec(new ResetPolicy(
+				Long.MAX_VALUE, Integer.MAX_VALUE, true));
+		FrameEncoder encoder = codec.newEncoder();
+		encoder.encode(notification(0));
+		ArrayList<Object> parameters = new ArrayList<Object>();
+		parameters.add(new PlayerToken(PlayerType.HUMAN));
+		encoder.encode(new RemoteMethodCall("allowTurn", parameters));
+		encoder.encode(notification(1));
+		assertEquals(1, codec.getCounters().getResets());
+	}
+
+	/**
+	 * Checks that the stream is reset when the byte budget is reached
+	 */
+	@Test
+	public void testByteBudget() throws Exception {
+		SerializationCodec codec = new SerializationCodec(new ResetPolicy(1,
+				Integer.MAX_VALUE, false));
+		FrameEncoder encoder = codec.newEncoder();
+		for (int i = 0; i < 5; i++) {
+			encoder.encode(notification(i));
+		}
+		assertEquals(4, codec.getCounters().getResets());
+	}
+}
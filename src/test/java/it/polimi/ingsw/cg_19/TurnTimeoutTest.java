@@ -24,4 +24,22 @@ public class TurnTimeoutTest {
 		TurnTimeout timeout = new TurnTimeout(game, timer);
 		assertEquals(game, timeout.getGame());
 	}
+
+	/**
+	 * Tests that a timeout that is no more the game's current one, since the
+	 * turn has ended while it was waiting in the mailbox, is ignored
+	 */
+	@Test
+	public void testStaleTimeout() throws Exception {
+		Game game = new Game("GALILEI");
+		game.addPlayer("alien");
+		game.addPlayer("human");
+		game.startGame();
+		Player current = game.getCurrentPlayer();
+		TurnTimeout stale = new TurnTimeout(game, new Timer(true));
+		game.timeoutUpdate(stale);
+		assertSame(current, game.getCurrentPlayer());
+		assertEquals(PlayerState.ALIVE, current.getPlayerState());
+		game.close();
+	}
 }
\ No newline at end of file
@@ -0,0 +1,76 @@
+package serverClassTests;
+
+import static org.junit.Assert.*;
+import it.polimi.ingsw.cg_19.PlayerType;
+
+import org.junit.Test;
+
+import server.AdmissionControl;
+import server.AdmissionControl.Budget;
+import server.AdmissionControl.CallClass;
+import common.PlayerToken;
+import common.RemoteMethods;
+
+/**
+ * Some tests for the AdmissionControl class
+ *
+ * @author Andrea Sessa
+ * @author Giorgio Pea
+ */
+public class AdmissionControlTest {
+
+	/**
+	 * Checks that a player can send a burst of requests, and that the
+	 * following ones are rejected and counted
+	 */
+	@Test
+	public void testBurst() {
+		AdmissionControl admissionControl = new AdmissionControl();
+		admissionControl.setBudget(CallClass.ACTION, new Budget(0.01, 3));
+		PlayerToken token = new PlayerToken(PlayerType.HUMAN);
+		for (int i = 0; i < 3; i++) {
+			assertTrue(admissionControl.admit(token, RemoteMethods.MAKE_ACTION));
+		}
+		assertFalse(admissionControl.admit(token, RemoteMethods.MAKE_ACTIONS));
+		assertEquals(3, admissionControl.getAdmitted(CallClass.ACTION));
+		assertEquals(1, admissionControl.getThrottled(CallClass.ACTION));
+		// Every class has its own bucket, and every player its own budget
+		assertTrue(admissionControl.admit(token,
+				RemoteMethods.PUBLISH_GLOBAL_MESSAGE));
+		assertTrue(admissionControl.admit(new PlayerToken(PlayerType.ALIEN),
+				RemoteMethods.MAKE_ACTION));
+	}
+
+	/**
+	 * Checks that a bucket refills over time
+	 */
+	@Test
+	public void testRefill() throws InterruptedException {
+		AdmissionControl admissionControl = new AdmissionControl();
+		admissionControl.setBudget(CallClass.CHAT, new Budget(100, 1));
+		PlayerToken token = new PlayerToken(PlayerType.HUMAN);
+		assertTrue(admissionControl.admit(token,
+				RemoteMethods.PUBLISH_GLOBAL_MESSAGE));
+		Thread.sleep(50);
+		assertTrue(admissionControl.admit(token,
+				RemoteMethods.PUBLISH_GLOBAL_MESSAGE));
+	}
+
+	/**
+	 * Checks that an address has a larger budget than a player, and that the
+	 * requests that belong to no class are always admitted
+	 */
+	@Test
+	public void testAddress() {
+		AdmissionControl admissionControl = new AdmissionControl();
+		admissionControl.setBudget(CallClass.JOIN, new Budget(0.01, 1));
+		for (int i = 0; i < 10; i++) {
+			assertTrue(admissionControl.admit("10.0.0.1",
+					RemoteMethods.JOIN_NEW_GAME));
+		}
+		assertFalse(admissionControl.admit("10.0.0.1", RemoteMethods.JOIN_GAME));
+		assertNull(AdmissionControl.classOf(RemoteMethods.SEND_TOKEN));
+		assertTrue(admissionControl.admit("10.0.0.1", RemoteMethods.SEND_TOKEN));
+		assertTrue(admissionControl.admit("10.0.0.1", RemoteMethods.UNKNOWN));
+	}
+}
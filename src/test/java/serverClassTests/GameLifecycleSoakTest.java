@@ -0,0 +1,141 @@
+package serverClassTests;
+
+import static org.junit.Assert.*;
+import it.polimi.ingsw.cg_19.Game;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.junit.Test;
+
+import server.GameManager;
+import server.OverflowPolicy;
+import server.RmiCallbackExecutor;
+import server.RmiSubscriberHandler;
+import server.SubscriberMetrics;
+import server.SubscriberQueueLimit;
+import client.ClientRemoteServicesInterface;
+
+/**
+ * A soak test of the lifecycle of the games: many games are created, joined,
+ * started and ended, and the threads and the memory used must return to the
+ * level they had before
+ *
+ * @author Andrea Sessa
+ * @author Giorgio Pea
+ */
+public class GameLifecycleSoakTest {
+	private static final int GAMES = 10000;
+	private static final int WARM_UP = 200;
+	private static final int PLAYERS = 2;
+	// The memory a run of games may leave behind, in bytes
+	private static final long HEAP_TOLERANCE = 32L * 1024 * 1024;
+
+	private final GameManager gameManager = GameManager.getInstance();
+	// A subscriber that accepts and ignores all the calls
+	private final ClientRemoteServicesInterface subscriber = (ClientRemoteServicesInterface) Proxy
+			.newProxyInstance(getClass().getClassLoader(),
+					new Class<?>[] { ClientRemoteServicesInterface.class },
+					new InvocationHandler() {
+						@Override
+						public Object invoke(Object proxy, Method method,
+								Object[] args) {
+							return null;
+						}
+					});
+
+	/**
+	 * Checks that the threads, the handlers and the memory of the games are
+	 * released once the games have ended
+	 */
+	@Test
+	public void testGamesReleaseResources() throws Exception {
+		RmiCallbackExecutor executor = new RmiCallbackExecutor(2, 1000, 3);
+		try {
+			// The shared threads are created by the first games
+			play(executor, WARM_UP, null);
+			int baselineThreads = Thread.activeCount();
+			long baselineHeap = usedHeap();
+
+			List<WeakReference<Game>> games = new ArrayList<WeakReference<Game>>(
+					GAMES);
+			play(executor, GAMES, games);
+
+			assertTrue(Thread.activeCount() <= baselineThreads + 2);
+			assertEquals(0, executor.getTrackedCount());
+			long heap = usedHeap();
+			assertTrue(heap - baselineHeap < HEAP_TOLERANCE);
+			int alive = 0;
+			for (WeakReference<Game> game : games) {
+				if (game.get() != null) {
+					alive++;
+				}
+			}
+			// The timer's thread may hold the timeout it was waiting for
+			assertTrue(alive <= 1);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Plays a number of games: every game is added with its start timeout,
+	 * joined by its players, started and ended
+	 */
+	private void play(final RmiCallbackExecutor executor, int count,
+			List<WeakReference<Game>> games) throws Exception {
+		for (int i = 0; i < count; i++) {
+			final Game game = new Game("GALILEI");
+			gameManager.addGame(game);
+			game.getMailbox().call(new Callable<Void>() {
+				@Override
+				public Void call() {
+					for (int j = 0; j < PLAYERS; j++) {
+						game.addPlayer("player " + j);
+						game.addSubscriber(new RmiSubscriberHandler(
+								subscriber, executor, new SubscriberQueueLimit(
+										16, OverflowPolicy.DISCONNECT, 0,
+										new SubscriberMetrics())));
+					}
+					game.openBatch();
+					try {
+						game.startGame();
+						gameManager.removeGame(game);
+					} finally {
+						game.flushBatch();
+					}
+					return null;
+				}
+			});
+			// The game is closed by the message that follows
+			game.getMailbox().call(new Callable<Void>() {
+				@Override
+				public Void call() {
+					return null;
+				}
+			});
+			assertTrue(game.isClosed());
+			assertEquals(0, game.countObservers());
+			if (games != null) {
+				games.add(new WeakReference<Game>(game));
+			}
+		}
+	}
+
+	/**
+	 * Gets the memory used after the garbage has been collected
+	 */
+	private long usedHeap() throws InterruptedException {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+			Thread.sleep(100);
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -0,0 +1,102 @@
+package serverClassTests;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+import server.GameMailbox;
+
+/**
+ * Some tests for the GameMailbox class
+ *
+ * @author Andrea Sessa
+ * @author Giorgio Pea
+ */
+public class GameMailboxTest {
+
+	/**
+	 * Checks that the messages submitted by many threads are run one at a time,
+	 * and those of the same thread in the order they have been submitted
+	 */
+	@Test
+	public void testSerialOrder() throws Exception {
+		final GameMailbox mailbox = new GameMailbox();
+		final List<Integer> runs = Collections
+				.synchronizedList(new ArrayList<Integer>());
+		final AtomicBoolean running = new AtomicBoolean();
+		final AtomicBoolean overlapped = new AtomicBoolean();
+		final CountDownLatch done = new CountDownLatch(400);
+		Thread[] threads = new Thread[4];
+		for (int i = 0; i < threads.length; i++) {
+			final int thread = i;
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					for (int j = 0; j < 100; j++) {
+						final int value = thread * 1000 + j;
+						mailbox.execute(new Runnable() {
+							@Override
+							public void run() {
+								if (!running.compareAndSet(false, true)) {
+									overlapped.set(true);
+								}
+								runs.add(value);
+								running.set(false);
+								done.countDown();
+							}
+						});
+					}
+				}
+			};
+			threads[i].start();
+		}
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+		assertFalse(overlapped.get());
+		int[] last = { -1, 999, 1999, 2999 };
+		for (int value : runs) {
+			assertTrue(value > last[value / 1000]);
+			last[value / 1000] = value;
+		}
+	}
+
+	/**
+	 * Checks that a message that fails doesn't stop the following ones
+	 */
+	@Test
+	public void testFailingMessage() throws Exception {
+		GameMailbox mailbox = new GameMailbox();
+		mailbox.execute(new Runnable() {
+			@Override
+			public void run() {
+				throw new IllegalStateException();
+			}
+		});
+		assertEquals("next", mailbox.call(new Callable<String>() {
+			@Override
+			public String call() {
+				return "next";
+			}
+		}));
+	}
+
+	/**
+	 * Checks that the exception thrown by a message is thrown to the caller
+	 */
+	@Test(expected = InstantiationException.class)
+	public void testCallException() throws Exception {
+		new GameMailbox().call(new Callable<Object>() {
+			@Override
+			public Object call() throws InstantiationException {
+				throw new InstantiationException();
+			}
+		});
+	}
+}
@@ -2,12 +2,18 @@ package serverClassTests;
 
 import static org.junit.Assert.*;
 import it.polimi.ingsw.cg_19.Game;
+import it.polimi.ingsw.cg_19.Player;
 import it.polimi.ingsw.cg_19.PlayerType;
 
+import java.util.Observable;
+import java.util.concurrent.Callable;
+
 import org.junit.Test;
 
+import common.GamePublicData;
 import common.PlayerToken;
 import server.GameManager;
+import server.SubscriberHandler;
 
 /**
  * Some tests for the GameManager class Not all methods are tested because of
@@ -52,6 +58,108 @@ public class GameManagerTest {
 
 	}
 
+	/**
+	 * Checks that the lobby follows the games added, joined and removed
+	 */
+	@Test
+	public void testLobby() {
+		Game game = new Game("FERMI");
+		int gameId = game.getPublicData().getId();
+		gameManager.addGameNoTimer(game);
+		game.addPlayer("player");
+		GamePublicData data = null;
+		for (GamePublicData lobbyData : gameManager.getLobby().getGames()) {
+			if (lobbyData.getId() == gameId) {
+				data = lobbyData;
+			}
+		}
+		assertEquals(1, data.getPlayersCount());
+		assertNotSame(game.getPublicData(), data);
+		gameManager.removeGame(game);
+		for (GamePublicData lobbyData : gameManager.getLobby().getGames()) {
+			assertNotEquals(gameId, lobbyData.getId());
+		}
+	}
+
+	/**
+	 * Creates a handler that represents a subscriber in a game
+	 */
+	private SubscriberHandler handler() {
+		return new SubscriberHandler() {
+			@Override
+			public void update(Observable o, Object arg) {
+			}
+
+			@Override
+			public void close() {
+			}
+		};
+	}
+
+	/**
+	 * Checks that an open game whose subscribers are all lost leaves the
+	 * lobby, its players being disconnected
+	 */
+	@Test
+	public void testSubscriberLostOpenGame() throws Exception {
+		final Game game = new Game("FERMI");
+		int gameId = game.getId();
+		gameManager.addGameNoTimer(game);
+		final SubscriberHandler handler = handler();
+		PlayerToken playerToken = game.getMailbox().call(
+				new Callable<PlayerToken>() {
+					@Override
+					public PlayerToken call() {
+						game.addSubscriber(handler);
+						return game.addPlayer("player");
+					}
+				});
+		game.deleteObserver(handler);
+		// The messages of the mailbox are run in order
+		game.getMailbox().call(new Callable<Void>() {
+			@Override
+			public Void call() {
+				return null;
+			}
+		});
+		assertTrue(game.isDisconnected(playerToken));
+		assertNull(gameManager.getGame(gameId));
+		for (GamePublicData lobbyData : gameManager.getLobby().getGames()) {
+			assertNotEquals(gameId, lobbyData.getId());
+		}
+	}
+
+	/**
+	 * Checks that the turn of a disconnected player ends at once, without
+	 * waiting for the turn timeout
+	 */
+	@Test
+	public void testSubscriberLostCurrentPlayer() throws Exception {
+		final Game game = new Game("GALILEI");
+		gameManager.addGameNoTimer(game);
+		final SubscriberHandler first = handler();
+		game.getMailbox().call(new Callable<Void>() {
+			@Override
+			public Void call() {
+				game.addSubscriber(first);
+				game.addPlayer("first");
+				game.addSubscriber(handler());
+				game.addPlayer("second");
+				game.startGame();
+				return null;
+			}
+		});
+		Player firstPlayer = game.getCurrentPlayer();
+		game.deleteObserver(first);
+		long deadline = System.currentTimeMillis() + 5000;
+		while (game.getCurrentPlayer() == firstPlayer
+				&& System.currentTimeMillis() < deadline) {
+			Thread.sleep(20);
+		}
+		assertNotSame(firstPlayer, game.getCurrentPlayer());
+		gameManager.removeGame(game);
+	}
+
 	/**
 	 * Checks that a game is correctly removed
 	 */
@@ -0,0 +1,112 @@
+package serverClassTests;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import server.GameStatus;
+import server.Lobby;
+import server.LobbySnapshot;
+import common.GamePublicData;
+import common.LobbyPage;
+import common.LobbyQuery;
+
+/**
+ * Some tests for the LobbySnapshot class
+ *
+ * @author Andrea Sessa
+ * @author Giorgio Pea
+ */
+public class LobbySnapshotTest {
+
+	/**
+	 * Creates the public data of a game
+	 */
+	private GamePublicData game(int id, String mapName, int players,
+			GameStatus status) {
+		GamePublicData data = new GamePublicData(id, "Game_" + id, mapName);
+		for (int i = 0; i < players; i++) {
+			data.addPlayer();
+		}
+		data.setStatus(status);
+		return data;
+	}
+
+	/**
+	 * Checks that the games are filtered by map, status and free seats
+	 */
+	@Test
+	public void testFilters() {
+		Lobby lobby = new Lobby();
+		lobby.putGame(game(1, "GALILEI", 0, GameStatus.OPEN));
+		lobby.putGame(game(2, "FERMI", 0, GameStatus.OPEN));
+		lobby.putGame(game(3, "GALILEI", 2, GameStatus.CLOSED));
+		lobby.putGame(game(4, "GALILEI", GamePublicData.MAX_PLAYERS - 1,
+				GameStatus.OPEN));
+		LobbySnapshot snapshot = lobby.getSnapshot();
+
+		LobbyPage page = snapshot.query(new LobbyQuery("GALILEI", true, 1, 0,
+				10));
+		assertEquals(2, page.getTotal());
+		assertEquals(1, page.getGames().get(0).getId());
+		assertEquals(4, page.getGames().get(1).getId());
+		page = snapshot.query(new LobbyQuery("GALILEI", true, 2, 0, 10));
+		assertEquals(1, page.getTotal());
+		assertEquals(1, page.getGames().get(0).getId());
+		page = snapshot.query(new LobbyQuery(null, false, 0, 0, 10));
+		assertEquals(4, page.getTotal());
+		page = snapshot.query(new LobbyQuery(0, 10));
+		assertEquals(3, page.getTotal());
+	}
+
+	/**
+	 * Checks that the matching games are returned page by page
+	 */
+	@Test
+	public void testPaging() {
+		Lobby lobby = new Lobby();
+		for (int i = 0; i < 25; i++) {
+			lobby.putGame(game(i, "GALILEI", 0, GameStatus.OPEN));
+		}
+		LobbySnapshot snapshot = lobby.getSnapshot();
+
+		LobbyPage page = snapshot.query(new LobbyQuery(0, 10));
+		assertEquals(25, page.getTotal());
+		assertEquals(10, page.getGames().size());
+		assertTrue(page.hasNext());
+		page = snapshot.query(new LobbyQuery(20, 10));
+		assertEquals(20, page.getOffset());
+		assertEquals(5, page.getGames().size());
+		assertEquals(20, page.getGames().get(0).getId());
+		assertFalse(page.hasNext());
+		page = snapshot.query(new LobbyQuery(40, 10));
+		assertEquals(25, page.getOffset());
+		assertTrue(page.getGames().isEmpty());
+	}
+
+	/**
+	 * Checks that every change of the lobby publishes a new version, and that
+	 * a snapshot already taken is not affected by the later changes
+	 */
+	@Test
+	public void testVersions() {
+		Lobby lobby = new Lobby();
+		assertEquals(0, lobby.getSnapshot().getVersion());
+		GamePublicData data = game(1, "GALILEI", 0, GameStatus.OPEN);
+		lobby.putGame(data);
+		LobbySnapshot first = lobby.getSnapshot();
+		assertEquals(1, first.getVersion());
+		assertEquals(1, first.query(new LobbyQuery(0, 10)).getTotal());
+
+		lobby.putGame(data);
+		assertSame(first, lobby.getSnapshot());
+		data.setStatus(GameStatus.CLOSED);
+		lobby.putGame(data);
+		lobby.removeGame(1);
+		assertEquals(3, lobby.getSnapshot().getVersion());
+		assertTrue(lobby.getGames().isEmpty());
+		assertEquals(1, first.getGames().size());
+		assertEquals(GameStatus.OPEN, first.getGames().get(0).getStatus());
+		assertEquals(1, first.query(new LobbyQuery(0, 10)).getTotal());
+	}
+}
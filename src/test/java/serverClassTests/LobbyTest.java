@@ -0,0 +1,120 @@
+package serverClassTests;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Observable;
+
+import org.junit.Test;
+
+import server.GameStatus;
+import server.Lobby;
+import server.SubscriberHandler;
+import common.Broadcast;
+import common.GamePublicData;
+import common.LobbyDelta;
+import common.RemoteMethodCall;
+
+/**
+ * Some tests for the Lobby class
+ *
+ * @author Andrea Sessa
+ * @author Giorgio Pea
+ */
+public class LobbyTest {
+
+	/**
+	 * Checks that a new subscriber receives the list of games first and then
+	 * only the changes made afterwards, in order
+	 */
+	@Test
+	public void testSnapshotThenDeltas() {
+		Lobby lobby = new Lobby();
+		GamePublicData first = new GamePublicData(1, "Game_1");
+		lobby.putGame(first);
+		RecordingHandler handler = new RecordingHandler();
+		lobby.subscribe("client", handler);
+		GamePublicData second = new GamePublicData(2, "Game_2");
+		lobby.putGame(second);
+		first.addPlayer();
+		lobby.putGame(first);
+		lobby.removeGame(2);
+
+		assertEquals(4, handler.calls.size());
+		assertEquals("sendAvailableGames", handler.calls.get(0)
+				.getMethodName());
+		List<?> games = (List<?>) handler.calls.get(0).getMethodParameters()
+				.get(0);
+		assertEquals(1, games.size());
+		assertEquals(LobbyDelta.Kind.ADDED, handler.delta(1).getKind());
+		assertEquals(2, handler.delta(1).getGame().getId());
+		assertEquals(LobbyDelta.Kind.UPDATED, handler.delta(2).getKind());
+		assertEquals(1, handler.delta(2).getGame().getPlayersCount());
+		assertEquals(LobbyDelta.Kind.REMOVED, handler.delta(3).getKind());
+		assertEquals(2, handler.delta(3).getGame().getId());
+	}
+
+	/**
+	 * Checks that the lobby keeps a copy of the games' public data and
+	 * publishes nothing if they haven't changed
+	 */
+	@Test
+	public void testCopyAndUnchanged() {
+		Lobby lobby = new Lobby();
+		GamePublicData data = new GamePublicData(1, "Game_1");
+		lobby.putGame(data);
+		RecordingHandler handler = new RecordingHandler();
+		lobby.subscribe("client", handler);
+		lobby.putGame(data);
+		data.setStatus(GameStatus.CLOSED);
+		assertEquals(GameStatus.OPEN, lobby.getGames().get(0).getStatus());
+		assertEquals(1, handler.calls.size());
+		lobby.putGame(data);
+		assertEquals(2, handler.calls.size());
+		assertEquals(GameStatus.CLOSED, lobby.getGames().get(0).getStatus());
+	}
+
+	/**
+	 * Checks that an unsubscribed client, or a client whose handler gives up,
+	 * receives no more changes
+	 */
+	@Test
+	public void testUnsubscribe() {
+		Lobby lobby = new Lobby();
+		RecordingHandler first = new RecordingHandler();
+		RecordingHandler second = new RecordingHandler();
+		lobby.subscribe("first", first);
+		lobby.subscribe("second", second);
+		assertEquals(2, lobby.getSubscribersCount());
+		lobby.unsubscribe("first");
+		lobby.deleteObserver(second);
+		assertEquals(0, lobby.getSubscribersCount());
+		lobby.putGame(new GamePublicData(1, "Game_1"));
+		assertEquals(1, first.calls.size());
+		assertEquals(1, second.calls.size());
+		assertTrue(first.closed);
+	}
+
+	/**
+	 * A handler that records the calls published to it
+	 */
+	private static class RecordingHandler implements SubscriberHandler {
+		private final List<RemoteMethodCall> calls = new ArrayList<RemoteMethodCall>();
+		private boolean closed;
+
+		@Override
+		public void update(Observable o, Object arg) {
+			calls.add(((Broadcast) arg).getRemoteMethodCall());
+		}
+
+		@Override
+		public void close() {
+			closed = true;
+		}
+
+		public LobbyDelta delta(int index) {
+			return (LobbyDelta) calls.get(index).getMethodParameters().get(0);
+		}
+	}
+}
@@ -2,10 +2,36 @@ package serverClassTests;
 
 import static org.junit.Assert.*;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
 import org.junit.Test;
 
+import it.polimi.ingsw.cg_19.Game;
+import it.polimi.ingsw.cg_19.PlayerType;
+import client.Client;
+import client.ClientConnection;
+import client.SocketSession;
+import common.DeflateCodec;
+import common.Frames;
+import common.GamePublicData;
+import common.Handshake;
+import common.Heartbeat;
+import common.PlayerToken;
+import common.RemoteMethodCall;
+import common.RequestRejectedException;
+import common.WireCodec;
+import server.AdmissionControl;
 import server.GameManager;
 import server.MainServer;
 import server.ServerConnection;
@@ -17,8 +43,41 @@ import server.ServerConnection;
  * @author Giorgio Pea
  */
 public class MainServerTest {
-	private MainServer server;
-	private ServerConnection serverConn = new ServerConnection(000, 000, "");
+	// Only one rmi registry can be created in a jvm, the server is shared
+	private static MainServer server;
+	private static Thread serverThread;
+
+	/**
+	 * Creates the server and starts its socket based communication
+	 * 
+	 * @throws IOException
+	 */
+	@BeforeClass
+	public static void startServer() throws IOException {
+		server = new MainServer(new ServerConnection(000, 000, ""));
+		serverThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					server.startSocketServer();
+				} catch (Exception e) {
+					fail();
+				}
+			}
+		});
+		serverThread.start();
+	}
+
+	/**
+	 * Stops the socket based communication of the server
+	 * 
+	 * @throws Exception
+	 */
+	@AfterClass
+	public static void stopServer() throws Exception {
+		server.stopSocketServer();
+		serverThread.join();
+	}
 
 	/**
 	 * Checks that the getGameManager return the correct reference to the
@@ -28,8 +87,296 @@ public class MainServerTest {
 	 */
 	@Test
 	public void getGameManagerTest() throws IOException {
-		server = new MainServer(serverConn);
 		assertTrue(GameManager.getInstance() == server.getGameManager());
 		assertEquals(GameManager.getInstance(), server.getGameManager());
 	}
+
+	/**
+	 * Checks that many clients are served by the socket server, every request
+	 * receiving its own response
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void socketRequestsTest() throws Exception {
+		for (int i = 0; i < 20; i++) {
+			Client client = new Client(new ClientConnection(
+					server.getSocketPort(), "localhost"));
+			client.buildDataRemoteExchangeFactory("SOCKET");
+			List<GamePublicData> games = client.getGames();
+			assertEquals(GameManager.getInstance().getGames().size(),
+					games.size());
+		}
+	}
+
+	/**
+	 * Checks that many concurrent requests of the same client, all sent on the
+	 * same connection, are matched with their own responses
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void socketSessionTest() throws Exception {
+		final Client client = new Client(new ClientConnection(
+				server.getSocketPort(), "localhost"));
+		client.buildDataRemoteExchangeFactory("SOCKET");
+		final AtomicInteger responses = new AtomicInteger();
+		Thread[] threads = new Thread[8];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						for (int j = 0; j < 25; j++) {
+							client.getGames();
+							responses.incrementAndGet();
+						}
+					} catch (Exception e) {
+						fail();
+					}
+				}
+			});
+			threads[i].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(200, responses.get());
+	}
+
+	/**
+	 * Checks that the requests of many games, handled at the same time, are
+	 * answered on the connections of the clients that made them
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void concurrentGamesTest() throws Exception {
+		final int games = 50;
+		final Client[][] players = new Client[games][2];
+		final AtomicInteger failures = new AtomicInteger();
+		Thread[] threads = new Thread[games];
+		for (int i = 0; i < games; i++) {
+			final int game = i;
+			threads[i] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						for (int j = 0; j < 2; j++) {
+							players[game][j] = new Client(new ClientConnection(
+									server.getSocketPort(), "localhost"));
+							players[game][j]
+									.buildDataRemoteExchangeFactory("SOCKET");
+						}
+						players[game][0].joinNewGame("GALILEI", "first");
+						int gameId = GameManager.getInstance()
+								.getGame(players[game][0].getToken())
+								.getPublicData().getId();
+						players[game][1].joinGame(gameId, "second");
+						for (int j = 0; j < 10; j++) {
+							players[game][j % 2].sendMessage("message " + j);
+						}
+					} catch (Exception e) {
+						failures.incrementAndGet();
+					}
+				}
+			});
+			threads[i].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(0, failures.get());
+		for (Client[] game : players) {
+			assertNotNull(game[0].getToken());
+			assertNotEquals(game[0].getToken(), game[1].getToken());
+			assertSame(GameManager.getInstance().getGame(game[0].getToken()),
+					GameManager.getInstance().getGame(game[1].getToken()));
+			GameManager.getInstance().removeGame(
+					GameManager.getInstance().getGame(game[0].getToken()));
+		}
+	}
+
+	/**
+	 * Checks that a silent client receives heartbeats and is reaped after the
+	 * idle timeout, while a client that sends its heartbeats is kept
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void heartbeatTest() throws Exception {
+		Heartbeat heartbeat = new Heartbeat(100, 500);
+		server.setHeartbeat(heartbeat);
+		Socket socket = new Socket("localhost", server.getSocketPort());
+		try {
+			socket.setSoTimeout(5000);
+			DataOutputStream output = new DataOutputStream(
+					new BufferedOutputStream(socket.getOutputStream()));
+			DataInputStream input = new DataInputStream(
+					new BufferedInputStream(socket.getInputStream()));
+			Frames.write(output, Handshake.hello(Handshake.supportedCodecs()));
+			Frames.read(input);
+			Client client = new Client(new ClientConnection(
+					server.getSocketPort(), "localhost", heartbeat));
+			SocketSession session = new SocketSession(client.getConnection(),
+					client.getClientServices(), Handshake.supportedCodecs());
+			long start = System.nanoTime();
+			assertTrue(Heartbeat.isHeartbeat(Frames.read(input)));
+			try {
+				while (true) {
+					Frames.read(input);
+				}
+			} catch (SocketTimeoutException e) {
+				fail();
+			} catch (IOException e) {
+				// The silent client has been reaped
+			}
+			assertTrue(System.nanoTime() - start < 3000000000L);
+			Thread.sleep(500);
+			assertFalse(session.isClosed());
+			session.close();
+		} finally {
+			socket.close();
+			server.setHeartbeat(Heartbeat.DEFAULT);
+		}
+	}
+
+	/**
+	 * Checks that the requests beyond the budget of a client are rejected
+	 * before being handled, and that the client is told so
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void admissionControlTest() throws Exception {
+		AdmissionControl admissionControl = new AdmissionControl();
+		// An address has ten times the budget of a player
+		admissionControl.setBudget(AdmissionControl.CallClass.LOBBY,
+				new AdmissionControl.Budget(0.01, 2));
+		server.setAdmissionControl(admissionControl);
+		try {
+			Client client = new Client(new ClientConnection(
+					server.getSocketPort(), "localhost"));
+			client.buildDataRemoteExchangeFactory("SOCKET");
+			for (int i = 0; i < 20; i++) {
+				client.getGames();
+			}
+			try {
+				client.getGames();
+				fail();
+			} catch (RequestRejectedException e) {
+				// The client is told that the request has been rejected
+			}
+			assertEquals(20,
+					admissionControl.getAdmitted(AdmissionControl.CallClass.LOBBY));
+			assertEquals(1,
+					admissionControl.getThrottled(AdmissionControl.CallClass.LOBBY));
+		} finally {
+			server.setAdmissionControl(new AdmissionControl());
+		}
+	}
+
+	/**
+	 * Checks that a request that fails in the game's mailbox is answered with
+	 * an error, instead of leaving the client waiting
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void failedRequestTest() throws Exception {
+		Game game = new Game("GALILEI");
+		GameManager.getInstance().addGame(game);
+		try {
+			Client client = new Client(new ClientConnection(
+					server.getSocketPort(), "localhost"));
+			client.buildDataRemoteExchangeFactory("SOCKET");
+			// A token of the game that doesn't belong to any of its players
+			PlayerToken token = new PlayerToken(PlayerType.HUMAN);
+			GameManager.getInstance().addPlayerToGame(token, game.getId());
+			client.setToken(token);
+			long start = System.nanoTime();
+			try {
+				client.sendMessage("hello");
+				fail();
+			} catch (IOException e) {
+				assertFalse(e instanceof RequestRejectedException);
+			}
+			assertTrue(System.nanoTime() - start < 5000000000L);
+		} finally {
+			GameManager.getInstance().removeGame(game);
+		}
+	}
+
+	/**
+	 * Checks that a request with a stale token is answered with an error, and
+	 * that the client's session survives it
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void staleTokenTest() throws Exception {
+		Client client = new Client(new ClientConnection(
+				server.getSocketPort(), "localhost"));
+		client.buildDataRemoteExchangeFactory("SOCKET");
+		// A token that doesn't belong to any game
+		client.setToken(new PlayerToken(PlayerType.HUMAN));
+		try {
+			client.sendMessage("hello");
+			fail();
+		} catch (IOException e) {
+			// The error is sent by the server, the session is still open
+			assertEquals("The game doesn't exist", e.getMessage());
+		}
+		client.getGames();
+	}
+
+	/**
+	 * Checks that enabling and disabling the compression only changes the
+	 * codecs offered, so that their counters are kept
+	 */
+	@Test
+	public void compressionTest() {
+		WireCodec[] plain = server.getCodecs();
+		try {
+			server.setCompression(true);
+			WireCodec[] compressed = server.getCodecs();
+			assertEquals(plain.length + 1, compressed.length);
+			assertTrue(compressed[0] instanceof DeflateCodec);
+			for (int i = 0; i < plain.length; i++) {
+				assertSame(plain[i], compressed[i + 1]);
+			}
+			server.setCompression(false);
+			server.setCompression(true);
+			assertSame(compressed[0], server.getCodecs()[0]);
+		} finally {
+			server.setCompression(false);
+		}
+		assertArrayEquals(plain, server.getCodecs());
+	}
+
+	/**
+	 * Checks that the calls to methods not offered by the server are rejected
+	 * 
+	 * @throws Exception
+	 */
+	@Test(expected = NoSuchMethodException.class)
+	public void unknownMethodTest() throws Exception {
+		server.getServicesViaSocket().processRemoteInvocation(null,
+				new RemoteMethodCall("shutdown"));
+	}
+
+	/**
+	 * Checks that the calls whose parameters don't match the method are
+	 * rejected
+	 * 
+	 * @throws Exception
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void wrongParametersTest() throws Exception {
+		ArrayList<Object> parameters = new ArrayList<Object>();
+		parameters.add("GALILEI");
+		parameters.add(3);
+		server.getServicesViaSocket().processRemoteInvocation(null,
+				new RemoteMethodCall("joinNewGame", parameters));
+	}
 }
@@ -0,0 +1,163 @@
+package serverClassTests;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.junit.Test;
+
+import server.RequestScheduler;
+import server.RequestScheduler.Lane;
+import common.RemoteMethods;
+
+/**
+ * Some tests for the RequestScheduler class
+ *
+ * @author Andrea Sessa
+ * @author Giorgio Pea
+ */
+public class RequestSchedulerTest {
+
+	/**
+	 * An executor that keeps the workers, to run them when the test wants
+	 */
+	private static class ManualExecutor implements Executor {
+		private final List<Runnable> workers = new ArrayList<Runnable>();
+
+		@Override
+		public void execute(Runnable command) {
+			workers.add(command);
+		}
+
+		void runAll() {
+			while (!workers.isEmpty()) {
+				workers.remove(0).run();
+			}
+		}
+	}
+
+	/**
+	 * A request that records its lane when handled
+	 */
+	private static class LaneTask implements Runnable {
+		private final Lane lane;
+		private final List<Lane> handled;
+
+		LaneTask(Lane lane, List<Lane> handled) {
+			this.lane = lane;
+			this.handled = handled;
+		}
+
+		@Override
+		public void run() {
+			handled.add(lane);
+		}
+	}
+
+	/**
+	 * Checks that the methods are in the expected lanes
+	 */
+	@Test
+	public void testLaneOf() {
+		assertEquals(Lane.ACTION, RequestScheduler.laneOf(RemoteMethods.MAKE_ACTION));
+		assertEquals(Lane.ACTION,
+				RequestScheduler.laneOf(RemoteMethods.MAKE_ACTIONS));
+		assertEquals(Lane.CONTROL,
+				RequestScheduler.laneOf(RemoteMethods.JOIN_GAME));
+		assertEquals(Lane.CHAT,
+				RequestScheduler.laneOf(RemoteMethods.PUBLISH_GLOBAL_MESSAGE));
+		assertEquals(Lane.LOBBY, RequestScheduler.laneOf(RemoteMethods.GET_GAMES));
+		assertEquals(Lane.LOBBY, RequestScheduler.laneOf(-1));
+		assertEquals(Lane.LOBBY, RequestScheduler.laneOf(RemoteMethods.COUNT));
+	}
+
+	/**
+	 * Checks that, when the requests wait, the lanes are served in proportion
+	 * to their weights, and that the lowest lane is served in every round
+	 */
+	@Test
+	public void testWeightedOrder() {
+		ManualExecutor executor = new ManualExecutor();
+		RequestScheduler scheduler = new RequestScheduler(executor, 1);
+		List<Lane> handled = new ArrayList<Lane>();
+		for (int i = 0; i < 30; i++) {
+			scheduler.submit(Lane.LOBBY, new LaneTask(Lane.LOBBY, handled));
+		}
+		for (int i = 0; i < 30; i++) {
+			scheduler.submit(Lane.ACTION, new LaneTask(Lane.ACTION, handled));
+			scheduler.submit(Lane.CHAT, new LaneTask(Lane.CHAT, handled));
+		}
+		// A single worker is started for all the requests
+		assertEquals(1, executor.workers.size());
+		assertEquals(30, scheduler.getQueued(Lane.LOBBY));
+		executor.runAll();
+		assertEquals(90, handled.size());
+		// A round serves the lanes with requests waiting by their weights
+		int round = Lane.ACTION.getWeight() + Lane.CHAT.getWeight()
+				+ Lane.LOBBY.getWeight();
+		List<Lane> first = handled.subList(0, round);
+		assertEquals(Lane.ACTION, first.get(0));
+		assertEquals(Lane.ACTION.getWeight(), count(first, Lane.ACTION));
+		assertEquals(Lane.CHAT.getWeight(), count(first, Lane.CHAT));
+		assertEquals(Lane.LOBBY.getWeight(), count(first, Lane.LOBBY));
+		assertEquals(0, scheduler.getQueued(Lane.LOBBY));
+		assertEquals(30, scheduler.getLatency(Lane.LOBBY).getCount());
+		assertEquals(30, scheduler.getLatency(Lane.ACTION).getCount());
+		assertEquals(0, scheduler.getLatency(Lane.CONTROL).getCount());
+	}
+
+	/**
+	 * Checks that a worker is started again after the lanes have emptied,
+	 * and that a failed request does not stop the following ones
+	 */
+	@Test
+	public void testFailedRequest() {
+		ManualExecutor executor = new ManualExecutor();
+		RequestScheduler scheduler = new RequestScheduler(executor, 1);
+		List<Lane> handled = new ArrayList<Lane>();
+		scheduler.submit(Lane.ACTION, new LaneTask(Lane.ACTION, handled));
+		executor.runAll();
+		scheduler.submit(Lane.ACTION, new Runnable() {
+			@Override
+			public void run() {
+				throw new IllegalStateException();
+			}
+		});
+		scheduler.submit(Lane.CHAT, new LaneTask(Lane.CHAT, handled));
+		assertEquals(1, executor.workers.size());
+		executor.runAll();
+		assertEquals(2, handled.size());
+		assertEquals(2, scheduler.getLatency(Lane.ACTION).getCount());
+	}
+
+	/**
+	 * Checks the percentiles of the time waited in a lane
+	 */
+	@Test
+	public void testLatency() throws InterruptedException {
+		ManualExecutor executor = new ManualExecutor();
+		RequestScheduler scheduler = new RequestScheduler(executor, 1);
+		List<Lane> handled = new ArrayList<Lane>();
+		scheduler.submit(Lane.LOBBY, new LaneTask(Lane.LOBBY, handled));
+		Thread.sleep(20);
+		executor.runAll();
+		RequestScheduler.QueueLatency latency = scheduler
+				.getLatency(Lane.LOBBY);
+		assertTrue(latency.getMax() >= 20000000L);
+		assertEquals(latency.getMax(), latency.getMean());
+		assertEquals(latency.getMax(), latency.getPercentile(99));
+		assertEquals(0, scheduler.getLatency(Lane.CHAT).getPercentile(99));
+	}
+
+	private static int count(List<Lane> lanes, Lane lane) {
+		int count = 0;
+		for (Lane each : lanes) {
+			if (each == lane) {
+				count++;
+			}
+		}
+		return count;
+	}
+}
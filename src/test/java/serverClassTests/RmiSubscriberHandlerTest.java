@@ -0,0 +1,281 @@
+package serverClassTests;
+
+import static org.junit.Assert.*;
+
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Observable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import server.OverflowPolicy;
+import server.RmiCallbackExecutor;
+import server.RmiSubscriberHandler;
+import server.SubscriberMetrics;
+import server.SubscriberQueueLimit;
+import client.ClientRemoteServicesInterface;
+import common.Broadcast;
+import common.ClientNotification;
+import common.CompiledMap;
+import common.GamePublicData;
+import common.LobbyDelta;
+import common.LobbyPage;
+import common.PlayerToken;
+import common.RemoteMethodCall;
+
+/**
+ * Some tests for the RmiSubscriberHandler class, using a fake subscriber in
+ * place of a client's stub
+ *
+ * @author Andrea Sessa
+ * @author Giorgio Pea
+ */
+public class RmiSubscriberHandlerTest {
+	private RmiCallbackExecutor executor = new RmiCallbackExecutor(2, 100, 2);
+	private Topic topic = new Topic();
+
+	@After
+	public void tearDown() {
+		executor.shutdown();
+	}
+
+	/**
+	 * Creates the bound on the queue of a subscriber
+	 */
+	private SubscriberQueueLimit limit() {
+		return new SubscriberQueueLimit(1000, OverflowPolicy.DISCONNECT, 0,
+				new SubscriberMetrics());
+	}
+
+	/**
+	 * Creates a chat message call
+	 */
+	private RemoteMethodCall chat(int index) {
+		ArrayList<Object> parameters = new ArrayList<Object>();
+		parameters.add("message " + index);
+		return new RemoteMethodCall("publishChatMsg", parameters);
+	}
+
+	/**
+	 * Checks that all the calls are delivered in order, those published while
+	 * a batch is in flight being delivered together
+	 */
+	@Test
+	public void testBatchedDeliveryOrder() throws Exception {
+		FakeSubscriber subscriber = new FakeSubscriber(20, 100);
+		RmiSubscriberHandler handler = new RmiSubscriberHandler(subscriber,
+				executor, limit());
+		topic.addObserver(handler);
+		for (int i = 0; i < 100; i++) {
+			topic.publish(chat(i));
+		}
+		assertTrue(subscriber.delivered.await(5, TimeUnit.SECONDS));
+		for (int i = 0; i < 100; i++) {
+			assertEquals("message " + i, subscriber.messages.get(i));
+		}
+		assertTrue(subscriber.batches < 100);
+		assertFalse(handler.isEvicted());
+	}
+
+	/**
+	 * Checks that the calls published while the handler is held are queued,
+	 * and delivered in order once it is released
+	 */
+	@Test
+	public void testHeldDelivery() throws Exception {
+		FakeSubscriber subscriber = new FakeSubscriber(0, 3);
+		RmiSubscriberHandler handler = new RmiSubscriberHandler(subscriber,
+				executor, limit());
+		handler.hold();
+		topic.addObserver(handler);
+		for (int i = 0; i < 3; i++) {
+			topic.publish(chat(i));
+		}
+		assertFalse(subscriber.delivered.await(300, TimeUnit.MILLISECONDS));
+		assertEquals(0, subscriber.batches);
+		handler.release();
+		assertTrue(subscriber.delivered.await(5, TimeUnit.SECONDS));
+		for (int i = 0; i < 3; i++) {
+			assertEquals("message " + i, subscriber.messages.get(i));
+		}
+	}
+
+	/**
+	 * Checks that a subscriber that misses its deadlines is evicted and stops
+	 * observing the topic
+	 */
+	@Test
+	public void testSlowSubscriberEvicted() throws Exception {
+		FakeSubscriber subscriber = new FakeSubscriber(300, 1);
+		RmiSubscriberHandler handler = new RmiSubscriberHandler(subscriber,
+				executor, limit());
+		topic.addObserver(handler);
+		for (int i = 0; i < 5; i++) {
+			topic.publish(chat(i));
+			Thread.sleep(350);
+		}
+		assertTrue(handler.isEvicted());
+		assertEquals(0, topic.countObservers());
+	}
+
+	/**
+	 * Checks that the subscribers that don't respond are evicted while their
+	 * batches are in flight, and that the threads blocked on them are
+	 * replaced, so the other subscribers still receive their calls
+	 */
+	@Test
+	public void testStalledSubscribersReplaced() throws Exception {
+		for (int i = 0; i < 2; i++) {
+			topic.addObserver(new RmiSubscriberHandler(
+					new FakeSubscriber(1000, 1), executor, limit()));
+		}
+		topic.publish(chat(0));
+		Topic other = new Topic();
+		FakeSubscriber subscriber = new FakeSubscriber(0, 1);
+		RmiSubscriberHandler handler = new RmiSubscriberHandler(subscriber,
+				executor, limit());
+		other.addObserver(handler);
+		other.publish(chat(1));
+		assertTrue(subscriber.delivered.await(700, TimeUnit.MILLISECONDS));
+		// Both the stalled subscribers have missed their deadlines by now
+		Thread.sleep(200);
+		assertEquals(0, topic.countObservers());
+		assertEquals(2, executor.getStalledCount());
+		assertFalse(handler.isEvicted());
+		Thread.sleep(800);
+		assertEquals(0, executor.getStalledCount());
+	}
+
+	/**
+	 * Checks that an idle subscriber is pinged, and evicted once it is no more
+	 * reachable even if the topic publishes nothing
+	 */
+	@Test
+	public void testIdleSubscriberPinged() throws Exception {
+		RmiCallbackExecutor pingingExecutor = new RmiCallbackExecutor(2, 100,
+				2, 50);
+		try {
+			FakeSubscriber subscriber = new FakeSubscriber(0, 1);
+			RmiSubscriberHandler handler = new RmiSubscriberHandler(
+					subscriber, pingingExecutor, limit());
+			topic.addObserver(handler);
+			topic.publish(chat(0));
+			assertTrue(subscriber.delivered.await(5, TimeUnit.SECONDS));
+			Thread.sleep(300);
+			assertTrue(subscriber.batches > 1);
+			assertFalse(handler.isEvicted());
+
+			subscriber.reachable = false;
+			Thread.sleep(600);
+			assertTrue(handler.isEvicted());
+			assertEquals(0, topic.countObservers());
+		} finally {
+			pingingExecutor.shutdown();
+		}
+	}
+
+	/**
+	 * A topic that publishes remote method calls
+	 */
+	private static class Topic extends Observable {
+		public synchronized void publish(RemoteMethodCall remoteMethodCall) {
+			setChanged();
+			notifyObservers(new Broadcast(remoteMethodCall));
+		}
+	}
+
+	/**
+	 * A subscriber that records the chat messages it receives, taking some
+	 * time for each batch
+	 */
+	private static class FakeSubscriber implements
+			ClientRemoteServicesInterface {
+		private final long delay;
+		private final List<String> messages = new ArrayList<String>();
+		private final CountDownLatch delivered;
+		private volatile int batches;
+		private volatile boolean reachable = true;
+
+		public FakeSubscriber(long delay, int expected) {
+			this.delay = delay;
+			this.delivered = new CountDownLatch(expected);
+		}
+
+		@Override
+		public void deliverBatch(ArrayList<RemoteMethodCall> remoteMethodCalls)
+				throws RemoteException {
+			if (!reachable) {
+				throw new RemoteException("Unreachable");
+			}
+			try {
+				Thread.sleep(delay);
+			} catch (InterruptedException e) {
+				throw new RemoteException("Interrupted", e);
+			}
+			batches++;
+			for (RemoteMethodCall remoteMethodCall : remoteMethodCalls) {
+				publishChatMsg((String) remoteMethodCall.getMethodParameters()
+						.get(0));
+			}
+		}
+
+		@Override
+		public synchronized void publishChatMsg(String message) {
+			messages.add(message);
+			delivered.countDown();
+		}
+
+		@Override
+		public void sendToken(PlayerToken token) {
+		}
+
+		@Override
+		public void sendAvailableGames(ArrayList<GamePublicData> availableGames) {
+		}
+
+		@Override
+		public void sendGamesPage(LobbyPage page) {
+		}
+
+		@Override
+		public void updateLobby(LobbyDelta delta) {
+		}
+
+		@Override
+		public void sendNotification(ClientNotification notification) {
+		}
+
+		@Override
+		public void sendPubNotification(ClientNotification notification) {
+		}
+
+		@Override
+		public void sendMap(String mapName, PlayerToken playerToken,
+				String mapHash) {
+		}
+
+		@Override
+		public void sendCompiledMap(CompiledMap map) {
+		}
+
+		@Override
+		public void allowTurn(PlayerToken playerToken) {
+		}
+
+		@Override
+		public void kick(PlayerToken playerToken) {
+		}
+
+		@Override
+		public void endGame() {
+		}
+
+		@Override
+		public void ackMessage() {
+		}
+	}
+}
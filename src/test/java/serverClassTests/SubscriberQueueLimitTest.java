@@ -0,0 +1,184 @@
+package serverClassTests;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+import server.GameMailbox;
+import server.OverflowPolicy;
+import server.SubscriberMetrics;
+import server.SubscriberQueueLimit;
+import server.SubscriberQueueLimit.Admission;
+import common.RemoteMethodCall;
+
+/**
+ * Some tests for the SubscriberQueueLimit class and its overflow policies
+ *
+ * @author Andrea Sessa
+ * @author Giorgio Pea
+ */
+public class SubscriberQueueLimitTest {
+	private SubscriberMetrics metrics = new SubscriberMetrics();
+
+	private RemoteMethodCall chat() {
+		ArrayList<Object> parameters = new ArrayList<Object>();
+		parameters.add("hello");
+		return new RemoteMethodCall("publishChatMsg", parameters);
+	}
+
+	private RemoteMethodCall endGame() {
+		return new RemoteMethodCall("endGame", new ArrayList<Object>());
+	}
+
+	private RemoteMethodCall batch(RemoteMethodCall... calls) {
+		ArrayList<RemoteMethodCall> batched = new ArrayList<RemoteMethodCall>();
+		for (RemoteMethodCall call : calls) {
+			batched.add(call);
+		}
+		ArrayList<Object> parameters = new ArrayList<Object>();
+		parameters.add(batched);
+		return new RemoteMethodCall("deliverBatch", parameters);
+	}
+
+	/**
+	 * Checks that with a full queue chat messages are dropped, while any other
+	 * call disconnects the subscriber
+	 */
+	@Test
+	public void testDropChat() {
+		SubscriberQueueLimit limit = new SubscriberQueueLimit(2,
+				OverflowPolicy.DROP_CHAT, 0, metrics);
+		assertEquals(Admission.ACCEPTED, limit.admit(chat()));
+		assertEquals(Admission.ACCEPTED, limit.admit(endGame()));
+		assertEquals(Admission.DROPPED, limit.admit(chat()));
+		assertEquals(1, metrics.getDropped());
+		assertEquals(Admission.DISCONNECT, limit.admit(endGame()));
+		assertEquals(1, metrics.getDisconnected());
+		assertEquals(2, limit.getMaxDepth());
+	}
+
+	/**
+	 * Checks that with a full queue a batch made only of chat messages is
+	 * dropped, while a batch with any other call disconnects the subscriber
+	 */
+	@Test
+	public void testDropChatBatch() {
+		SubscriberQueueLimit limit = new SubscriberQueueLimit(1,
+				OverflowPolicy.DROP_CHAT, 0, metrics);
+		assertEquals(Admission.ACCEPTED, limit.admit(endGame()));
+		assertEquals(Admission.DROPPED, limit.admit(batch(chat(), chat())));
+		assertEquals(Admission.DISCONNECT,
+				limit.admit(batch(chat(), endGame())));
+		assertEquals(1, metrics.getDropped());
+	}
+
+	/**
+	 * Checks that released calls make room in the queue
+	 */
+	@Test
+	public void testDisconnect() {
+		SubscriberQueueLimit limit = new SubscriberQueueLimit(1,
+				OverflowPolicy.DISCONNECT, 0, metrics);
+		assertEquals(Admission.ACCEPTED, limit.admit(chat()));
+		limit.release(1);
+		assertEquals(Admission.ACCEPTED, limit.admit(chat()));
+		assertEquals(Admission.DISCONNECT, limit.admit(chat()));
+		assertEquals(Admission.DISCONNECT, limit.admit(chat()));
+		assertEquals(1, metrics.getDisconnected());
+	}
+
+	/**
+	 * Checks that the publisher waits for the queue to have room, and that the
+	 * subscriber is disconnected if it never does
+	 */
+	@Test
+	public void testBlock() throws Exception {
+		final SubscriberQueueLimit limit = new SubscriberQueueLimit(1,
+				OverflowPolicy.BLOCK, 2000, metrics);
+		assertEquals(Admission.ACCEPTED, limit.admit(chat()));
+		Thread consumer = new Thread() {
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(100);
+				} catch (InterruptedException e) {
+					return;
+				}
+				limit.release(1);
+			}
+		};
+		consumer.start();
+		assertEquals(Admission.ACCEPTED, limit.admit(chat()));
+		assertEquals(1, metrics.getBlocked());
+		SubscriberQueueLimit stuck = new SubscriberQueueLimit(1,
+				OverflowPolicy.BLOCK, 50, metrics);
+		stuck.admit(chat());
+		assertEquals(Admission.DISCONNECT, stuck.admit(chat()));
+	}
+
+	/**
+	 * Checks that a publisher waiting for room is woken up as soon as the
+	 * subscriber is gone, well before the block timeout
+	 */
+	@Test
+	public void testCancelWakesBlocked() throws Exception {
+		final SubscriberQueueLimit limit = new SubscriberQueueLimit(1,
+				OverflowPolicy.BLOCK, 10000, metrics);
+		limit.admit(chat());
+		Thread canceller = new Thread() {
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(100);
+				} catch (InterruptedException e) {
+					return;
+				}
+				limit.cancel();
+			}
+		};
+		canceller.start();
+		long start = System.currentTimeMillis();
+		assertEquals(Admission.DISCONNECT, limit.admit(chat()));
+		assertTrue(System.currentTimeMillis() - start < 5000);
+		canceller.join();
+	}
+
+	/**
+	 * Checks that a publisher running a message of a game's mailbox doesn't
+	 * wait for room, dropping the chat messages instead
+	 */
+	@Test
+	public void testBlockInMailbox() throws Exception {
+		final SubscriberQueueLimit limit = new SubscriberQueueLimit(1,
+				OverflowPolicy.BLOCK, 10000, metrics);
+		limit.admit(chat());
+		ExecutorService worker = Executors.newSingleThreadExecutor();
+		try {
+			GameMailbox mailbox = new GameMailbox(worker);
+			long start = System.currentTimeMillis();
+			assertEquals(Admission.DROPPED,
+					mailbox.call(new Callable<Admission>() {
+						@Override
+						public Admission call() {
+							return limit.admit(chat());
+						}
+					}));
+			assertEquals(Admission.DISCONNECT,
+					mailbox.call(new Callable<Admission>() {
+						@Override
+						public Admission call() {
+							return limit.admit(endGame());
+						}
+					}));
+			assertTrue(System.currentTimeMillis() - start < 5000);
+			assertEquals(0, metrics.getBlocked());
+		} finally {
+			worker.shutdown();
+		}
+	}
+}